@@ -15,8 +15,10 @@
  */
 package me.zhengjie.annotation;
 
+import me.zhengjie.aspect.LimitAlgorithm;
 import me.zhengjie.aspect.LimitType;
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
@@ -26,12 +28,13 @@ import java.lang.annotation.Target;
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
+@Repeatable(Limits.class)
 public @interface Limit {
 
     // 资源名称，用于描述接口功能
     String name() default "";
 
-    // 资源 key
+    // 资源 key，以 # 开头时作为 SpEL 表达式按方法参数求值，如 #authUser.username
     String key() default "";
 
     // key prefix
@@ -46,4 +49,10 @@ public @interface Limit {
     // 限制类型
     LimitType limitType() default LimitType.CUSTOMER;
 
+    // 限流算法
+    LimitAlgorithm algorithm() default LimitAlgorithm.FIXED_WINDOW;
+
+    // 是否先在本地预检，本节点已必然超限时不访问 Redis 直接拒绝
+    boolean local() default false;
+
 }
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.aspect;
+
+import cn.hutool.core.util.IdUtil;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 限流算法。每个算法对应一个 Lua 脚本，脚本返回 0 表示放行，否则返回需要等待的毫秒数。
+ * 脚本的 SHA1 在创建时计算，执行时先以 EVALSHA 发送，Redis 中不存在时才回退为 EVAL
+ * @author /
+ */
+public enum LimitAlgorithm {
+
+    /**
+     * 固定窗口：窗口内计数，首次访问时开始计时，窗口交界处短时间内最多放行两倍次数
+     */
+    FIXED_WINDOW("local c = redis.call('INCR', KEYS[1]) " +
+            "local ttl = redis.call('PTTL', KEYS[1]) " +
+            "if ttl < 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) ttl = tonumber(ARGV[2]) end " +
+            "if c > tonumber(ARGV[1]) then return ttl end " +
+            "return 0", 2) {
+        @Override
+        Object[] args(int count, long periodMillis) {
+            return new Object[]{String.valueOf(count), String.valueOf(periodMillis)};
+        }
+    },
+
+    /**
+     * 滑动日志：有序集合记录窗口内每次放行的时间，任意一个周期内放行次数都不超过限制
+     */
+    SLIDING_LOG(Scripts.NOW +
+            "local window = tonumber(ARGV[2]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window) " +
+            "if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[1]) then " +
+            "local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') " +
+            "return math.max(math.ceil(tonumber(oldest[2]) + window - now), 1) end " +
+            "redis.call('ZADD', KEYS[1], now, ARGV[3]) " +
+            "redis.call('PEXPIRE', KEYS[1], window) " +
+            "return 0", 1) {
+        @Override
+        Object[] args(int count, long periodMillis) {
+            return new Object[]{String.valueOf(count), String.valueOf(periodMillis), IdUtil.fastSimpleUUID()};
+        }
+    },
+
+    /**
+     * GCRA（令牌桶的等价形式）：只保存理论到达时间，允许一次突发 count 次，之后按 count/period 的速率放行
+     */
+    TOKEN_BUCKET(Scripts.NOW +
+            "local period = tonumber(ARGV[2]) " +
+            "local interval = period / tonumber(ARGV[1]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1]) or now) " +
+            "if tat < now then tat = now end " +
+            "local newTat = tat + interval " +
+            "if newTat - period > now then return math.ceil(newTat - period - now) end " +
+            "redis.call('SET', KEYS[1], tostring(newTat), 'PX', math.ceil(newTat - now)) " +
+            "return 0", 2) {
+        @Override
+        Object[] args(int count, long periodMillis) {
+            return new Object[]{String.valueOf(count), String.valueOf(periodMillis)};
+        }
+    };
+
+    private final RedisScript<Long> script;
+    private final int periodsPerBurst;
+
+    LimitAlgorithm(String script, int periodsPerBurst) {
+        this.script = new DefaultRedisScript<>(script, Long.class);
+        this.periodsPerBurst = periodsPerBurst;
+    }
+
+    RedisScript<Long> script() {
+        return script;
+    }
+
+    /**
+     * 脚本参数
+     * @param count 限制次数
+     * @param periodMillis 周期，单位毫秒
+     * @return ARGV
+     */
+    abstract Object[] args(int count, long periodMillis);
+
+    /**
+     * 任意一个周期内最多放行的次数，本地预检以此判断是否必然超限
+     * @param count 限制次数
+     * @return /
+     */
+    long maxPerPeriod(int count) {
+        return (long) count * periodsPerBurst;
+    }
+
+    private static final class Scripts {
+        /**
+         * 以 Redis 服务器时间取当前毫秒数，各节点时钟不一致时结果仍然一致
+         */
+        private static final String NOW = "if redis.replicate_commands then redis.replicate_commands() end " +
+                "local time = redis.call('TIME') " +
+                "local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000 ";
+    }
+}
@@ -15,8 +15,6 @@
  */
 package me.zhengjie.aspect;
 
-import cn.hutool.core.util.ObjUtil;
-import com.google.common.collect.ImmutableList;
 import me.zhengjie.annotation.Limit;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.utils.RequestHolder;
@@ -28,12 +26,20 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author /
@@ -42,14 +48,18 @@ import java.lang.reflect.Method;
 @Component
 public class LimitAspect {
 
-    private final RedisTemplate<Object,Object> redisTemplate;
     private static final Logger logger = LoggerFactory.getLogger(LimitAspect.class);
+    private static final ExpressionParser PARSER = new SpelExpressionParser();
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
 
-    public LimitAspect(RedisTemplate<Object,Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    private final RateLimiter rateLimiter;
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public LimitAspect(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
     }
 
-    @Pointcut("@annotation(me.zhengjie.annotation.Limit)")
+    @Pointcut("@annotation(me.zhengjie.annotation.Limit) || @annotation(me.zhengjie.annotation.Limits)")
     public void pointcut() {
     }
 
@@ -58,43 +68,45 @@ public class LimitAspect {
         HttpServletRequest request = RequestHolder.getHttpServletRequest();
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method signatureMethod = signature.getMethod();
-        Limit limit = signatureMethod.getAnnotation(Limit.class);
-        LimitType limitType = limit.limitType();
-        String key = limit.key();
-        if (StringUtils.isEmpty(key)) {
-            if (limitType == LimitType.IP) {
-                key = StringUtils.getIp(request);
-            } else {
-                key = signatureMethod.getName();
+        for (Limit limit : signatureMethod.getAnnotationsByType(Limit.class)) {
+            String key = StringUtils.join(limit.prefix(), "_", resolveKey(limit, request, signatureMethod, joinPoint.getArgs()),
+                    "_", request.getRequestURI().replace("/","_"));
+            if (limit.algorithm() != LimitAlgorithm.FIXED_WINDOW) {
+                // 不同算法在 Redis 中的数据结构不同，使用不同的键
+                key = key + "_" + limit.algorithm().name().toLowerCase();
+            }
+            long wait = rateLimiter.acquire(key, limit.algorithm(), limit.count(), limit.period() * 1000L, limit.local());
+            if (wait > 0) {
+                logger.info("Access to the key {} is restricted for {} ms, description [{}] interface", key, wait, limit.name());
+                throw new BadRequestException("Access count is restricted");
             }
         }
-
-        ImmutableList<Object> keys = ImmutableList.of(StringUtils.join(limit.prefix(), "_", key, "_", request.getRequestURI().replace("/","_")));
-
-        String luaScript = buildLuaScript();
-        RedisScript<Long> redisScript = new DefaultRedisScript<>(luaScript, Long.class);
-        Long count = redisTemplate.execute(redisScript, keys, limit.count(), limit.period());
-        if (ObjUtil.isNotNull(count) && count.intValue() <= limit.count()) {
-            logger.info("The {}th access to the key {}, description [{}] interface", count, keys, limit.name());
-            return joinPoint.proceed();
-        } else {
-            throw new BadRequestException("Access count is restricted");
-        }
+        return joinPoint.proceed();
     }
 
-    /**
-     * Rate limiting script
-     */
-    private String buildLuaScript() {
-        return "local c" +
-                "\nc = redis.call('get',KEYS[1])" +
-                "\nif c and tonumber(c) > tonumber(ARGV[1]) then" +
-                "\nreturn c;" +
-                "\nend" +
-                "\nc = redis.call('incr',KEYS[1])" +
-                "\nif tonumber(c) == 1 then" +
-                "\nredis.call('expire',KEYS[1],ARGV[2])" +
-                "\nend" +
-                "\nreturn c;";
+    private String resolveKey(Limit limit, HttpServletRequest request, Method method, Object[] args) {
+        String key = limit.key();
+        if (key.startsWith("#")) {
+            Expression expression = expressions.computeIfAbsent(key, PARSER::parseExpression);
+            Object value = expression.getValue(new MethodBasedEvaluationContext(null, method, args, PARAMETER_NAMES));
+            // 统一小写，避免通过大小写变化绕过限制
+            return String.valueOf(value).toLowerCase();
+        }
+        if (StringUtils.isNotEmpty(key)) {
+            return key;
+        }
+        if (limit.limitType() == LimitType.USER) {
+            // 只信任已通过认证的用户，未校验的令牌可以伪造任意用户名，匿名请求按 IP 限流
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return authentication.getName();
+            }
+            return StringUtils.getIp(request);
+        }
+        if (limit.limitType() == LimitType.IP) {
+            return StringUtils.getIp(request);
+        }
+        return method.getName();
     }
 }
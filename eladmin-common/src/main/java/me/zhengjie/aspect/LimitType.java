@@ -23,5 +23,7 @@ public enum LimitType {
     // 默认
     CUSTOMER,
     //  by ip addr
-    IP
+    IP,
+    // by current user, falls back to ip addr when anonymous
+    USER
 }
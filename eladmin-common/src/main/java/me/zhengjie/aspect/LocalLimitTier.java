@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.aspect;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内限流预检。每个键只统计本节点已被 Redis 放行的次数，本节点在一个周期内的放行次数
+ * 已达到算法在任意周期内的放行上限时，全局必然已经超限，直接拒绝，不再访问 Redis。
+ * 本地窗口从窗口内第一次放行开始计时，完全落在以当前时间结束的一个周期内，因此预检只会拒绝必然超限的请求
+ * @author /
+ */
+class LocalLimitTier {
+
+    private final Cache<String, Window> windows;
+
+    LocalLimitTier(long maximumSize) {
+        this.windows = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * 本节点在当前窗口内的放行次数是否已达到上限
+     * @param key 限流键
+     * @param max 任意一个周期内最多放行的次数
+     * @param periodMillis 周期，单位毫秒
+     * @param now 当前时间，单位毫秒
+     * @return true 必然超限
+     */
+    boolean isExhausted(String key, long max, long periodMillis, long now) {
+        Window window = windows.getIfPresent(key);
+        return window != null && window.admitted(periodMillis, now) >= max;
+    }
+
+    /**
+     * 记录一次 Redis 放行
+     * @param key 限流键
+     * @param periodMillis 周期，单位毫秒
+     * @param now 当前时间，单位毫秒
+     */
+    void admit(String key, long periodMillis, long now) {
+        Window window = windows.asMap().computeIfAbsent(key, k -> new Window());
+        window.admit(periodMillis, now);
+    }
+
+    private static final class Window {
+        private long start;
+        private long admitted;
+
+        synchronized long admitted(long periodMillis, long now) {
+            return now - start < periodMillis ? admitted : 0;
+        }
+
+        synchronized void admit(long periodMillis, long now) {
+            if (now - start >= periodMillis) {
+                start = now;
+                admitted = 0;
+            }
+            admitted++;
+        }
+    }
+}
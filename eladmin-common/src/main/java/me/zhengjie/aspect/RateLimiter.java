@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.aspect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * 限流执行器，按 {@link LimitAlgorithm} 执行对应的 Lua 脚本，可选先经过进程内预检 {@link LocalLimitTier}
+ * @author /
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final LocalLimitTier localTier;
+
+    public RateLimiter(RedisTemplate<Object, Object> redisTemplate,
+                       @Value("${limit.local.maximum-size:100000}") long localMaximumSize) {
+        this.redisTemplate = redisTemplate;
+        this.localTier = new LocalLimitTier(localMaximumSize);
+    }
+
+    /**
+     * 启动时预先加载全部脚本，之后的限流请求只需发送 EVALSHA
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScripts() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                for (LimitAlgorithm algorithm : LimitAlgorithm.values()) {
+                    connection.scriptingCommands().scriptLoad(
+                            algorithm.script().getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // 加载失败时首次限流会回退为 EVAL 并由 Redis 缓存脚本
+            logger.warn("Failed to preload rate limit scripts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 尝试获取一次访问许可
+     * @param key 限流键
+     * @param algorithm 限流算法
+     * @param count 周期内允许的次数
+     * @param periodMillis 周期，单位毫秒
+     * @param local 是否先经过进程内预检
+     * @return 0 表示放行，否则为建议等待的毫秒数
+     */
+    public long acquire(String key, LimitAlgorithm algorithm, int count, long periodMillis, boolean local) {
+        long now = System.currentTimeMillis();
+        if (local && localTier.isExhausted(key, algorithm.maxPerPeriod(count), periodMillis, now)) {
+            logger.debug("Rejected {} locally", key);
+            return periodMillis;
+        }
+        Long wait = redisTemplate.execute(algorithm.script(), StringRedisSerializer.UTF_8, RESULT_SERIALIZER,
+                Collections.<Object>singletonList(key), algorithm.args(count, periodMillis));
+        if (wait == null) {
+            return periodMillis;
+        }
+        if (wait == 0 && local) {
+            localTier.admit(key, periodMillis, now);
+        }
+        return wait;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.base;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 基于表的 pooled-lo 主键生成器，用于替代 IDENTITY，使 Hibernate 能够批量插入。
+ * 每个实体表在 {@link #TABLE} 中占一行，保存已经分配出去的最大主键（Hibernate 默认的 stored_last_used 语义）；
+ * 每次取号预留 {@link #INCREMENT} 个主键，在内存中依次分配，用完后再取下一段。
+ * 取号在独立事务中完成，不会长时间锁住号段。
+ * 使用方式：
+ * <pre>
+ * &#64;Id
+ * &#64;GeneratedValue(generator = PooledIdGenerator.NAME)
+ * &#64;GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
+ * </pre>
+ * 同一张表的 JDBC 批量插入需通过 {@link me.zhengjie.utils.IdBlockAllocator} 从同一号段取号。
+ * @author Zheng Jie
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    public static final String NAME = "pooled";
+    public static final String STRATEGY = "me.zhengjie.base.PooledIdGenerator";
+
+    /**
+     * 号段表
+     */
+    public static final String TABLE = "id_generator";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "last_val";
+
+    /**
+     * 每次预留的主键个数，与 hibernate.jdbc.batch_size 保持一致
+     */
+    public static final int INCREMENT = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        params.putIfAbsent(TABLE_PARAM, TABLE);
+        params.putIfAbsent(SEGMENT_COLUMN_PARAM, SEGMENT_COLUMN);
+        params.putIfAbsent(VALUE_COLUMN_PARAM, VALUE_COLUMN);
+        // 号段名称为实体对应的表名
+        params.putIfAbsent(CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(INCREMENT));
+        // pooled-lo：取到的号段为 (last_val, last_val + increment]，与 IdBlockAllocator 的取号方式一致
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -15,28 +15,86 @@
  */
 package me.zhengjie.config;
 
-import me.zhengjie.utils.SecurityUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * 鉴权，用户的权限按权限版本号编译为位图后缓存，见 {@link PermissionRegistry}
  * @author Zheng Jie
  */
 @Service(value = "el")
 public class AuthorityConfig {
 
+    private final PermissionRegistry registry;
+    private final Cache<String, Grants> grants;
+
+    public AuthorityConfig(PermissionRegistry registry, @Value("${permission.cache-size:10000}") long cacheSize) {
+        this.registry = registry;
+        this.grants = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
     /**
      * 判断接口是否有权限
      * @param permissions 权限
      * @return /
      */
     public Boolean check(String ...permissions){
-        // 获取当前用户的所有权限
-        List<String> elPermissions = SecurityUtils.getCurrentUser().getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+        long[] bits = grantsOf(SecurityContextHolder.getContext().getAuthentication());
         // 判断当前用户的所有权限是否包含接口上定义的权限
-        return elPermissions.contains("admin") || Arrays.stream(permissions).anyMatch(elPermissions::contains);
+        return PermissionRegistry.contains(bits, registry.indexOf("admin")) || containsAny(bits, permissions);
+    }
+
+    /**
+     * 判断用户是否拥有任一权限
+     * @param authentication 认证信息
+     * @param authorities 权限
+     * @return /
+     */
+    public boolean hasAny(Authentication authentication, String... authorities) {
+        return containsAny(grantsOf(authentication), authorities);
+    }
+
+    /**
+     * 获取用户的权限位图，认证信息中的权限不变且权限版本号未变化时使用缓存
+     * @param authentication 认证信息
+     * @return /
+     */
+    public long[] grantsOf(Authentication authentication) {
+        if (authentication == null) {
+            return registry.compile(null);
+        }
+        Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+        long version = registry.version();
+        Grants cached = grants.getIfPresent(authentication.getName());
+        if (cached != null && cached.version() == version
+                && (cached.authorities() == authorities || cached.authorities().equals(authorities))) {
+            return cached.bits();
+        }
+        long[] bits = registry.compile(authorities);
+        grants.put(authentication.getName(), new Grants(version, authorities, bits));
+        return bits;
+    }
+
+    private boolean containsAny(long[] bits, String... authorities) {
+        for (String authority : authorities) {
+            if (PermissionRegistry.contains(bits, registry.indexOf(authority))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Grants(long version, Collection<? extends GrantedAuthority> authorities, long[] bits) {
     }
 }
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 权限注册表，将权限名称映射为本节点内的整数编号，用户的权限编译为 long[] 位图后，鉴权只需按位判断。
+ * 编号只在本节点内有效，位图不会离开节点。
+ * 角色变更时递增 Redis 中的权限版本号并通过 Redis 频道通知所有节点，以版本号为键的权限缓存随之全部失效。
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+public class PermissionRegistry implements MessageListener {
+
+    public static final String CHANNEL = "permission::version";
+    private static final long[] EMPTY = new long[0];
+
+    private final RedisUtils redisUtils;
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+
+    public PermissionRegistry(RedisUtils redisUtils, RedisMessageListenerContainer listenerContainer) {
+        this.redisUtils = redisUtils;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 注册权限名称
+     * @param names 权限名称
+     */
+    public void register(Collection<String> names) {
+        names.forEach(this::intern);
+        log.info("Registered {} permissions", ids.size());
+    }
+
+    /**
+     * 获取权限编号，未注册时分配新编号
+     * @param name 权限名称
+     * @return /
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : ids.computeIfAbsent(name, key -> sequence.getAndIncrement());
+    }
+
+    /**
+     * 获取权限编号，用于鉴权，不分配新编号
+     * @param name 权限名称
+     * @return 未注册时返回 -1
+     */
+    public int indexOf(String name) {
+        return name == null ? -1 : ids.getOrDefault(name, -1);
+    }
+
+    /**
+     * 将权限编译为位图
+     * @param authorities 权限
+     * @return /
+     */
+    public long[] compile(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return EMPTY;
+        }
+        long[] bits = new long[(sequence.get() >>> 6) + 1];
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getAuthority() == null) {
+                continue;
+            }
+            int id = intern(authority.getAuthority());
+            if (id >>> 6 >= bits.length) {
+                bits = Arrays.copyOf(bits, (id >>> 6) + 1);
+            }
+            bits[id >>> 6] |= 1L << id;
+        }
+        return bits;
+    }
+
+    /**
+     * 判断位图中是否包含权限
+     * @param bits 位图
+     * @param id 权限编号
+     * @return /
+     */
+    public static boolean contains(long[] bits, int id) {
+        return id >= 0 && id >>> 6 < bits.length && (bits[id >>> 6] & 1L << id) != 0;
+    }
+
+    /**
+     * 当前权限版本号
+     * @return /
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 拼接当前权限版本号，用作权限缓存的键
+     * @param key /
+     * @return /
+     */
+    public String versioned(Object key) {
+        return key + ":" + version.get();
+    }
+
+    /**
+     * 角色变更后递增权限版本号，并通知所有节点
+     */
+    public void bump() {
+        Long next = redisUtils.increment(CacheKey.PERMISSION_VERSION);
+        if (next == null) {
+            return;
+        }
+        advance(next);
+        redisUtils.publish(CHANNEL, String.valueOf(next));
+    }
+
+    /**
+     * 启动时读取当前权限版本号
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Object value = redisUtils.get(CacheKey.PERMISSION_VERSION);
+        if (value != null) {
+            advance(Long.parseLong(value.toString()));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        advance(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void advance(long next) {
+        // 通知可能乱序到达，版本号只增不减
+        version.accumulateAndGet(next, Math::max);
+    }
+}
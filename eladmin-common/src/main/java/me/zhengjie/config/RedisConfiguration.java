@@ -19,7 +19,11 @@ import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONFactory;
 import com.alibaba.fastjson2.JSONWriter;
 import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.config.cache.TwoLevelCacheManager;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
 import org.apache.commons.codec.digest.MurmurHash3;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.cache.Cache;
@@ -31,9 +35,12 @@ import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
@@ -54,7 +61,7 @@ import java.util.Map;
 public class RedisConfiguration extends CachingConfigurerSupport {
 
     // 自动识别json对象白名单配置（仅允许解析的包名，范围越小越安全）
-    private static final String[] WHITELIST_STR = {"me.zhengjie" };
+    private static final String[] WHITELIST_STR = {"me.zhengjie", "com.srr.player.dto", "com.srr.event.dto" };
 
     /**
      *  设置 redis 数据默认过期时间，默认2小时
@@ -89,16 +96,55 @@ public class RedisConfiguration extends CachingConfigurerSupport {
     }
 
     /**
-     * 缓存管理器
+     * 缓存管理器，进程内一级缓存 + Redis 二级缓存。
+     * 以 {@link CacheKey} 为名称的缓存直接以名称作为 Redis 键前缀，键与原先手动缓存时保持一致
      * @param redisConnectionFactory /
+     * @param redisUtils /
+     * @param redisMessageListenerContainer /
+     * @param maximumSize 每个缓存的一级缓存容量
+     * @param expireAfterWrite 一级缓存过期时间，单位秒
      * @return 缓存管理器
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, RedisUtils redisUtils,
+                                             RedisMessageListenerContainer redisMessageListenerContainer,
+                                             @Value("${cache.local.maximum-size:10000}") long maximumSize,
+                                             @Value("${cache.local.expire-after-write:600}") long expireAfterWrite) {
         RedisCacheConfiguration config = redisCacheConfiguration();
-        return RedisCacheManager.builder(redisConnectionFactory)
+        Map<String, RedisCacheConfiguration> keyed = new HashMap<>(8);
+        keyed.put(CacheKey.USER_ID, keyedCacheConfiguration(config, Duration.ofDays(1)));
+        keyed.put(CacheKey.ROLE_ID, keyedCacheConfiguration(config, Duration.ofDays(1)));
+        keyed.put(CacheKey.ROLE_USER, keyedCacheConfiguration(config, Duration.ofDays(1)));
+        keyed.put(CacheKey.ROLE_AUTH, keyedCacheConfiguration(config, Duration.ofHours(1)));
+        keyed.put(CacheKey.DICT_NAME, keyedCacheConfiguration(config, Duration.ofDays(1)));
+        keyed.put(CacheKey.PLAYER_DASHBOARD, keyedCacheConfiguration(config, Duration.ofMinutes(5)));
+        keyed.put(CacheKey.EVENT_REPORT, keyedCacheConfiguration(config, Duration.ofDays(1)));
+        // 清空缓存时以 SCAN 分批查找键，不使用会阻塞 Redis 的 KEYS
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory,
+                BatchStrategies.scan(1000));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(config)
+                .withInitialCacheConfigurations(keyed)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, redisUtils, redisMessageListenerContainer,
+                maximumSize, expireAfterWrite);
+    }
+
+    private static RedisCacheConfiguration keyedCacheConfiguration(RedisCacheConfiguration config, Duration ttl) {
+        return config.entryTtl(ttl).computePrefixWith(name -> name).disableCachingNullValues();
+    }
+
+    /**
+     * Redis 消息订阅容器, 用于节点间的缓存失效通知
+     * @param redisConnectionFactory /
+     * @return /
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
     }
 
     /**
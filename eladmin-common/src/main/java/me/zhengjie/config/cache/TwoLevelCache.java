@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config.cache;
+
+import com.google.common.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 二级缓存：进程内一级缓存在前，Redis 二级缓存在后。
+ * 读取依次查询一级、二级缓存，二级命中时回填一级缓存；写入与删除先作用于 Redis，
+ * 再更新本地缓存。只有覆盖或删除了已有的值时才通知其他节点失效各自的一级缓存，
+ * 未命中后的回填不会产生通知。一级缓存的键统一使用键的字符串形式，
+ * 与 Redis 中的键以及失效通知中的键保持一致。
+ * @author Zheng Jie
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final org.springframework.cache.Cache remote;
+    private final Cache<String, Object> local;
+    private final TwoLevelCacheManager manager;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TwoLevelCache(String name, org.springframework.cache.Cache remote, Cache<String, Object> local,
+                  TwoLevelCacheManager manager) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.manager = manager;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(@NonNull Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            local.put(localKey, wrapper.get());
+        } else {
+            misses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            // 类型不符的值视为未命中，删除后由调用方重新加载
+            evict(key);
+            return null;
+        }
+        return (T) value;
+    }
+
+    /**
+     * 读取列表类型的缓存值。值不是列表或元素类型不符时视为未命中并删除该缓存项，
+     * 用于替代 {@code cache.get(key, List.class)} 的未检查转换
+     * @param cache 缓存
+     * @param key 键
+     * @param elementType 元素类型
+     * @return 缓存的列表，未命中时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> getList(org.springframework.cache.Cache cache, Object key, Class<T> elementType) {
+        ValueWrapper wrapper = cache.get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof List && ((List<?>) value).stream().allMatch(elementType::isInstance)) {
+            return (List<T>) value;
+        }
+        cache.evict(key);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        ValueWrapper existing = putIfAbsent(key, value);
+        return existing == null || existing.get() == null ? value : (T) existing.get();
+    }
+
+    /**
+     * 写入缓存。键在 Redis 中不存在时只是回填，其他节点不会持有该键的一级缓存，无需通知；
+     * 覆盖已有的值时才通知其他节点失效
+     */
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        String localKey = localKey(key);
+        if (value == null) {
+            remote.put(key, null);
+            local.invalidate(localKey);
+            manager.publishEvict(name, localKey);
+            return;
+        }
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing != null) {
+            remote.put(key, value);
+        }
+        local.put(localKey, value);
+        if (existing != null) {
+            manager.publishEvict(name, localKey);
+        }
+    }
+
+    /**
+     * 未命中后的回填，只在键不存在时写入，不通知其他节点
+     */
+    @Override
+    public ValueWrapper putIfAbsent(@NonNull Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing == null && value != null) {
+            local.put(localKey(key), value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        manager.publishEvict(name, localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(@NonNull Object key) {
+        boolean present = remote.evictIfPresent(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        manager.publishEvict(name, localKey);
+        return present;
+    }
+
+    /**
+     * 批量删除。Redis 缓存中的键以一次流水线 UNLINK 删除，其他节点只收到一条失效通知
+     * @param keys 键
+     */
+    public void evictAll(@NonNull Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = keys.stream().map(TwoLevelCache::localKey).collect(Collectors.toList());
+        if (remote instanceof RedisCache && keys.stream().allMatch(key -> key instanceof String || key instanceof Number)) {
+            RedisCacheConfiguration configuration = ((RedisCache) remote).getCacheConfiguration();
+            String prefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(name) : "";
+            manager.unlink(localKeys.stream().map(key -> prefix + key).collect(Collectors.toList()));
+        } else {
+            keys.forEach(remote::evict);
+        }
+        local.invalidateAll(localKeys);
+        manager.publishEvictAll(name, localKeys);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    /**
+     * 缓存命中统计
+     * @return /
+     */
+    public Map<String, Object> stats() {
+        long localHit = localHits.sum();
+        long remoteHit = remoteHits.sum();
+        long miss = misses.sum();
+        long requests = localHit + remoteHit + miss;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localSize", local.size());
+        stats.put("localHits", localHit);
+        stats.put("remoteHits", remoteHit);
+        stats.put("misses", miss);
+        stats.put("localHitRatio", requests == 0 ? 0D : (double) localHit / requests);
+        stats.put("hitRatio", requests == 0 ? 0D : (double) (localHit + remoteHit) / requests);
+        return stats;
+    }
+
+    /**
+     * 仅失效本地一级缓存，用于响应其他节点的通知
+     * @param localKey 键的字符串形式
+     */
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    void evictLocal(Collection<String> localKeys) {
+        local.invalidateAll(localKeys);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config.cache;
+
+import cn.hutool.core.util.IdUtil;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器，为 Redis 缓存管理器中的每个缓存加上有界的进程内一级缓存，见 {@link TwoLevelCache}。
+ * 写入与删除通过 Redis 频道通知所有节点失效一级缓存，节点忽略自己发出的通知。
+ * @author Zheng Jie
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String CHANNEL = "cache::evict";
+    private static final String EVICT = "evict";
+    private static final String EVICT_ALL = "evictAll";
+    private static final String CLEAR = "clear";
+
+    private final CacheManager remote;
+    private final RedisUtils redisUtils;
+    private final long maximumSize;
+    private final long expireAfterWrite;
+    private final String nodeId = IdUtil.fastSimpleUUID();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param remote Redis 缓存管理器
+     * @param redisUtils /
+     * @param listenerContainer Redis 消息订阅容器
+     * @param maximumSize 每个缓存的一级缓存容量
+     * @param expireAfterWrite 一级缓存写入后的过期时间，单位秒
+     */
+    public TwoLevelCacheManager(CacheManager remote, RedisUtils redisUtils, RedisMessageListenerContainer listenerContainer,
+                                long maximumSize, long expireAfterWrite) {
+        this.remote = remote;
+        this.redisUtils = redisUtils;
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public Cache getCache(@NonNull String name) {
+        return caches.computeIfAbsent(name, key -> {
+            Cache cache = remote.getCache(key);
+            if (cache == null) {
+                return null;
+            }
+            return new TwoLevelCache(key, cache, CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS)
+                    .build(), this);
+        });
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /**
+     * 各缓存的命中统计
+     * @return 缓存名称 -> 统计
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+
+    void publishEvict(String name, String localKey) {
+        redisUtils.publish(CHANNEL, String.join("\n", nodeId, EVICT, name, localKey));
+    }
+
+    void publishEvictAll(String name, Collection<String> localKeys) {
+        redisUtils.publish(CHANNEL, String.join("\n", nodeId, EVICT_ALL, name, String.join("\n", localKeys)));
+    }
+
+    void unlink(Collection<String> keys) {
+        redisUtils.unlink(keys);
+    }
+
+    void publishClear(String name) {
+        redisUtils.publish(CHANNEL, String.join("\n", nodeId, CLEAR, name));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        } else if (EVICT_ALL.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(Arrays.asList(parts[3].split("\n")));
+        } else {
+            log.warn("Unknown cache eviction message: {}", parts[1]);
+        }
+    }
+}
@@ -15,8 +15,13 @@
  */
 package me.zhengjie.config.webConfig;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.server.standard.ServerEndpointExporter;
 
 /**
@@ -24,10 +29,32 @@ import org.springframework.web.socket.server.standard.ServerEndpointExporter;
  * @date 2019-08-24 15:44
  */
 @Configuration
-public class WebSocketConfig {
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+	/**
+	 * STOMP 连接地址，客户端订阅 /topic 下的主题接收推送
+	 */
+	public static final String STOMP_ENDPOINT = "/webSocket/live";
+
+	/**
+	 * 允许连接的前端地址，握手不携带令牌，连接鉴权在 CONNECT 帧中完成
+	 */
+	@Value("${websocket.allowed-origins:http://localhost:8013}")
+	private String[] allowedOrigins;
 
 	@Bean
 	public ServerEndpointExporter serverEndpointExporter() {
 		return new ServerEndpointExporter();
 	}
+
+	@Override
+	public void registerStompEndpoints(StompEndpointRegistry registry) {
+		registry.addEndpoint(STOMP_ENDPOINT).setAllowedOriginPatterns(allowedOrigins);
+	}
+
+	@Override
+	public void configureMessageBroker(MessageBrokerRegistry registry) {
+		registry.enableSimpleBroker("/topic");
+	}
 }
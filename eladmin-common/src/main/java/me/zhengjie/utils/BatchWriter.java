@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 基于 {@link RingBuffer} 的异步批量写入器。
+ * 生产者只把元素放入环形队列，后台线程按批量大小或时间间隔把元素交给写入函数；
+ * 停止时会把队列中剩余的元素全部写入，写入失败只记录日志与计数，不影响后续批次。
+ * @author Zheng Jie
+ */
+@Slf4j
+public class BatchWriter<E> {
+
+    private final String name;
+    private final RingBuffer<E> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<E>> sink;
+
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    /**
+     * @param name 名称，同时作为后台线程名
+     * @param capacity 队列容量
+     * @param batchSize 每批最多写入的数量
+     * @param flushInterval 未满一批时最长等待的毫秒数
+     * @param sink 写入函数，失败时抛出异常
+     */
+    public BatchWriter(String name, int capacity, int batchSize, long flushInterval, Consumer<List<E>> sink) {
+        this.name = name;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        this.sink = sink;
+    }
+
+    /**
+     * 启动后台写入线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        drainer = new Thread(this::drainLoop, name);
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * 入队
+     * @param element 元素
+     * @return 已停止或队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        return running && buffer.offer(element);
+    }
+
+    /**
+     * 入队，队列满时唤醒写入线程并限时等待
+     * @param element 元素
+     * @param timeoutNanos 最长等待的纳秒数
+     * @return 已停止或超时仍未入队时返回 false
+     */
+    public boolean offer(E element, long timeoutNanos) {
+        if (offer(element)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (running && System.nanoTime() < deadline) {
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            if (offer(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在调用方线程直接写入，写入后会清空集合
+     * @param batch 元素
+     */
+    public void write(List<E> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.accept(batch);
+            flushed.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Failed to write {} {} records: {}", batch.size(), name, e.getMessage(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 停止后台线程并写完队列中剩余的元素
+     * @throws InterruptedException 等待后台线程退出时被中断
+     */
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = drainer;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // 后台线程未能及时退出时，由调用线程写完剩余元素
+        List<E> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long flushed() {
+        return flushed.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public int pending() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    private void drainLoop() {
+        List<E> batch = new ArrayList<>(batchSize);
+        long firstPending = 0;
+        while (running) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (drained > 0 && firstPending == 0) {
+                firstPending = System.nanoTime();
+            }
+            if (batch.size() >= batchSize
+                    || (!batch.isEmpty() && System.nanoTime() - firstPending >= flushIntervalNanos)) {
+                write(batch);
+                firstPending = 0;
+            } else if (drained == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        do {
+            write(batch);
+        } while (buffer.drainTo(batch, batchSize) > 0);
+    }
+}
@@ -44,6 +44,11 @@ public interface CacheKey {
     String ROLE_AUTH = "role::auth:";
     String ROLE_USER = "role::user:";
 
+    /**
+     * 权限版本号
+     */
+    String PERMISSION_VERSION = "permission::version";
+
     /**
      * 角色信息
      */
@@ -58,4 +63,77 @@ public interface CacheKey {
      * 数据字典
      */
     String DICT_NAME = "dict::name:";
+
+    /**
+     * 分组积分矩阵
+     */
+    String GROUP_STANDINGS = "match_group::standings:";
+
+    /**
+     * 分组积分矩阵版本号，每次更新或失效时递增
+     */
+    String GROUP_STANDINGS_VERSION = "match_group::standings_version:";
+
+    /**
+     * 排行榜
+     */
+    String LEADERBOARD = "leaderboard::rating:";
+    String LEADERBOARD_STATS = "leaderboard::stats:";
+
+    /**
+     * 排行榜重建时的临时键前缀
+     */
+    String LEADERBOARD_TMP = "leaderboard::rebuild:";
+
+    /**
+     * 所有排行榜键的登记集合，重建时据此清理过期的榜单
+     */
+    String LEADERBOARD_KEYS = "leaderboard::keys";
+
+    /**
+     * 排行榜键的版本号前缀，每次增量更新前递增
+     */
+    String LEADERBOARD_VERSION = "leaderboard::version:";
+
+    /**
+     * 球员看板，键中带有球员的版本号
+     */
+    String PLAYER_DASHBOARD = "player::dashboard:";
+
+    /**
+     * 球员看板版本号前缀，积分结算或报名变化时递增，旧版本的缓存不再被读取
+     */
+    String PLAYER_DASHBOARD_VERSION = "player::dashboard_version:";
+
+    /**
+     * 已结束赛事的成绩与积分报告，键中带有赛事的版本号
+     */
+    String EVENT_REPORT = "event::report:";
+
+    /**
+     * 赛事报告版本号前缀，积分重新结算或成绩变化时递增
+     */
+    String EVENT_REPORT_VERSION = "event::report_version:";
+
+    /**
+     * 在线会话索引：按登录时间排序的会话、按过期时间排序的会话、每个用户的会话
+     */
+    String ONLINE_SESSIONS = "online::sessions";
+    String ONLINE_EXPIRY = "online::expiry";
+    String ONLINE_USER = "online::user:";
+
+    /**
+     * 无状态模式下已吊销的会话与用户
+     */
+    String AUTH_REVOKED = "auth::revoked";
+
+    /**
+     * 赛事签到开启延时队列
+     */
+    String EVENT_CHECK_IN_QUEUE = "event::check_in:queue";
+
+    /**
+     * 赛事签到开启处理中队列，分数为处理超时时间
+     */
+    String EVENT_CHECK_IN_PROCESSING = "event::check_in:processing";
 }
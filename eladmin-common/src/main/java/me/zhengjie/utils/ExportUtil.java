@@ -0,0 +1,270 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 流式导出工具，逐行将数据写入响应流，内存占用与导出总行数无关。
+ * Excel 使用 SXSSF，内存中只保留最近 {@link #ROW_WINDOW} 行，其余行写入压缩的临时文件；
+ * 单个工作表写满 {@link #MAX_SHEET_ROWS} 行后续写到新的工作表，每个工作表都带标题行；
+ * CSV 直接写入响应流。两种格式都会对以 = + - @ 开头的文本添加单引号前缀，防止公式注入。
+ * @author Zheng Jie
+ */
+public class ExportUtil {
+
+    /**
+     * Excel 内存中保留的行数
+     */
+    public static final int ROW_WINDOW = 100;
+
+    /**
+     * 导出时每批从数据库读取的行数
+     */
+    public static final int BATCH_SIZE = 500;
+
+    /**
+     * XLSX 单个工作表的最大行数，含标题行
+     */
+    public static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final int MAX_CELL_LENGTH = 32767;
+    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
+
+    private ExportUtil() {
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet;charset=utf-8"),
+        CSV("text/csv;charset=utf-8");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        /**
+         * 解析导出格式，不区分大小写，为空或无法识别时使用 XLSX
+         * @param value /
+         * @return /
+         */
+        public static Format of(String value) {
+            return "csv".equalsIgnoreCase(value) ? CSV : XLSX;
+        }
+    }
+
+    /**
+     * 导出列定义，按添加顺序输出
+     * @param <T> 行类型
+     */
+    public static class Columns<T> {
+        private final List<String> titles = new ArrayList<>();
+        private final List<Function<T, ?>> values = new ArrayList<>();
+
+        public Columns<T> add(String title, Function<T, ?> value) {
+            titles.add(title);
+            values.add(value);
+            return this;
+        }
+    }
+
+    public static <T> Columns<T> columns() {
+        return new Columns<>();
+    }
+
+    /**
+     * 导出数据，完成后关闭数据流
+     * @param response /
+     * @param fileName 不含扩展名的文件名，不能为中文
+     * @param format 导出格式
+     * @param columns 列定义
+     * @param rows 数据
+     * @throws IOException /
+     */
+    public static <T> void export(HttpServletResponse response, String fileName, Format format,
+                                  Columns<T> columns, Stream<T> rows) throws IOException {
+        response.setContentType(format.contentType);
+        response.setHeader("Content-Disposition", "attachment;filename=" + fileName + "." + format.name().toLowerCase());
+        try (Stream<T> data = rows) {
+            if (format == Format.CSV) {
+                writeCsv(response.getOutputStream(), columns, data);
+            } else {
+                writeExcel(response.getOutputStream(), columns, data);
+            }
+        }
+    }
+
+    static <T> void writeExcel(OutputStream out, Columns<T> columns, Stream<T> rows) throws IOException {
+        writeExcel(out, columns, rows, MAX_SHEET_ROWS);
+    }
+
+    static <T> void writeExcel(OutputStream out, Columns<T> columns, Stream<T> rows, int maxSheetRows) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            CellStyle titleStyle = workbook.createCellStyle();
+            titleStyle.setFont(bold);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat(DATE_PATTERN));
+
+            SXSSFSheet sheet = createSheet(workbook, columns, titleStyle);
+            int rowIndex = 1;
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T item = iterator.next();
+                if (rowIndex == maxSheetRows) {
+                    sheet = createSheet(workbook, columns, titleStyle);
+                    rowIndex = 1;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                for (int i = 0; i < columns.values.size(); i++) {
+                    setCell(row.createCell(i), columns.values.get(i).apply(item), dateStyle);
+                }
+            }
+            workbook.write(out);
+            out.flush();
+        } finally {
+            // 删除临时文件
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static <T> SXSSFSheet createSheet(SXSSFWorkbook workbook, Columns<T> columns, CellStyle titleStyle) {
+        SXSSFSheet sheet = workbook.createSheet();
+        Row title = sheet.createRow(0);
+        for (int i = 0; i < columns.titles.size(); i++) {
+            Cell cell = title.createCell(i);
+            cell.setCellValue(columns.titles.get(i));
+            cell.setCellStyle(titleStyle);
+            // 流式写出无法根据全部内容自适应列宽，按标题长度给出固定列宽
+            sheet.setColumnWidth(i, Math.min(Math.max(columns.titles.get(i).length() + 4, 16), 60) * 256);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    static <T> void writeCsv(OutputStream out, Columns<T> columns, Stream<T> rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM，使 Excel 以 UTF-8 打开
+        writer.write('\uFEFF');
+        writeCsvLine(writer, columns.titles);
+        List<Object> line = new ArrayList<>(columns.values.size());
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            line.clear();
+            for (Function<T, ?> value : columns.values) {
+                line.add(value.apply(item));
+            }
+            writeCsvLine(writer, line);
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String text = csvText(values.get(i));
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date) {
+            return DateUtil.toLocalDateTime((Date) value).format(DATE_FORMATTER);
+        }
+        if (value instanceof LocalDate) {
+            return value.toString();
+        }
+        if (value instanceof TemporalAccessor) {
+            return DATE_FORMATTER.format((TemporalAccessor) value);
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return sanitize(String.valueOf(value));
+    }
+
+    private static void setCell(Cell cell, Object value, CellStyle dateStyle) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue(value.toString());
+        } else {
+            String text = sanitize(String.valueOf(value));
+            cell.setCellValue(text.length() > MAX_CELL_LENGTH ? text.substring(0, MAX_CELL_LENGTH) : text);
+        }
+    }
+
+    /**
+     * 处理以特殊字符开头的文本，防止 CSV / Excel 公式注入
+     */
+    private static String sanitize(String value) {
+        if (value.startsWith("=") || value.startsWith("+") || value.startsWith("-") || value.startsWith("@")) {
+            return "'" + value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 文件流式输出工具，支持 ETag / Last-Modified 条件请求与单段、多段 Range 请求。
+ * 多段请求中重叠或相邻的区间会先合并；段数超过 {@link #MAX_RANGES}，或请求的总长度超过文件长度时，
+ * 忽略 Range 返回整个文件，避免大量重叠区间放大输出。
+ * 容器支持 sendfile 时（Tomcat NIO）由容器直接零拷贝发送，否则通过 FileChannel.transferTo 输出。
+ * @author Zheng Jie
+ */
+@Slf4j
+public class FileStreamUtil {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 单个请求最多接受的区间数
+     */
+    static final int MAX_RANGES = 16;
+
+    private FileStreamUtil() {
+    }
+
+    /**
+     * 生成 ETag，有 MD5 时为强校验值，否则根据文件长度与修改时间生成弱校验值
+     * @param file 文件
+     * @param md5 文件 MD5，可为空
+     * @return ETag
+     */
+    public static String etag(File file, String md5) {
+        if (StringUtils.isNotBlank(md5)) {
+            return "\"" + md5 + "\"";
+        }
+        return "W/\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+    }
+
+    /**
+     * 输出文件
+     * @param request /
+     * @param response /
+     * @param file 文件
+     * @param etag ETag，见 {@link #etag(File, String)}
+     * @param contentType 内容类型
+     * @param fileName 展示的文件名
+     * @throws IOException /
+     */
+    public static void stream(HttpServletRequest request, HttpServletResponse response, File file,
+                              String etag, String contentType, String fileName) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified() / 1000 * 1000;
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (StringUtils.isBlank(rangeHeader) || !ifRangeMatches(request, etag, lastModified)) {
+            response.setContentType(contentType);
+            send(request, response, file, 0, length);
+            return;
+        }
+
+        List<long[]> ranges;
+        try {
+            List<HttpRange> requested = HttpRange.parseRanges(rangeHeader);
+            for (HttpRange range : requested) {
+                if (range.getRangeStart(length) >= length) {
+                    throw new IllegalArgumentException("Range start beyond end of file");
+                }
+            }
+            ranges = merge(requested, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (ranges == null || ranges.isEmpty()) {
+            response.setContentType(contentType);
+            send(request, response, file, 0, length);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            send(request, response, file, start, end + 1);
+            return;
+        }
+
+        // 多段请求按 multipart/byteranges 输出
+        String boundary = IdUtil.simpleUUID();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            for (long[] range : ranges) {
+                long start = range[0];
+                long end = range[1];
+                String partHeader = "\r\n--" + boundary + "\r\n" +
+                        HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n" +
+                        HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n";
+                out.write(partHeader.getBytes(StandardCharsets.ISO_8859_1));
+                transfer(channel, start, end + 1, target);
+            }
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        out.flush();
+    }
+
+    /**
+     * 按起始位置排序并合并重叠或相邻的区间
+     * @param ranges 请求的区间，起始位置均在文件内
+     * @param length 文件长度
+     * @return 合并后的闭区间 [start, end]；超过段数或总长度限制时返回 null，由调用方返回整个文件
+     */
+    static List<long[]> merge(List<HttpRange> ranges, long length) {
+        if (ranges.size() > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> resolved = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            total += end - start + 1;
+            resolved.add(new long[]{start, end});
+        }
+        if (total > length) {
+            return null;
+        }
+        resolved.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>(resolved.size());
+        for (long[] range : resolved) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 客户端缓存是否仍然有效，If-None-Match 优先于 If-Modified-Since
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            String opaque = opaqueTag(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                candidate = candidate.trim();
+                if ("*".equals(candidate) || opaque.equals(opaqueTag(candidate))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 只接受强 ETag 或日期，不匹配时返回整个文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StringUtils.isBlank(ifRange)) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && etag.equals(ifRange);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && lastModified <= date;
+    }
+
+    private static void send(HttpServletRequest request, HttpServletResponse response, File file,
+                             long start, long end) throws IOException {
+        response.setContentLengthLong(end - start);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private static void transfer(FileChannel channel, long start, long end, WritableByteChannel target) throws IOException {
+        long position = start;
+        while (position < end) {
+            long written = channel.transferTo(position, end - position, target);
+            if (written <= 0) {
+                break;
+            }
+            position += written;
+        }
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import me.zhengjie.base.PooledIdGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 为 JDBC 批量插入从 {@link PooledIdGenerator} 的号段表中一次预留一段连续主键，
+ * 使同一张表的 Hibernate 插入与 JDBC 批量插入不会分到相同的主键。
+ * 预留在独立事务中以一条 UPDATE 完成，调用方事务回滚时已预留的主键作废，不会被重复分配。
+ * @author Zheng Jie
+ */
+@Component
+public class IdBlockAllocator {
+
+    private static final String RESERVE_SQL = "UPDATE " + PooledIdGenerator.TABLE + " SET "
+            + PooledIdGenerator.VALUE_COLUMN + " = LAST_INSERT_ID(" + PooledIdGenerator.VALUE_COLUMN + " + ?) WHERE "
+            + PooledIdGenerator.SEGMENT_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 预留一段连续主键
+     * @param table 表名，即号段名称
+     * @param count 主键个数
+     * @return 第一个主键，其余主键依次加一
+     */
+    public long allocate(String table, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one id must be allocated");
+        }
+        Long last = requiresNew.execute(status -> {
+            if (jdbcTemplate.update(RESERVE_SQL, count, table) == 0) {
+                throw new IllegalStateException("No id segment for table " + table);
+            }
+            // LAST_INSERT_ID 按连接保存，与上面的 UPDATE 处于同一事务、同一连接
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        });
+        return last - count + 1;
+    }
+}
@@ -22,28 +22,48 @@ import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.annotation.DataPermission;
 import me.zhengjie.annotation.Query;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 import javax.persistence.criteria.*;
+import javax.persistence.metamodel.EntityType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * 根据查询条件类上的 {@link Query} 注解生成查询条件。
+ * 每个查询条件类只在首次使用时解析一次：字段读取编译为 MethodHandle，关联路径与模糊字段预先拆分，
+ * 查询类型预先绑定为条件构造器，之后每次查询只需处理值不为空的字段。
  * @author Zheng Jie
  * @date 2019-6-4 14:59:48
  */
 @Slf4j
 @SuppressWarnings({"unchecked", "all"})
 public class QueryHelp {
+
+    private static final ClassValue<QueryPlan> PLANS = new ClassValue<QueryPlan>() {
+        @Override
+        protected QueryPlan computeValue(Class<?> type) {
+            return QueryPlan.compile(type);
+        }
+    };
+
     public static <R, Q> Predicate getPredicate(Root<R> root, Q query, CriteriaBuilder cb) {
         List<Predicate> list = new ArrayList<>();
         if (query == null) {
             return cb.and(list.toArray(new Predicate[0]));
         }
+        QueryPlan plan = PLANS.get(query.getClass());
         // 数据权限验证
-        DataPermission permission = query.getClass().getAnnotation(DataPermission.class);
+        DataPermission permission = plan.permission;
         if (permission != null) {
             // 获取数据权限
             List<Long> dataScopes = SecurityUtils.getCurrentUserDataScope();
@@ -57,147 +77,26 @@ public class QueryHelp {
             }
         }
         try {
-            Map<String, Join> joinKey = new HashMap<>();
-            List<Field> fields = getAllFields(query.getClass(), new ArrayList<>());
-            for (Field field : fields) {
-                boolean accessible = field.isAccessible();
-                // 设置对象的访问权限，保证对private的属性的访
-                field.setAccessible(true);
-                Query q = field.getAnnotation(Query.class);
-                if (q != null) {
-                    String propName = q.propName();
-                    String joinName = q.joinName();
-                    String blurry = q.blurry();
-                    String dateFormat = q.dateFormat();
-                    String attributeName = isBlank(propName) ? field.getName() : propName;
-                    Class<?> fieldType = field.getType();
-                    Object val = field.get(query);
-                    if (ObjectUtil.isNull(val) || "".equals(val)) {
-                        continue;
-                    }
-                    Join join = null;
-                    // 模糊多字段
-                    if (ObjectUtil.isNotEmpty(blurry)) {
-                        String[] blurrys = blurry.split(",");
-                        List<Predicate> orPredicate = new ArrayList<>();
-                        for (String s : blurrys) {
-                            orPredicate.add(cb.like(root.get(s.trim()).as(String.class), "%" + val.toString() + "%"));
-                        }
-                        if (!orPredicate.isEmpty()) {
-                            list.add(cb.or(orPredicate.toArray(new Predicate[0])));
-                        }
-                        continue;
+            Map<String, Join> joinKey = null;
+            for (QueryField field : plan.fields) {
+                Object val = field.get(query);
+                if (ObjectUtil.isNull(val) || "".equals(val)) {
+                    continue;
+                }
+                Join join = null;
+                if (field.joinPath != null) {
+                    if (joinKey == null) {
+                        joinKey = new HashMap<>(4);
                     }
-                    if (ObjectUtil.isNotEmpty(joinName)) {
-                        join = joinKey.get(joinName);
-                        if (join == null) {
-                            String[] joinNames = joinName.split(">");
-                            for (String name : joinNames) {
-                                switch (q.join()) {
-                                    case LEFT:
-                                        if (ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)) {
-                                            join = join.join(name, JoinType.LEFT);
-                                        } else {
-                                            join = root.join(name, JoinType.LEFT);
-                                        }
-                                        break;
-                                    case RIGHT:
-                                        if (ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)) {
-                                            join = join.join(name, JoinType.RIGHT);
-                                        } else {
-                                            join = root.join(name, JoinType.RIGHT);
-                                        }
-                                        break;
-                                    case INNER:
-                                        if (ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)) {
-                                            join = join.join(name, JoinType.INNER);
-                                        } else {
-                                            join = root.join(name, JoinType.INNER);
-                                        }
-                                        break;
-                                    default:
-                                        break;
-                                }
-                            }
-                            joinKey.put(joinName, join);
+                    join = joinKey.get(field.joinName);
+                    if (join == null) {
+                        for (String name : field.joinPath) {
+                            join = join == null ? root.join(name, field.joinType) : join.join(name, field.joinType);
                         }
-                    }
-                    switch (q.type()) {
-                        case EQUAL:
-                            list.add(cb.equal(getExpression(attributeName, join, root)
-                                    .as((Class<? extends Comparable>) fieldType), val));
-                            break;
-
-                        case EQUAL_DATE:
-                            LocalDate date = (LocalDate) val;
-
-                            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
-                            Expression<LocalDateTime> expression = getExpression(attributeName, join, root).as(LocalDateTime.class);
-                            LocalDateTime startOfDay = date.atStartOfDay();
-                            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-                            list.add(cb.between(expression, startOfDay, endOfDay));
-
-                            break;
-
-                        case GREATER_THAN:
-                            list.add(cb.greaterThanOrEqualTo(getExpression(attributeName, join, root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case LESS_THAN:
-                            list.add(cb.lessThanOrEqualTo(getExpression(attributeName, join, root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case LESS_THAN_NQ:
-                            list.add(cb.lessThan(getExpression(attributeName, join, root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case INNER_LIKE:
-                            list.add(cb.like(getExpression(attributeName, join, root)
-                                    .as(String.class), "%" + val.toString() + "%"));
-                            break;
-                        case LEFT_LIKE:
-                            list.add(cb.like(getExpression(attributeName, join, root)
-                                    .as(String.class), "%" + val.toString()));
-                            break;
-                        case RIGHT_LIKE:
-                            list.add(cb.like(getExpression(attributeName, join, root)
-                                    .as(String.class), val.toString() + "%"));
-                            break;
-                        case IN:
-                            if (CollUtil.isNotEmpty((Collection<Object>) val)) {
-                                list.add(getExpression(attributeName, join, root).in((Collection<Object>) val));
-                            }
-                            break;
-                        case NOT_IN:
-                            if (CollUtil.isNotEmpty((Collection<Object>) val)) {
-                                list.add(getExpression(attributeName, join, root).in((Collection<Object>) val).not());
-                            }
-                            break;
-                        case NOT_EQUAL:
-                            list.add(cb.notEqual(getExpression(attributeName, join, root), val));
-                            break;
-                        case NOT_NULL:
-                            list.add(cb.isNotNull(getExpression(attributeName, join, root)));
-                            break;
-                        case IS_NULL:
-                            list.add(cb.isNull(getExpression(attributeName, join, root)));
-                            break;
-                        case BETWEEN:
-                            List<Object> between = new ArrayList<>((List<Object>) val);
-                            if (between.size() == 2) {
-                                list.add(cb.between(getExpression(attributeName, join, root).as((Class<? extends Comparable>) between.get(0).getClass()),
-                                        (Comparable) between.get(0), (Comparable) between.get(1)));
-                            }
-                            break;
-                        case FIND_IN_SET:
-                            list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
-                                    cb.literal(val.toString()), root.get(attributeName)), 0));
-                            break;
-                        default:
-                            break;
+                        joinKey.put(field.joinName, join);
                     }
                 }
-                field.setAccessible(accessible);
+                field.condition.apply(cb, root, join, field, val, list);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -206,6 +105,63 @@ public class QueryHelp {
         return cb.and(list.toArray(new Predicate[size]));
     }
 
+    /**
+     * 按主键倒序分批读取符合查询条件的全部数据，供导出等需要遍历全表的场景使用。
+     * 每批以上一批最后一条的主键为起点（keyset），读取下一批前清空持久化上下文，
+     * 内存占用只与批次大小有关。调用方需处于只读事务中，且不能依赖流中已读出的实体仍受托管。
+     * @param entityManager /
+     * @param type 实体类型
+     * @param query 查询条件
+     * @param batchSize 每批条数
+     * @return 惰性读取的数据流
+     */
+    public static <R, Q> Stream<R> stream(EntityManager entityManager, Class<R> type, Q query, int batchSize) {
+        EntityType<R> entity = entityManager.getMetamodel().entity(type);
+        String idName = entity.getId(entity.getIdType().getJavaType()).getName();
+        PersistenceUnitUtil unitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        Iterator<R> iterator = new Iterator<R>() {
+            private List<R> batch = Collections.emptyList();
+            private int index;
+            private Comparable lastId;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (index < batch.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                entityManager.clear();
+                CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+                CriteriaQuery<R> criteriaQuery = cb.createQuery(type);
+                Root<R> root = criteriaQuery.from(type);
+                Predicate predicate = getPredicate(root, query, cb);
+                if (lastId != null) {
+                    predicate = cb.and(predicate, cb.lessThan(root.get(idName), lastId));
+                }
+                criteriaQuery.where(predicate).orderBy(cb.desc(root.get(idName)));
+                batch = entityManager.createQuery(criteriaQuery).setMaxResults(batchSize).getResultList();
+                index = 0;
+                exhausted = batch.size() < batchSize;
+                if (!batch.isEmpty()) {
+                    lastId = (Comparable) unitUtil.getIdentifier(batch.get(batch.size() - 1));
+                }
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     @SuppressWarnings("unchecked")
     private static <T, R> Expression<T> getExpression(String attributeName, Join join, Root<R> root) {
         if (ObjectUtil.isNotEmpty(join)) {
@@ -235,4 +191,190 @@ public class QueryHelp {
         }
         return fields;
     }
+
+    /**
+     * 查询条件类的解析结果
+     */
+    private static final class QueryPlan {
+        private final DataPermission permission;
+        private final QueryField[] fields;
+
+        private QueryPlan(DataPermission permission, QueryField[] fields) {
+            this.permission = permission;
+            this.fields = fields;
+        }
+
+        static QueryPlan compile(Class<?> type) {
+            List<QueryField> fields = new ArrayList<>();
+            for (Field field : getAllFields(type, new ArrayList<>())) {
+                Query q = field.getAnnotation(Query.class);
+                if (q != null) {
+                    fields.add(QueryField.compile(field, q));
+                }
+            }
+            return new QueryPlan(type.getAnnotation(DataPermission.class), fields.toArray(new QueryField[0]));
+        }
+    }
+
+    /**
+     * 带 {@link Query} 注解的字段的解析结果
+     */
+    private static final class QueryField {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private final MethodHandle getter;
+        private final String attributeName;
+        private final Class<?> fieldType;
+        /** 关联属性，为空表示不关联 */
+        private final String joinName;
+        private final String[] joinPath;
+        private final JoinType joinType;
+        /** 模糊查询的多个字段 */
+        private final String[] blurry;
+        private final Condition condition;
+
+        private QueryField(Field field, Query q) throws IllegalAccessException {
+            field.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            this.getter = handle.asType(GETTER_TYPE);
+            this.attributeName = isBlank(q.propName()) ? field.getName() : q.propName();
+            this.fieldType = field.getType();
+            if (ObjectUtil.isNotEmpty(q.blurry())) {
+                this.blurry = Arrays.stream(q.blurry().split(",")).map(String::trim).toArray(String[]::new);
+                this.joinName = null;
+                this.joinPath = null;
+                this.joinType = null;
+                this.condition = QueryField::blurry;
+            } else {
+                this.blurry = null;
+                boolean joined = ObjectUtil.isNotEmpty(q.joinName());
+                this.joinName = joined ? q.joinName() : null;
+                this.joinPath = joined ? q.joinName().split(">") : null;
+                this.joinType = joinType(q.join());
+                this.condition = condition(q.type());
+            }
+        }
+
+        static QueryField compile(Field field, Query q) {
+            try {
+                return new QueryField(field, q);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read query field " + field, e);
+            }
+        }
+
+        Object get(Object query) {
+            try {
+                return (Object) getter.invokeExact(query);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        <T> Expression<T> expression(Root<?> root, Join join) {
+            return getExpression(attributeName, join, root);
+        }
+
+        Class<? extends Comparable> comparableType() {
+            return (Class<? extends Comparable>) fieldType;
+        }
+
+        private static JoinType joinType(Query.Join join) {
+            switch (join) {
+                case RIGHT:
+                    return JoinType.RIGHT;
+                case INNER:
+                    return JoinType.INNER;
+                default:
+                    return JoinType.LEFT;
+            }
+        }
+
+        private static void blurry(CriteriaBuilder cb, Root<?> root, Join join, QueryField f, Object val, List<Predicate> list) {
+            List<Predicate> orPredicate = new ArrayList<>(f.blurry.length);
+            for (String s : f.blurry) {
+                orPredicate.add(cb.like(root.get(s).as(String.class), "%" + val.toString() + "%"));
+            }
+            if (!orPredicate.isEmpty()) {
+                list.add(cb.or(orPredicate.toArray(new Predicate[0])));
+            }
+        }
+
+        private static Condition condition(Query.Type type) {
+            switch (type) {
+                case EQUAL:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.equal(f.expression(root, join).as(f.comparableType()), val));
+                case EQUAL_DATE:
+                    return (cb, root, join, f, val, list) -> {
+                        LocalDate date = (LocalDate) val;
+                        Expression<LocalDateTime> expression = f.expression(root, join).as(LocalDateTime.class);
+                        list.add(cb.between(expression, date.atStartOfDay(), date.atTime(LocalTime.MAX)));
+                    };
+                case GREATER_THAN:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.greaterThanOrEqualTo(f.expression(root, join).as(f.comparableType()), (Comparable) val));
+                case LESS_THAN:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.lessThanOrEqualTo(f.expression(root, join).as(f.comparableType()), (Comparable) val));
+                case LESS_THAN_NQ:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.lessThan(f.expression(root, join).as(f.comparableType()), (Comparable) val));
+                case INNER_LIKE:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.like(f.expression(root, join).as(String.class), "%" + val.toString() + "%"));
+                case LEFT_LIKE:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.like(f.expression(root, join).as(String.class), "%" + val.toString()));
+                case RIGHT_LIKE:
+                    return (cb, root, join, f, val, list) ->
+                            list.add(cb.like(f.expression(root, join).as(String.class), val.toString() + "%"));
+                case IN:
+                    return (cb, root, join, f, val, list) -> {
+                        if (CollUtil.isNotEmpty((Collection<Object>) val)) {
+                            list.add(f.expression(root, join).in((Collection<Object>) val));
+                        }
+                    };
+                case NOT_IN:
+                    return (cb, root, join, f, val, list) -> {
+                        if (CollUtil.isNotEmpty((Collection<Object>) val)) {
+                            list.add(f.expression(root, join).in((Collection<Object>) val).not());
+                        }
+                    };
+                case NOT_EQUAL:
+                    return (cb, root, join, f, val, list) -> list.add(cb.notEqual(f.expression(root, join), val));
+                case NOT_NULL:
+                    return (cb, root, join, f, val, list) -> list.add(cb.isNotNull(f.expression(root, join)));
+                case IS_NULL:
+                    return (cb, root, join, f, val, list) -> list.add(cb.isNull(f.expression(root, join)));
+                case BETWEEN:
+                    return (cb, root, join, f, val, list) -> {
+                        List<Object> between = new ArrayList<>((List<Object>) val);
+                        if (between.size() == 2) {
+                            list.add(cb.between(f.expression(root, join).as((Class<? extends Comparable>) between.get(0).getClass()),
+                                    (Comparable) between.get(0), (Comparable) between.get(1)));
+                        }
+                    };
+                case FIND_IN_SET:
+                    return (cb, root, join, f, val, list) -> list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
+                            cb.literal(val.toString()), root.get(f.attributeName)), 0));
+                default:
+                    return (cb, root, join, f, val, list) -> {
+                    };
+            }
+        }
+    }
+
+    /**
+     * 预先绑定的条件构造器
+     */
+    @FunctionalInterface
+    private interface Condition {
+        void apply(CriteriaBuilder cb, Root<?> root, Join join, QueryField field, Object val, List<Predicate> list);
+    }
 }
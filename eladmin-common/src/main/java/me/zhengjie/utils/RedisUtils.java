@@ -17,16 +17,25 @@ package me.zhengjie.utils;
 
 import cn.hutool.core.util.StrUtil;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -38,8 +47,56 @@ import java.util.stream.Collectors;
 public class RedisUtils {
     private static final Logger log = LoggerFactory.getLogger(RedisUtils.class);
 
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> Z_POP_BY_SCORE = new DefaultRedisScript<>(
+            "local values = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #values > 0 then redis.call('ZREM', KEYS[1], unpack(values)) end " +
+            "return values", List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> Z_MOVE_BY_SCORE = new DefaultRedisScript<>(
+            "local values = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "for _, value in ipairs(values) do redis.call('ZADD', KEYS[2], ARGV[3], value) end " +
+            "if #values > 0 then redis.call('ZREM', KEYS[1], unpack(values)) end " +
+            "return values", List.class);
+
+    /**
+     * 版本键的值仍等于期望值时才重命名, 否则丢弃源键
+     */
+    private static final byte[] RENAME_IF_VERSION = ("if (redis.call('GET', KEYS[3]) or '0') == ARGV[1] then " +
+            "redis.call('RENAME', KEYS[1], KEYS[2]) return 1 end " +
+            "redis.call('DEL', KEYS[1]) return 0").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 版本键的值仍等于期望值时才删除
+     */
+    private static final byte[] DEL_IF_VERSION = ("if (redis.call('GET', KEYS[2]) or '0') == ARGV[1] then " +
+            "redis.call('DEL', KEYS[1]) return 1 end return 0").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 只在 hash 表存在时写入, 不会凭空创建只有一项的 hash 表
+     */
+    private static final byte[] HSET_IF_EXISTS = ("if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if tonumber(ARGV[3]) > 0 then redis.call('EXPIRE', KEYS[1], ARGV[3]) end " +
+            "return 1").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 批量命令每批的键数, 以及 SCAN 每次建议返回的键数
+     */
+    private static final int BATCH_SIZE = 500;
+
     private RedisTemplate<Object, Object> redisTemplate;
 
+    /**
+     * 执行异步模糊删除的后台线程, 多个删除任务依次执行
+     */
+    private final ExecutorService scanDelExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-scan-del");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public RedisUtils(RedisTemplate<Object, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
         this.redisTemplate.setKeySerializer(new StringRedisSerializer());
@@ -182,14 +239,9 @@ public class RedisUtils {
                 log.debug(new StringBuilder("删除缓存：").append(keys[0]).append("，结果：").append(result).toString());
                 log.debug("--------------------------------------------");
             } else {
-                Set<Object> keySet = new HashSet<>();
-                for (String key : keys) {
-                    if (redisTemplate.hasKey(key))
-                        keySet.add(key);
-                }
-                long count = redisTemplate.delete(keySet);
+                long count = unlink(Arrays.asList(keys));
                 log.debug("--------------------------------------------");
-                log.debug("成功删除缓存：" + keySet.toString());
+                log.debug("成功删除缓存：" + Arrays.toString(keys));
                 log.debug("缓存删除数量：" + count + "个");
                 log.debug("--------------------------------------------");
             }
@@ -197,18 +249,65 @@ public class RedisUtils {
     }
 
     /**
-     * 批量模糊删除key
-     * @param pattern
+     * 批量模糊删除key, 以游标分批扫描, 每批以 UNLINK 删除, 不使用会阻塞 Redis 的 KEYS
+     * @param pattern 匹配模式
+     * @return 删除的键数
      */
-    public void scanDel(String pattern){
-        ScanOptions options = ScanOptions.scanOptions().match(pattern).build();
-        try (Cursor<byte[]> cursor = redisTemplate.executeWithStickyConnection(
-                (RedisCallback<Cursor<byte[]>>) connection -> (Cursor<byte[]>) new ConvertingCursor<>(
-                        connection.scan(options), redisTemplate.getKeySerializer()::deserialize))) {
+    public long scanDel(String pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(BATCH_SIZE).build();
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.executeWithStickyConnection(
+                (RedisCallback<Cursor<String>>) connection -> new ConvertingCursor<>(
+                        connection.scan(options), bytes -> new String(bytes, StandardCharsets.UTF_8)))) {
             while (cursor.hasNext()) {
-                redisTemplate.delete(cursor.next());
+                batch.add(cursor.next());
+                if (batch.size() >= BATCH_SIZE) {
+                    deleted += unlink(batch);
+                    batch.clear();
+                }
             }
         }
+        return deleted + unlink(batch);
+    }
+
+    /**
+     * 异步批量模糊删除key, 调用方无需等待扫描完成
+     * @param pattern 匹配模式
+     * @return 删除的键数
+     */
+    public CompletableFuture<Long> scanDelAsync(String pattern) {
+        return CompletableFuture.supplyAsync(() -> scanDel(pattern), scanDelExecutor)
+                .whenComplete((count, e) -> {
+                    if (e != null) {
+                        log.error("模糊删除失败：{}", pattern, e);
+                    } else {
+                        log.debug("模糊删除：{}，删除数量：{}个", pattern, count);
+                    }
+                });
+    }
+
+    /**
+     * 批量删除, 按批次以流水线执行 UNLINK, 键立即不可见, 内存由 Redis 在后台回收
+     * @param keys 键
+     * @return 删除的键数
+     */
+    public long unlink(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (List<String> chunk : Lists.partition(new ArrayList<>(keys), BATCH_SIZE)) {
+                    connection.keyCommands().unlink(rawKeys(chunk));
+                }
+                return null;
+            });
+            return results.stream().mapToLong(result -> result == null ? 0 : ((Number) result).longValue()).sum();
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return 0;
+        }
     }
 
     // ============================String=============================
@@ -283,16 +382,93 @@ public class RedisUtils {
     }
 
     /**
-     * 批量获取
+     * 批量获取, 忽略不存在的键
      *
-     * @param keys
-     * @return
+     * @param keys 键
+     * @return 存在的值, 与键顺序一致
      */
     public List<Object> multiGet(List<String> keys) {
-        List list = redisTemplate.opsForValue().multiGet(Sets.newHashSet(keys));
-        List resultList = Lists.newArrayList();
-        Optional.ofNullable(list).ifPresent(e-> list.forEach(ele-> Optional.ofNullable(ele).ifPresent(resultList::add)));
-        return resultList;
+        List<Object> values = mget(keys);
+        values.removeIf(Objects::isNull);
+        return values;
+    }
+
+    /**
+     * 批量获取, 按批次以流水线执行 MGET, 多批键只需一次网络往返
+     *
+     * @param keys 键
+     * @return 与键顺序一致的值, 不存在的键为null
+     */
+    public List<Object> mget(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = new ArrayList<>(keys.size());
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (List<String> chunk : Lists.partition(keys, BATCH_SIZE)) {
+                    connection.stringCommands().mGet(rawKeys(chunk));
+                }
+                return null;
+            });
+            for (Object result : results) {
+                values.addAll((List<Object>) result);
+            }
+            return values;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+    }
+
+    /**
+     * 批量获取, 按批次以流水线执行 MGET
+     *
+     * @param keys  键
+     * @param clazz 值的类型
+     * @return 与键顺序一致的值, 不存在或类型不符的键为null
+     */
+    public <T> List<T> mget(List<String> keys, Class<T> clazz) {
+        List<T> values = new ArrayList<>(keys.size());
+        for (Object value : mget(keys)) {
+            values.add(clazz.isInstance(value) ? clazz.cast(value) : null);
+        }
+        return values;
+    }
+
+    /**
+     * 批量放入并设置相同的过期时间, 以流水线执行 SET PX, 只需一次网络往返
+     *
+     * @param values   键值
+     * @param time     时间 time要大于0 如果time小于等于0 将设置无限期
+     * @param timeUnit 类型
+     * @return true成功 false 失败
+     */
+    public boolean mset(Map<String, ?> values, long time, TimeUnit timeUnit) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (time > 0) {
+                    Expiration expiration = Expiration.from(time, timeUnit);
+                    values.forEach((key, value) -> connection.stringCommands().set(rawKey(key),
+                            valueSerializer.serialize(value), expiration, RedisStringCommands.SetOption.upsert()));
+                } else {
+                    for (List<String> chunk : Lists.partition(new ArrayList<>(values.keySet()), BATCH_SIZE)) {
+                        Map<byte[], byte[]> tuples = new LinkedHashMap<>(chunk.size());
+                        chunk.forEach(key -> tuples.put(rawKey(key), valueSerializer.serialize(values.get(key))));
+                        connection.stringCommands().mSet(tuples);
+                    }
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
     }
 
     /**
@@ -385,6 +561,79 @@ public class RedisUtils {
 
     }
 
+    /**
+     * 以流水线执行多个 HGETALL, 只需一次网络往返
+     *
+     * @param keys 键
+     * @return 每个键对应的键值, 与键顺序一致, 不存在的键为空表
+     */
+    public Map<String, Map<Object, Object>> hmgetAll(Collection<String> keys) {
+        Map<String, Map<Object, Object>> entries = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return entries;
+        }
+        List<String> ordered = new ArrayList<>(new LinkedHashSet<>(keys));
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : ordered) {
+                    connection.hashCommands().hGetAll(rawKey(key));
+                }
+                return null;
+            });
+            for (int i = 0; i < ordered.size(); i++) {
+                Map<Object, Object> map = (Map<Object, Object>) results.get(i);
+                entries.put(ordered.get(i), map == null ? new LinkedHashMap<>() : map);
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            ordered.forEach(key -> entries.put(key, new LinkedHashMap<>()));
+        }
+        return entries;
+    }
+
+    /**
+     * 获取hash表中多个项的值
+     *
+     * @param key   键
+     * @param items 项
+     * @return 与项顺序一致的值, 不存在的项为null
+     */
+    public List<Object> hmultiGet(String key, Collection<Object> items) {
+        try {
+            return redisTemplate.opsForHash().multiGet(key, items);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return new ArrayList<>(Collections.nCopies(items.size(), null));
+        }
+    }
+
+    /**
+     * 以流水线获取多个hash表中相同项的值, 只需一次网络往返
+     *
+     * @param keys  键
+     * @param items 项
+     * @return 每个键对应的与项顺序一致的值, 不存在的项为null
+     */
+    public Map<String, List<Object>> hmultiGetAll(List<String> keys, Collection<Object> items) {
+        Map<String, List<Object>> values = new LinkedHashMap<>();
+        try {
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations operations) {
+                    keys.forEach(key -> operations.opsForHash().multiGet(key, items));
+                    return null;
+                }
+            });
+            for (int i = 0; i < keys.size(); i++) {
+                values.put(keys.get(i), (List<Object>) results.get(i));
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            keys.forEach(key -> values.put(key, new ArrayList<>(Collections.nCopies(items.size(), null))));
+        }
+        return values;
+    }
+
     /**
      * HashSet
      *
@@ -463,6 +712,29 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 向一张已存在的hash表中放入数据, 判断与写入原子执行, hash表不存在时不会创建
+     *
+     * @param key   键
+     * @param item  项
+     * @param value 值
+     * @param time  时间(秒) 大于0时重置过期时间
+     * @return true 已写入 false hash表不存在或写入失败
+     */
+    public boolean hsetIfExists(String key, String item, Object value, long time) {
+        try {
+            byte[] rawItem = ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(item);
+            byte[] rawValue = ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(value);
+            byte[] rawTime = String.valueOf(time).getBytes(StandardCharsets.UTF_8);
+            Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                    .eval(HSET_IF_EXISTS, ReturnType.INTEGER, 1, rawKey(key), rawItem, rawValue, rawTime));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * 删除hash表中的值
      *
@@ -496,6 +768,25 @@ public class RedisUtils {
         return redisTemplate.opsForHash().increment(key, item, by);
     }
 
+    /**
+     * 以流水线批量递增多个hash表的项, 只需一次网络往返
+     *
+     * @param increments 键 -> 项 -> 要增加的值
+     */
+    public void hincrAll(Map<String, Map<String, Long>> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public Object execute(RedisOperations operations) {
+                increments.forEach((key, items) ->
+                        items.forEach((item, by) -> operations.opsForHash().increment(key, item, by)));
+                return null;
+            }
+        });
+    }
+
     /**
      * hash递减
      *
@@ -772,15 +1063,284 @@ public class RedisUtils {
     }
 
     /**
+     * 删除前缀加 id 组成的键
+     *
      * @param prefix 前缀
      * @param ids    id
      */
     public void delByKeys(String prefix, Set<Long> ids) {
-        Set<Object> keys = new HashSet<>();
-        for (Long id : ids) {
-            keys.addAll(redisTemplate.keys(new StringBuffer(prefix).append(id).toString()));
+        unlink(ids.stream().map(id -> prefix + id).collect(Collectors.toList()));
+    }
+
+    // ============================pub/sub=============================
+
+    /**
+     * 向频道发布消息, 消息以UTF-8字符串原样发送
+     *
+     * @param channel 频道
+     * @param message 消息
+     */
+    public void publish(String channel, String message) {
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                    channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    // ============================zset=============================
+
+    /**
+     * 向有序集合放入数据, 已存在则更新分数
+     *
+     * @param key   键
+     * @param value 值
+     * @param score 分数
+     * @return true成功 false失败
+     */
+    public boolean zAdd(String key, Object value, double score) {
+        try {
+            redisTemplate.opsForZSet().add(key, value, score);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 向有序集合批量放入数据
+     *
+     * @param key    键
+     * @param scores 值与分数
+     * @return 新增个数
+     */
+    public long zAddAll(String key, Map<Object, Double> scores) {
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> tuples = scores.entrySet().stream()
+                    .map(entry -> new DefaultTypedTuple<Object>(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toSet());
+            Long count = redisTemplate.opsForZSet().add(key, tuples);
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 按分数从高到低获取有序集合的区间
+     *
+     * @param key   键
+     * @param start 开始
+     * @param end   结束 -1代表所有值
+     * @return 值与分数
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> zRevRangeWithScores(String key, long start, long end) {
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, start, end);
+            return tuples == null ? Collections.emptySet() : tuples;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * 获取值在有序集合中按分数从高到低的排名(从0开始)
+     *
+     * @param key   键
+     * @param value 值
+     * @return 排名, 不存在返回null
+     */
+    public Long zRevRank(String key, Object value) {
+        try {
+            return redisTemplate.opsForZSet().reverseRank(key, value);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取值在有序集合中的分数
+     *
+     * @param key   键
+     * @param value 值
+     * @return 分数, 不存在返回null
+     */
+    public Double zScore(String key, Object value) {
+        try {
+            return redisTemplate.opsForZSet().score(key, value);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 以流水线获取多个值在有序集合中的分数, 只需一次网络往返
+     *
+     * @param key    键
+     * @param values 值
+     * @return 与值顺序一致的分数, 不存在的值为null
+     */
+    public List<Double> zScores(String key, List<Object> values) {
+        if (values.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations operations) {
+                    values.forEach(value -> operations.opsForZSet().score(key, value));
+                    return null;
+                }
+            });
+            return results.stream().map(score -> (Double) score).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return new ArrayList<>(Collections.nCopies(values.size(), null));
+        }
+    }
+
+    /**
+     * 获取有序集合的大小
+     *
+     * @param key 键
+     * @return 大小
+     */
+    public long zCard(String key) {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(key);
+            return size == null ? 0 : size;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 移除有序集合中的值
+     *
+     * @param key    键
+     * @param values 值
+     * @return 移除的个数
+     */
+    public long zRemove(String key, Object... values) {
+        try {
+            Long count = redisTemplate.opsForZSet().remove(key, values);
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 原子地取出并移除分数不大于 max 的值, 多个节点并发调用时每个值只会被一个节点取到
+     *
+     * @param key   键
+     * @param max   最大分数
+     * @param count 最多取出的个数
+     * @return 取出的值, 按分数从低到高
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Object> zPopByScore(String key, double max, long count) {
+        try {
+            // 参数按字符串传入以便脚本解析分数, 返回的每个值由值序列化器反序列化
+            List<Object> values = redisTemplate.execute(Z_POP_BY_SCORE, new StringRedisSerializer(),
+                    (RedisSerializer<List>) redisTemplate.getValueSerializer(),
+                    Collections.singletonList(key), String.valueOf(max), String.valueOf(count));
+            return values == null ? Collections.emptyList() : values;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 原子地把分数不大于 max 的值从 key 移到 destKey, 并以 score 作为在 destKey 中的分数。
+     * 多个节点并发调用时每个值只会被一个节点取到, 取到的值在处理完成前仍保留在 destKey 中
+     *
+     * @param key     源键
+     * @param destKey 目标键
+     * @param max     最大分数
+     * @param count   最多移动的个数
+     * @param score   移入 destKey 后的分数
+     * @return 移动的值, 按分数从低到高
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Object> zMoveByScore(String key, String destKey, double max, long count, double score) {
+        try {
+            List<Object> values = redisTemplate.execute(Z_MOVE_BY_SCORE, new StringRedisSerializer(),
+                    (RedisSerializer<List>) redisTemplate.getValueSerializer(),
+                    Arrays.asList(key, destKey), String.valueOf(max), String.valueOf(count), String.valueOf(score));
+            return values == null ? Collections.emptyList() : values;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 重命名, 目标键已存在时原子地覆盖
+     *
+     * @param oldKey 原键
+     * @param newKey 新键
+     * @return true 成功 false失败
+     */
+    public boolean rename(String oldKey, String newKey) {
+        try {
+            redisTemplate.rename(oldKey, newKey);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 版本号未变时重命名, 用于在临时键中重建后替换正式键: 重建期间版本号被其他写入递增时,
+     * 重建结果可能已过期, 此时丢弃临时键而不覆盖正式键
+     *
+     * @param oldKey     临时键
+     * @param newKey     正式键
+     * @param versionKey 版本键, 其值由 {@link #increment(String)} 维护, 不存在时视为 0
+     * @param version    重建开始前读取的版本号
+     * @return true 已替换 false 版本已变化或失败
+     */
+    public boolean renameIfVersion(String oldKey, String newKey, String versionKey, long version) {
+        try {
+            byte[] rawVersion = String.valueOf(version).getBytes(StandardCharsets.UTF_8);
+            Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                    .eval(RENAME_IF_VERSION, ReturnType.INTEGER, 3, rawKey(oldKey), rawKey(newKey), rawKey(versionKey), rawVersion));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 版本号未变时删除, 与 {@link #renameIfVersion(String, String, String, long)} 配合使用
+     *
+     * @param key        键
+     * @param versionKey 版本键, 不存在时视为 0
+     * @param version    期望的版本号
+     * @return true 已删除 false 版本已变化或失败
+     */
+    public boolean delIfVersion(String key, String versionKey, long version) {
+        try {
+            byte[] rawVersion = String.valueOf(version).getBytes(StandardCharsets.UTF_8);
+            Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                    .eval(DEL_IF_VERSION, ReturnType.INTEGER, 2, rawKey(key), rawKey(versionKey), rawVersion));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
         }
-        long count = redisTemplate.delete(keys);
     }
 
     // ============================incr=============================
@@ -802,4 +1362,16 @@ public class RedisUtils {
     public Long decrement(String key) {
         return redisTemplate.opsForValue().decrement(key);
     }
+
+    private byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[][] rawKeys(List<String> keys) {
+        byte[][] raw = new byte[keys.size()][];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = rawKey(keys.get(i));
+        }
+        return raw;
+    }
 }
@@ -0,0 +1,41 @@
+package me.zhengjie.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalLimitTierTest {
+
+    @Test
+    public void testExhaustedWithinWindow() {
+        LocalLimitTier tier = new LocalLimitTier(100);
+        assertFalse(tier.isExhausted("login", 3, 1000, 0));
+        tier.admit("login", 1000, 0);
+        tier.admit("login", 1000, 100);
+        assertFalse(tier.isExhausted("login", 3, 1000, 200));
+        tier.admit("login", 1000, 200);
+        assertTrue(tier.isExhausted("login", 3, 1000, 999));
+        assertFalse(tier.isExhausted("register", 3, 1000, 999));
+    }
+
+    @Test
+    public void testWindowRestartsAfterPeriod() {
+        LocalLimitTier tier = new LocalLimitTier(100);
+        for (int i = 0; i < 3; i++) {
+            tier.admit("login", 1000, i);
+        }
+        assertTrue(tier.isExhausted("login", 3, 1000, 500));
+        assertFalse(tier.isExhausted("login", 3, 1000, 1000));
+        tier.admit("login", 1000, 1000);
+        assertFalse(tier.isExhausted("login", 3, 1000, 1001));
+    }
+
+    @Test
+    public void testMaxPerPeriod() {
+        assertEquals(20, LimitAlgorithm.FIXED_WINDOW.maxPerPeriod(10));
+        assertEquals(10, LimitAlgorithm.SLIDING_LOG.maxPerPeriod(10));
+        assertEquals(20, LimitAlgorithm.TOKEN_BUCKET.maxPerPeriod(10));
+    }
+}
@@ -0,0 +1,116 @@
+package me.zhengjie.config;
+
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionRegistryTest {
+
+    /** Stands in for the version key in Redis */
+    private final AtomicLong counter = new AtomicLong();
+    private final List<String> published = new ArrayList<>();
+    private final PermissionRegistry node1 = node();
+    private final PermissionRegistry node2 = node();
+
+    @Test
+    public void testCompileAndContains() {
+        node1.register(List.of("Admin", "Organizer", "Player"));
+        long[] bits = node1.compile(authorities("Organizer", "Player"));
+        assertFalse(PermissionRegistry.contains(bits, node1.indexOf("Admin")));
+        assertTrue(PermissionRegistry.contains(bits, node1.indexOf("Organizer")));
+        assertTrue(PermissionRegistry.contains(bits, node1.indexOf("Player")));
+        assertFalse(PermissionRegistry.contains(bits, node1.indexOf("unknown")));
+        assertEquals(-1, node1.indexOf("unknown"));
+    }
+
+    @Test
+    public void testNamesBeyondOneWord() {
+        node1.register(IntStream.range(0, 100).mapToObj(i -> "role" + i).toList());
+        long[] bits = node1.compile(authorities("role3", "role70", "late"));
+        assertEquals(2, bits.length);
+        assertTrue(PermissionRegistry.contains(bits, node1.indexOf("role70")));
+        assertTrue(PermissionRegistry.contains(bits, node1.indexOf("late")));
+        assertFalse(PermissionRegistry.contains(bits, node1.indexOf("role71")));
+    }
+
+    @Test
+    public void testVersionIsBroadcast() {
+        node1.bump();
+        assertEquals(1, node1.version());
+        assertEquals(0, node2.version());
+        deliver(node2);
+        assertEquals(1, node2.version());
+        assertEquals("7:1", node2.versioned(7L));
+
+        // a late notification does not move the version back
+        node2.bump();
+        node2.onMessage(message("1"), null);
+        assertEquals(2, node2.version());
+    }
+
+    @Test
+    public void testGrantsAreCachedPerVersion() {
+        AuthorityConfig authorityConfig = new AuthorityConfig(node1, 100);
+        Authentication user = new UsernamePasswordAuthenticationToken("user", null, authorities("Player"));
+        long[] bits = authorityConfig.grantsOf(user);
+        assertSame(bits, authorityConfig.grantsOf(user));
+        assertTrue(authorityConfig.hasAny(user, "Organizer", "Player"));
+        assertFalse(authorityConfig.hasAny(user, "Admin"));
+
+        node1.bump();
+        assertNotSame(bits, authorityConfig.grantsOf(user));
+
+        Authentication promoted = new UsernamePasswordAuthenticationToken("user", null, authorities("Admin"));
+        assertTrue(authorityConfig.hasAny(promoted, "Admin"));
+        assertFalse(authorityConfig.hasAny(promoted, "Player"));
+    }
+
+    private static List<GrantedAuthority> authorities(String... names) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String name : names) {
+            authorities.add(new SimpleGrantedAuthority(name));
+        }
+        return authorities;
+    }
+
+    private void deliver(PermissionRegistry node) {
+        published.forEach(body -> node.onMessage(message(body), null));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(PermissionRegistry.CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PermissionRegistry node() {
+        RedisUtils redisUtils = new RedisUtils(new RedisTemplate<>()) {
+            @Override
+            public Long increment(String key) {
+                return counter.incrementAndGet();
+            }
+
+            @Override
+            public void publish(String channel, String message) {
+                published.add(message);
+            }
+        };
+        return new PermissionRegistry(redisUtils, new RedisMessageListenerContainer());
+    }
+}
@@ -0,0 +1,132 @@
+package me.zhengjie.config.cache;
+
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwoLevelCacheManagerTest {
+
+    /** Shared by both nodes, stands in for Redis */
+    private final ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager();
+    private final List<String> published = new ArrayList<>();
+    private final TwoLevelCacheManager node1 = node();
+    private final TwoLevelCacheManager node2 = node();
+
+    @Test
+    public void testReadThroughAndHitRatio() {
+        node1.getCache("dict").put("status", "enabled");
+        Cache cache = node2.getCache("dict");
+        assertEquals("enabled", cache.get("status", String.class));
+        assertEquals("enabled", cache.get("status", String.class));
+        assertNull(cache.get("missing", String.class));
+
+        Map<String, Object> stats = node2.stats().get("dict");
+        assertEquals(1L, stats.get("localHits"));
+        assertEquals(1L, stats.get("remoteHits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    public void testEvictionIsBroadcast() {
+        node1.getCache("user").put(1L, "old");
+        assertEquals("old", node2.getCache("user").get(1L, String.class));
+
+        published.clear();
+        node1.getCache("user").put(1L, "new");
+        // node2 still serves its own copy until the notification arrives
+        assertEquals("old", node2.getCache("user").get(1L, String.class));
+        deliver(node2);
+        assertEquals("new", node2.getCache("user").get(1L, String.class));
+
+        published.clear();
+        node1.getCache("user").evict(1L);
+        deliver(node2);
+        assertNull(node2.getCache("user").get(1L, String.class));
+    }
+
+    @Test
+    public void testFillIsNotBroadcast() {
+        Cache cache = node1.getCache("dict");
+        cache.put("status", "enabled");
+        assertNull(cache.putIfAbsent("type", "single"));
+        assertEquals("single", cache.get("type", () -> "double"));
+        assertEquals("loaded", cache.get("size", () -> "loaded"));
+        assertTrue(published.isEmpty());
+
+        cache.put("status", "disabled");
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    public void testTypeMismatchIsMiss() {
+        Cache cache = node1.getCache("role");
+        cache.put(1L, "admin");
+        cache.put(2L, List.of("admin"));
+        cache.put(3L, List.of(1L));
+
+        assertNull(cache.get(1L, Long.class));
+        assertNull(cache.get(1L));
+        assertEquals(List.of("admin"), TwoLevelCache.getList(cache, 2L, String.class));
+        assertNull(TwoLevelCache.getList(cache, 3L, String.class));
+        assertNull(cache.get(3L));
+        assertNull(TwoLevelCache.getList(cache, 4L, String.class));
+    }
+
+    @Test
+    public void testBatchEvictionIsOneNotification() {
+        TwoLevelCache cache = (TwoLevelCache) node1.getCache("auth");
+        cache.put(1L, "a");
+        cache.put(2L, "b");
+        cache.put(3L, "c");
+        node2.getCache("auth").get(1L);
+        node2.getCache("auth").get(2L);
+
+        published.clear();
+        cache.evictAll(List.of(1L, 2L));
+        assertEquals(1, published.size());
+        deliver(node2);
+        assertNull(node2.getCache("auth").get(1L, String.class));
+        assertNull(node2.getCache("auth").get(2L, String.class));
+        assertEquals("c", node2.getCache("auth").get(3L, String.class));
+    }
+
+    @Test
+    public void testOwnNotificationsAreIgnored() {
+        node1.getCache("role").put(1L, "user");
+        node1.getCache("role").put(1L, "admin");
+        node1.getCache("role").get(1L);
+        deliver(node1);
+        node1.getCache("role").get(1L);
+        assertEquals(2L, node1.stats().get("role").get("localHits"));
+    }
+
+    private void deliver(TwoLevelCacheManager node) {
+        for (String body : published) {
+            node.onMessage(new DefaultMessage(TwoLevelCacheManager.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    body.getBytes(StandardCharsets.UTF_8)), null);
+        }
+    }
+
+    private TwoLevelCacheManager node() {
+        RedisUtils redisUtils = new RedisUtils(new RedisTemplate<>()) {
+            @Override
+            public void publish(String channel, String message) {
+                published.add(message);
+            }
+        };
+        return new TwoLevelCacheManager(remote, redisUtils, new RedisMessageListenerContainer(), 100, 60);
+    }
+}
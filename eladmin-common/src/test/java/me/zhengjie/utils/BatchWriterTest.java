@@ -0,0 +1,49 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchWriterTest {
+
+    @Test
+    public void testWritesInBatchesAndFlushesOnStop() throws InterruptedException {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        // A long interval so that only full batches are written before stop
+        BatchWriter<Integer> writer = new BatchWriter<>("test-writer", 64, 3, 60_000, batch -> batches.add(new ArrayList<>(batch)));
+        assertFalse(writer.offer(0));
+        writer.start();
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(writer.offer(i));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batches.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5, 6)), batches);
+
+        writer.stop();
+        assertEquals(List.of(7), batches.get(2));
+        assertEquals(7, writer.flushed());
+        assertEquals(0, writer.pending());
+        assertFalse(writer.offer(8));
+    }
+
+    @Test
+    public void testFailedBatchIsCountedAndCleared() {
+        BatchWriter<Integer> writer = new BatchWriter<>("test-writer", 4, 2, 1, batch -> {
+            throw new IllegalStateException("database unavailable");
+        });
+        List<Integer> batch = new ArrayList<>(List.of(1, 2));
+        writer.write(batch);
+        assertTrue(batch.isEmpty());
+        assertEquals(2, writer.failed());
+        assertEquals(0, writer.flushed());
+    }
+}
@@ -0,0 +1,98 @@
+package me.zhengjie.utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExportUtilTest {
+
+    private static final ExportUtil.Columns<String[]> COLUMNS = ExportUtil.<String[]>columns()
+            .add("Name", row -> row[0])
+            .add("Remark", row -> row[1]);
+
+    @Test
+    public void testCsvQuotingAndSanitizing() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExportUtil.export(response, "file", ExportUtil.Format.CSV, COLUMNS, Stream.of(
+                new String[]{"plain", "a,b"},
+                new String[]{"=SUM(A1)", "say \"hi\""}));
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+        assertEquals("\uFEFFName,Remark\r\nplain,\"a,b\"\r\n'=SUM(A1),\"say \"\"hi\"\"\"\r\n", body);
+        assertEquals("attachment;filename=file.csv", response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    public void testCsvDates() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        LocalDateTime time = LocalDateTime.of(2025, 6, 1, 8, 30, 0);
+        ExportUtil.export(response, "file", ExportUtil.Format.CSV,
+                ExportUtil.<LocalDateTime>columns().add("Time", Timestamp::valueOf).add("Local", t -> t),
+                Stream.of(time));
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("2025-06-01 08:30:00,2025-06-01 08:30:00\r\n"));
+    }
+
+    @Test
+    public void testExcelBeyondRowWindow() throws IOException {
+        int rows = ExportUtil.ROW_WINDOW * 5 + 7;
+        AtomicBoolean closed = new AtomicBoolean();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExportUtil.export(response, "file", ExportUtil.Format.of(null),
+                ExportUtil.<Integer>columns().add("Index", i -> i).add("Text", i -> "-" + i),
+                IntStream.range(0, rows).boxed().onClose(() -> closed.set(true)));
+
+        assertTrue(closed.get());
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(rows, sheet.getLastRowNum());
+            assertEquals("Index", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(rows - 1, (int) sheet.getRow(rows).getCell(0).getNumericCellValue());
+            assertEquals("'-" + (rows - 1), sheet.getRow(rows).getCell(1).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void testExcelContinuesOnNewSheetAtRowLimit() throws IOException {
+        assertEquals(1_048_576, ExportUtil.MAX_SHEET_ROWS);
+        // Title row plus three data rows per sheet
+        int maxSheetRows = 4;
+        ExportUtil.Columns<Integer> columns = ExportUtil.<Integer>columns().add("Index", i -> i);
+
+        try (XSSFWorkbook workbook = excel(columns, 3, maxSheetRows)) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            assertEquals(3, workbook.getSheetAt(0).getLastRowNum());
+        }
+        try (XSSFWorkbook workbook = excel(columns, 4, maxSheetRows)) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            assertEquals(3, workbook.getSheetAt(0).getLastRowNum());
+            Sheet second = workbook.getSheetAt(1);
+            assertEquals("Index", second.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(1, second.getLastRowNum());
+            assertEquals(3, (int) second.getRow(1).getCell(0).getNumericCellValue());
+        }
+        try (XSSFWorkbook workbook = excel(columns, 7, maxSheetRows)) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(6, (int) workbook.getSheetAt(2).getRow(1).getCell(0).getNumericCellValue());
+        }
+    }
+
+    private static XSSFWorkbook excel(ExportUtil.Columns<Integer> columns, int rows, int maxSheetRows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportUtil.writeExcel(out, columns, IntStream.range(0, rows).boxed(), maxSheetRows);
+        return new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,130 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileStreamUtilTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String ETAG = "\"d41d8cd98f00b204e9800998ecf8427e\"";
+
+    @Test
+    public void testFullContent() throws IOException {
+        MockHttpServletResponse response = stream(new MockHttpServletRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+    }
+
+    @Test
+    public void testIfNoneMatch() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"other\", " + ETAG);
+        MockHttpServletResponse response = stream(request);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testSingleRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/20", response.getHeader("Content-Range"));
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=-3");
+        assertEquals("hij", stream(request).getContentAsString());
+    }
+
+    @Test
+    public void testMultiRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=0-1,10-11");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+        String body = response.getContentAsString();
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01"));
+        assertTrue(body.contains("Content-Range: bytes 10-11/20\r\n\r\nab"));
+    }
+
+    @Test
+    public void testOverlappingRangesAreMerged() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=4-5,0-3,2-4");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(206, response.getStatus());
+        assertEquals("012345", response.getContentAsString());
+        assertEquals("bytes 0-5/20", response.getHeader("Content-Range"));
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=10-11,0-2,1-1");
+        String body = stream(request).getContentAsString();
+        assertTrue(body.contains("Content-Range: bytes 0-2/20\r\n\r\n012\r\n--"));
+        assertTrue(body.contains("Content-Range: bytes 10-11/20\r\n\r\nab"));
+        assertTrue(body.indexOf("bytes 0-2/20") < body.indexOf("bytes 10-11/20"));
+    }
+
+    @Test
+    public void testTooManyRangesReturnsFullContent() throws IOException {
+        StringBuilder header = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= FileStreamUtil.MAX_RANGES; i++) {
+            header.append(',').append(i).append('-').append(i);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", header.toString());
+        MockHttpServletResponse response = stream(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    public void testOversizedRangesReturnFullContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=0-15,5-19");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=50-60");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void testIfRangeMismatchReturnsFullContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = stream(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequest request) throws IOException {
+        File file = File.createTempFile("stream", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileStreamUtil.stream(request, response, file, ETAG, "text/plain", file.getName());
+        return response;
+    }
+}
@@ -0,0 +1,104 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdBlockAllocatorTest {
+
+    /**
+     * Segment table with one row, LAST_INSERT_ID is kept per thread like it is per connection
+     */
+    private final Map<String, AtomicLong> segments = new ConcurrentHashMap<>(Map.of("event_match", new AtomicLong(40)));
+    private final ThreadLocal<Long> lastInsertId = new ThreadLocal<>();
+    private final IdBlockAllocator allocator = new IdBlockAllocator(new JdbcTemplate() {
+        @Override
+        public int update(String sql, Object... args) {
+            AtomicLong segment = segments.get((String) args[1]);
+            if (segment == null) {
+                return 0;
+            }
+            lastInsertId.set(segment.addAndGet(((Number) args[0]).longValue()));
+            return 1;
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return requiredType.cast(lastInsertId.get());
+        }
+    }, new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    });
+
+    @Test
+    public void testBlocksFollowEachOther() {
+        assertEquals(41, allocator.allocate("event_match", 10));
+        assertEquals(51, allocator.allocate("event_match", 1));
+        assertEquals(52, allocator.allocate("event_match", 5));
+        assertEquals(56, segments.get("event_match").get());
+    }
+
+    @Test
+    public void testConcurrentBlocksDoNotOverlap() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                int count = 1 + i % 7;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return new long[]{allocator.allocate("event_match", count), count};
+                }));
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            long total = 0;
+            for (Future<long[]> future : futures) {
+                long[] block = future.get(10, TimeUnit.SECONDS);
+                for (long id = block[0]; id < block[0] + block[1]; id++) {
+                    assertTrue(ids.add(id), "id " + id + " handed out twice");
+                }
+                total += block[1];
+            }
+            assertEquals(total, ids.size());
+            assertEquals(41, Collections.min(ids));
+            assertEquals(40 + total, Collections.max(ids));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectsEmptyBlock() {
+        assertThrows(IllegalArgumentException.class, () -> allocator.allocate("event_match", 0));
+        assertEquals(40, segments.get("event_match").get());
+    }
+
+    @Test
+    public void testUnknownSegment() {
+        assertThrows(IllegalStateException.class, () -> allocator.allocate("missing", 3));
+    }
+}
@@ -0,0 +1,153 @@
+package me.zhengjie.utils;
+
+import me.zhengjie.annotation.Query;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.criteria.*;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the predicates {@link QueryHelp} builds. Every predicate and path is a mock named after what it
+ * stands for, e.g. {@code like(club.location, %Phnom Penh%)}.
+ */
+public class QueryHelpTest {
+
+    private final Root<Object> root = mock(Root.class);
+    private final List<String> predicates = new ArrayList<>();
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class, invocation -> {
+        if ("and".equals(invocation.getMethod().getName())) {
+            // Mockito passes the varargs expanded
+            Arrays.stream(invocation.getArguments()).map(String::valueOf).forEach(predicates::add);
+        }
+        return predicate(invocation.getMethod().getName() + "(" + names(invocation.getArguments()) + ")");
+    });
+
+    public QueryHelpTest() {
+        when(root.get(anyString())).thenAnswer(invocation -> path(invocation.getArgument(0)));
+        when(root.join(anyString(), any(JoinType.class))).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            Join<Object, Object> join = mock(Join.class, name);
+            when(join.get(anyString())).thenAnswer(get -> path(name + "." + get.getArgument(0)));
+            return join;
+        });
+    }
+
+    @Test
+    public void testPredicatesOfEveryType() {
+        EventCriteria criteria = new EventCriteria();
+        criteria.id = 7L;
+        criteria.name = "open";
+        criteria.location = "Phnom Penh";
+        criteria.clubName = "Riverside";
+        criteria.eventTime = LocalDate.of(2025, 6, 1);
+        criteria.sportIds = new LinkedHashSet<>(List.of(1L, 2L));
+        criteria.rating = List.of(3, 5);
+        criteria.keyword = "lee";
+        criteria.playerId = 11L;
+
+        assertPredicates(criteria,
+                "equal(id, 7)",
+                "like(name, %open%)",
+                "like(club.location, %Phnom Penh%)",
+                "equal(club.name, Riverside)",
+                "between(eventTime, 2025-06-01T00:00, 2025-06-01T23:59:59.999999999)",
+                "in(sportIds, [1, 2])",
+                "between(rating, 3, 5)",
+                "or(like(email, %lee%), like(username, %lee%))");
+    }
+
+    @Test
+    public void testEmptyValuesAreSkipped() {
+        EventCriteria criteria = new EventCriteria();
+        criteria.name = "";
+        criteria.sportIds = Set.of();
+        // Not annotated, must not produce a predicate
+        criteria.playerId = 11L;
+
+        assertPredicates(criteria);
+        assertPredicates(null);
+        verify(root, never()).join(anyString(), any(JoinType.class));
+    }
+
+    @Test
+    public void testFieldsOfOneJoinShareIt() {
+        EventCriteria criteria = new EventCriteria();
+        criteria.location = "Phnom Penh";
+        criteria.clubName = "Riverside";
+
+        assertPredicates(criteria, "like(club.location, %Phnom Penh%)", "equal(club.name, Riverside)");
+        verify(root).join("club", JoinType.LEFT);
+    }
+
+    @Test
+    public void testPlanIsCachedPerClass() throws Exception {
+        Field field = QueryHelp.class.getDeclaredField("PLANS");
+        field.setAccessible(true);
+        ClassValue<?> plans = (ClassValue<?>) field.get(null);
+        EventCriteria criteria = new EventCriteria();
+        criteria.id = 7L;
+
+        assertPredicates(criteria, "equal(id, 7)");
+        Object plan = plans.get(EventCriteria.class);
+        predicates.clear();
+        assertPredicates(criteria, "equal(id, 7)");
+        assertSame(plan, plans.get(EventCriteria.class));
+    }
+
+    private void assertPredicates(Object criteria, String... expected) {
+        predicates.clear();
+        QueryHelp.getPredicate(root, criteria, cb);
+        assertEquals(expected.length, predicates.size(), predicates.toString());
+        assertEquals(Set.of(expected), new HashSet<>(predicates));
+    }
+
+    private static Path<Object> path(String name) {
+        Path<Object> path = mock(Path.class, name);
+        when(path.as(any())).thenReturn((Expression) path);
+        when(path.in(anyCollection())).thenAnswer(invocation -> predicate("in(" + name + ", " + invocation.getArgument(0) + ")"));
+        return path;
+    }
+
+    private static Predicate predicate(String name) {
+        return mock(Predicate.class, name);
+    }
+
+    private static String names(Object[] arguments) {
+        return String.join(", ", Arrays.stream(arguments).map(String::valueOf).toList());
+    }
+
+    static class EventCriteria {
+        @Query
+        Long id;
+
+        @Query(type = Query.Type.INNER_LIKE)
+        String name;
+
+        @Query(joinName = "club", propName = "location", type = Query.Type.INNER_LIKE)
+        String location;
+
+        @Query(joinName = "club", propName = "name")
+        String clubName;
+
+        @Query(type = Query.Type.EQUAL_DATE)
+        LocalDate eventTime;
+
+        @Query(type = Query.Type.IN)
+        Set<Long> sportIds;
+
+        @Query(type = Query.Type.BETWEEN)
+        List<Integer> rating;
+
+        @Query(blurry = "email,username")
+        String keyword;
+
+        Long playerId;
+    }
+}
@@ -22,6 +22,8 @@ import me.zhengjie.annotation.Log;
 import me.zhengjie.service.SysLogService;
 import me.zhengjie.service.dto.SysLogQueryCriteria;
 import me.zhengjie.service.dto.SysLogSmallDto;
+import me.zhengjie.service.impl.SysLogWriter;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.utils.SecurityUtils;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * @author Zheng Jie
@@ -44,23 +47,24 @@ import java.io.IOException;
 public class SysLogController {
 
     private final SysLogService sysLogService;
+    private final SysLogWriter sysLogWriter;
 
     @Log("Export Data")
     @ApiOperation("Export Data")
     @GetMapping(value = "/download")
     @PreAuthorize("hasAuthority('Admin')")
-    public void exportLog(HttpServletResponse response, SysLogQueryCriteria criteria) throws IOException {
+    public void exportLog(HttpServletResponse response, SysLogQueryCriteria criteria, String format) throws IOException {
         criteria.setLogType("INFO");
-        sysLogService.download(sysLogService.queryAll(criteria), response);
+        sysLogService.download(criteria, ExportUtil.Format.of(format), response);
     }
 
     @Log("Export Error Data")
     @ApiOperation("Export Error Data")
     @GetMapping(value = "/error/download")
     @PreAuthorize("hasAuthority('Admin')")
-    public void exportErrorLog(HttpServletResponse response, SysLogQueryCriteria criteria) throws IOException {
+    public void exportErrorLog(HttpServletResponse response, SysLogQueryCriteria criteria, String format) throws IOException {
         criteria.setLogType("ERROR");
-        sysLogService.download(sysLogService.queryAll(criteria), response);
+        sysLogService.download(criteria, ExportUtil.Format.of(format), response);
     }
     @GetMapping
     @ApiOperation("Log Query")
@@ -70,6 +74,13 @@ public class SysLogController {
         return new ResponseEntity<>(sysLogService.queryAll(criteria,pageable), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/writer/stats")
+    @ApiOperation("Log Writer Statistics")
+    @PreAuthorize("hasAuthority('Admin')")
+    public ResponseEntity<Map<String, Object>> queryWriterStats(){
+        return new ResponseEntity<>(sysLogWriter.stats(), HttpStatus.OK);
+    }
+
     @GetMapping(value = "/user")
     @ApiOperation("User Log Query")
     public ResponseEntity<PageResult<SysLogSmallDto>> queryUserLog(SysLogQueryCriteria criteria, Pageable pageable){
@@ -18,10 +18,10 @@ package me.zhengjie.service;
 import me.zhengjie.domain.SysLog;
 import me.zhengjie.service.dto.SysLogQueryCriteria;
 import me.zhengjie.service.dto.SysLogSmallDto;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -57,14 +57,13 @@ public interface SysLogService {
     PageResult<SysLogSmallDto> queryAllByUser(SysLogQueryCriteria criteria, Pageable pageable);
 
     /**
-     * Save log data
+     * Save log data, the record is queued and written in batches by {@link me.zhengjie.service.impl.SysLogWriter}
      * @param username User
      * @param browser Browser
      * @param ip Request IP
      * @param joinPoint /
      * @param sysLog Log entity
      */
-    @Async
     void save(String username, String browser, String ip, ProceedingJoinPoint joinPoint, SysLog sysLog);
 
     /**
@@ -75,12 +74,13 @@ public interface SysLogService {
     Object findByErrDetail(Long id);
 
     /**
-     * Export logs
-     * @param sysLogs Data to export
+     * Export logs, streaming them from the database straight into the response
+     * @param criteria Query criteria
+     * @param format Export format
      * @param response /
      * @throws IOException /
      */
-    void download(List<SysLog> sysLogs, HttpServletResponse response) throws IOException;
+    void download(SysLogQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException;
 
     /**
      * Delete all error logs
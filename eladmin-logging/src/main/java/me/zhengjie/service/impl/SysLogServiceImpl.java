@@ -36,6 +36,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.multipart.MultipartFile;
+import javax.persistence.EntityManager;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -54,6 +55,8 @@ public class SysLogServiceImpl implements SysLogService {
     private final LogRepository logRepository;
     private final LogErrorMapper logErrorMapper;
     private final LogSmallMapper logSmallMapper;
+    private final SysLogWriter sysLogWriter;
+    private final EntityManager entityManager;
     // Define sensitive field constant array
     private static final String[] SENSITIVE_KEYS = {"password"};
 
@@ -79,7 +82,6 @@ public class SysLogServiceImpl implements SysLogService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void save(String username, String browser, String ip, ProceedingJoinPoint joinPoint, SysLog sysLog) {
         if (sysLog == null) {
             throw new IllegalArgumentException("Log cannot be null!");
@@ -98,7 +100,6 @@ public class SysLogServiceImpl implements SysLogService {
 
         // Fill in basic information
         sysLog.setRequestIp(ip);
-        sysLog.setAddress(StringUtils.getCityInfo(sysLog.getRequestIp()));
         sysLog.setMethod(methodName);
         sysLog.setUsername(username);
         sysLog.setParams(JSON.toJSONString(params));
@@ -110,8 +111,8 @@ public class SysLogServiceImpl implements SysLogService {
             sysLog.setUsername(params.getString("username"));
         }
 
-        // Save
-        logRepository.save(sysLog);
+        // Hand over to the batch writer, the address is resolved on the writer thread
+        sysLogWriter.submit(sysLog);
     }
 
     /**
@@ -162,21 +163,19 @@ public class SysLogServiceImpl implements SysLogService {
     }
 
     @Override
-    public void download(List<SysLog> sysLogs, HttpServletResponse response) throws IOException {
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (SysLog sysLog : sysLogs) {
-            Map<String, Object> map = new LinkedHashMap<>();
-            map.put("Username", sysLog.getUsername());
-            map.put("IP", sysLog.getRequestIp());
-            map.put("IP Source", sysLog.getAddress());
-            map.put("Description", sysLog.getDescription());
-            map.put("Browser", sysLog.getBrowser());
-            map.put("Request Time/ms", sysLog.getTime());
-            map.put("Exception Details", new String(ObjectUtil.isNotNull(sysLog.getExceptionDetail()) ? sysLog.getExceptionDetail() : "".getBytes()));
-            map.put("Creation Date", sysLog.getCreateTime());
-            list.add(map);
-        }
-        FileUtil.downloadExcel(list, response);
+    @Transactional(readOnly = true)
+    public void download(SysLogQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException {
+        ExportUtil.Columns<SysLog> columns = ExportUtil.<SysLog>columns()
+                .add("Username", SysLog::getUsername)
+                .add("IP", SysLog::getRequestIp)
+                .add("IP Source", SysLog::getAddress)
+                .add("Description", SysLog::getDescription)
+                .add("Browser", SysLog::getBrowser)
+                .add("Request Time/ms", SysLog::getTime)
+                .add("Exception Details", sysLog -> new String(ObjectUtil.isNotNull(sysLog.getExceptionDetail()) ? sysLog.getExceptionDetail() : "".getBytes()))
+                .add("Creation Date", SysLog::getCreateTime);
+        ExportUtil.export(response, "log", format, columns,
+                QueryHelp.stream(entityManager, SysLog.class, criteria, ExportUtil.BATCH_SIZE));
     }
 
     @Override
@@ -0,0 +1,177 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.domain.SysLog;
+import me.zhengjie.utils.BatchWriter;
+import me.zhengjie.utils.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志异步批量写入器。
+ * 请求线程只把不可变的日志记录放入 {@link BatchWriter}，后台线程按批量大小或时间间隔以 JDBC 批量插入落库；
+ * 队列满时按配置丢弃或限时阻塞，应用关闭时会把队列中剩余的日志全部写入。
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+public class SysLogWriter implements InitializingBean, DisposableBean {
+
+    private static final String INSERT_SQL = "INSERT INTO sys_log (description, log_type, method, params, request_ip, " +
+            "time, username, address, browser, exception_detail, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] INSERT_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.LONGVARCHAR,
+            Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.TIMESTAMP};
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 直接丢弃 */
+        DROP,
+        /** 阻塞等待，超时后丢弃 */
+        BLOCK
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchWriter<Record> writer;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SysLogWriter(JdbcTemplate jdbcTemplate,
+                        @Value("${sys-log.writer.capacity:8192}") int capacity,
+                        @Value("${sys-log.writer.batch-size:200}") int batchSize,
+                        @Value("${sys-log.writer.flush-interval:1000}") long flushInterval,
+                        @Value("${sys-log.writer.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                        @Value("${sys-log.writer.block-timeout:100}") long blockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writer = new BatchWriter<>("sys-log-writer", capacity, batchSize, flushInterval, this::insert);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockTimeout));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        writer.start();
+    }
+
+    /**
+     * 提交日志，调用方线程不会访问数据库
+     * @param sysLog 日志，提交后其内容会被复制，调用方可继续修改
+     * @return 是否成功入队
+     */
+    public boolean submit(SysLog sysLog) {
+        Record record = Record.of(sysLog);
+        boolean offered = overflowPolicy == OverflowPolicy.BLOCK
+                ? writer.offer(record, blockTimeoutNanos) : writer.offer(record);
+        if (offered) {
+            queued.incrementAndGet();
+            return true;
+        }
+        long count = dropped.incrementAndGet();
+        if ((count & 1023) == 1) {
+            log.warn("SysLog queue is full, {} records dropped so far", count);
+        }
+        return false;
+    }
+
+    /**
+     * 写入器运行统计
+     * @return /
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("flushed", writer.flushed());
+        stats.put("failed", writer.failed());
+        stats.put("pending", writer.pending());
+        stats.put("capacity", writer.capacity());
+        stats.put("overflowPolicy", overflowPolicy);
+        return stats;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        writer.stop();
+    }
+
+    private void insert(List<Record> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Record record : batch) {
+            rows.add(record.toRow());
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+    }
+
+    /**
+     * 不可变的日志记录，地址解析延后到写入线程完成
+     */
+    static final class Record {
+        private final String description;
+        private final String logType;
+        private final String method;
+        private final String params;
+        private final String requestIp;
+        private final Long time;
+        private final String username;
+        private final String browser;
+        private final String exceptionDetail;
+        private final Timestamp createTime;
+
+        private Record(SysLog sysLog) {
+            this.description = sysLog.getDescription();
+            this.logType = sysLog.getLogType();
+            this.method = sysLog.getMethod();
+            this.params = sysLog.getParams();
+            this.requestIp = sysLog.getRequestIp();
+            this.time = sysLog.getTime();
+            this.username = sysLog.getUsername();
+            this.browser = sysLog.getBrowser();
+            this.exceptionDetail = sysLog.getExceptionDetail() == null ? null
+                    : new String(sysLog.getExceptionDetail(), StandardCharsets.UTF_8);
+            this.createTime = sysLog.getCreateTime() != null ? sysLog.getCreateTime()
+                    : new Timestamp(System.currentTimeMillis());
+        }
+
+        static Record of(SysLog sysLog) {
+            return new Record(sysLog);
+        }
+
+        Object[] toRow() {
+            String address = StringUtils.isBlank(requestIp) ? null : StringUtils.getCityInfo(requestIp);
+            return new Object[]{description, logType, method, params, requestIp, time, username,
+                    address, browser, exceptionDetail, createTime};
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.srr.event.dto.*;
 import com.srr.event.service.EventService;
 import com.srr.event.service.MatchGenerationService;
 import com.srr.event.service.MatchGroupService;
+import com.srr.event.service.MatchScheduleService;
 import com.srr.event.service.MatchService;
 import com.srr.player.dto.TeamPlayerDto;
 import com.srr.player.repository.PlayerRepository;
@@ -19,6 +20,7 @@ import me.zhengjie.annotation.rest.AnonymousGetMapping;
 import me.zhengjie.modules.security.service.SecurityContextUtils;
 import me.zhengjie.modules.security.service.enums.UserType;
 import me.zhengjie.modules.system.service.dto.UserDto;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.utils.SecurityUtils;
 import org.springframework.data.domain.Pageable;
@@ -28,7 +30,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -48,6 +52,7 @@ public class EventController {
     private final TeamPlayerService teamPlayerService;
     private final MatchGroupService matchGroupService;
     private final MatchGenerationService matchGenerationService;
+    private final MatchScheduleService matchScheduleService;
     private final PlayerRepository playerRepository;
     private final MatchService matchService;
     private final RatingHistoryRepository ratingHistoryRepository;
@@ -73,6 +78,15 @@ public class EventController {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @GetMapping("/feed")
+    @ApiOperation("Query event cards with keyset pagination")
+    @AnonymousGetMapping
+    public ResponseEntity<EventFeedDto> queryEventFeed(EventQueryCriteria criteria,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(eventService.queryFeed(criteria, cursor, size), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     @ApiOperation("Get event by ID")
     @AnonymousGetMapping
@@ -187,6 +201,16 @@ public class EventController {
         return new ResponseEntity<>(result, HttpStatus.CREATED);
     }
 
+    @GetMapping("/{id}/schedule")
+    @ApiOperation("Estimate court and start time of every match of an event")
+    @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
+    public ResponseEntity<MatchScheduleDto> getMatchSchedule(@PathVariable Long id,
+                                                             @RequestParam(defaultValue = "20") int matchDuration,
+                                                             @RequestParam(defaultValue = "1") int restSlots,
+                                                             @RequestParam(required = false) Integer courts) {
+        return new ResponseEntity<>(matchScheduleService.schedule(id, matchDuration, restSlots, courts), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}/matches")
     @ApiOperation("Get all matches for an event")
     @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
@@ -194,6 +218,13 @@ public class EventController {
         return new ResponseEntity<>(matchService.findMatchesByEventGrouped(id), HttpStatus.OK);
     }
 
+    @GetMapping("/{id}/results/download")
+    @ApiOperation("Export the match results of an event as Excel or CSV")
+    @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
+    public void exportEventResults(@PathVariable Long id, String format, HttpServletResponse response) throws IOException {
+        eventService.exportEventResults(id, ExportUtil.Format.of(format), response);
+    }
+
     @GetMapping("/{id}/groups")
     @ApiOperation("Get all matches for an event")
     @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
@@ -0,0 +1,76 @@
+package com.srr.event.dto;
+
+import com.srr.enumeration.EventStatus;
+import com.srr.enumeration.Format;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fields of an event shown on a listing card, read with a single projection query
+ */
+@Data
+@NoArgsConstructor
+public class EventCardDto implements Serializable {
+
+    private Long id;
+
+    private String name;
+
+    private Format format;
+
+    private String location;
+
+    private String image;
+
+    private String posterImage;
+
+    private Timestamp eventTime;
+
+    private EventStatus status;
+
+    private Long sportId;
+
+    private Integer currentParticipants;
+
+    private Integer maxParticipants;
+
+    private boolean allowWaitList;
+
+    private Long clubId;
+
+    private String clubName;
+
+    private String clubIcon;
+
+    @ApiModelProperty(value = "Tags associated with the event")
+    private Set<String> tags = new HashSet<>();
+
+    /**
+     * Used by the listing projection query, keep the order in step with {@code EventService.queryFeed}
+     */
+    public EventCardDto(Long id, String name, Format format, String location, String image, String posterImage,
+                        Timestamp eventTime, EventStatus status, Long sportId, Integer currentParticipants,
+                        Integer maxParticipants, boolean allowWaitList, Long clubId, String clubName, String clubIcon) {
+        this.id = id;
+        this.name = name;
+        this.format = format;
+        this.location = location;
+        this.image = image;
+        this.posterImage = posterImage;
+        this.eventTime = eventTime;
+        this.status = status;
+        this.sportId = sportId;
+        this.currentParticipants = currentParticipants;
+        this.maxParticipants = maxParticipants;
+        this.allowWaitList = allowWaitList;
+        this.clubId = clubId;
+        this.clubName = clubName;
+        this.clubIcon = clubIcon;
+    }
+}
@@ -0,0 +1,23 @@
+package com.srr.event.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A slice of the event listing, ordered by event time then id, newest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFeedDto implements Serializable {
+
+    private List<EventCardDto> content;
+
+    @ApiModelProperty(value = "Pass as cursor to get the next slice, null on the last slice")
+    private String nextCursor;
+}
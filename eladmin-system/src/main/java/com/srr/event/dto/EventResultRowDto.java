@@ -0,0 +1,79 @@
+package com.srr.event.dto;
+
+import com.srr.event.domain.MatchStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Result of one match of an event, flattened for export
+ */
+@Data
+@NoArgsConstructor
+public class EventResultRowDto implements Serializable {
+
+    private Long groupId;
+
+    private String groupName;
+
+    private Long matchId;
+
+    private int matchOrder;
+
+    private Long teamAId;
+
+    private String teamAName;
+
+    private String teamAPlayers;
+
+    private Long teamBId;
+
+    private String teamBName;
+
+    private String teamBPlayers;
+
+    private int scoreA;
+
+    private int scoreB;
+
+    private boolean teamAWin;
+
+    private boolean teamBWin;
+
+    private boolean scoreVerified;
+
+    private MatchStatus status;
+
+    /**
+     * Used by the result projection query, keep the order in step with {@code MatchRepository.streamResultsByEventId}
+     */
+    public EventResultRowDto(Long groupId, String groupName, Long matchId, int matchOrder, Long teamAId,
+                             String teamAName, Long teamBId, String teamBName, int scoreA, int scoreB,
+                             boolean teamAWin, boolean teamBWin, boolean scoreVerified, MatchStatus status) {
+        this.groupId = groupId;
+        this.groupName = groupName;
+        this.matchId = matchId;
+        this.matchOrder = matchOrder;
+        this.teamAId = teamAId;
+        this.teamAName = teamAName;
+        this.teamBId = teamBId;
+        this.teamBName = teamBName;
+        this.scoreA = scoreA;
+        this.scoreB = scoreB;
+        this.teamAWin = teamAWin;
+        this.teamBWin = teamBWin;
+        this.scoreVerified = scoreVerified;
+        this.status = status;
+    }
+
+    /**
+     * @return name of the winning team, empty while undecided
+     */
+    public String getWinner() {
+        if (teamAWin) {
+            return teamAName;
+        }
+        return teamBWin ? teamBName : "";
+    }
+}
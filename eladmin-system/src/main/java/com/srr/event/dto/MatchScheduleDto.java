@@ -0,0 +1,70 @@
+package com.srr.event.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Court and time-slot timetable of the matches of an event
+ */
+@Data
+public class MatchScheduleDto implements Serializable {
+
+    @ApiModelProperty(value = "Event id")
+    private Long eventId;
+
+    @ApiModelProperty(value = "Number of courts used")
+    private Integer courtCount;
+
+    @ApiModelProperty(value = "Minutes per match slot")
+    private Integer matchDuration;
+
+    @ApiModelProperty(value = "Number of time slots")
+    private Integer slotCount;
+
+    @ApiModelProperty(value = "Share of court slots in use")
+    private Double utilization;
+
+    @ApiModelProperty(value = "Estimated start of the first match")
+    private Timestamp estimatedStart;
+
+    @ApiModelProperty(value = "Estimated end of the last match")
+    private Timestamp estimatedEnd;
+
+    @ApiModelProperty(value = "Matches ordered by start time and court")
+    private List<ScheduledMatchDto> matches;
+
+    @Data
+    public static class ScheduledMatchDto implements Serializable {
+
+        @ApiModelProperty(value = "Match id")
+        private Long matchId;
+
+        @ApiModelProperty(value = "Match group id")
+        private Long matchGroupId;
+
+        @ApiModelProperty(value = "Order within the group")
+        private Integer matchOrder;
+
+        @ApiModelProperty(value = "Team A id")
+        private Long teamAId;
+
+        @ApiModelProperty(value = "Team B id")
+        private Long teamBId;
+
+        @ApiModelProperty(value = "Court number")
+        private Integer court;
+
+        @ApiModelProperty(value = "Time slot, starting at 0")
+        private Integer slot;
+
+        @ApiModelProperty(value = "Estimated start time")
+        private Timestamp startTime;
+
+        @ApiModelProperty(value = "Estimated end time")
+        private Timestamp endTime;
+    }
+}
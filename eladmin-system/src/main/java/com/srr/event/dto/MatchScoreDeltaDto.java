@@ -0,0 +1,56 @@
+package com.srr.event.dto;
+
+import com.srr.event.domain.Match;
+import com.srr.event.domain.MatchStatus;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Compact score and status change of a match, pushed to live score subscribers
+ */
+@Data
+public class MatchScoreDeltaDto implements Serializable {
+
+    private Long eventId;
+
+    private Long groupId;
+
+    private Long matchId;
+
+    private int scoreA;
+
+    private int scoreB;
+
+    private boolean teamAWin;
+
+    private boolean teamBWin;
+
+    private boolean scoreVerified;
+
+    private MatchStatus status;
+
+    /**
+     * Time the change was committed in epoch milliseconds, taken by the after-commit listener,
+     * lets clients drop out-of-order deltas
+     */
+    private long timestamp;
+
+    public static MatchScoreDeltaDto of(Match match) {
+        MatchScoreDeltaDto delta = new MatchScoreDeltaDto();
+        if (match.getMatchGroup() != null) {
+            delta.setGroupId(match.getMatchGroup().getId());
+            if (match.getMatchGroup().getEvent() != null) {
+                delta.setEventId(match.getMatchGroup().getEvent().getId());
+            }
+        }
+        delta.setMatchId(match.getId());
+        delta.setScoreA(match.getScoreA());
+        delta.setScoreB(match.getScoreB());
+        delta.setTeamAWin(match.isTeamAWin());
+        delta.setTeamBWin(match.isTeamBWin());
+        delta.setScoreVerified(match.isScoreVerified());
+        delta.setStatus(match.getStatus());
+        return delta;
+    }
+}
@@ -0,0 +1,49 @@
+package com.srr.event.listener;
+
+import com.srr.event.domain.MatchStatus;
+import com.srr.event.dto.MatchScoreDeltaDto;
+import com.srr.event.service.EventReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Drops cached event reports when the results behind them change
+ */
+@Component
+@RequiredArgsConstructor
+public class EventReportEventListener {
+
+    private final EventReportService eventReportService;
+
+    /**
+     * Evict the report of an event whose ratings were settled
+     *
+     * @param event The ratings settled event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleRatingsSettledEvent(RatingsSettledEvent event) {
+        eventReportService.evict(List.of(event.getEventId()));
+    }
+
+    /**
+     * Evict the reports of events with a verified or withdrawn match. Live scores of unverified
+     * matches only occur before an event is completed, when its report is not cached.
+     *
+     * @param event The match scores changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleMatchScoresChangedEvent(MatchScoresChangedEvent event) {
+        List<Long> eventIds = event.getDeltas().stream()
+                .filter(delta -> delta.isScoreVerified() || delta.getStatus() == MatchStatus.WITHDRAWN)
+                .map(MatchScoreDeltaDto::getEventId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        eventReportService.evict(eventIds);
+    }
+}
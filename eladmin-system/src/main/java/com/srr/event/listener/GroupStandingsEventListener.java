@@ -0,0 +1,30 @@
+package com.srr.event.listener;
+
+import com.srr.event.service.GroupStandingsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the cached group score matrices in step with committed match results
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupStandingsEventListener {
+
+    private final GroupStandingsService groupStandingsService;
+
+    /**
+     * Apply the changed matches to the standings of their groups once the change is committed,
+     * so a rolled back score never reaches the cache
+     *
+     * @param event The match scores changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleMatchScoresChangedEvent(MatchScoresChangedEvent event) {
+        if (!event.getStandings().isEmpty()) {
+            groupStandingsService.apply(event.getStandings());
+        }
+    }
+}
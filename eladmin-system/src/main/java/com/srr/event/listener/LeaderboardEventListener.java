@@ -0,0 +1,41 @@
+package com.srr.event.listener;
+
+import com.srr.player.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the rating leaderboards in step with settled events
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardEventListener {
+
+    private final LeaderboardService leaderboardService;
+
+    /**
+     * Push the new ratings and results to the leaderboards once the settlement is committed
+     *
+     * @param event The ratings settled event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleRatingsSettledEvent(RatingsSettledEvent event) {
+        leaderboardService.applySettlement(event.getSportId(), event.getFormat(), event.getRatings(),
+                event.getWins(), event.getLosses());
+        log.info("Updated leaderboard with {} players of event {}", event.getRatings().size(), event.getEventId());
+    }
+
+    /**
+     * Push a single rating to the leaderboard once it is committed
+     *
+     * @param event The player rating changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handlePlayerRatingChangedEvent(PlayerRatingChangedEvent event) {
+        leaderboardService.updateRating(event.getSportId(), event.getFormat(), event.getPlayerId(), event.getRateScore());
+    }
+}
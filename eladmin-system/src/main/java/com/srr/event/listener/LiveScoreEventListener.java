@@ -0,0 +1,28 @@
+package com.srr.event.listener;
+
+import com.srr.event.service.LiveScoreService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Pushes committed match score changes to live score subscribers
+ */
+@Component
+@RequiredArgsConstructor
+public class LiveScoreEventListener {
+
+    private final LiveScoreService liveScoreService;
+
+    /**
+     * Broadcast the score changes once they are committed
+     *
+     * @param event The match scores changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleMatchScoresChangedEvent(MatchScoresChangedEvent event) {
+        // The event timestamp is taken when the change is made, stamp the deltas with the commit time instead
+        liveScoreService.broadcast(event.getDeltas(), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,28 @@
+package com.srr.event.listener;
+
+import com.srr.event.domain.Match;
+import com.srr.event.dto.MatchScoreDeltaDto;
+import com.srr.event.service.GroupStandingsService.StandingRow;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event that is fired when the score or status of matches changed
+ */
+@Getter
+public class MatchScoresChangedEvent extends ApplicationEvent {
+
+    private final List<MatchScoreDeltaDto> deltas;
+
+    private final List<StandingRow> standings;
+
+    public MatchScoresChangedEvent(Object source, Collection<Match> matches) {
+        super(source);
+        // Capture the values now, the entities are detached by the time listeners run after commit
+        this.deltas = matches.stream().map(MatchScoreDeltaDto::of).toList();
+        this.standings = matches.stream().filter(match -> match.getMatchGroup() != null).map(StandingRow::of).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package com.srr.event.listener;
+
+import com.srr.player.service.PlayerDashboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops cached player dashboards when the data behind them changes
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PlayerDashboardEventListener {
+
+    private final PlayerDashboardService playerDashboardService;
+
+    /**
+     * Evict the dashboards of every player whose rating was settled
+     *
+     * @param event The ratings settled event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleRatingsSettledEvent(RatingsSettledEvent event) {
+        playerDashboardService.evict(event.getRatings().keySet());
+        log.debug("Evicted dashboards of {} players of event {}", event.getRatings().size(), event.getEventId());
+    }
+
+    /**
+     * Evict the dashboards of players who joined or left an event
+     *
+     * @param event The player registration changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handlePlayerRegistrationChangedEvent(PlayerRegistrationChangedEvent event) {
+        playerDashboardService.evict(event.getPlayerIds());
+    }
+}
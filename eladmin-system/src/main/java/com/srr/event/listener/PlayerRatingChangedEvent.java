@@ -0,0 +1,26 @@
+package com.srr.event.listener;
+
+import com.srr.enumeration.Format;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event that is fired when the rating of a single player is set outside of an event settlement,
+ * e.g. by the self-assessment
+ */
+@Getter
+public class PlayerRatingChangedEvent extends ApplicationEvent {
+
+    private final Long playerId;
+    private final Long sportId;
+    private final Format format;
+    private final Double rateScore;
+
+    public PlayerRatingChangedEvent(Object source, Long playerId, Long sportId, Format format, Double rateScore) {
+        super(source);
+        this.playerId = playerId;
+        this.sportId = sportId;
+        this.format = format;
+        this.rateScore = rateScore;
+    }
+}
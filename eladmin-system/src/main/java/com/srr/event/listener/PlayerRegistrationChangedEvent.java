@@ -0,0 +1,22 @@
+package com.srr.event.listener;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+
+/**
+ * Event that is fired when players join, leave or are promoted into an event
+ */
+@Getter
+public class PlayerRegistrationChangedEvent extends ApplicationEvent {
+
+    private final Long eventId;
+    private final Collection<Long> playerIds;
+
+    public PlayerRegistrationChangedEvent(Object source, Long eventId, Collection<Long> playerIds) {
+        super(source);
+        this.eventId = eventId;
+        this.playerIds = playerIds;
+    }
+}
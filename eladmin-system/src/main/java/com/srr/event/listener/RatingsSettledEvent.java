@@ -0,0 +1,32 @@
+package com.srr.event.listener;
+
+import com.srr.enumeration.Format;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Map;
+
+/**
+ * Event that is fired when the ratings of an event have been settled
+ */
+@Getter
+public class RatingsSettledEvent extends ApplicationEvent {
+
+    private final Long eventId;
+    private final Long sportId;
+    private final Format format;
+    private final Map<Long, Double> ratings;
+    private final Map<Long, Integer> wins;
+    private final Map<Long, Integer> losses;
+
+    public RatingsSettledEvent(Object source, Long eventId, Long sportId, Format format, Map<Long, Double> ratings,
+                               Map<Long, Integer> wins, Map<Long, Integer> losses) {
+        super(source);
+        this.eventId = eventId;
+        this.sportId = sportId;
+        this.format = format;
+        this.ratings = ratings;
+        this.wins = wins;
+        this.losses = losses;
+    }
+}
@@ -4,9 +4,13 @@ import com.srr.enumeration.EventStatus;
 import com.srr.event.domain.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +25,42 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
 
     List<Event> findAllByStatusAndCheckInStartIsNotNullAndCheckInStartLessThan(EventStatus status, Timestamp eventTimeIsLessThan);
 
+    List<Event> findAllByStatusAndCheckInStartIsNotNull(EventStatus status);
+
+    /**
+     * Open check-in of the given events in one statement. Events which already moved on or
+     * whose check-in start was pushed back are left untouched.
+     *
+     * @return number of events updated
+     */
+    @Modifying
+    @Transactional(rollbackFor = Exception.class)
+    @Query("update Event e set e.status = com.srr.enumeration.EventStatus.CHECK_IN, e.updateTime = :now " +
+            "where e.id in :ids and e.status = com.srr.enumeration.EventStatus.PUBLISHED and e.checkInStart <= :now")
+    int openCheckIn(@Param("ids") Collection<Long> ids, @Param("now") Timestamp now);
+
+    /**
+     * Take a participant seat if the event is not full
+     *
+     * @return 1 when a seat was taken, 0 when the event is full
+     */
+    @Modifying
+    @Query("update Event e set e.currentParticipants = coalesce(e.currentParticipants, 0) + 1 " +
+            "where e.id = :id and (e.maxParticipants is null or coalesce(e.currentParticipants, 0) < e.maxParticipants)")
+    int reserveSeat(@Param("id") Long id);
+
+    /**
+     * Give back a participant seat
+     *
+     * @return 1 when a seat was released
+     */
+    @Modifying
+    @Query("update Event e set e.currentParticipants = e.currentParticipants - 1 where e.id = :id and e.currentParticipants > 0")
+    int releaseSeat(@Param("id") Long id);
+
+    @Query("select e.currentParticipants from Event e where e.id = :id")
+    Integer findCurrentParticipants(@Param("id") Long id);
+
     @Query(value = """
             select * from event e join team t on e.id = t.event_id
                          join team_player tp on t.id = tp.team_id and tp.player_id = :playerId 
@@ -35,6 +75,13 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
             """, nativeQuery = true)
     List<Event> getPlayerCompletedEvents(Long playerId);
 
+    @Query(value = """
+            select count(*) from event e join team t on e.id = t.event_id
+                         join team_player tp on t.id = tp.team_id and tp.player_id = :playerId
+                                 and e.status = 'COMPLETED'
+            """, nativeQuery = true)
+    long countPlayerCompletedEvents(@Param("playerId") Long playerId);
+
     @Query(value = """
             select * from event e join team t on e.id = t.event_id
                          join team_player tp on t.id = tp.team_id and tp.player_id = :playerId 
@@ -64,4 +111,21 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
                                          and e.status = 'COMPLETED' order by e.id desc limit 1
             """, nativeQuery = true)
     Optional<Event> getPlayerLastEvent(Long playerId);
-}
\ No newline at end of file
+
+    /**
+     * Tag names of the given events
+     *
+     * @return rows of event id and tag name
+     */
+    @Query("select e.id, t.name from Event e join e.tags t where e.id in :eventIds")
+    List<Object[]> findTagNamesByEventIds(@Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * Status of an event
+     *
+     * @param id ID of the event
+     * @return the status, empty when the event does not exist
+     */
+    @Query("select e.status from Event e where e.id = :id")
+    Optional<EventStatus> findStatusById(@Param("id") Long id);
+}
@@ -1,14 +1,20 @@
 package com.srr.event.repository;
 
 import com.srr.event.domain.Match;
+import com.srr.event.dto.EventResultRowDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * @author Chanheng
@@ -81,6 +87,22 @@ public interface MatchRepository extends JpaRepository<Match, Long>, JpaSpecific
      */
     List<Match> findByMatchGroupEventId(Long eventId);
 
+    /**
+     * Stream the results of every match of an event, one flat row per match, ordered by group and match order.
+     * Must be consumed inside a read-only transaction and closed afterwards. A fetch size of
+     * {@link Integer#MIN_VALUE} makes MySQL Connector/J stream the rows one by one instead of reading the whole
+     * result, only for this statement; no other query may run on the connection until the stream is closed.
+     *
+     * @param eventId ID of the event
+     * @return stream of result rows
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.srr.event.dto.EventResultRowDto(g.id, g.name, m.id, m.matchOrder, ta.id, ta.name, tb.id, tb.name, "
+            + "m.scoreA, m.scoreB, m.teamAWin, m.teamBWin, m.scoreVerified, m.status) "
+            + "FROM Match m JOIN m.matchGroup g LEFT JOIN m.teamA ta LEFT JOIN m.teamB tb "
+            + "WHERE g.event.id = :eventId ORDER BY g.id, m.matchOrder, m.id")
+    Stream<EventResultRowDto> streamResultsByEventId(@Param("eventId") Long eventId);
+
 
     @Query("SELECT m FROM Match m WHERE m.matchGroup.event.id = :eventId AND (m.teamA.id IN (SELECT tp.team.id FROM TeamPlayer tp WHERE tp.player.id = :playerId) OR m.teamB.id IN (SELECT tp.team.id FROM TeamPlayer tp WHERE tp.player.id = :playerId))")
     List<Match> findByEventIdAndPlayerId(Long eventId, Long playerId);
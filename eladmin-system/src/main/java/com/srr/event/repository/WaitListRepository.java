@@ -55,6 +55,8 @@ public interface WaitListRepository extends JpaRepository<WaitList, Long>, JpaSp
      * @return WaitList entry if exists
      */
     WaitList findByEventIdAndPlayerId(Long eventId, Long playerId);
+
+    boolean existsByEventIdAndPlayerId(Long eventId, Long playerId);
     
     /**
      * Find wait list entries by status
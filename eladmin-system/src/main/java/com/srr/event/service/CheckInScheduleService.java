@@ -0,0 +1,128 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.EventStatus;
+import com.srr.event.domain.Event;
+import com.srr.event.repository.EventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Opens the check-in of published events when their check-in window starts.
+ * <p>
+ * Events are kept in a Redis sorted set scored by {@link Event#getCheckInStart()}. Every node polls the
+ * head of the set each second and atomically moves the due entries into a processing set scored by an
+ * in-flight deadline, so each event is claimed by one node at a time and opened no later than a second
+ * after its check-in start. Claimed events are switched to {@link EventStatus#CHECK_IN} with a single
+ * bulk update and only then removed from the processing set. Entries of a node which died before
+ * finishing are moved back to the queue once their deadline has passed; the update only touches
+ * events which are still published, so opening an event twice is harmless.
+ * <p>
+ * Closing the check-in window and starting the event are not scheduled: check-in stays open until the
+ * organizer finalizes the groups, which is what moves the event to {@link EventStatus#IN_PROGRESS}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInScheduleService {
+
+    private static final int CLAIM_BATCH_SIZE = 500;
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+    private static final long IN_FLIGHT_TIMEOUT_MILLIS = 60_000;
+
+    private final EventRepository eventRepository;
+    private final RedisUtils redisUtils;
+
+    /**
+     * Schedule, reschedule or cancel the check-in opening of an event according to its current state.
+     * Inside a transaction the queue is only touched once the transaction has committed.
+     *
+     * @param event the saved event
+     */
+    public void schedule(Event event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        Long eventId = event.getId();
+        Timestamp checkInStart = event.getCheckInStart();
+        boolean pending = event.getStatus() == EventStatus.PUBLISHED && checkInStart != null;
+        Runnable apply = pending
+                ? () -> redisUtils.zAdd(CacheKey.EVENT_CHECK_IN_QUEUE, member(eventId), checkInStart.getTime())
+                : () -> {
+                    redisUtils.zRemove(CacheKey.EVENT_CHECK_IN_QUEUE, member(eventId));
+                    redisUtils.zRemove(CacheKey.EVENT_CHECK_IN_PROCESSING, member(eventId));
+                };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Open the check-in of every event whose check-in start has passed
+     */
+    @Scheduled(fixedDelayString = "${event.check-in.poll-interval:1000}")
+    public void openDueCheckIns() {
+        long now = System.currentTimeMillis();
+        // Requeue the claims of nodes which did not finish in time, they are due right away
+        List<Object> abandoned = redisUtils.zMoveByScore(CacheKey.EVENT_CHECK_IN_PROCESSING,
+                CacheKey.EVENT_CHECK_IN_QUEUE, now, CLAIM_BATCH_SIZE, now);
+        if (!abandoned.isEmpty()) {
+            log.warn("Requeued check-in opening of {} events whose claim timed out", abandoned.size());
+        }
+        List<Object> due = redisUtils.zMoveByScore(CacheKey.EVENT_CHECK_IN_QUEUE,
+                CacheKey.EVENT_CHECK_IN_PROCESSING, now, CLAIM_BATCH_SIZE, now + IN_FLIGHT_TIMEOUT_MILLIS);
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Long> eventIds = due.stream().map(value -> Long.valueOf(String.valueOf(value))).toList();
+        try {
+            int opened = eventRepository.openCheckIn(eventIds, new Timestamp(now));
+            log.info("Opened check-in of {} events out of {} due", opened, eventIds.size());
+        } catch (Exception e) {
+            // Put the claimed events back so another poll retries them
+            Map<Object, Double> retry = new HashMap<>();
+            eventIds.forEach(id -> retry.put(member(id), (double) (now + RETRY_DELAY_MILLIS)));
+            redisUtils.zAddAll(CacheKey.EVENT_CHECK_IN_QUEUE, retry);
+            log.error("Failed to open check-in of events {}", eventIds, e);
+        }
+        redisUtils.zRemove(CacheKey.EVENT_CHECK_IN_PROCESSING, due.toArray());
+    }
+
+    /**
+     * Re-seed the queue from the database, covering events created before the queue existed or a
+     * Redis flush. Adding an event which is already queued only refreshes its score.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${event.check-in.reconcile-cron:0 0 * * * ?}")
+    public void reconcile() {
+        Map<Object, Double> pending = new HashMap<>();
+        for (Event event : eventRepository.findAllByStatusAndCheckInStartIsNotNull(EventStatus.PUBLISHED)) {
+            pending.put(member(event.getId()), (double) event.getCheckInStart().getTime());
+        }
+        if (!pending.isEmpty()) {
+            redisUtils.zAddAll(CacheKey.EVENT_CHECK_IN_QUEUE, pending);
+        }
+        log.debug("Queued check-in opening of {} published events", pending.size());
+    }
+
+    private static String member(Long eventId) {
+        return String.valueOf(eventId);
+    }
+}
@@ -0,0 +1,138 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.WaitListStatus;
+import com.srr.event.domain.Event;
+import com.srr.event.domain.WaitList;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.WaitListRepository;
+import com.srr.player.repository.TeamPlayerRepository;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.exception.BadRequestException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Participant seats of an event.
+ * <p>
+ * {@code current_participants} is only ever changed with conditional UPDATE statements, so concurrent
+ * joins never overwrite each other's count and never overfill an event. The row lock taken by the
+ * UPDATE is held until the caller commits, so callers should reserve as late in their transaction as
+ * possible.
+ */
+@Service
+@RequiredArgsConstructor
+public class EventCapacityService {
+
+    private final EventRepository eventRepository;
+    private final WaitListRepository waitListRepository;
+    private final TeamPlayerRepository teamPlayerRepository;
+
+    /**
+     * Outcome of a reservation
+     */
+    public enum Reservation {
+        PARTICIPANT,
+        WAIT_LIST
+    }
+
+    /**
+     * Take a seat for the player, or put the player on the wait list when the event is full and allows it.
+     *
+     * @param event    the event to join
+     * @param playerId ID of the player
+     * @return whether the player got a seat or a wait list entry
+     * @throws BadRequestException when the event is full and has no wait list
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Reservation reserve(Event event, Long playerId) {
+        if (eventRepository.reserveSeat(event.getId()) == 1) {
+            return Reservation.PARTICIPANT;
+        }
+        if (!event.isAllowWaitList()) {
+            throw new BadRequestException("Event is full and does not allow waitlist");
+        }
+        WaitList waitListEntry = new WaitList();
+        waitListEntry.setEventId(event.getId());
+        waitListEntry.setPlayerId(playerId);
+        waitListRepository.save(waitListEntry);
+        return Reservation.WAIT_LIST;
+    }
+
+    /**
+     * Give back the seat of a participant who left the event
+     *
+     * @param eventId ID of the event
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long eventId) {
+        eventRepository.releaseSeat(eventId);
+    }
+
+    /**
+     * Take the player off the event. A wait-listed player only loses the wait list entry; a participant
+     * gives back the seat, which then goes to the first player still waiting if the event has a wait list.
+     *
+     * @param event    the event to leave
+     * @param playerId ID of the withdrawing player
+     * @return ID of the player promoted from the wait list, or null if nobody was promoted
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long withdraw(Event event, Long playerId) {
+        WaitList waitListEntry = waitListRepository.findByEventIdAndPlayerId(event.getId(), playerId);
+        if (waitListEntry != null) {
+            waitListRepository.delete(waitListEntry);
+            return null;
+        }
+        release(event.getId());
+        return promoteNext(event, playerId);
+    }
+
+    /**
+     * Give a free seat to the player waiting longest. The player already has a team entry from joining,
+     * so promotion only takes the seat and drops the wait list entry.
+     *
+     * @param event           the event with a free seat
+     * @param excludePlayerId player who must not be promoted, e.g. the one who just left
+     * @return ID of the promoted player, or null if nobody waits or the seat was taken by a concurrent join
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long promoteNext(Event event, Long excludePlayerId) {
+        if (!event.isAllowWaitList()) {
+            return null;
+        }
+        WaitList next = waitListRepository.findByEventIdOrderByCreateTimeAsc(event.getId()).stream()
+                .filter(entry -> entry.getStatus() == WaitListStatus.WAITING)
+                .filter(entry -> !entry.getPlayerId().equals(excludePlayerId))
+                .findFirst()
+                .orElse(null);
+        if (next == null || eventRepository.reserveSeat(event.getId()) != 1) {
+            return null;
+        }
+        waitListRepository.delete(next);
+        return next.getPlayerId();
+    }
+
+    /**
+     * Whether the player already joined the event, either as participant or on the wait list
+     *
+     * @param eventId  ID of the event
+     * @param playerId ID of the player
+     * @return true if the player is registered
+     */
+    public boolean isRegistered(Long eventId, Long playerId) {
+        return teamPlayerRepository.existsByEventIdAndPlayerId(eventId, playerId)
+                || waitListRepository.existsByEventIdAndPlayerId(eventId, playerId);
+    }
+
+    /**
+     * Current number of participants as seen by this transaction
+     *
+     * @param eventId ID of the event
+     * @return number of participants
+     */
+    public int currentParticipants(Long eventId) {
+        Integer current = eventRepository.findCurrentParticipants(eventId);
+        return current == null ? 0 : current;
+    }
+}
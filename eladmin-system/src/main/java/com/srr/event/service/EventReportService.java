@@ -0,0 +1,139 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.EventStatus;
+import com.srr.event.dto.EventResultRowDto;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.dto.PlayerEventRatingDTO;
+import com.srr.player.repository.RatingHistoryRepository;
+import com.srr.player.repository.TeamPlayerRepository;
+import com.srr.utils.EventRatingReport;
+import com.srr.utils.EventRatingReport.MatchResult;
+import com.srr.utils.EventRatingReport.RatingChange;
+import com.srr.utils.EventRatingReport.RosterEntry;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.config.cache.TwoLevelCache;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Builds the result and rating report of an event.
+ * <p>
+ * The matches, the team rosters and the rating history of the event are read with one set-based
+ * query each and combined by {@link EventRatingReport} in a single pass. The report of a completed
+ * event does not change any more, so it is kept in the {@link CacheKey#EVENT_REPORT} cache per event
+ * and version. Settling the ratings of the event again or changing one of its verified results bumps
+ * the version of the event, so a report loaded before the change is never read.
+ */
+@Slf4j
+@Service
+public class EventReportService {
+
+    /**
+     * Versions outlive every report cached under them, so an expired version never comes back
+     */
+    private static final long VERSION_TTL_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    private final EventRepository eventRepository;
+    private final MatchRepository matchRepository;
+    private final TeamPlayerRepository teamPlayerRepository;
+    private final RatingHistoryRepository ratingHistoryRepository;
+    private final RedisUtils redisUtils;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readOnly;
+
+    public EventReportService(EventRepository eventRepository, MatchRepository matchRepository,
+                              TeamPlayerRepository teamPlayerRepository, RatingHistoryRepository ratingHistoryRepository,
+                              RedisUtils redisUtils, CacheManager cacheManager,
+                              PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.matchRepository = matchRepository;
+        this.teamPlayerRepository = teamPlayerRepository;
+        this.ratingHistoryRepository = ratingHistoryRepository;
+        this.redisUtils = redisUtils;
+        this.cacheManager = cacheManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Get the wins, losses and rating changes of every player of an event
+     *
+     * @param eventId the event ID
+     * @return one row per player, in registration order
+     */
+    public List<PlayerEventRatingDTO> getPlayerEventRatings(Long eventId) {
+        long version = version(eventId);
+        String key = eventId + ":" + version;
+        Cache cache = cacheManager.getCache(CacheKey.EVENT_REPORT);
+        List<PlayerEventRatingDTO> cached = TwoLevelCache.getList(cache, key, PlayerEventRatingDTO.class);
+        if (cached != null) {
+            return cached;
+        }
+        Report report = readOnly.execute(status -> load(eventId));
+        if (report.status() == EventStatus.COMPLETED) {
+            if (version > 0) {
+                // Keep the version alive at least as long as the report cached under it
+                redisUtils.expire(versionKey(eventId), VERSION_TTL_SECONDS);
+            }
+            cache.putIfAbsent(key, new ArrayList<>(report.rows()));
+        }
+        return report.rows();
+    }
+
+    /**
+     * Drop the cached reports of the given events on every node
+     *
+     * @param eventIds the event IDs
+     */
+    public void evict(Collection<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return;
+        }
+        for (Long eventId : eventIds) {
+            redisUtils.increment(versionKey(eventId));
+            redisUtils.expire(versionKey(eventId), VERSION_TTL_SECONDS);
+        }
+    }
+
+    private long version(Long eventId) {
+        Object version = redisUtils.get(versionKey(eventId));
+        return version == null ? 0 : Long.parseLong(String.valueOf(version));
+    }
+
+    private static String versionKey(Long eventId) {
+        return CacheKey.EVENT_REPORT_VERSION + eventId;
+    }
+
+    private Report load(Long eventId) {
+        EventStatus status = eventRepository.findStatusById(eventId).orElse(null);
+        List<MatchResult> matches;
+        try (Stream<EventResultRowDto> rows = matchRepository.streamResultsByEventId(eventId)) {
+            matches = rows.map(row -> new MatchResult(row.getTeamAId(), row.getTeamBId(), row.isTeamAWin(), row.isTeamBWin()))
+                    .toList();
+        }
+        List<RosterEntry> roster = teamPlayerRepository.findRosterByEventId(eventId).stream()
+                .map(row -> new RosterEntry((Long) row[0], (Long) row[1], (String) row[2]))
+                .toList();
+        List<RatingChange> changes = ratingHistoryRepository.findChangesByEventId(eventId).stream()
+                .map(row -> new RatingChange((Long) row[0], (Double) row[1], (Double) row[2]))
+                .toList();
+        log.debug("Event {} report from {} matches, {} players and {} rating changes",
+                eventId, matches.size(), roster.size(), changes.size());
+        return new Report(status, EventRatingReport.build(roster, matches, changes));
+    }
+
+    private record Report(EventStatus status, List<PlayerEventRatingDTO> rows) {
+    }
+}
@@ -5,6 +5,7 @@ import com.srr.club.service.ClubService;
 import com.srr.enumeration.*;
 import com.srr.event.domain.*;
 import com.srr.event.dto.*;
+import com.srr.event.listener.PlayerRegistrationChangedEvent;
 import com.srr.event.mapper.MatchGroupMapper;
 import com.srr.event.mapper.MatchMapper;
 import com.srr.event.repository.*;
@@ -16,6 +17,7 @@ import com.srr.organizer.service.EventOrganizerService;
 import com.srr.player.domain.Player;
 import com.srr.player.domain.Team;
 import com.srr.player.domain.TeamPlayer;
+import com.srr.player.dto.TeamDto;
 import com.srr.player.mapper.TeamMapper;
 import com.srr.player.repository.PlayerSportRatingRepository;
 import com.srr.player.repository.TeamPlayerRepository;
@@ -31,6 +33,7 @@ import me.zhengjie.modules.system.repository.UserRepository;
 import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.service.EmailService;
 import me.zhengjie.utils.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -39,14 +42,22 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static me.zhengjie.modules.security.service.SecurityContextUtils.getCurrentUser;
 
@@ -62,6 +73,7 @@ public class EventService {
             Format.SINGLE, 2,
             Format.DOUBLE, 4);
     private static final String EVENT_BASE_URL = "https://sportrevive.com/events/";
+    private static final int MAX_FEED_SIZE = 100;
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
     private final TeamRepository teamRepository;
@@ -81,6 +93,11 @@ public class EventService {
     private final EventCoHostOrganizerService eventCoHostOrganizerService;
     private final EventOrganizerService eventOrganizerService;
     private final TeamMapper teamMapper;
+    private final GroupStandingsService groupStandingsService;
+    private final CheckInScheduleService checkInScheduleService;
+    private final EventCapacityService eventCapacityService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -142,10 +159,67 @@ public class EventService {
         }
 
         Page<Event> page = eventRepository.findAll(buildEventSpecification(criteria), pageable);
-        return PageUtil.toPage(page.map(event -> {
-            event.setClub(clubService.findEntityById(event.getClub().getId()));
-            return eventMapper.toDto(event);
-        }));
+        return PageUtil.toPage(page.map(eventMapper::toDto));
+    }
+
+    /**
+     * Query a slice of event cards with keyset pagination on (eventTime, id), newest first.
+     * Card fields and the club are read with one projection query and the tags of the whole
+     * slice with one more, so the cost of a slice does not depend on how deep it is.
+     *
+     * @param criteria the same filters as {@link #queryAll(EventQueryCriteria, Pageable)}
+     * @param cursor   nextCursor of the previous slice, null for the first slice
+     * @param size     number of events in the slice
+     * @return the slice
+     */
+    @Transactional(readOnly = true)
+    public EventFeedDto queryFeed(EventQueryCriteria criteria, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_FEED_SIZE);
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventCardDto> query = builder.createQuery(EventCardDto.class);
+        Root<Event> root = query.from(Event.class);
+        Join<Event, Club> club = root.join("club", JoinType.LEFT);
+
+        Predicate predicate = buildEventSpecification(criteria).toPredicate(root, query, builder);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("_", 2);
+            Timestamp eventTime;
+            Long id;
+            try {
+                eventTime = new Timestamp(Long.parseLong(parts[0]));
+                id = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            Path<Timestamp> eventTimePath = root.get("eventTime");
+            predicate = builder.and(predicate, builder.or(
+                    builder.lessThan(eventTimePath, eventTime),
+                    builder.and(builder.equal(eventTimePath, eventTime), builder.lessThan(root.get("id"), id))));
+        }
+        query.select(builder.construct(EventCardDto.class,
+                        root.get("id"), root.get("name"), root.get("format"), root.get("location"),
+                        root.get("image"), root.get("posterImage"), root.get("eventTime"), root.get("status"),
+                        root.get("sportId"), root.get("currentParticipants"), root.get("maxParticipants"),
+                        root.get("allowWaitList"), club.get("id"), club.get("name"), club.get("icon")))
+                .where(predicate)
+                .orderBy(builder.desc(root.get("eventTime")), builder.desc(root.get("id")))
+                // The player filter joins through groups and teams
+                .distinct(criteria.getPlayerId() != null);
+
+        List<EventCardDto> cards = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        String nextCursor = null;
+        if (cards.size() > limit) {
+            cards = new ArrayList<>(cards.subList(0, limit));
+            EventCardDto last = cards.get(limit - 1);
+            nextCursor = last.getEventTime().getTime() + "_" + last.getId();
+        }
+        if (!cards.isEmpty()) {
+            Map<Long, EventCardDto> byId = cards.stream().collect(Collectors.toMap(EventCardDto::getId, card -> card));
+            for (Object[] row : eventRepository.findTagNamesByEventIds(byId.keySet())) {
+                byId.get((Long) row[0]).getTags().add((String) row[1]);
+            }
+        }
+        return new EventFeedDto(cards, nextCursor);
     }
 
     private Specification<Event> buildEventSpecification(EventQueryCriteria criteria) {
@@ -257,6 +331,7 @@ public class EventService {
         event.setTags(processedTags);
 
         final Event eventResult = eventRepository.save(event);
+        checkInScheduleService.schedule(eventResult);
 
         // Set co_host organizers or throw exception
         eventCoHostOrganizerService.createEventCoHostOrganizers(resource.getCoHostOrganizers(), eventResult);
@@ -312,6 +387,7 @@ public class EventService {
         validateCheckInCheckOut(resources);
 
         final var result = eventRepository.save(event);
+        checkInScheduleService.schedule(result);
         EventDto responseDto = eventMapper.toDto(result);
         String eventLink = "https://sportrevive.com/events/" + result.getId();
         responseDto.setPublicLink(eventLink);
@@ -333,6 +409,7 @@ public class EventService {
         }
 
         final var result = eventRepository.save(event);
+        checkInScheduleService.schedule(result);
         EventDto responseDto = eventMapper.toDto(result);
         String eventLink = "https://sportrevive.com/events/" + result.getId();
         responseDto.setPublicLink(eventLink);
@@ -365,19 +442,10 @@ public class EventService {
         }
 
         // Prevent duplicate registration for the same event
-        if (teamPlayerRepository.findByEventId(event.getId()).stream().anyMatch(tp -> tp.getPlayer().getId().equals(playerId))) {
+        if (eventCapacityService.isRegistered(event.getId(), playerId)) {
             throw new BadRequestException("Player is already registered for this event");
         }
 
-        // Allow waitlist if current participants are over max participants & event allows waitlist.
-        boolean isWaitList = false;
-        final int currentParticipants = event.getCurrentParticipants() == null ? 0 : event.getCurrentParticipants();
-        if (currentParticipants < event.getMaxParticipants() && event.isAllowWaitList()) {
-            isWaitList = true;
-        } else if (currentParticipants >= event.getMaxParticipants() && !event.isAllowWaitList()) {
-            throw new BadRequestException("Event is full and does not allow waitlist");
-        }
-
         // Remove teamId logic: always create a new team for the player
         Team team = new Team();
         team.setEvent(event);
@@ -412,18 +480,12 @@ public class EventService {
         teamPlayer.setRegistrationTime(Timestamp.from(Instant.now()));
         teamPlayerRepository.save(teamPlayer);
 
-        if (!isWaitList) {
-            event.setCurrentParticipants((event.getCurrentParticipants() == null ? 0 : event.getCurrentParticipants()) + 1);
-        } else {
-            WaitList waitListEntry = new WaitList();
-            waitListEntry.setEventId(event.getId());
-            Player waitingPlayer = new Player();
-            waitingPlayer.setId(joinEventDto.getPlayerId());
-            waitListEntry.setPlayerId(waitingPlayer.getId());
-            waitListRepository.save(waitListEntry);
-        }
+        // Seat or wait list is decided last so the event row stays locked only until commit
+        eventCapacityService.reserve(event, playerId);
+        eventPublisher.publishEvent(new PlayerRegistrationChangedEvent(this, event.getId(), List.of(playerId)));
 
         EventDto responseDto = eventMapper.toDto(event);
+        responseDto.setCurrentParticipants(eventCapacityService.currentParticipants(event.getId()));
         responseDto.setPublicLink("https://sportrevive.com/events/" + event.getId());
         return responseDto;
     }
@@ -437,48 +499,29 @@ public class EventService {
             throw new BadRequestException("Withdrawal is not allowed at the current event status: " + event.getStatus());
         }
 
-        // Check if player is on the main list
+        // Wait-listed players have a team entry as well, the wait list entry tells them apart from participants
         TeamPlayer teamPlayer = teamPlayerRepository.findByEventIdAndPlayerId(eventId, request.playerId());
+        if (teamPlayer == null && !waitListRepository.existsByEventIdAndPlayerId(eventId, request.playerId())) {
+            throw new BadRequestException("Player is not registered for this event or on its waitlist.");
+        }
         if (teamPlayer != null) {
-            teamPlayer.setStatus(TeamPlayerStatus.WITHDRAWN);
-            teamPlayerRepository.save(teamPlayer);
-
-            // Get the team and update its state
             Team team = teamPlayer.getTeam();
-
-            // Remove the player from the team
             teamPlayerRepository.delete(teamPlayer);
-
-            // Use new helper for team update
             teamPlayerService.updateTeamStateAndStatus(team);
+        }
 
-            // Only decrement if player was on main list (not waitlist)
-            if (event.getCurrentParticipants() != null && event.getCurrentParticipants() > 0) {
-                event.setCurrentParticipants(event.getCurrentParticipants() - 1);
-            }
-
-            // Promote from waitlist if applicable
-            if (event.isAllowWaitList()) {
-                List<WaitList> waitList = waitListRepository.findByEventIdOrderByCreateTimeAsc(eventId);
-                if (!waitList.isEmpty()) {
-                    WaitList topOfWaitList = waitList.get(0);
-                    // This is a simplified promotion. A full implementation would create a new team/player entry.
-                    waitListRepository.delete(topOfWaitList); // Remove from waitlist
-                    event.setCurrentParticipants((event.getCurrentParticipants() == null ? 0 : event.getCurrentParticipants()) + 1); // Add the promoted player
-                }
-            }
-        } else {
-            // Check if player is on the waitlist
-            WaitList waitListEntry = waitListRepository.findByEventIdAndPlayerId(eventId, request.playerId());
-            if (waitListEntry != null) {
-                waitListRepository.delete(waitListEntry);
-            } else {
-                throw new BadRequestException("Player is not registered for this event or on its waitlist.");
-            }
+        List<Long> affectedPlayerIds = new ArrayList<>();
+        affectedPlayerIds.add(request.playerId());
+        Long promotedPlayerId = eventCapacityService.withdraw(event, request.playerId());
+        if (promotedPlayerId != null) {
+            affectedPlayerIds.add(promotedPlayerId);
         }
 
+        eventPublisher.publishEvent(new PlayerRegistrationChangedEvent(this, eventId, affectedPlayerIds));
+
         Event updatedEvent = eventRepository.save(event);
         EventDto responseDto = eventMapper.toDto(updatedEvent);
+        responseDto.setCurrentParticipants(eventCapacityService.currentParticipants(eventId));
         String eventLink = "https://sportrevive.com/events/" + updatedEvent.getId();
         responseDto.setPublicLink(eventLink);
         return responseDto;
@@ -571,6 +614,14 @@ public class EventService {
         }
     }
 
+    /**
+     * Queue a check-in reminder for the players of an event. The emails are written to the outbox
+     * and sent in the background after the transaction commits.
+     *
+     * @param id        ID of the event
+     * @param remindDto players to remind and optional content
+     * @return number of reminders queued
+     */
     @Transactional
     public ExecutionResult remind(Long id, RemindDto remindDto) {
         if (remindDto.getPlayers().isEmpty() && !remindDto.isAllPlayers()) {
@@ -580,30 +631,27 @@ public class EventService {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Event.class, "id", String.valueOf(id)));
 
-        // Get all players to be reminded and have not checked in yet
-        List<TeamPlayer> playersToRemind = teamPlayerRepository.
-                findByEventIdAndPlayerIdsOrAllPlayers(event.getId(), remindDto.getPlayers(), remindDto.isAllPlayers())
-                .stream().toList();
+        // Get the emails of all players to be reminded and have not checked in yet
+        List<String> emails = teamPlayerRepository.findEmailsByEventIdAndPlayerIdsOrAllPlayers(
+                event.getId(), remindDto.getPlayers(), remindDto.isAllPlayers());
 
-        if (playersToRemind.isEmpty()) {
+        if (emails.isEmpty()) {
             return ExecutionResult.of(id, Map.of("message", "No players to remind."));
         }
 
-        // Get all emails of players to be reminded
-        List<String> recipientEmails = playersToRemind.stream()
-                .map(teamPlayer -> userRepository.findById(teamPlayer.getPlayer().getUser().getId()).orElse(null))
-                .filter(Objects::nonNull)
-                .map(me.zhengjie.modules.system.domain.User::getEmail)
+        List<String> recipientEmails = emails.stream()
+                .filter(StringUtils::isNotBlank)
+                .distinct()
                 .toList();
 
         if (recipientEmails.isEmpty()) {
             return ExecutionResult.of(id, Map.of("message", "No valid emails found for players to remind."));
         }
 
-        // Set up email dto and send email
+        // Set up email dto and queue it, the outbox sends it once this transaction commits
         var emailConfig = emailService.find();
         EmailVo emailVo = getEmailVo(emailConfig, event, recipientEmails, remindDto.getContent());
-        emailService.send(emailVo, emailConfig);
+        emailService.enqueue(emailVo);
 
         return ExecutionResult.of(id, Map.of("remindersSent", recipientEmails.size()));
     }
@@ -685,12 +733,18 @@ public class EventService {
                                                         final List<MatchGroupDto> listMatchGroupDto) {
         return listMatchGroupDto.stream()
                 .map(matchGroupDto -> {
-                    List<MatrixDto> matrixDtoList = teamRepository
-                            .findByEventIdAndMatchGroupId(eventId, matchGroupDto.getId())
-                            .stream()
+                    final List<TeamDto> teams = matchGroupDto.getTeams() == null
+                            ? List.of()
+                            : matchGroupDto.getTeams().stream()
+                            .sorted(Comparator.comparing(TeamDto::getId))
+                            .toList();
+                    final List<GroupStandingsService.StandingRow> standings =
+                            groupStandingsService.getStandings(matchGroupDto.getId());
+                    final Map<Long, TeamDto> teamsById = getMatrixTeams(teams, standings);
+                    List<MatrixDto> matrixDtoList = teams.stream()
                             .map(team -> MatrixDto.builder()
-                                    .team(teamMapper.toDto(team))
-                                    .matches(getAllMatchMatrixByTeam(team))
+                                    .team(team)
+                                    .matches(getAllMatchMatrixByTeam(team.getId(), standings, teamsById))
                                     .build())
                             .toList();
                     matchGroupDto.setPlayerCount(getPlayerCountByGroup(matchGroupDto));
@@ -699,6 +753,24 @@ public class EventService {
                 .toList();
     }
 
+    /**
+     * Index the teams of a group by id, loading in one query any opponent which has since left the group.
+     */
+    private Map<Long, TeamDto> getMatrixTeams(List<TeamDto> teams, List<GroupStandingsService.StandingRow> standings) {
+        final Map<Long, TeamDto> teamsById = new HashMap<>();
+        teams.forEach(team -> teamsById.put(team.getId(), team));
+        final Set<Long> missingTeamIds = standings.stream()
+                .flatMap(row -> Stream.of(row.getTeamAId(), row.getTeamBId()))
+                .filter(Objects::nonNull)
+                .filter(teamId -> !teamsById.containsKey(teamId))
+                .collect(Collectors.toSet());
+        if (!missingTeamIds.isEmpty()) {
+            teamRepository.findAllById(missingTeamIds)
+                    .forEach(team -> teamsById.put(team.getId(), teamMapper.toDto(team)));
+        }
+        return teamsById;
+    }
+
     /**
      * Calculates the total number of players in a match group by summing the players in each team in the group.
      */
@@ -714,37 +786,28 @@ public class EventService {
                 .sum();
     }
 
-    private List<MatrixMatchDto> getAllMatchMatrixByTeam(Team team) {
-        final Long teamId = team.getId();
-        final Long matchGroupId = team.getMatchGroup().getId();
-
-        return matchRepository.findAllByMatchGroupIdOrderByMatchOrderAsc(matchGroupId)
-                .stream()
-                .filter(match -> isTeamInMatch(teamId, match))
-                .map(match -> createMatrixMatchDto(teamId, match))
+    private List<MatrixMatchDto> getAllMatchMatrixByTeam(Long teamId,
+                                                         List<GroupStandingsService.StandingRow> standings,
+                                                         Map<Long, TeamDto> teamsById) {
+        return standings.stream()
+                .filter(row -> row.involves(teamId))
+                .map(row -> createMatrixMatchDto(teamId, row, teamsById))
                 .toList();
     }
 
-    /**
-     * Checks if the given team is a participant in the specified match
-     */
-    private boolean isTeamInMatch(Long teamId, Match match) {
-        return teamId.equals(match.getTeamA().getId()) ||
-                teamId.equals(match.getTeamB().getId());
-    }
-
     /**
      * Creates a MatrixMatchDto object for the given team and match.
      */
-    private MatrixMatchDto createMatrixMatchDto(Long teamId, Match match) {
-        boolean isTeamA = teamId.equals(match.getTeamA().getId());
+    private MatrixMatchDto createMatrixMatchDto(Long teamId, GroupStandingsService.StandingRow row,
+                                                Map<Long, TeamDto> teamsById) {
+        boolean isTeamA = teamId.equals(row.getTeamAId());
 
-        Team opponent = isTeamA ? match.getTeamB() : match.getTeamA();
-        Integer myScore = isTeamA ? match.getScoreA() : match.getScoreB();
-        Integer otherScore = isTeamA ? match.getScoreB() : match.getScoreA();
+        Long opponentId = isTeamA ? row.getTeamBId() : row.getTeamAId();
+        Integer myScore = isTeamA ? row.getScoreA() : row.getScoreB();
+        Integer otherScore = isTeamA ? row.getScoreB() : row.getScoreA();
 
         return MatrixMatchDto.builder()
-                .otherTeam(teamMapper.toDto(opponent))
+                .otherTeam(opponentId == null ? null : teamsById.get(opponentId))
                 .myScore(myScore)
                 .otherScore(otherScore)
                 .build();
@@ -766,6 +829,42 @@ public class EventService {
         }).toList();
     }
 
+    /**
+     * Export the results of every match of an event, streamed from the database into the response
+     *
+     * @param eventId  ID of the event
+     * @param format   export format
+     * @param response the response to write to
+     * @throws IOException if the response cannot be written
+     */
+    @Transactional(readOnly = true)
+    public void exportEventResults(Long eventId, ExportUtil.Format format, HttpServletResponse response) throws IOException {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException(Event.class, "id", String.valueOf(eventId));
+        }
+        // Team rosters are small, load them up front so the result stream is read without other queries in between
+        Map<Long, String> players = teamPlayerRepository.findPlayerNamesByEventId(eventId).stream()
+                .collect(Collectors.groupingBy(row -> (Long) row[0], LinkedHashMap::new,
+                        Collectors.mapping(row -> String.valueOf(row[1]), Collectors.joining(" / "))));
+        ExportUtil.Columns<EventResultRowDto> columns = ExportUtil.<EventResultRowDto>columns()
+                .add("Group", EventResultRowDto::getGroupName)
+                .add("Match", EventResultRowDto::getMatchOrder)
+                .add("Team A", EventResultRowDto::getTeamAName)
+                .add("Team A players", EventResultRowDto::getTeamAPlayers)
+                .add("Team B", EventResultRowDto::getTeamBName)
+                .add("Team B players", EventResultRowDto::getTeamBPlayers)
+                .add("Score A", EventResultRowDto::getScoreA)
+                .add("Score B", EventResultRowDto::getScoreB)
+                .add("Winner", EventResultRowDto::getWinner)
+                .add("Verified", EventResultRowDto::isScoreVerified)
+                .add("Status", EventResultRowDto::getStatus);
+        ExportUtil.export(response, "event-" + eventId + "-results", format, columns,
+                matchRepository.streamResultsByEventId(eventId).peek(row -> {
+                    row.setTeamAPlayers(players.get(row.getTeamAId()));
+                    row.setTeamBPlayers(players.get(row.getTeamBId()));
+                }));
+    }
+
     /**
      * Validation & Set check-in and check-out time: whether event time is in the future
      */
@@ -0,0 +1,192 @@
+package com.srr.event.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.srr.event.domain.Match;
+import com.srr.event.domain.MatchStatus;
+import com.srr.event.repository.MatchRepository;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read model for the group score matrix.
+ * <p>
+ * Each match group is stored as a Redis hash keyed by match group id, with one compact
+ * standing row per match. The hash is built from a single query on a cache miss and is
+ * then updated in place once a match score or status change is committed, so rendering the
+ * matrix no longer re-queries the matches of a group once per team. Rebuilds are written to a
+ * temporary key and renamed over the live one, so readers never see a half-built group.
+ * <p>
+ * Every group has a version which is bumped by each update and eviction. A rebuild only replaces the
+ * live key if the version is still the one it read before querying the database, so an update which
+ * lands while the group is being rebuilt (and finds no live key to write to) discards the rebuild
+ * instead of being overwritten by it.
+ */
+@Service
+@RequiredArgsConstructor
+public class GroupStandingsService {
+
+    /**
+     * Standings of finished events are rarely read, let them fall out of Redis after a day
+     */
+    private static final long STANDINGS_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private final MatchRepository matchRepository;
+    private final RedisUtils redisUtils;
+
+    /**
+     * Get the standing rows of a match group ordered by match order, building them from the database on a miss.
+     *
+     * @param matchGroupId ID of the match group
+     * @return standing rows of the group
+     */
+    public List<StandingRow> getStandings(Long matchGroupId) {
+        Map<Object, Object> entries = redisUtils.hmget(key(matchGroupId));
+        if (entries != null && !entries.isEmpty()) {
+            List<StandingRow> rows = new ArrayList<>(entries.size());
+            for (Object value : entries.values()) {
+                rows.add(JSON.parseObject(String.valueOf(value), StandingRow.class));
+            }
+            rows.sort(Comparator.comparingInt(StandingRow::getMatchOrder));
+            return rows;
+        }
+        return rebuild(matchGroupId);
+    }
+
+    /**
+     * Rebuild the standings of a match group from its matches
+     *
+     * @param matchGroupId ID of the match group
+     * @return standing rows of the group
+     */
+    public List<StandingRow> rebuild(Long matchGroupId) {
+        long version = version(matchGroupId);
+        List<StandingRow> rows = matchRepository.findAllByMatchGroupIdOrderByMatchOrderAsc(matchGroupId)
+                .stream()
+                .map(StandingRow::of)
+                .toList();
+        if (!rows.isEmpty()) {
+            Map<String, Object> hash = new HashMap<>(rows.size() * 2);
+            rows.forEach(row -> hash.put(String.valueOf(row.getMatchId()), JSON.toJSONString(row)));
+            String tmpKey = key(matchGroupId) + ":tmp:" + UUID.randomUUID();
+            if (redisUtils.hmset(tmpKey, hash, STANDINGS_TTL_SECONDS)) {
+                redisUtils.renameIfVersion(tmpKey, key(matchGroupId), versionKey(matchGroupId), version);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Apply committed standing rows to the standings of their groups.
+     * Groups which are not cached yet are left alone and built on the next read,
+     * the existence check and the write run atomically so an expiring group is never recreated partially.
+     *
+     * @param rows the standing rows of updated matches
+     */
+    public void apply(Collection<StandingRow> rows) {
+        rows.stream().map(StandingRow::getGroupId).filter(Objects::nonNull).distinct().forEach(this::bumpVersion);
+        for (StandingRow row : rows) {
+            if (row.getGroupId() != null) {
+                redisUtils.hsetIfExists(key(row.getGroupId()), String.valueOf(row.getMatchId()),
+                        JSON.toJSONString(row), STANDINGS_TTL_SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Drop the cached standings of the given match groups, e.g. after their matches were regenerated.
+     * Inside a transaction the standings are only dropped once the transaction has committed, so a
+     * concurrent read cannot rebuild them from matches which are not visible yet.
+     *
+     * @param matchGroupIds IDs of the match groups
+     */
+    public void evict(Collection<Long> matchGroupIds) {
+        if (matchGroupIds == null || matchGroupIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(matchGroupIds);
+        Runnable apply = () -> {
+            ids.forEach(this::bumpVersion);
+            redisUtils.del(ids.stream().map(this::key).toArray(String[]::new));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private long version(Long matchGroupId) {
+        Object version = redisUtils.get(versionKey(matchGroupId));
+        return version == null ? 0 : Long.parseLong(String.valueOf(version));
+    }
+
+    private void bumpVersion(Long matchGroupId) {
+        redisUtils.increment(versionKey(matchGroupId));
+        redisUtils.expire(versionKey(matchGroupId), STANDINGS_TTL_SECONDS);
+    }
+
+    private String key(Long matchGroupId) {
+        return CacheKey.GROUP_STANDINGS + matchGroupId;
+    }
+
+    private String versionKey(Long matchGroupId) {
+        return CacheKey.GROUP_STANDINGS_VERSION + matchGroupId;
+    }
+
+    /**
+     * One match of a group as seen by the score matrix
+     */
+    @Data
+    public static class StandingRow implements Serializable {
+
+        private Long matchId;
+
+        private Long groupId;
+
+        private int matchOrder;
+
+        private Long teamAId;
+
+        private Long teamBId;
+
+        private int scoreA;
+
+        private int scoreB;
+
+        private MatchStatus status;
+
+        public static StandingRow of(Match match) {
+            StandingRow row = new StandingRow();
+            row.setMatchId(match.getId());
+            row.setGroupId(match.getMatchGroup() == null ? null : match.getMatchGroup().getId());
+            row.setMatchOrder(match.getMatchOrder());
+            row.setTeamAId(match.getTeamA() == null ? null : match.getTeamA().getId());
+            row.setTeamBId(match.getTeamB() == null ? null : match.getTeamB().getId());
+            row.setScoreA(match.getScoreA());
+            row.setScoreB(match.getScoreB());
+            row.setStatus(match.getStatus());
+            return row;
+        }
+
+        /**
+         * @return whether the given team plays in this match
+         */
+        public boolean involves(Long teamId) {
+            return teamId.equals(teamAId) || teamId.equals(teamBId);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.srr.event.service;
+
+import com.srr.event.domain.Event;
+import com.srr.event.domain.MatchGroup;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchGroupRepository;
+import com.srr.player.domain.Player;
+import com.srr.player.repository.PlayerRepository;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.modules.security.service.enums.UserType;
+import me.zhengjie.modules.system.domain.User;
+import me.zhengjie.modules.system.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which live score topics a user may subscribe to.
+ * <p>
+ * Public events are visible to every signed in user. Private events are visible to staff users
+ * and to the players registered for them, the same rule that guards joining a private event.
+ */
+@Service
+@RequiredArgsConstructor
+public class LiveScoreAccessService {
+
+    private static final Pattern EVENT_TOPIC = Pattern.compile("^/topic/events/(\\d+)/scores$");
+    private static final Pattern GROUP_TOPIC = Pattern.compile("^/topic/groups/(\\d+)/scores$");
+
+    private final EventRepository eventRepository;
+    private final MatchGroupRepository matchGroupRepository;
+    private final UserRepository userRepository;
+    private final PlayerRepository playerRepository;
+    private final EventCapacityService eventCapacityService;
+
+    /**
+     * Whether the user may subscribe to the given destination
+     *
+     * @param username    name of the authenticated user
+     * @param destination STOMP destination of the subscription
+     * @return true if the destination is a live score topic of an event visible to the user
+     */
+    @Transactional(readOnly = true)
+    public boolean canSubscribe(String username, String destination) {
+        if (username == null || destination == null) {
+            return false;
+        }
+        Matcher matcher = EVENT_TOPIC.matcher(destination);
+        if (matcher.matches()) {
+            return eventRepository.findById(Long.valueOf(matcher.group(1)))
+                    .map(event -> isVisible(event, username))
+                    .orElse(false);
+        }
+        matcher = GROUP_TOPIC.matcher(destination);
+        if (matcher.matches()) {
+            return matchGroupRepository.findById(Long.valueOf(matcher.group(1)))
+                    .map(MatchGroup::getEvent)
+                    .map(event -> isVisible(event, username))
+                    .orElse(false);
+        }
+        return false;
+    }
+
+    private boolean isVisible(Event event, String username) {
+        if (!Boolean.FALSE.equals(event.getIsPublic())) {
+            return true;
+        }
+        User user = userRepository.findByUsername(username);
+        if (user == null) {
+            return false;
+        }
+        if (user.getUserType() != UserType.PLAYER) {
+            return true;
+        }
+        Player player = playerRepository.findByUserId(user.getId());
+        return player != null && eventCapacityService.isRegistered(event.getId(), player.getId());
+    }
+}
@@ -0,0 +1,89 @@
+package com.srr.event.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.srr.event.dto.MatchScoreDeltaDto;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes live match score changes to STOMP subscribers.
+ * <p>
+ * Committed changes are published once on a Redis channel. Every node listens on that channel and
+ * forwards the deltas to the clients connected to it, so a subscriber receives every change no matter
+ * which node handled the update. Clients subscribe to {@code /topic/events/{eventId}/scores} or
+ * {@code /topic/groups/{groupId}/scores} and receive a list of {@link MatchScoreDeltaDto}; a batch
+ * submission arrives as one message per event and group instead of one per match.
+ */
+@Slf4j
+@Service
+public class LiveScoreService implements MessageListener {
+
+    public static final String CHANNEL = "live::scores";
+    private static final String EVENT_TOPIC = "/topic/events/%d/scores";
+    private static final String GROUP_TOPIC = "/topic/groups/%d/scores";
+
+    private final RedisUtils redisUtils;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public LiveScoreService(RedisUtils redisUtils, SimpMessagingTemplate messagingTemplate,
+                            RedisMessageListenerContainer listenerContainer) {
+        this.redisUtils = redisUtils;
+        this.messagingTemplate = messagingTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Publish committed score changes to all nodes
+     *
+     * @param deltas    the changed matches
+     * @param timestamp commit time in epoch milliseconds
+     */
+    public void broadcast(List<MatchScoreDeltaDto> deltas, long timestamp) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        deltas.forEach(delta -> delta.setTimestamp(timestamp));
+        try {
+            redisUtils.publish(CHANNEL, JSON.toJSONString(deltas));
+        } catch (Exception e) {
+            // Live scores are best effort, clients catch up from the match endpoints
+            log.warn("Failed to publish {} live score deltas: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<MatchScoreDeltaDto> deltas;
+        try {
+            deltas = JSON.parseArray(new String(message.getBody(), StandardCharsets.UTF_8), MatchScoreDeltaDto.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed live score message: {}", e.getMessage());
+            return;
+        }
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        send(EVENT_TOPIC, deltas.stream()
+                .filter(delta -> delta.getEventId() != null)
+                .collect(Collectors.groupingBy(MatchScoreDeltaDto::getEventId, LinkedHashMap::new, Collectors.toList())));
+        send(GROUP_TOPIC, deltas.stream()
+                .filter(delta -> delta.getGroupId() != null)
+                .collect(Collectors.groupingBy(MatchScoreDeltaDto::getGroupId, LinkedHashMap::new, Collectors.toList())));
+    }
+
+    private void send(String topic, Map<Long, List<MatchScoreDeltaDto>> deltasById) {
+        deltasById.forEach((id, deltas) -> messagingTemplate.convertAndSend(String.format(topic, id), deltas));
+    }
+}
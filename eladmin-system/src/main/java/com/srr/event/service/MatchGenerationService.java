@@ -2,17 +2,21 @@ package com.srr.event.service;
 
 import com.srr.event.domain.Match;
 import com.srr.event.domain.MatchGroup;
+import com.srr.event.domain.MatchStatus;
 import com.srr.event.repository.MatchGroupRepository;
 import com.srr.event.repository.MatchRepository;
 import com.srr.player.domain.Team;
+import com.srr.utils.RoundRobinSchedule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.utils.IdBlockAllocator;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.Types;
+import java.util.*;
 
 /**
  * Service implementation for generating matches for match groups
@@ -22,8 +26,17 @@ import java.util.List;
 @Slf4j
 public class MatchGenerationService {
 
+    private static final String MATCH_TABLE = "event_match";
+    private static final String INSERT_MATCH_SQL = "INSERT INTO " + MATCH_TABLE + " (id, match_group_id, team_a_id, team_b_id, " +
+            "score_a, score_b, team_a_win, team_b_win, score_verified, match_order, status) " +
+            "VALUES (?, ?, ?, ?, 0, 0, 0, 0, 0, ?, ?)";
+    private static final int[] INSERT_MATCH_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.INTEGER, Types.VARCHAR};
+
     private final MatchRepository matchRepository;
     private final MatchGroupRepository matchGroupRepository;
+    private final GroupStandingsService groupStandingsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
 
     /**
      * Generate matches for an entire event by iterating through its match groups.
@@ -55,11 +68,7 @@ public class MatchGenerationService {
             throw new BadRequestException("Matches already exist for this event.");
         }
 
-        int totalMatchesGenerated = 0;
-        // Generate matches for each group
-        for (MatchGroup group : matchGroups) {
-            totalMatchesGenerated += generateMatchesForGroup(group);
-        }
+        int totalMatchesGenerated = generateMatches(matchGroups);
 
         log.info("Successfully generated a total of {} matches for event {}.", totalMatchesGenerated, eventId);
     }
@@ -72,10 +81,7 @@ public class MatchGenerationService {
      */
     @Transactional
     public int generateMatchesForGroup(MatchGroup matchGroup) {
-        // Get all teams in the group
-        List<Team> teams = new ArrayList<>(matchGroup.getTeams());
-
-        if (teams.size() < 2) {
+        if (matchGroup.getTeams().size() < 2) {
             log.warn("Not enough teams in match group {} to generate matches", matchGroup.getId());
             return 0;
         }
@@ -85,33 +91,49 @@ public class MatchGenerationService {
         // Note: This is now redundant if called from generateMatchesForEvent, but kept for standalone use
         matchRepository.deleteByMatchGroupId(matchGroup.getId());
 
-        int matchCount = 0;
-        int matchOrder = 1;
+        int matchCount = generateMatches(List.of(matchGroup));
+        log.info("Generated {} matches for match group {}", matchCount, matchGroup.getId());
+        return matchCount;
+    }
 
-        // Generate round-robin matches
-        // Each team plays against every other team exactly once
-        for (int i = 0; i < teams.size(); i++) {
-            for (int j = i + 1; j < teams.size(); j++) {
-                Team teamA = teams.get(i);
-                Team teamB = teams.get(j);
-
-                Match match = new Match();
-                match.setMatchGroup(matchGroup);
-                match.setTeamA(teamA);
-                match.setTeamB(teamB);
-                match.setScoreA(0);
-                match.setScoreB(0);
-                match.setTeamAWin(false);
-                match.setTeamBWin(false);
-                match.setScoreVerified(false);
-                match.setMatchOrder(matchOrder++);
-
-                matchRepository.save(match);
-                matchCount++;
+    /**
+     * Build the round-robin of every group and insert all matches with one JDBC batch.
+     */
+    private int generateMatches(List<MatchGroup> matchGroups) {
+        Map<Long, List<Long>> teamsByGroup = new LinkedHashMap<>();
+        for (MatchGroup group : matchGroups) {
+            teamsByGroup.put(group.getId(), group.getTeams().stream().map(Team::getId).toList());
+        }
+
+        List<Object[]> rows = teamsByGroup.entrySet().stream()
+                .flatMap(entry -> scheduleGroup(entry.getKey(), entry.getValue()).stream())
+                .toList();
+
+        if (!rows.isEmpty()) {
+            // Ids come from the same segment Hibernate uses for matches
+            long id = idBlockAllocator.allocate(MATCH_TABLE, rows.size());
+            for (Object[] row : rows) {
+                row[0] = id++;
             }
+            // Groups and teams created in the same transaction must reach the database before the JDBC batch
+            matchRepository.flush();
+            jdbcTemplate.batchUpdate(INSERT_MATCH_SQL, rows, INSERT_MATCH_TYPES);
         }
+        groupStandingsService.evict(teamsByGroup.keySet());
+        return rows.size();
+    }
 
-        log.info("Generated {} matches for match group {}", matchCount, matchGroup.getId());
-        return matchCount;
+    /**
+     * Rows of the matches of one group in round-robin order. Every team plays at most once per round, but
+     * a team may play the last match of one round and the first match of the next.
+     */
+    private static List<Object[]> scheduleGroup(Long groupId, List<Long> teamIds) {
+        List<Object[]> rows = new ArrayList<>();
+        int matchOrder = 1;
+        for (int[] pair : RoundRobinSchedule.pairings(teamIds.size())) {
+            rows.add(new Object[]{null, groupId, teamIds.get(pair[0]), teamIds.get(pair[1]), matchOrder++,
+                    MatchStatus.SCHEDULED.name()});
+        }
+        return rows;
     }
 }
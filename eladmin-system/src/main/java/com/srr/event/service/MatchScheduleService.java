@@ -0,0 +1,152 @@
+package com.srr.event.service;
+
+import com.srr.club.dto.CourtDto;
+import com.srr.club.dto.CourtQueryCriteria;
+import com.srr.club.service.CourtService;
+import com.srr.event.domain.Event;
+import com.srr.event.domain.Match;
+import com.srr.event.dto.MatchScheduleDto;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.utils.CourtScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.exception.EntityNotFoundException;
+import me.zhengjie.utils.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the court and time-slot timetable of an event from its generated matches,
+ * the courts of the hosting club and a match duration. See {@link CourtScheduler}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchScheduleService {
+
+    private static final int MAX_IMPROVEMENT_PASSES = 50;
+
+    private final EventRepository eventRepository;
+    private final MatchRepository matchRepository;
+    private final CourtService courtService;
+
+    /**
+     * Estimate when and where every match of an event is played
+     *
+     * @param eventId       ID of the event
+     * @param matchDuration minutes per match, including changeover
+     * @param restSlots     number of slots a team sits out between two matches
+     * @param courts        number of courts to use, all courts of the club when null; at most the courts of the club,
+     *                      or the number of matches when the club has none configured
+     * @return the timetable
+     */
+    @Transactional(readOnly = true)
+    public MatchScheduleDto schedule(Long eventId, int matchDuration, int restSlots, Integer courts) {
+        if (matchDuration <= 0) {
+            throw new BadRequestException("Match duration must be positive");
+        }
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException(Event.class, "id", String.valueOf(eventId)));
+
+        List<Match> matches = matchRepository.findByMatchGroupEventId(eventId).stream()
+                .filter(match -> match.getTeamA() != null && match.getTeamB() != null)
+                .toList();
+        Map<Long, Match> matchById = matches.stream().collect(Collectors.toMap(Match::getId, Function.identity()));
+        List<CourtScheduler.Job> jobs = matches.stream()
+                .map(match -> new CourtScheduler.Job(match.getId(), match.getMatchOrder(),
+                        match.getTeamA().getId(), match.getTeamB().getId(),
+                        parseCourts(match.getMatchGroup().getCourtNumbers())))
+                .toList();
+
+        int clubCourts = clubCourts(event);
+        if (courts != null) {
+            // Without configured courts no more courts than matches can ever be used
+            int maxCourts = clubCourts > 0 ? clubCourts : Math.max(1, jobs.size());
+            if (courts <= 0 || courts > maxCourts) {
+                throw new BadRequestException("Number of courts must be between 1 and " + maxCourts);
+            }
+        }
+        int available = courts != null ? courts : clubCourts;
+        if (available <= 0) {
+            throw new BadRequestException("No courts are configured for the club of this event");
+        }
+        // Courts beyond the number of matches would stay idle, only the ones pinned by a group are kept
+        int pinned = jobs.stream().flatMap(job -> job.courts().stream())
+                .filter(court -> court <= available).max(Integer::compare).orElse(0);
+        int courtCount = Math.min(available, Math.max(Math.max(1, jobs.size()), pinned));
+
+        long started = System.nanoTime();
+        CourtScheduler.Timetable timetable = CourtScheduler.schedule(jobs, courtCount, restSlots, MAX_IMPROVEMENT_PASSES);
+        log.debug("Scheduled {} matches of event {} on {} courts in {} slots (greedy {}) in {} ms", jobs.size(), eventId,
+                courtCount, timetable.slotCount(), timetable.greedySlots(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        long start = event.getEventTime() != null ? event.getEventTime().getTime() : System.currentTimeMillis();
+        long slotMillis = TimeUnit.MINUTES.toMillis(matchDuration);
+
+        List<MatchScheduleDto.ScheduledMatchDto> scheduled = new ArrayList<>(timetable.assignments().size());
+        for (CourtScheduler.Assignment assignment : timetable.assignments()) {
+            Match match = matchById.get(assignment.matchId());
+            MatchScheduleDto.ScheduledMatchDto dto = new MatchScheduleDto.ScheduledMatchDto();
+            dto.setMatchId(match.getId());
+            dto.setMatchGroupId(match.getMatchGroup().getId());
+            dto.setMatchOrder(match.getMatchOrder());
+            dto.setTeamAId(match.getTeamA().getId());
+            dto.setTeamBId(match.getTeamB().getId());
+            dto.setCourt(assignment.court());
+            dto.setSlot(assignment.slot());
+            dto.setStartTime(new Timestamp(start + assignment.slot() * slotMillis));
+            dto.setEndTime(new Timestamp(start + (assignment.slot() + 1) * slotMillis));
+            scheduled.add(dto);
+        }
+
+        MatchScheduleDto result = new MatchScheduleDto();
+        result.setEventId(eventId);
+        result.setCourtCount(courtCount);
+        result.setMatchDuration(matchDuration);
+        result.setSlotCount(timetable.slotCount());
+        result.setUtilization(timetable.utilization());
+        result.setEstimatedStart(new Timestamp(start));
+        result.setEstimatedEnd(new Timestamp(start + timetable.slotCount() * slotMillis));
+        result.setMatches(scheduled);
+        return result;
+    }
+
+    private int clubCourts(Event event) {
+        if (event.getClub() == null) {
+            return 0;
+        }
+        CourtQueryCriteria criteria = new CourtQueryCriteria();
+        criteria.setClubId(event.getClub().getId());
+        criteria.setSportId(event.getSportId());
+        return courtService.queryAll(criteria).stream()
+                .map(CourtDto::getAmount)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Court numbers of a group, e.g. "1,2,3"; anything unparsable is ignored
+     */
+    private static Set<Integer> parseCourts(String courtNumbers) {
+        if (StringUtils.isBlank(courtNumbers)) {
+            return Set.of();
+        }
+        Set<Integer> courts = new HashSet<>();
+        for (String part : courtNumbers.split("[,;\\s]+")) {
+            if (part.matches("\\d{1,4}")) {
+                courts.add(Integer.parseInt(part));
+            }
+        }
+        return courts;
+    }
+}
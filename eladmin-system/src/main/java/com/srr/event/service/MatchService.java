@@ -1,32 +1,29 @@
 package com.srr.event.service;
 
 import com.srr.enumeration.EventStatus;
-import com.srr.enumeration.Format;
 import com.srr.event.domain.Event;
 import com.srr.event.domain.Match;
 import com.srr.event.domain.MatchStatus;
 import com.srr.event.dto.MatchDto;
 import com.srr.event.dto.MatchScoreUpdateDto;
+import com.srr.event.listener.MatchScoresChangedEvent;
 import com.srr.event.mapper.MatchMapper;
 import com.srr.event.repository.EventRepository;
 import com.srr.event.repository.MatchRepository;
-import com.srr.player.domain.*;
-import com.srr.player.repository.PlayerSportRatingRepository;
-import com.srr.player.repository.RatingHistoryRepository;
+import com.srr.player.domain.TeamPlayer;
 import com.srr.player.repository.TeamPlayerRepository;
-import com.srr.utils.RatingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityNotFoundException;
 import me.zhengjie.utils.SecurityUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -41,10 +38,9 @@ public class MatchService {
     private final MatchRepository matchRepository;
     private final TeamPlayerRepository teamPlayerRepository;
     private final MatchMapper matchMapper;
-    private final PlayerSportRatingRepository playerSportRatingRepository;
-    private final RatingHistoryRepository ratingHistoryRepository;
-    private final RatingService ratingService;
+    private final RatingSettlementService ratingSettlementService;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Updates the score of a match
@@ -116,7 +112,9 @@ public class MatchService {
         log.info("Updated match {} score: Team A {}, Team B {}",
                 match.getId(), match.getScoreA(), match.getScoreB());
 
-        return matchRepository.save(match);
+        match = matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScoresChangedEvent(this, List.of(match)));
+        return match;
     }
 
     private void validateBadmintonScore(int scoreA, int scoreB) {
@@ -154,7 +152,9 @@ public class MatchService {
         match.setScoreVerified(true);
         log.info("Verified match {} score", match.getId());
 
-        return matchRepository.save(match);
+        match = matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScoresChangedEvent(this, List.of(match)));
+        return match;
     }
 
     /**
@@ -205,7 +205,7 @@ public class MatchService {
 
     /**
      * Submits all match scores for an event after validation. Discards matches with no scores entered.
-     * Updates player ratings via RatingService for all submitted matches.
+     * Updates player ratings of all submitted matches in one batched settlement.
      *
      * @param eventId the event ID
      * @return number of matches submitted
@@ -240,14 +240,13 @@ public class MatchService {
             m.setStatus(MatchStatus.COMPLETED);
         });
         matchRepository.saveAll(matchesWithScores);
+        eventPublisher.publishEvent(new MatchScoresChangedEvent(this, matchesWithScores));
 
-        // Update ratings for all matches
-        for (Match match : matchesWithScores) {
-            updateRatingsForMatch(match);
-        }
+        // Settle ratings for all matches in one pass
+        Event event = eventRepository.findById(eventId).orElseThrow(() -> new BadRequestException("Event not found"));
+        ratingSettlementService.settle(event, matchesWithScores);
 
         // Mark event as completed
-        Event event = eventRepository.findById(eventId).orElseThrow(() -> new BadRequestException("Event not found"));
         event.setStatus(EventStatus.COMPLETED);
         eventRepository.save(event);
 
@@ -255,78 +254,12 @@ public class MatchService {
         return matchesWithScores.size();
     }
 
-    /**
-     * Updates ratings for a single match by invoking RatingService.
-     * This method fetches all relevant player ratings and applies the rating update logic.
-     */
-    private void updateRatingsForMatch(Match match) {
-        // Get event and format
-        Event event = match.getMatchGroup().getEvent();
-        //String sport = String.valueOf(event.getSportId()); // or event.getSportName() if available
-        String sport = "Badminton";
-        Format format = event.getFormat();
-
-        // Get teams
-        Team teamA = match.getTeamA();
-        Team teamB = match.getTeamB();
-        if (teamA == null || teamB == null) return;
-
-        // Fetch team players
-        List<TeamPlayer> teamAPlayers = teamPlayerRepository.findAllByTeamId(teamA.getId());
-        List<TeamPlayer> teamBPlayers = teamPlayerRepository.findAllByTeamId(teamB.getId());
-        if (format == Format.DOUBLE) {
-            if (teamAPlayers.size() == 2 && teamBPlayers.size() == 2) {
-                List<PlayerSportRating> teamARatings = teamAPlayers.stream()
-                        .map(tp -> playerSportRatingRepository.findByPlayerIdAndSportIdAndFormat(tp.getPlayer().getId(), event.getSportId(), Format.DOUBLE).orElse(null))
-                        .filter(Objects::nonNull)
-                        .toList();
-                List<PlayerSportRating> teamBRatings = teamBPlayers.stream()
-                        .map(tp -> playerSportRatingRepository.findByPlayerIdAndSportIdAndFormat(tp.getPlayer().getId(), event.getSportId(), Format.DOUBLE).orElse(null))
-                        .filter(Objects::nonNull)
-                        .toList();
-                if (teamARatings.size() == 2 && teamBRatings.size() == 2) {
-                    double[] oldScores = {teamARatings.get(0).getRateScore(), teamARatings.get(1).getRateScore(), teamBRatings.get(0).getRateScore(), teamBRatings.get(1).getRateScore()};
-                    ratingService.updateRatingsForDoubles(teamARatings, teamBRatings, match.getScoreA(), match.getScoreB());
-                    playerSportRatingRepository.saveAll(teamARatings);
-                    playerSportRatingRepository.saveAll(teamBRatings);
-                    // Save to rating history
-                    for (int i = 0; i < 2; i++) {
-                        saveRatingHistory(teamAPlayers.get(i).getPlayer(), teamARatings.get(i), oldScores[i], match);
-                        saveRatingHistory(teamBPlayers.get(i).getPlayer(), teamBRatings.get(i), oldScores[2 + i], match);
-                    }
-                }
-            }
-        } else if (format == Format.SINGLE) {
-            if (teamAPlayers.size() == 1 && teamBPlayers.size() == 1) {
-                PlayerSportRating ratingA = playerSportRatingRepository.findByPlayerIdAndSportIdAndFormat(teamAPlayers.get(0).getPlayer().getId(), event.getSportId(), Format.SINGLE).orElse(null);
-                PlayerSportRating ratingB = playerSportRatingRepository.findByPlayerIdAndSportIdAndFormat(teamBPlayers.get(0).getPlayer().getId(), event.getSportId(), Format.SINGLE).orElse(null);
-                if (ratingA != null && ratingB != null) {
-                    double oldA = ratingA.getRateScore();
-                    double oldB = ratingB.getRateScore();
-                    ratingService.updateRatingsForSingles(ratingA, ratingB, 0, 0, match.getScoreA(), match.getScoreB());
-                    playerSportRatingRepository.save(ratingA);
-                    playerSportRatingRepository.save(ratingB);
-                    saveRatingHistory(teamAPlayers.get(0).getPlayer(), ratingA, oldA, match);
-                    saveRatingHistory(teamBPlayers.get(0).getPlayer(), ratingB, oldB, match);
-                }
-            }
-        }
-    }
-
-    private void saveRatingHistory(Player player, PlayerSportRating rating, double oldScore, Match match) {
-        RatingHistory history = new RatingHistory();
-        history.setPlayer(player);
-        history.setRateScore(rating.getRateScore());
-        history.setChanges(rating.getRateScore() - oldScore);
-        history.setMatch(match);
-        ratingHistoryRepository.save(history);
-    }
-
     @Transactional
     public void withdrawMatch(Long matchId) {
         Match match = findById(matchId);
         match.setStatus(MatchStatus.WITHDRAWN);
         matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScoresChangedEvent(this, List.of(match)));
         log.info("Match {} marked as WITHDRAWN", matchId);
     }
 
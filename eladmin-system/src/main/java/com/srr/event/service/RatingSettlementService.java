@@ -0,0 +1,164 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.Format;
+import com.srr.event.domain.Event;
+import com.srr.event.domain.Match;
+import com.srr.event.listener.RatingsSettledEvent;
+import com.srr.player.domain.PlayerSportRating;
+import com.srr.player.domain.TeamPlayer;
+import com.srr.player.repository.PlayerSportRatingRepository;
+import com.srr.player.repository.TeamPlayerRepository;
+import com.srr.utils.RatingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.IdBlockAllocator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Settles the player ratings of a whole event in one pass.
+ * <p>
+ * Team players and ratings of the event are loaded with two queries, the matches are replayed
+ * in match order against in-memory copies of the ratings through {@link RatingService}, and the
+ * final ratings and the rating history are then written with JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingSettlementService {
+
+    private static final String UPDATE_RATING_SQL =
+            "UPDATE player_sport_rating SET rate_score = ?, update_time = ? WHERE id = ?";
+    private static final String HISTORY_TABLE = "rating_history";
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO " + HISTORY_TABLE + " (player_id, player_sport_rating_id, rate_score, changes, create_time, match_id, id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final TeamPlayerRepository teamPlayerRepository;
+    private final PlayerSportRatingRepository playerSportRatingRepository;
+    private final RatingService ratingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Apply the rating changes of the given matches of an event
+     *
+     * @param event   the event being closed
+     * @param matches the scored matches of the event
+     * @return number of rating history entries written
+     */
+    @Transactional
+    public int settle(Event event, List<Match> matches) {
+        Format format = event.getFormat();
+        if (matches.isEmpty() || (format != Format.DOUBLE && format != Format.SINGLE)) {
+            return 0;
+        }
+
+        // Players of every team, in registration order
+        Map<Long, List<Long>> playersByTeam = new HashMap<>();
+        for (TeamPlayer teamPlayer : teamPlayerRepository.findWithPlayerByEventId(event.getId())) {
+            playersByTeam.computeIfAbsent(teamPlayer.getTeam().getId(), k -> new ArrayList<>())
+                    .add(teamPlayer.getPlayer().getId());
+        }
+        if (playersByTeam.isEmpty()) {
+            return 0;
+        }
+
+        // Work on detached copies so the persistence context does not flush the ratings a second time
+        Set<Long> playerIds = new HashSet<>();
+        playersByTeam.values().forEach(playerIds::addAll);
+        Map<Long, PlayerSportRating> ratingsByPlayer = new HashMap<>();
+        for (PlayerSportRating rating : playerSportRatingRepository
+                .findAllByPlayerIdInAndSportIdAndFormat(playerIds, event.getSportId(), format)) {
+            PlayerSportRating copy = new PlayerSportRating();
+            copy.setId(rating.getId());
+            copy.setRateScore(rating.getRateScore());
+            copy.setProvisional(rating.getProvisional());
+            ratingsByPlayer.put(rating.getPlayer().getId(), copy);
+        }
+
+        List<Match> ordered = new ArrayList<>(matches);
+        ordered.sort(Comparator.comparing((Match m) -> m.getMatchGroup().getId())
+                .thenComparingInt(Match::getMatchOrder));
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> history = new ArrayList<>();
+        Map<Long, Integer> wins = new HashMap<>();
+        Map<Long, Integer> losses = new HashMap<>();
+        for (Match match : ordered) {
+            if (match.getTeamA() == null || match.getTeamB() == null) {
+                continue;
+            }
+            List<Long> teamA = playersByTeam.getOrDefault(match.getTeamA().getId(), List.of());
+            List<Long> teamB = playersByTeam.getOrDefault(match.getTeamB().getId(), List.of());
+            int teamSize = format == Format.DOUBLE ? 2 : 1;
+            if (teamA.size() != teamSize || teamB.size() != teamSize) {
+                continue;
+            }
+            List<PlayerSportRating> ratingsA = teamA.stream().map(ratingsByPlayer::get).filter(Objects::nonNull).toList();
+            List<PlayerSportRating> ratingsB = teamB.stream().map(ratingsByPlayer::get).filter(Objects::nonNull).toList();
+            if (ratingsA.size() != teamSize || ratingsB.size() != teamSize) {
+                continue;
+            }
+
+            List<Long> players = new ArrayList<>(teamA);
+            players.addAll(teamB);
+            List<PlayerSportRating> ratings = new ArrayList<>(ratingsA);
+            ratings.addAll(ratingsB);
+            double[] oldScores = ratings.stream().mapToDouble(PlayerSportRating::getRateScore).toArray();
+
+            if (format == Format.DOUBLE) {
+                ratingService.updateRatingsForDoubles(ratingsA, ratingsB, match.getScoreA(), match.getScoreB());
+            } else {
+                ratingService.updateRatingsForSingles(ratingsA.get(0), ratingsB.get(0), 0, 0, match.getScoreA(), match.getScoreB());
+            }
+
+            for (int i = 0; i < ratings.size(); i++) {
+                PlayerSportRating rating = ratings.get(i);
+                history.add(new Object[]{players.get(i), rating.getId(), rating.getRateScore(),
+                        rating.getRateScore() - oldScores[i], now, match.getId(), null});
+                boolean won = i < teamSize ? match.isTeamAWin() : match.isTeamBWin();
+                (won ? wins : losses).merge(players.get(i), 1, Integer::sum);
+            }
+        }
+
+        if (history.isEmpty()) {
+            return 0;
+        }
+
+        // Only ratings which took part in a settled match are written back
+        Map<Long, Double> settledRatings = new HashMap<>();
+        history.forEach(row -> settledRatings.put((Long) row[0], ratingsByPlayer.get((Long) row[0]).getRateScore()));
+        List<Object[]> ratingUpdates = settledRatings.keySet().stream()
+                .map(ratingsByPlayer::get)
+                .map(rating -> new Object[]{rating.getRateScore(), now, rating.getId()})
+                .toList();
+
+        // History ids come from the same segment Hibernate uses for rating history
+        if (!history.isEmpty()) {
+            long id = idBlockAllocator.allocate(HISTORY_TABLE, history.size());
+            for (Object[] row : history) {
+                row[6] = id++;
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_RATING_SQL, ratingUpdates,
+                new int[]{Types.DOUBLE, Types.TIMESTAMP, Types.BIGINT});
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, history,
+                new int[]{Types.BIGINT, Types.BIGINT, Types.DOUBLE, Types.DOUBLE, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT});
+
+        eventPublisher.publishEvent(new RatingsSettledEvent(this, event.getId(), event.getSportId(), format,
+                settledRatings, wins, losses));
+
+        log.info("Settled ratings of event {}: {} ratings updated, {} history entries written",
+                event.getId(), ratingUpdates.size(), history.size());
+        return history.size();
+    }
+}
@@ -1,7 +1,11 @@
 package com.srr.player;
 
+import com.srr.enumeration.Format;
+import com.srr.event.service.EventReportService;
 import com.srr.player.domain.Player;
 import com.srr.player.dto.*;
+import com.srr.player.service.LeaderboardService;
+import com.srr.player.service.PlayerDashboardService;
 import com.srr.player.service.PlayerService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -29,6 +33,9 @@ import java.util.List;
 public class PlayerController {
 
     private final PlayerService playerService;
+    private final LeaderboardService leaderboardService;
+    private final PlayerDashboardService playerDashboardService;
+    private final EventReportService eventReportService;
 
     @GetMapping
     @ApiOperation("Query player")
@@ -49,7 +56,7 @@ public class PlayerController {
     @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
     public ResponseEntity<PlayerDetailsDto> getByIdForHomPage(@PathVariable @Min(1) Long id,
                                                               PlayerDetailsRequest request) {
-        return new ResponseEntity<>(playerService.findPlayerDetailsById(id, request), HttpStatus.OK);
+        return new ResponseEntity<>(playerDashboardService.getDashboard(id, request), HttpStatus.OK);
     }
 
     @PutMapping
@@ -77,6 +84,23 @@ public class PlayerController {
         return new ResponseEntity<>(playerService.getAllPlayersDoublesStats(criteria, pageable), HttpStatus.OK);
     }
 
+    @GetMapping("/{id}/rank")
+    @ApiOperation("Get player's position on the rating leaderboard")
+    @PreAuthorize("hasAnyAuthority('Player', 'Organizer')")
+    public ResponseEntity<PlayerRankDto> getPlayerRank(@PathVariable Long id,
+                                                       @RequestParam(required = false) Long sportId,
+                                                       @RequestParam(required = false) Format format) {
+        return new ResponseEntity<>(playerService.getPlayerRank(id, sportId, format), HttpStatus.OK);
+    }
+
+    @PostMapping("/leaderboard/rebuild")
+    @Log("Rebuild leaderboards")
+    @ApiOperation("Rebuild rating leaderboards from rating history")
+    @PreAuthorize("hasAuthority('Admin')")
+    public ResponseEntity<Integer> rebuildLeaderboards() {
+        return new ResponseEntity<>(leaderboardService.rebuild(), HttpStatus.OK);
+    }
+
 
     @GetMapping("/{id}/events-summary")
     @ApiOperation("Get all events with matches and net rating change for player")
@@ -94,7 +118,7 @@ public class PlayerController {
 
     @GetMapping("/event/{id}/player-rating")
     public ResponseEntity<List<PlayerEventRatingDTO>> getEventPlayersRating(@PathVariable() Long id) {
-        final List<PlayerEventRatingDTO> playerEventRatings = playerService.getPlayerEventRating(id);
+        final List<PlayerEventRatingDTO> playerEventRatings = eventReportService.getPlayerEventRatings(id);
         return new ResponseEntity<>(playerEventRatings, HttpStatus.OK);
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.srr.enumeration.TeamPlayerStatus;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 import lombok.Setter;
+import me.zhengjie.base.PooledIdGenerator;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -15,7 +17,8 @@ import java.sql.Timestamp;
 @Table(name = "team_player")
 public class TeamPlayer implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     @Column(name = "id")
     @ApiModelProperty(value = "id", hidden = true)
     private Long id;
@@ -28,6 +31,13 @@ public class TeamPlayer implements Serializable {
     @JoinColumn(name = "player_id")
     private Player player;
 
+    /**
+     * Event of the team, unique together with the player so a player can only register once per event
+     */
+    @Column(name = "event_id", updatable = false)
+    @ApiModelProperty(hidden = true)
+    private Long eventId;
+
     @Column(name = "is_checked_in")
     private boolean isCheckedIn;
 
@@ -42,8 +52,9 @@ public class TeamPlayer implements Serializable {
     private TeamPlayerStatus status = TeamPlayerStatus.REGISTERED;
 
     @PrePersist
-    @PreUpdate
-    public void updateTeamAverageScore() {
-        // No-op: Average score calculation should be handled in a service, not in the entity.
+    public void copyEventId() {
+        if (eventId == null && team != null && team.getEvent() != null) {
+            eventId = team.getEvent().getId();
+        }
     }
 }
@@ -22,6 +22,10 @@ public class PlayerDetailsDto {
     private List<RatingHistoryDto> doubleEventRatingHistory;
     private EventDto eventToday;
     private List<EventDto> upcomingEvents;
+    /**
+     * Whether some parts timed out or failed and hold their empty fallback
+     */
+    private boolean partial;
 
     // Custom getters
     public Long getSingleEventRating() {
@@ -28,4 +28,7 @@ public class PlayerQueryCriteria {
     @Query(type = Query.Type.INNER_LIKE)
     @ApiModelProperty(value = "name")
     private String name;
-}
\ No newline at end of file
+
+    @ApiModelProperty(value = "Sport id of the leaderboard, defaults to Badminton")
+    private Long sportId;
+}
@@ -0,0 +1,20 @@
+package com.srr.player.dto;
+
+import com.srr.enumeration.Format;
+import lombok.Data;
+
+/**
+ * DTO for a player's position on a rating leaderboard
+ */
+@Data
+public class PlayerRankDto {
+    private Long playerId;
+    private Long sportId;
+    private Format format;
+    private Long rank; // 1-based, null when the player is not rated
+    private Long total;
+    private Double rateScore;
+    private Integer gamesPlayed;
+    private Integer wins;
+    private Integer losses;
+}
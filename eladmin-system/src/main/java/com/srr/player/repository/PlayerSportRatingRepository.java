@@ -4,7 +4,10 @@ import com.srr.enumeration.Format;
 import com.srr.player.domain.PlayerSportRating;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +20,25 @@ public interface PlayerSportRatingRepository extends JpaRepository<PlayerSportRa
     List<PlayerSportRating> findTop2ByPlayerIdAndFormatAndSportIdOrderByCreateTimeDesc(Long playerId, Format format, Long sportId);
 
     List<PlayerSportRating> findAllByPlayerIdAndFormatAndSportIdOrderByCreateTimeDesc(Long playerId, Format format, Long sportId);
+
+    /**
+     * Find the ratings of several players for one sport and format in a single query
+     *
+     * @param playerIds IDs of the players
+     * @param sportId   ID of the sport
+     * @param format    rating format
+     * @return ratings of the players that have one
+     */
+    @Query("SELECT r FROM PlayerSportRating r JOIN FETCH r.player p WHERE p.id IN :playerIds AND r.sportId = :sportId AND r.format = :format")
+    List<PlayerSportRating> findAllByPlayerIdInAndSportIdAndFormat(@Param("playerIds") Collection<Long> playerIds,
+                                                                   @Param("sportId") Long sportId,
+                                                                   @Param("format") Format format);
+
+    /**
+     * Find the score of every rated player. Each row is [playerId, sportId, format, rateScore].
+     *
+     * @return one row per rating
+     */
+    @Query("SELECT r.player.id, r.sportId, r.format, r.rateScore FROM PlayerSportRating r WHERE r.rateScore IS NOT NULL")
+    List<Object[]> findAllScores();
 }
@@ -48,4 +48,33 @@ public interface RatingHistoryRepository extends JpaRepository<RatingHistory, Lo
     List<RatingHistory> findByPlayerIdAndEventIdOrderByCreateTimeDesc(Long playerId, Long eventId);
 
     RatingHistory findByPlayerIdAndMatchId(Long playerId, Long matchId);
-}
\ No newline at end of file
+
+    /**
+     * Rating changes of every match of an event, oldest first.
+     * Each row is [playerId, rateScore, changes].
+     *
+     * @param eventId ID of the event
+     * @return one row per player and match
+     */
+    @Query("SELECT r.player.id, r.rateScore, r.changes FROM RatingHistory r " +
+            "WHERE r.match.matchGroup.event.id = :eventId ORDER BY r.createTime, r.id")
+    List<Object[]> findChangesByEventId(Long eventId);
+
+    /**
+     * Summarize games played and wins of every player per sport and format from the rating history.
+     * Each row is [playerId, sportId, format, games, wins].
+     *
+     * @return one row per player, sport and format
+     */
+    @Query(value = """
+            SELECT rh.player_id, e.sport_id, e.format, COUNT(*),
+                   SUM(CASE WHEN tpa.id IS NOT NULL THEN m.team_a_win ELSE m.team_b_win END)
+            FROM rating_history rh
+                     JOIN event_match m ON m.id = rh.match_id
+                     JOIN match_group g ON g.id = m.match_group_id
+                     JOIN event e ON e.id = g.event_id
+                     LEFT JOIN team_player tpa ON tpa.team_id = m.team_a_id AND tpa.player_id = rh.player_id
+            GROUP BY rh.player_id, e.sport_id, e.format
+            """, nativeQuery = true)
+    List<Object[]> summarizeResultsByPlayer();
+}
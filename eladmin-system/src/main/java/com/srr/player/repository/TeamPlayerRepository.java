@@ -21,6 +21,9 @@ public interface TeamPlayerRepository extends JpaRepository<TeamPlayer, Long>, J
 
     TeamPlayer findByTeamIdAndPlayerId(Long teamId, Long playerId);
 
+    @Query("SELECT COUNT(tp) > 0 FROM TeamPlayer tp JOIN tp.team t WHERE t.event.id = :eventId AND tp.player.id = :playerId")
+    boolean existsByEventIdAndPlayerId(@Param("eventId") Long eventId, @Param("playerId") Long playerId);
+
     @Query("SELECT tp FROM TeamPlayer tp JOIN tp.team t WHERE t.event.id = :eventId AND tp.player.id = :playerId")
     TeamPlayer findByEventIdAndPlayerId(@Param("eventId") Long eventId, @Param("playerId") Long playerId);
 
@@ -28,17 +31,18 @@ public interface TeamPlayerRepository extends JpaRepository<TeamPlayer, Long>, J
     List<TeamPlayer> findByEventId(@Param("eventId") Long eventId);
 
     /**
-     * Find all team player entries for a specific player by user ID
+     * Find the email of every player to be reminded of an event, in one query
      *
-     * @param eventId   The event that players has registered to
-     * @param playerIds List of player IDs who has registered to the event
-     * @return List of team player entries
+     * @param eventId    The event that players has registered to
+     * @param playerIds  List of player IDs who has registered to the event
+     * @param allPlayers Whether to remind every player who has not checked in
+     * @return One email per team player entry, null when the player has no user
      */
-    @Query("SELECT tp FROM TeamPlayer tp " +
-            "JOIN tp.team t JOIN t.event e " +
+    @Query("SELECT u.email FROM TeamPlayer tp " +
+            "JOIN tp.team t JOIN t.event e JOIN tp.player p LEFT JOIN p.user u " +
             "WHERE e.id = :eventId AND tp.isCheckedIn = false AND " +
-            "(:allPlayers = true OR tp.player.id IN :playerIds)")
-    List<TeamPlayer> findByEventIdAndPlayerIdsOrAllPlayers(
+            "(:allPlayers = true OR p.id IN :playerIds)")
+    List<String> findEmailsByEventIdAndPlayerIdsOrAllPlayers(
             @Param("eventId") Long eventId,
             @Param("playerIds") Set<Long> playerIds,
             @Param("allPlayers") boolean allPlayers
@@ -62,6 +66,33 @@ public interface TeamPlayerRepository extends JpaRepository<TeamPlayer, Long>, J
     @Query("SELECT tp FROM TeamPlayer tp WHERE tp.team.id IN :teamIds")
     List<TeamPlayer> findByTeamIdIn(@Param("teamIds") List<Long> teamIds);
 
+    /**
+     * Find all team player entries of an event together with their players, ordered by id
+     *
+     * @param eventId Event ID
+     * @return List of team player entries
+     */
+    @Query("SELECT tp FROM TeamPlayer tp JOIN FETCH tp.player JOIN FETCH tp.team t WHERE t.event.id = :eventId ORDER BY tp.id")
+    List<TeamPlayer> findWithPlayerByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Player names of every team of an event
+     *
+     * @param eventId Event ID
+     * @return rows of team id and player name, ordered by registration
+     */
+    @Query("SELECT t.id, p.name FROM TeamPlayer tp JOIN tp.team t JOIN tp.player p WHERE t.event.id = :eventId ORDER BY tp.id")
+    List<Object[]> findPlayerNamesByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Find the roster of every team of an event
+     *
+     * @param eventId Event ID
+     * @return rows of team id, player id and player name, ordered by registration
+     */
+    @Query("SELECT t.id, p.id, p.name FROM TeamPlayer tp JOIN tp.team t JOIN tp.player p WHERE t.event.id = :eventId ORDER BY tp.id")
+    List<Object[]> findRosterByEventId(@Param("eventId") Long eventId);
+
     /**
      * Find all team player entries for a specific team
      *
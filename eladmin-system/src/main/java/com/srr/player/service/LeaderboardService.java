@@ -0,0 +1,381 @@
+package com.srr.player.service;
+
+import com.srr.enumeration.Format;
+import com.srr.player.domain.Player;
+import com.srr.player.dto.PlayerDoublesStatsDto;
+import com.srr.player.dto.PlayerRankDto;
+import com.srr.player.repository.PlayerRepository;
+import com.srr.player.repository.PlayerSportRatingRepository;
+import com.srr.player.repository.RatingHistoryRepository;
+import com.srr.sport.domain.Sport;
+import com.srr.sport.repository.SportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.PageResult;
+import me.zhengjie.utils.PageUtil;
+import me.zhengjie.utils.RedisUtils;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Rating leaderboards kept in Redis.
+ * <p>
+ * Every (sport, format) pair has a sorted set of player ids scored by their current rating, and
+ * three hashes holding the games played, wins and losses of each player. They are updated when an
+ * event's ratings are settled and can be rebuilt from {@code player_sport_rating} and {@code rating_history}.
+ * <p>
+ * Every board key is registered in {@link CacheKey#LEADERBOARD_KEYS} and has a version which is bumped
+ * before each incremental update. A rebuild holds a cluster-wide lock, reads the versions before it reads
+ * the database and only replaces or drops a board whose version did not change meanwhile; a board updated
+ * during the rebuild keeps its live data and is rebuilt next time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    private static final String DEFAULT_SPORT = "Badminton";
+    private static final String GAMES = "games";
+    private static final String WINS = "wins";
+    private static final String LOSSES = "losses";
+    private static final String REBUILD_LOCK = "leaderboard::rebuild-lock";
+
+    private final RedisUtils redisUtils;
+    private final RedissonClient redissonClient;
+    private final PlayerRepository playerRepository;
+    private final PlayerSportRatingRepository playerSportRatingRepository;
+    private final RatingHistoryRepository ratingHistoryRepository;
+    private final SportRepository sportRepository;
+
+    /**
+     * Set the rating of a single player, e.g. after the self-assessment
+     */
+    public void updateRating(Long sportId, Format format, Long playerId, Double rateScore) {
+        if (sportId == null || format == null || playerId == null || rateScore == null) {
+            return;
+        }
+        String key = ratingKey(sportId, format);
+        touch(List.of(key));
+        redisUtils.zAdd(key, member(playerId), rateScore);
+    }
+
+    /**
+     * Apply the outcome of a settled event: new ratings plus the wins and losses of each player
+     *
+     * @param sportId ID of the sport
+     * @param format  rating format
+     * @param ratings final rating of every player which took part
+     * @param wins    number of won matches per player
+     * @param losses  number of lost matches per player
+     */
+    public void applySettlement(Long sportId, Format format, Map<Long, Double> ratings,
+                                Map<Long, Integer> wins, Map<Long, Integer> losses) {
+        Map<Object, Double> scores = new HashMap<>();
+        ratings.forEach((playerId, score) -> scores.put(member(playerId), score));
+        // All counters of the settlement go out in one pipeline
+        Map<String, Map<String, Long>> increments = new HashMap<>();
+        wins.forEach((playerId, count) -> {
+            increments.computeIfAbsent(statsKey(sportId, format, WINS), k -> new HashMap<>()).merge(member(playerId), (long) count, Long::sum);
+            increments.computeIfAbsent(statsKey(sportId, format, GAMES), k -> new HashMap<>()).merge(member(playerId), (long) count, Long::sum);
+        });
+        losses.forEach((playerId, count) -> {
+            increments.computeIfAbsent(statsKey(sportId, format, LOSSES), k -> new HashMap<>()).merge(member(playerId), (long) count, Long::sum);
+            increments.computeIfAbsent(statsKey(sportId, format, GAMES), k -> new HashMap<>()).merge(member(playerId), (long) count, Long::sum);
+        });
+        List<String> keys = new ArrayList<>(increments.keySet());
+        if (!scores.isEmpty()) {
+            keys.add(ratingKey(sportId, format));
+        }
+        touch(keys);
+        if (!scores.isEmpty()) {
+            redisUtils.zAddAll(ratingKey(sportId, format), scores);
+        }
+        redisUtils.hincrAll(increments);
+    }
+
+    /**
+     * Page through the leaderboard from the highest rating down
+     *
+     * @param sportId  ID of the sport, the default sport when null
+     * @param format   rating format
+     * @param pageable page request
+     * @return players of the requested page with their stats
+     */
+    public PageResult<PlayerDoublesStatsDto> queryLeaderboard(Long sportId, Format format, Pageable pageable) {
+        sportId = resolveSportId(sportId);
+        String key = ratingKey(sportId, format);
+        long total = redisUtils.zCard(key);
+        long start = pageable.getOffset();
+        if (total == 0 || start >= total) {
+            return PageUtil.toPage(Collections.emptyList(), total);
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples =
+                redisUtils.zRevRangeWithScores(key, start, start + pageable.getPageSize() - 1);
+
+        List<Long> playerIds = new ArrayList<>(tuples.size());
+        Map<Long, Double> scores = new HashMap<>();
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            Long playerId = Long.valueOf(String.valueOf(tuple.getValue()));
+            playerIds.add(playerId);
+            scores.put(playerId, tuple.getScore());
+        }
+        Map<Long, String> names = playerRepository.findAllById(playerIds).stream()
+                .collect(Collectors.toMap(Player::getId, player -> Objects.toString(player.getName(), "")));
+
+        List<PlayerDoublesStatsDto> content = new ArrayList<>(playerIds.size());
+        for (Long playerId : playerIds) {
+            PlayerDoublesStatsDto dto = new PlayerDoublesStatsDto();
+            dto.setPlayerId(playerId);
+            dto.setPlayerName(names.get(playerId));
+            dto.setDoublesRanking(scores.get(playerId));
+            content.add(dto);
+        }
+        fillStats(sportId, format, content);
+        return PageUtil.toPage(content, total);
+    }
+
+    /**
+     * Fill rating, games played, wins, losses and record of the given players from the leaderboard
+     */
+    public void fillStats(Long sportId, Format format, List<PlayerDoublesStatsDto> stats) {
+        if (stats.isEmpty()) {
+            return;
+        }
+        sportId = resolveSportId(sportId);
+        List<Object> fields = stats.stream().map(dto -> member(dto.getPlayerId())).collect(Collectors.toList());
+        String gamesKey = statsKey(sportId, format, GAMES);
+        String winsKey = statsKey(sportId, format, WINS);
+        String lossesKey = statsKey(sportId, format, LOSSES);
+        Map<String, List<Object>> values = redisUtils.hmultiGetAll(List.of(gamesKey, winsKey, lossesKey), fields);
+        List<Object> games = values.get(gamesKey);
+        List<Object> wins = values.get(winsKey);
+        List<Object> losses = values.get(lossesKey);
+
+        // Ratings missing from the page are looked up in one pipeline rather than one ZSCORE per player
+        List<Integer> unrated = new ArrayList<>();
+        for (int i = 0; i < stats.size(); i++) {
+            if (stats.get(i).getDoublesRanking() == null) {
+                unrated.add(i);
+            }
+        }
+        List<Double> ratings = redisUtils.zScores(ratingKey(sportId, format),
+                unrated.stream().map(fields::get).collect(Collectors.toList()));
+        for (int i = 0; i < unrated.size(); i++) {
+            stats.get(unrated.get(i)).setDoublesRanking(ratings.get(i));
+        }
+
+        for (int i = 0; i < stats.size(); i++) {
+            PlayerDoublesStatsDto dto = stats.get(i);
+            int win = toInt(wins.get(i));
+            int loss = toInt(losses.get(i));
+            dto.setGamesPlayed(toInt(games.get(i)));
+            dto.setWins(win);
+            dto.setLosses(loss);
+            dto.setRecord(win + "-" + loss);
+        }
+    }
+
+    /**
+     * Get the position of a player on the leaderboard
+     *
+     * @param playerId ID of the player
+     * @param sportId  ID of the sport, the default sport when null
+     * @param format   rating format
+     * @return rank, rating and stats of the player; the rank is null when the player is not rated
+     */
+    public PlayerRankDto getRank(Long playerId, Long sportId, Format format) {
+        sportId = resolveSportId(sportId);
+        String key = ratingKey(sportId, format);
+        Long rank = redisUtils.zRevRank(key, member(playerId));
+
+        PlayerDoublesStatsDto stats = new PlayerDoublesStatsDto();
+        stats.setPlayerId(playerId);
+        fillStats(sportId, format, List.of(stats));
+
+        PlayerRankDto dto = new PlayerRankDto();
+        dto.setPlayerId(playerId);
+        dto.setSportId(sportId);
+        dto.setFormat(format);
+        dto.setRank(rank == null ? null : rank + 1);
+        dto.setTotal(redisUtils.zCard(key));
+        dto.setRateScore(stats.getDoublesRanking());
+        dto.setGamesPlayed(stats.getGamesPlayed());
+        dto.setWins(stats.getWins());
+        dto.setLosses(stats.getLosses());
+        return dto;
+    }
+
+    /**
+     * Nightly backfill of all leaderboards, skipped when a rebuild is already running
+     */
+    @Scheduled(cron = "${leaderboard.rebuild-cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        RLock lock = redissonClient.getLock(REBUILD_LOCK);
+        if (!lock.tryLock()) {
+            log.info("Leaderboard rebuild already running on another node, skipping");
+            return;
+        }
+        try {
+            doRebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild every leaderboard from the current ratings and the rating history
+     *
+     * @return number of leaderboard entries written
+     * @throws BadRequestException when a rebuild is already running
+     */
+    public int rebuild() {
+        RLock lock = redissonClient.getLock(REBUILD_LOCK);
+        if (!lock.tryLock()) {
+            throw new BadRequestException("Leaderboard rebuild is already running");
+        }
+        try {
+            return doRebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int doRebuild() {
+        long start = System.currentTimeMillis();
+        // Versions are read before the database, an update committed after this point bumps them
+        List<String> known = redisUtils.sGet(CacheKey.LEADERBOARD_KEYS).stream().map(String::valueOf).toList();
+        Map<String, Long> versions = versions(known);
+
+        Map<String, Map<Object, Double>> ratings = new HashMap<>();
+        for (Object[] row : playerSportRatingRepository.findAllScores()) {
+            Long playerId = (Long) row[0];
+            Long sportId = (Long) row[1];
+            Format format = (Format) row[2];
+            Double rateScore = (Double) row[3];
+            if (sportId == null || format == null) {
+                continue;
+            }
+            ratings.computeIfAbsent(ratingKey(sportId, format), k -> new HashMap<>()).put(member(playerId), rateScore);
+        }
+
+        Map<String, Map<String, Object>> stats = new HashMap<>();
+        for (Object[] row : ratingHistoryRepository.summarizeResultsByPlayer()) {
+            Long playerId = ((Number) row[0]).longValue();
+            Long sportId = ((Number) row[1]).longValue();
+            Format format = Format.valueOf(String.valueOf(row[2]));
+            int games = ((Number) row[3]).intValue();
+            int wins = row[4] == null ? 0 : ((Number) row[4]).intValue();
+            stats.computeIfAbsent(statsKey(sportId, format, GAMES), k -> new HashMap<>()).put(member(playerId), games);
+            stats.computeIfAbsent(statsKey(sportId, format, WINS), k -> new HashMap<>()).put(member(playerId), wins);
+            stats.computeIfAbsent(statsKey(sportId, format, LOSSES), k -> new HashMap<>()).put(member(playerId), games - wins);
+        }
+
+        // Build every board under a temporary key and rename it over the live one, so readers
+        // never see an empty or half-filled board while the rebuild runs
+        String tmpPrefix = CacheKey.LEADERBOARD_TMP + UUID.randomUUID() + ":";
+        Map<String, String> built = new HashMap<>();
+        try {
+            ratings.forEach((key, scores) -> {
+                if (redisUtils.zAddAll(tmpPrefix + key, scores) > 0) {
+                    built.put(tmpPrefix + key, key);
+                }
+            });
+            stats.forEach((key, values) -> {
+                if (redisUtils.hmset(tmpPrefix + key, values)) {
+                    built.put(tmpPrefix + key, key);
+                }
+            });
+        } catch (RuntimeException e) {
+            redisUtils.del(built.keySet().toArray(new String[0]));
+            throw e;
+        }
+        if (!built.isEmpty()) {
+            redisUtils.sSet(CacheKey.LEADERBOARD_KEYS, built.values().toArray());
+        }
+        int skipped = 0;
+        for (Map.Entry<String, String> entry : built.entrySet()) {
+            String key = entry.getValue();
+            if (!redisUtils.renameIfVersion(entry.getKey(), key, versionKey(key), versions.getOrDefault(key, 0L))) {
+                redisUtils.del(entry.getKey());
+                skipped++;
+            }
+        }
+
+        // Boards which no longer have any rating are dropped, unless they were updated meanwhile
+        for (String key : known) {
+            if (!built.containsValue(key) && redisUtils.delIfVersion(key, versionKey(key), versions.get(key))) {
+                redisUtils.setRemove(CacheKey.LEADERBOARD_KEYS, key);
+            }
+        }
+
+        int entries = ratings.values().stream().mapToInt(Map::size).sum();
+        log.info("Rebuilt {} leaderboards with {} entries in {} ms, {} boards updated during the rebuild were kept",
+                ratings.size(), entries, System.currentTimeMillis() - start, skipped);
+        return entries;
+    }
+
+    /**
+     * Register the boards and bump their versions before they are updated incrementally
+     */
+    private void touch(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisUtils.sSet(CacheKey.LEADERBOARD_KEYS, keys.toArray());
+        keys.forEach(key -> redisUtils.increment(versionKey(key)));
+    }
+
+    private Map<String, Long> versions(List<String> keys) {
+        Map<String, Long> versions = new HashMap<>();
+        if (keys.isEmpty()) {
+            return versions;
+        }
+        List<Object> values = redisUtils.mget(keys.stream().map(LeaderboardService::versionKey).toList());
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = values == null ? null : values.get(i);
+            versions.put(keys.get(i), value == null ? 0L : Long.parseLong(String.valueOf(value)));
+        }
+        return versions;
+    }
+
+    private Long resolveSportId(Long sportId) {
+        if (sportId != null) {
+            return sportId;
+        }
+        return sportRepository.findByName(DEFAULT_SPORT)
+                .map(Sport::getId)
+                .orElseThrow(() -> new BadRequestException("Sport is required"));
+    }
+
+    private static String ratingKey(Long sportId, Format format) {
+        return CacheKey.LEADERBOARD + sportId + ":" + format.name();
+    }
+
+    private static String statsKey(Long sportId, Format format, String metric) {
+        return CacheKey.LEADERBOARD_STATS + sportId + ":" + format.name() + ":" + metric;
+    }
+
+    private static String versionKey(String key) {
+        return CacheKey.LEADERBOARD_VERSION + key;
+    }
+
+    private static String member(Long playerId) {
+        return String.valueOf(playerId);
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? 0 : (int) Double.parseDouble(String.valueOf(value));
+    }
+}
@@ -1,6 +1,7 @@
 package com.srr.player.service;
 
 import com.srr.enumeration.Format;
+import com.srr.event.listener.PlayerRatingChangedEvent;
 import com.srr.player.domain.Player;
 import com.srr.player.domain.PlayerAnswer;
 import com.srr.player.domain.PlayerSportRating;
@@ -17,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityNotFoundException;
 import me.zhengjie.utils.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -42,6 +44,7 @@ public class PlayerAnswerService {
     private final PlayerRepository playerRepository;
     private final PlayerSportRatingRepository playerSportRatingRepository;
     private final RatingService ratingService;
+    private final ApplicationEventPublisher eventPublisher;
     private final SportService sportService;
 
 
@@ -219,6 +222,8 @@ public class PlayerAnswerService {
         rating.setFormat(format);
 
         playerSportRatingRepository.save(rating);
+        // The leaderboard is updated after commit, a rolled back assessment never reaches it
+        eventPublisher.publishEvent(new PlayerRatingChangedEvent(this, player.getId(), sportId, format, score));
     }
 
 }
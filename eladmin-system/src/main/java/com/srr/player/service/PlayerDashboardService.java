@@ -0,0 +1,279 @@
+package com.srr.player.service;
+
+import com.srr.enumeration.Format;
+import com.srr.event.dto.EventDto;
+import com.srr.event.dto.EventMapper;
+import com.srr.event.dto.MatchDto;
+import com.srr.event.mapper.MatchMapper;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.domain.Player;
+import com.srr.player.dto.*;
+import com.srr.player.mapper.PlayerMapper;
+import com.srr.player.mapper.RatingHistoryMapper;
+import com.srr.player.repository.PlayerRepository;
+import com.srr.player.repository.RatingHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.exception.EntityNotFoundException;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the player dashboard.
+ * <p>
+ * The lookups behind the dashboard are independent, so they run concurrently on a dedicated bounded
+ * pool, each in its own read-only transaction. A lookup slower than the branch timeout is cancelled
+ * and leaves its part of the dashboard empty, as does a failing one, and the dashboard is marked
+ * partial instead of failing or delaying the whole response. Partial results are not cached.
+ * <p>
+ * Complete results are kept in the {@link CacheKey#PLAYER_DASHBOARD} cache per player, version and
+ * date range. A rating settlement or a registration change bumps the version of the player, so a
+ * dashboard loaded before the change is stored under a key nobody reads any more.
+ */
+@Slf4j
+@Service
+public class PlayerDashboardService implements DisposableBean {
+
+    /**
+     * Versions outlive every dashboard cached under them, so an expired version never comes back
+     */
+    private static final long VERSION_TTL_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+    private final PlayerRepository playerRepository;
+    private final RatingHistoryRepository ratingHistoryRepository;
+    private final EventRepository eventRepository;
+    private final MatchRepository matchRepository;
+    private final PlayerMapper playerMapper;
+    private final EventMapper eventMapper;
+    private final MatchMapper matchMapper;
+    private final RatingHistoryMapper ratingHistoryMapper;
+    private final RedisUtils redisUtils;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readOnly;
+    private final ThreadPoolExecutor executor;
+    private final long branchTimeout;
+
+    public PlayerDashboardService(PlayerRepository playerRepository, RatingHistoryRepository ratingHistoryRepository,
+                                  EventRepository eventRepository, MatchRepository matchRepository,
+                                  PlayerMapper playerMapper, EventMapper eventMapper, MatchMapper matchMapper,
+                                  RatingHistoryMapper ratingHistoryMapper, RedisUtils redisUtils,
+                                  CacheManager cacheManager, PlatformTransactionManager transactionManager,
+                                  @Value("${player.dashboard.pool-size:16}") int poolSize,
+                                  @Value("${player.dashboard.queue-capacity:256}") int queueCapacity,
+                                  @Value("${player.dashboard.branch-timeout:800}") long branchTimeout) {
+        this.playerRepository = playerRepository;
+        this.ratingHistoryRepository = ratingHistoryRepository;
+        this.eventRepository = eventRepository;
+        this.matchRepository = matchRepository;
+        this.playerMapper = playerMapper;
+        this.eventMapper = eventMapper;
+        this.matchMapper = matchMapper;
+        this.ratingHistoryMapper = ratingHistoryMapper;
+        this.redisUtils = redisUtils;
+        this.cacheManager = cacheManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        // Also bounds the queries of a cancelled lookup, which may not react to the interrupt
+        this.readOnly.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(branchTimeout + 999)));
+        this.branchTimeout = branchTimeout;
+        AtomicInteger threads = new AtomicInteger();
+        // A full queue runs the lookup on the request thread, which slows that request down but never fails it
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "player-dashboard-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the dashboard of a player
+     *
+     * @param id      the player ID
+     * @param request optional rating history date range, the last six months by default
+     * @return the dashboard
+     */
+    public PlayerDetailsDto getDashboard(Long id, PlayerDetailsRequest request) {
+        boolean isNotFilterDate = request.getStartDate() == null || request.getEndDate() == null;
+        long version = version(id);
+        String key = id + ":" + version + ":"
+                + (isNotFilterDate ? "" : request.getStartDate() + "_" + request.getEndDate());
+        Cache cache = cacheManager.getCache(CacheKey.PLAYER_DASHBOARD);
+        PlayerDetailsDto cached = cache.get(key, PlayerDetailsDto.class);
+        if (cached != null) {
+            return cached;
+        }
+        if (version > 0) {
+            // Dashboards are about to be cached under this version, keep it alive at least as long
+            redisUtils.expire(versionKey(id), VERSION_TTL_SECONDS);
+        }
+
+        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
+        CompletableFuture<PlayerDto> player = lookup(() -> playerRepository.findById(id)
+                .map(playerMapper::toDto)
+                .orElseThrow(() -> new EntityNotFoundException(Player.class, "id", id)));
+        CompletableFuture<Branch<EventDto>> eventToday = branch("eventToday", null,
+                () -> eventRepository.getPlayerEventToday(id).map(eventMapper::toDto).orElse(null));
+        CompletableFuture<Branch<List<EventDto>>> upcomingEvents = branch("upcomingEvents", List.of(),
+                () -> eventMapper.toDto(eventRepository.getPlayerUpcomingEvents(id)));
+        CompletableFuture<Branch<List<RatingHistoryDto>>> singleHistory = branch("singleRatingHistory", List.of(),
+                () -> ratingHistoryMapper.toDto(isNotFilterDate
+                        ? ratingHistoryRepository.findByPlayerIdAndFormatWithDate(id, Format.SINGLE, sixMonthsAgo)
+                        : ratingHistoryRepository.findByPlayerIdAndFormatWithDateRange(id, Format.SINGLE, request.getStartDate(), request.getEndDate())));
+        CompletableFuture<Branch<List<RatingHistoryDto>>> doubleHistory = branch("doubleRatingHistory", List.of(),
+                () -> ratingHistoryMapper.toDto(isNotFilterDate
+                        ? ratingHistoryRepository.findByPlayerIdAndFormatWithDate(id, Format.DOUBLE, sixMonthsAgo)
+                        : ratingHistoryRepository.findByPlayerIdAndFormatWithDateRange(id, Format.DOUBLE, request.getStartDate(), request.getEndDate())));
+        CompletableFuture<Branch<Long>> totalEvents = branch("totalEvent", 0L,
+                () -> eventRepository.countPlayerCompletedEvents(id));
+        CompletableFuture<Branch<MatchDto>> lastMatch = branch("lastMatch", null,
+                () -> matchMapper.toDto(matchRepository.getByPlayerId(id)));
+
+        PlayerDto playerDto = null;
+        boolean partial = false;
+        try {
+            playerDto = player.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof TimeoutException)) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Failed to load player " + id, e.getCause());
+            }
+            log.warn("Dashboard lookup player timed out after {} ms", branchTimeout);
+            partial = true;
+        }
+
+        double singleRating = currentRating(playerDto, Format.SINGLE);
+        double singleRatingChanges = 0;
+        List<RatingHistoryDto> singleRatings = singleHistory.join().value();
+        if (singleRatings != null && !singleRatings.isEmpty()) {
+            singleRating = singleRatings.get(0).getRateScore();
+            singleRatingChanges = singleRatings.get(0).getChanges();
+        }
+        double doubleRating = currentRating(playerDto, Format.DOUBLE);
+        double doubleRatingChanges = 0;
+        List<RatingHistoryDto> doubleRatings = doubleHistory.join().value();
+        if (doubleRatings != null && !doubleRatings.isEmpty()) {
+            doubleRating = doubleRatings.get(0).getRateScore();
+            doubleRatingChanges = doubleRatings.get(0).getChanges();
+        }
+
+        PlayerDetailsDto dashboard = new PlayerDetailsDto()
+                .setPlayer(playerDto)
+                .setSingleEventRating(singleRating)
+                .setSingleEventRatingChanges(singleRatingChanges)
+                .setDoubleEventRating(doubleRating)
+                .setDoubleEventRatingChanges(doubleRatingChanges)
+                .setTotalEvent(totalEvents.join().value().intValue())
+                .setEventToday(eventToday.join().value())
+                .setLastMatch(lastMatch.join().value())
+                .setUpcomingEvents(upcomingEvents.join().value())
+                .setSingleEventRatingHistory(singleRatings)
+                .setDoubleEventRatingHistory(doubleRatings);
+        partial = partial || eventToday.join().degraded() || upcomingEvents.join().degraded()
+                || singleHistory.join().degraded() || doubleHistory.join().degraded()
+                || totalEvents.join().degraded() || lastMatch.join().degraded();
+        dashboard.setPartial(partial);
+        if (!partial) {
+            cache.putIfAbsent(key, dashboard);
+        }
+        return dashboard;
+    }
+
+    /**
+     * Drop the cached dashboards of the given players on every node
+     *
+     * @param playerIds the player IDs
+     */
+    public void evict(Collection<Long> playerIds) {
+        if (playerIds == null || playerIds.isEmpty()) {
+            return;
+        }
+        for (Long playerId : playerIds) {
+            redisUtils.increment(versionKey(playerId));
+            redisUtils.expire(versionKey(playerId), VERSION_TTL_SECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private long version(Long playerId) {
+        Object version = redisUtils.get(versionKey(playerId));
+        return version == null ? 0 : Long.parseLong(String.valueOf(version));
+    }
+
+    private static String versionKey(Long playerId) {
+        return CacheKey.PLAYER_DASHBOARD_VERSION + playerId;
+    }
+
+    private <T> CompletableFuture<Branch<T>> branch(String name, T fallback, Supplier<T> lookup) {
+        return lookup(lookup).handle((value, e) -> {
+            if (e == null) {
+                return new Branch<>(value, false);
+            }
+            log.warn("Dashboard lookup {} failed: {}", name, e instanceof TimeoutException
+                    ? "timed out after " + branchTimeout + " ms" : e.getMessage());
+            return new Branch<>(fallback, true);
+        });
+    }
+
+    /**
+     * Run a lookup on the pool, a lookup still running after the branch timeout is cancelled
+     */
+    private <T> CompletableFuture<T> lookup(Supplier<T> lookup) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(query(lookup));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(branchTimeout, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            if (e instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> T query(Supplier<T> lookup) {
+        return readOnly.execute(status -> lookup.get());
+    }
+
+    private static double currentRating(PlayerDto player, Format format) {
+        if (player == null || player.getPlayerSportRating() == null) {
+            return 0;
+        }
+        return player.getPlayerSportRating().stream()
+                .filter(rate -> rate != null && rate.getRateScore() != null && rate.getFormat() == format)
+                .findFirst()
+                .map(PlayerSportRatingDto::getRateScore)
+                .orElse(0L);
+    }
+
+    /**
+     * Value of a lookup and whether it is the fallback
+     */
+    private record Branch<T>(T value, boolean degraded) {
+    }
+}
@@ -1,31 +1,25 @@
 package com.srr.player.service;
 
 import com.srr.enumeration.Format;
-import com.srr.event.domain.Match;
 import com.srr.event.dto.EventMapper;
 import com.srr.event.mapper.MatchMapper;
 import com.srr.event.repository.EventRepository;
 import com.srr.event.repository.MatchRepository;
-import com.srr.event.service.MatchService;
 import com.srr.player.domain.Player;
 import com.srr.player.domain.PlayerSportRating;
-import com.srr.player.domain.TeamPlayer;
 import com.srr.player.dto.*;
 import com.srr.player.mapper.PlayerMapper;
 import com.srr.player.mapper.RatingHistoryMapper;
 import com.srr.player.repository.PlayerRepository;
 import com.srr.player.repository.PlayerSportRatingRepository;
 import com.srr.player.repository.RatingHistoryRepository;
-import com.srr.player.repository.TeamPlayerRepository;
 import lombok.RequiredArgsConstructor;
-import me.zhengjie.exception.EntityNotFoundException;
 import me.zhengjie.utils.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -40,75 +34,13 @@ public class PlayerService {
     private final PlayerRepository playerRepository;
     private final PlayerMapper playerMapper;
     private final PlayerSportRatingRepository playerSportRatingRepository;
-    private final MatchService matchService;
-    private final TeamPlayerRepository teamPlayerRepository;
     private final RatingHistoryRepository ratingHistoryRepository;
     private final MatchRepository matchRepository;
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
     private final MatchMapper matchMapper;
     private final RatingHistoryMapper ratingHistoryMapper;
-
-    public List<PlayerEventRatingDTO> getPlayerEventRating(Long eventId) {
-        final List<TeamPlayer> teamPlayers = teamPlayerRepository.findByEventId(eventId);
-        final List<PlayerEventRatingDTO> playerEventRatings = new ArrayList<>();
-
-        for (TeamPlayer teamPlayer : teamPlayers) {
-            final PlayerEventRatingDTO playerEventRating = new PlayerEventRatingDTO();
-            double previousRating = 0;
-            double ratingChanges = 0;
-            int wins = 0;
-            int losses = 0;
-
-            // Get all matches for the event
-            List<Match> eventMatches = teamPlayer.getTeam().getEvent().getMatchGroups().stream()
-                    .flatMap(matchGroup -> matchGroup.getMatches().stream())
-                    .toList();
-
-            // Process each match
-            for (Match match : eventMatches) {
-                boolean isInTeamA = match.getTeamA().getTeamPlayers().stream()
-                        .anyMatch(tp -> tp.getPlayer().getId().equals(teamPlayer.getPlayer().getId()));
-                boolean isInTeamB = !isInTeamA && match.getTeamB().getTeamPlayers().stream()
-                        .anyMatch(tp -> tp.getPlayer().getId().equals(teamPlayer.getPlayer().getId()));
-
-                if (isInTeamA || isInTeamB) {
-                    // Get rating history for this match and player
-                    final var matchRatingHistory = ratingHistoryRepository.findByPlayerIdAndMatchId(
-                            teamPlayer.getPlayer().getId(),
-                            match.getId()
-                    );
-
-                    if (matchRatingHistory != null) {
-                        if (previousRating == 0) {
-                            // First match sets the initial rating
-                            previousRating = matchRatingHistory.getRateScore() - matchRatingHistory.getChanges();
-                        }
-                        ratingChanges += matchRatingHistory.getChanges();
-                    }
-
-                    // Count wins and losses
-                    if ((isInTeamA && match.isTeamAWin()) || (isInTeamB && !match.isTeamAWin())) {
-                        wins++;
-                    } else {
-                        losses++;
-                    }
-                }
-            }
-
-            // Set the player's rating information
-            playerEventRating.setName(teamPlayer.getPlayer().getName());
-            playerEventRating.setWins(wins);
-            playerEventRating.setLosses(losses);
-            playerEventRating.setPreviousRating(previousRating);
-            playerEventRating.setRatingChanges(ratingChanges);
-            playerEventRating.setNewRating(previousRating + ratingChanges);
-
-            playerEventRatings.add(playerEventRating);
-        }
-
-        return playerEventRatings;
-    }
+    private final LeaderboardService leaderboardService;
 
     public PageResult<PlayerDto> queryAll(PlayerQueryCriteria criteria, Pageable pageable) {
 
@@ -147,70 +79,6 @@ public class PlayerService {
     }
 
 
-    public PlayerDetailsDto findPlayerDetailsById(Long id, PlayerDetailsRequest request) {
-        var playerDto = playerRepository.findById(id)
-                .map(playerMapper::toDto)
-                .orElseThrow(() -> new EntityNotFoundException(Player.class, "id", id));
-
-        var eventToday = eventRepository.getPlayerEventToday(id)
-                .map(eventMapper::toDto)
-                .orElse(null);
-
-        var upcomingEvent = eventRepository.getPlayerUpcomingEvents(id)
-                .stream()
-                .map(eventMapper::toDto)
-                .toList();
-
-        double singleRating = playerDto.getPlayerSportRating().stream().filter(rate -> rate != null
-                && rate.getRateScore() != null && rate.getFormat() == Format.SINGLE).findFirst().map(PlayerSportRatingDto::getRateScore).orElse(0L);
-        double singleRatingChanges = 0;
-        double doubleRating = playerDto.getPlayerSportRating().stream().filter(rate -> rate != null && rate.getRateScore() != null
-                && rate.getFormat() == Format.DOUBLE).findFirst().map(PlayerSportRatingDto::getRateScore).orElse(0L);
-        double doubleRatingChanges = 0;
-
-        // Check if there is a date filter
-        var isNotFilterDate = request.getStartDate() == null || request.getEndDate() == null;
-        // Get the rating history for the last 6 months
-        var sixMonthsAgo = LocalDateTime.now().minusMonths(6);
-
-        var singleRatingsHistory = isNotFilterDate
-                ? ratingHistoryRepository.findByPlayerIdAndFormatWithDate(id, Format.SINGLE, sixMonthsAgo) // get the last 6 months
-                : ratingHistoryRepository.findByPlayerIdAndFormatWithDateRange(id, Format.SINGLE, request.getStartDate(), request.getEndDate());
-
-        if (singleRatingsHistory != null && !singleRatingsHistory.isEmpty()) {
-            singleRating = singleRatingsHistory.get(0).getRateScore();
-            singleRatingChanges = singleRatingsHistory.get(0).getChanges();
-        }
-
-        var doubleRatingsHistory = isNotFilterDate
-                ? ratingHistoryRepository.findByPlayerIdAndFormatWithDate(id, Format.DOUBLE, sixMonthsAgo) // get the last 6 months
-                : ratingHistoryRepository.findByPlayerIdAndFormatWithDateRange(id, Format.DOUBLE, request.getStartDate(), request.getEndDate());
-
-        if (doubleRatingsHistory != null && !doubleRatingsHistory.isEmpty()) {
-            doubleRating = doubleRatingsHistory.get(0).getRateScore();
-            doubleRatingChanges = doubleRatingsHistory.get(0).getChanges();
-        }
-
-        var playerEvents = eventRepository.getPlayerCompletedEvents(id);
-        var allEventsJoined = playerEvents == null ? 0 : playerEvents.size();
-
-        var lastMatch = matchRepository.getByPlayerId(id);
-
-        return new PlayerDetailsDto()
-                .setPlayer(playerDto)
-                .setSingleEventRating(singleRating)
-                .setSingleEventRatingChanges(singleRatingChanges)
-                .setDoubleEventRating(doubleRating)
-                .setDoubleEventRatingChanges(doubleRatingChanges)
-                .setTotalEvent(allEventsJoined)
-                .setEventToday(eventToday)
-                .setLastMatch(matchMapper.toDto(lastMatch))
-                .setUpcomingEvents(upcomingEvent)
-                .setSingleEventRatingHistory(ratingHistoryMapper.toDto(singleRatingsHistory))
-                .setDoubleEventRatingHistory(ratingHistoryMapper.toDto(doubleRatingsHistory));
-    }
-
-
     @Transactional(rollbackFor = Exception.class)
     public ExecutionResult create(Player resources) {
         Player savedPlayer = playerRepository.save(resources);
@@ -274,89 +142,32 @@ public class PlayerService {
 
     /**
      * Get paginated and filtered players with their doubles ranking, games played, wins, losses, and record.
+     * Without a player filter the page is read straight from the doubles leaderboard, highest rating first.
      */
     public PageResult<PlayerDoublesStatsDto> getAllPlayersDoublesStats(PlayerQueryCriteria criteria, Pageable pageable) {
-        Page<Player> page = playerRepository.findAll((root, query, cb) -> QueryHelp.getPredicate(root, criteria, cb), pageable);
-        List<Player> players = page.getContent();
-        List<PlayerDoublesStatsDto> result = new ArrayList<>();
-
-        // For efficient lookup
-        Map<Long, PlayerSportRating> doublesRatings = new HashMap<>();
-        for (Player player : players) {
-            List<PlayerSportRating> ratings = playerSportRatingRepository.findByPlayerId(player.getId());
-            for (PlayerSportRating rating : ratings) {
-                if (rating.getFormat() == Format.DOUBLE) {
-                    doublesRatings.put(player.getId(), rating);
-                    break;
-                }
-            }
+        if (criteria.getId() == null && criteria.getUserId() == null && StringUtils.isBlank(criteria.getName())) {
+            return leaderboardService.queryLeaderboard(criteria.getSportId(), Format.DOUBLE, pageable);
         }
 
-        // Get all matches (could be optimized further if needed)
-        List<Match> matches = matchService.findAllMatches();
-        // Map teamId to teamPlayers
-        Map<Long, List<TeamPlayer>> teamPlayersMap = new HashMap<>();
-        for (Match match : matches) {
-            if (match.getTeamA() != null && match.getTeamB() != null) {
-                if (match.getTeamA().getTeamSize() == 2 && match.getTeamB().getTeamSize() == 2) {
-                    if (!teamPlayersMap.containsKey(match.getTeamA().getId())) {
-                        teamPlayersMap.put(match.getTeamA().getId(), teamPlayerRepository.findAllByTeamId(match.getTeamA().getId()));
-                    }
-                    if (!teamPlayersMap.containsKey(match.getTeamB().getId())) {
-                        teamPlayersMap.put(match.getTeamB().getId(), teamPlayerRepository.findAllByTeamId(match.getTeamB().getId()));
-                    }
-                }
-            }
-        }
-        // For each player, count games played, wins, losses
-        Map<Long, Integer> gamesPlayed = new HashMap<>();
-        Map<Long, Integer> wins = new HashMap<>();
-        Map<Long, Integer> losses = new HashMap<>();
-        for (Match match : matches) {
-            if (match.getTeamA() != null && match.getTeamB() != null) {
-                if (match.getTeamA().getTeamSize() == 2 && match.getTeamB().getTeamSize() == 2) {
-                    List<TeamPlayer> teamAPlayers = teamPlayersMap.get(match.getTeamA().getId());
-                    List<TeamPlayer> teamBPlayers = teamPlayersMap.get(match.getTeamB().getId());
-                    if (teamAPlayers != null && teamBPlayers != null && teamAPlayers.size() == 2 && teamBPlayers.size() == 2) {
-                        for (TeamPlayer tp : teamAPlayers) {
-                            gamesPlayed.put(tp.getPlayer().getId(), gamesPlayed.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            if (match.isTeamAWin()) {
-                                wins.put(tp.getPlayer().getId(), wins.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            } else {
-                                losses.put(tp.getPlayer().getId(), losses.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            }
-                        }
-                        for (TeamPlayer tp : teamBPlayers) {
-                            gamesPlayed.put(tp.getPlayer().getId(), gamesPlayed.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            if (match.isTeamBWin()) {
-                                wins.put(tp.getPlayer().getId(), wins.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            } else {
-                                losses.put(tp.getPlayer().getId(), losses.getOrDefault(tp.getPlayer().getId(), 0) + 1);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        // Build DTOs for paged players
-        for (Player player : players) {
+        Page<Player> page = playerRepository.findAll((root, query, cb) -> QueryHelp.getPredicate(root, criteria, cb), pageable);
+        List<PlayerDoublesStatsDto> result = new ArrayList<>();
+        for (Player player : page.getContent()) {
             PlayerDoublesStatsDto dto = new PlayerDoublesStatsDto();
             dto.setPlayerId(player.getId());
             dto.setPlayerName(player.getName());
-            PlayerSportRating rating = doublesRatings.get(player.getId());
-            dto.setDoublesRanking(rating != null ? rating.getRateScore() : null);
-            int played = gamesPlayed.getOrDefault(player.getId(), 0);
-            int win = wins.getOrDefault(player.getId(), 0);
-            int loss = losses.getOrDefault(player.getId(), 0);
-            dto.setGamesPlayed(played);
-            dto.setWins(win);
-            dto.setLosses(loss);
-            dto.setRecord(win + "-" + loss);
             result.add(dto);
         }
+        leaderboardService.fillStats(criteria.getSportId(), Format.DOUBLE, result);
         return PageUtil.toPage(result, page.getTotalElements());
     }
 
+    /**
+     * Get the position of a player on a rating leaderboard
+     */
+    public PlayerRankDto getPlayerRank(Long playerId, Long sportId, Format format) {
+        return leaderboardService.getRank(playerId, sportId, format == null ? Format.DOUBLE : format);
+    }
+
     /**
      * Get all events (completed) for a player, with matches and net rating change for each event
      */
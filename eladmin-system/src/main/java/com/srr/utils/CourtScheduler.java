@@ -0,0 +1,233 @@
+package com.srr.utils;
+
+import java.util.*;
+
+/**
+ * Assigns matches to courts and time slots.
+ * <p>
+ * Time is split into slots of one match duration. A greedy list scheduler fills every court of a slot
+ * with the ready match of highest priority: a match is ready when neither team plays in that slot and
+ * both teams had at least {@code restSlots} slots off since their previous match. Matches whose teams
+ * still have the most matches left go first, then earlier rounds. A local-search pass then repeatedly
+ * relocates matches from the latest slots into earlier idle courts as long as that keeps every
+ * constraint, which shortens the tail the greedy pass leaves behind.
+ */
+public final class CourtScheduler {
+
+    private CourtScheduler() {
+    }
+
+    /**
+     * A match to be scheduled
+     *
+     * @param matchId ID of the match
+     * @param order   position of the match within its group, lower plays first
+     * @param teamA   ID of team A
+     * @param teamB   ID of team B
+     * @param courts  courts (1-based) the match may use, empty for any court
+     */
+    public record Job(long matchId, int order, long teamA, long teamB, Set<Integer> courts) {
+    }
+
+    /**
+     * Court and slot given to a match. Courts are numbered from 1, slots from 0.
+     */
+    public record Assignment(long matchId, int court, int slot) {
+    }
+
+    /**
+     * @param assignments   court and slot of every match, ordered by slot then court
+     * @param slotCount     number of slots the timetable spans
+     * @param greedySlots   number of slots before the local-search pass
+     * @param utilization   share of court slots in use
+     */
+    public record Timetable(List<Assignment> assignments, int slotCount, int greedySlots, double utilization) {
+    }
+
+    /**
+     * Build a timetable
+     *
+     * @param jobs          matches to schedule
+     * @param courtCount    number of courts available
+     * @param restSlots     minimum number of slots a team sits out between two matches
+     * @param maxIterations upper bound of local-search passes
+     * @return the timetable
+     */
+    public static Timetable schedule(List<Job> jobs, int courtCount, int restSlots, int maxIterations) {
+        if (courtCount < 1) {
+            throw new IllegalArgumentException("At least one court is required");
+        }
+        if (jobs.isEmpty()) {
+            return new Timetable(List.of(), 0, 0, 0);
+        }
+        // Courts outside the venue are ignored, a match left without any court may use all of them
+        List<Job> usable = jobs.stream()
+                .map(job -> {
+                    Set<Integer> courts = new HashSet<>(job.courts());
+                    courts.removeIf(c -> c < 1 || c > courtCount);
+                    return new Job(job.matchId(), job.order(), job.teamA(), job.teamB(), courts);
+                })
+                .toList();
+
+        State state = new State(usable, courtCount, Math.max(0, restSlots));
+        state.greedy();
+        int greedySlots = state.slotCount();
+        int passes = 0;
+        while (passes < maxIterations && state.improve()) {
+            passes++;
+        }
+
+        List<Assignment> assignments = new ArrayList<>(jobs.size());
+        for (int j = 0; j < jobs.size(); j++) {
+            assignments.add(new Assignment(jobs.get(j).matchId(), state.court[j], state.slot[j]));
+        }
+        assignments.sort(Comparator.comparingInt(Assignment::slot).thenComparingInt(Assignment::court));
+        int slotCount = state.slotCount();
+        return new Timetable(assignments, slotCount, greedySlots, (double) jobs.size() / ((long) slotCount * courtCount));
+    }
+
+    private static final class State {
+        private final List<Job> jobs;
+        private final int courtCount;
+        private final int restSlots;
+        private final int[] slot;
+        private final int[] court;
+        /** slots in which each team plays */
+        private final Map<Long, TreeSet<Integer>> teamSlots = new HashMap<>();
+        /** occupied courts per slot */
+        private final List<BitSet> occupied = new ArrayList<>();
+
+        State(List<Job> jobs, int courtCount, int restSlots) {
+            this.jobs = jobs;
+            this.courtCount = courtCount;
+            this.restSlots = restSlots;
+            this.slot = new int[jobs.size()];
+            this.court = new int[jobs.size()];
+            Arrays.fill(slot, -1);
+            for (Job job : jobs) {
+                teamSlots.putIfAbsent(job.teamA(), new TreeSet<>());
+                teamSlots.putIfAbsent(job.teamB(), new TreeSet<>());
+            }
+        }
+
+        void greedy() {
+            Map<Long, Integer> remaining = new HashMap<>();
+            for (Job job : jobs) {
+                remaining.merge(job.teamA(), 1, Integer::sum);
+                remaining.merge(job.teamB(), 1, Integer::sum);
+            }
+            List<Integer> pending = new ArrayList<>(jobs.size());
+            for (int j = 0; j < jobs.size(); j++) {
+                pending.add(j);
+            }
+
+            for (int s = 0; !pending.isEmpty(); s++) {
+                int current = s;
+                pending.sort(Comparator
+                        .comparingInt((Integer j) -> -(remaining.get(jobs.get(j).teamA()) + remaining.get(jobs.get(j).teamB())))
+                        .thenComparingInt(j -> jobs.get(j).order())
+                        .thenComparingInt(j -> j));
+                Iterator<Integer> it = pending.iterator();
+                while (it.hasNext() && occupied(current).cardinality() < courtCount) {
+                    int j = it.next();
+                    Job job = jobs.get(j);
+                    if (!teamFree(job.teamA(), current, -1) || !teamFree(job.teamB(), current, -1)) {
+                        continue;
+                    }
+                    int c = freeCourt(job, current);
+                    if (c > 0) {
+                        place(j, current, c);
+                        remaining.merge(job.teamA(), -1, Integer::sum);
+                        remaining.merge(job.teamB(), -1, Integer::sum);
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        /**
+         * One relocation pass, latest matches first
+         *
+         * @return whether any match moved
+         */
+        boolean improve() {
+            Integer[] order = new Integer[jobs.size()];
+            for (int j = 0; j < order.length; j++) {
+                order[j] = j;
+            }
+            Arrays.sort(order, Comparator.comparingInt((Integer j) -> -slot[j]));
+
+            boolean moved = false;
+            for (int j : order) {
+                Job job = jobs.get(j);
+                for (int s = 0; s < slot[j]; s++) {
+                    if (!teamFree(job.teamA(), s, slot[j]) || !teamFree(job.teamB(), s, slot[j])) {
+                        continue;
+                    }
+                    int c = freeCourt(job, s);
+                    if (c > 0) {
+                        unplace(j);
+                        place(j, s, c);
+                        moved = true;
+                        break;
+                    }
+                }
+            }
+            return moved;
+        }
+
+        int slotCount() {
+            int max = -1;
+            for (int s : slot) {
+                max = Math.max(max, s);
+            }
+            return max + 1;
+        }
+
+        /**
+         * Whether the team can play in the slot, ignoring its match currently in slot {@code ignore}
+         */
+        private boolean teamFree(long team, int s, int ignore) {
+            TreeSet<Integer> slots = teamSlots.get(team);
+            for (Integer other : slots.subSet(s - restSlots, true, s + restSlots, true)) {
+                if (other != ignore) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int freeCourt(Job job, int s) {
+            BitSet used = occupied(s);
+            for (int c = 1; c <= courtCount; c++) {
+                if (!used.get(c) && (job.courts().isEmpty() || job.courts().contains(c))) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+
+        private void place(int j, int s, int c) {
+            slot[j] = s;
+            court[j] = c;
+            occupied(s).set(c);
+            teamSlots.get(jobs.get(j).teamA()).add(s);
+            teamSlots.get(jobs.get(j).teamB()).add(s);
+        }
+
+        private void unplace(int j) {
+            occupied(slot[j]).clear(court[j]);
+            teamSlots.get(jobs.get(j).teamA()).remove(slot[j]);
+            teamSlots.get(jobs.get(j).teamB()).remove(slot[j]);
+            slot[j] = -1;
+            court[j] = 0;
+        }
+
+        private BitSet occupied(int s) {
+            while (occupied.size() <= s) {
+                occupied.add(new BitSet(courtCount + 1));
+            }
+            return occupied.get(s);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.srr.utils;
+
+import com.srr.player.dto.PlayerEventRatingDTO;
+
+import java.util.*;
+
+/**
+ * Computes the result and rating report of an event from flat rows.
+ * <p>
+ * The rosters are indexed by team once, then the matches and the rating history are each walked a
+ * single time: a decided match adds a win to every player of the winning team and a loss to every
+ * player of the other one, and the rating history, oldest first, gives each player the rating before
+ * their first match of the event and the sum of their changes.
+ */
+public final class EventRatingReport {
+
+    private EventRatingReport() {
+    }
+
+    /**
+     * A player of a team
+     *
+     * @param teamId   ID of the team
+     * @param playerId ID of the player
+     * @param name     name of the player
+     */
+    public record RosterEntry(Long teamId, Long playerId, String name) {
+    }
+
+    /**
+     * Outcome of a match, neither flag is set while the match is undecided
+     */
+    public record MatchResult(Long teamAId, Long teamBId, boolean teamAWin, boolean teamBWin) {
+    }
+
+    /**
+     * One rating history entry of a player
+     *
+     * @param rateScore rating after the match
+     * @param changes   change caused by the match
+     */
+    public record RatingChange(Long playerId, Double rateScore, Double changes) {
+    }
+
+    /**
+     * Build the report
+     *
+     * @param roster  players of every team, in the order of the report
+     * @param matches every match of the event
+     * @param changes rating history of the event, oldest first
+     * @return one row per player
+     */
+    public static List<PlayerEventRatingDTO> build(List<RosterEntry> roster, List<MatchResult> matches,
+                                                   List<RatingChange> changes) {
+        Map<Long, Row> rows = new LinkedHashMap<>();
+        Map<Long, List<Row>> teams = new HashMap<>();
+        for (RosterEntry entry : roster) {
+            Row row = rows.computeIfAbsent(entry.playerId(), id -> new Row(entry.name()));
+            teams.computeIfAbsent(entry.teamId(), id -> new ArrayList<>()).add(row);
+        }
+
+        for (MatchResult match : matches) {
+            if (!match.teamAWin() && !match.teamBWin()) {
+                continue;
+            }
+            for (Row row : teams.getOrDefault(match.teamAId(), List.of())) {
+                row.record(match.teamAWin());
+            }
+            for (Row row : teams.getOrDefault(match.teamBId(), List.of())) {
+                row.record(match.teamBWin());
+            }
+        }
+
+        for (RatingChange change : changes) {
+            Row row = rows.get(change.playerId());
+            if (row == null) {
+                continue;
+            }
+            double delta = change.changes() == null ? 0 : change.changes();
+            if (row.previousRating == null && change.rateScore() != null) {
+                row.previousRating = change.rateScore() - delta;
+            }
+            row.ratingChanges += delta;
+        }
+
+        List<PlayerEventRatingDTO> report = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) {
+            double previous = row.previousRating == null ? 0 : row.previousRating;
+            report.add(new PlayerEventRatingDTO()
+                    .setName(row.name)
+                    .setWins(row.wins)
+                    .setLosses(row.losses)
+                    .setPreviousRating(previous)
+                    .setRatingChanges(row.ratingChanges)
+                    .setNewRating(previous + row.ratingChanges));
+        }
+        return report;
+    }
+
+    private static final class Row {
+        private final String name;
+        private int wins;
+        private int losses;
+        private Double previousRating;
+        private double ratingChanges;
+
+        Row(String name) {
+            this.name = name;
+        }
+
+        void record(boolean won) {
+            if (won) {
+                wins++;
+            } else {
+                losses++;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.srr.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Round-robin pairings built with the circle (Berger table) method.
+ * <p>
+ * The first slot stays fixed while the others rotate by one position per round, so every team plays
+ * every other team exactly once and at most once per round. With an odd number of teams a bye slot is
+ * added and the team paired with it sits the round out. The fixed team alternates between the A and B
+ * side from round to round.
+ */
+public final class RoundRobinSchedule {
+
+    private RoundRobinSchedule() {
+    }
+
+    /**
+     * Build the rounds of a single round-robin
+     *
+     * @param teamCount number of teams
+     * @return rounds in playing order, each a list of {@code [teamA, teamB]} index pairs
+     */
+    public static List<List<int[]>> rounds(int teamCount) {
+        if (teamCount < 2) {
+            return List.of();
+        }
+        int slotCount = teamCount + (teamCount % 2);
+        int[] slots = new int[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = i;
+        }
+
+        List<List<int[]>> rounds = new ArrayList<>(slotCount - 1);
+        for (int round = 0; round < slotCount - 1; round++) {
+            List<int[]> pairs = new ArrayList<>(slotCount / 2);
+            for (int i = 0; i < slotCount / 2; i++) {
+                int a = slots[i];
+                int b = slots[slotCount - 1 - i];
+                if (a >= teamCount || b >= teamCount) {
+                    continue;
+                }
+                pairs.add(i == 0 && round % 2 == 1 ? new int[]{b, a} : new int[]{a, b});
+            }
+            rounds.add(pairs);
+
+            // Rotate every slot but the first one step clockwise
+            int last = slots[slotCount - 1];
+            System.arraycopy(slots, 1, slots, 2, slotCount - 2);
+            slots[1] = last;
+        }
+        return rounds;
+    }
+
+    /**
+     * Flatten the rounds into playing order
+     *
+     * @param teamCount number of teams
+     * @return {@code [teamA, teamB]} index pairs, round by round
+     */
+    public static List<int[]> pairings(int teamCount) {
+        List<int[]> pairings = new ArrayList<>(teamCount * (teamCount - 1) / 2);
+        rounds(teamCount).forEach(pairings::addAll);
+        return pairings;
+    }
+}
@@ -42,10 +42,6 @@ public class QuartzJob extends BaseEntity implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Transient
-    @ApiModelProperty(value = "用于子任务唯一标识", hidden = true)
-    private String uuid;
-
     @ApiModelProperty(value = "定时器名称")
     private String jobName;
 
@@ -73,12 +69,18 @@ public class QuartzJob extends BaseEntity implements Serializable {
     @ApiModelProperty(value = "报警邮箱")
     private String email;
 
-    @ApiModelProperty(value = "子任务")
+    @ApiModelProperty(value = "子任务，逗号分隔的任务依次执行，竖线分隔的任务并行执行")
     private String subTask;
 
     @ApiModelProperty(value = "失败后暂停")
     private Boolean pauseAfterFailure;
 
+    @ApiModelProperty(value = "最大并发执行数，为空时使用默认值")
+    private Integer maxConcurrency;
+
+    @ApiModelProperty(value = "超时时间（毫秒），0 表示不限制，为空时使用默认值")
+    private Long timeout;
+
     @NotBlank
     @ApiModelProperty(value = "备注")
     private String description;
@@ -25,6 +25,7 @@ import me.zhengjie.modules.quartz.domain.QuartzJob;
 import me.zhengjie.modules.quartz.domain.QuartzLog;
 import me.zhengjie.modules.quartz.service.QuartzJobService;
 import me.zhengjie.modules.quartz.service.dto.JobQueryCriteria;
+import me.zhengjie.modules.quartz.utils.JobRuntime;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.utils.SpringBeanHolder;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +37,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -51,6 +53,7 @@ public class QuartzJobController {
 
     private static final String ENTITY_NAME = "quartzJob";
     private final QuartzJobService quartzJobService;
+    private final JobRuntime jobRuntime;
 
     @ApiOperation("查询定时任务")
     @GetMapping
@@ -80,6 +83,13 @@ public class QuartzJobController {
         return new ResponseEntity<>(quartzJobService.queryAllLog(criteria,pageable), HttpStatus.OK);
     }
 
+    @ApiOperation("查询任务运行统计")
+    @GetMapping(value = "/stats")
+    @PreAuthorize("hasAuthority('Admin')")
+    public ResponseEntity<Map<String, Object>> queryQuartzJobStats(){
+        return new ResponseEntity<>(jobRuntime.stats(), HttpStatus.OK);
+    }
+
     @Log("新增定时任务")
     @ApiOperation("新增定时任务")
     @PostMapping
@@ -113,11 +113,4 @@ public interface QuartzJobService {
      * @throws IOException /
      */
     void downloadLog(List<QuartzLog> queryAllLog, HttpServletResponse response) throws IOException;
-
-    /**
-     * 执行子任务
-     * @param tasks /
-     * @throws InterruptedException /
-     */
-    void executionSubJob(String[] tasks) throws InterruptedException;
 }
@@ -15,8 +15,6 @@
  */
 package me.zhengjie.modules.quartz.service.impl;
 
-import cn.hutool.core.util.IdUtil;
-import cn.hutool.core.util.StrUtil;
 import lombok.RequiredArgsConstructor;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.modules.quartz.domain.QuartzJob;
@@ -26,6 +24,7 @@ import me.zhengjie.modules.quartz.repository.QuartzLogRepository;
 import me.zhengjie.modules.quartz.service.QuartzJobService;
 import me.zhengjie.modules.quartz.service.dto.JobQueryCriteria;
 import me.zhengjie.modules.quartz.utils.QuartzManage;
+import me.zhengjie.modules.quartz.utils.SubTasks;
 import me.zhengjie.utils.*;
 import org.quartz.CronExpression;
 import org.springframework.data.domain.Pageable;
@@ -46,7 +45,6 @@ public class QuartzJobServiceImpl implements QuartzJobService {
     private final QuartzJobRepository quartzJobRepository;
     private final QuartzLogRepository quartzLogRepository;
     private final QuartzManage quartzManage;
-    private final RedisUtils redisUtils;
 
     @Override
     public PageResult<QuartzJob> queryAll(JobQueryCriteria criteria, Pageable pageable){
@@ -81,6 +79,8 @@ public class QuartzJobServiceImpl implements QuartzJobService {
         if (!CronExpression.isValidExpression(resources.getCronExpression())){
             throw new BadRequestException("cron表达式格式错误");
         }
+        // 校验子任务格式
+        SubTasks.parse(resources.getSubTask());
         resources = quartzJobRepository.save(resources);
         quartzManage.addJob(resources);
     }
@@ -91,11 +91,9 @@ public class QuartzJobServiceImpl implements QuartzJobService {
         if (!CronExpression.isValidExpression(resources.getCronExpression())){
             throw new BadRequestException("cron表达式格式错误");
         }
-        if(StringUtils.isNotBlank(resources.getSubTask())){
-            List<String> tasks = Arrays.asList(resources.getSubTask().split("[,，]"));
-            if (tasks.contains(resources.getId().toString())) {
-                throw new BadRequestException("子任务中不能添加当前任务ID");
-            }
+        Long id = resources.getId();
+        if (SubTasks.parse(resources.getSubTask()).stream().anyMatch(stage -> stage.contains(id))) {
+            throw new BadRequestException("子任务中不能添加当前任务ID");
         }
         resources = quartzJobRepository.save(resources);
         quartzManage.updateJobCron(resources);
@@ -129,34 +127,6 @@ public class QuartzJobServiceImpl implements QuartzJobService {
         }
     }
 
-    @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void executionSubJob(String[] tasks) throws InterruptedException {
-        for (String id : tasks) {
-            if (StrUtil.isBlank(id)) {
-                // 如果是手动清除子任务id，会出现id为空字符串的问题
-                continue;
-            }
-            QuartzJob quartzJob = findById(Long.parseLong(id));
-            // 执行任务
-            String uuid = IdUtil.simpleUUID();
-            quartzJob.setUuid(uuid);
-            // 执行任务
-            execution(quartzJob);
-            // 获取执行状态，如果执行失败则停止后面的子任务执行
-            Boolean result = redisUtils.get(uuid, Boolean.class);
-            while (result == null) {
-                // 休眠5秒，再次获取子任务执行情况
-                Thread.sleep(5000);
-                result = redisUtils.get(uuid, Boolean.class);
-            }
-            if(!result){
-                redisUtils.del(uuid);
-                break;
-            }
-        }
-    }
-
     @Override
     public void download(List<QuartzJob> quartzJobs, HttpServletResponse response) throws IOException {
         List<Map<String, Object>> list = new ArrayList<>();
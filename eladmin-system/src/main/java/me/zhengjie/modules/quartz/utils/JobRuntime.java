@@ -0,0 +1,298 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.quartz.utils;
+
+import cn.hutool.extra.template.Template;
+import cn.hutool.extra.template.TemplateConfig;
+import cn.hutool.extra.template.TemplateEngine;
+import cn.hutool.extra.template.TemplateUtil;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.domain.vo.EmailVo;
+import me.zhengjie.modules.quartz.domain.QuartzJob;
+import me.zhengjie.modules.quartz.domain.QuartzLog;
+import me.zhengjie.modules.quartz.repository.QuartzJobRepository;
+import me.zhengjie.modules.quartz.service.QuartzJobService;
+import me.zhengjie.service.EmailService;
+import me.zhengjie.utils.StringUtils;
+import me.zhengjie.utils.ThrowableUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定时任务运行时。
+ * Quartz 线程只负责提交任务，任务在独立的线程池中执行，结束后在回调中记录日志、耗时和告警，不阻塞任何线程等待结果。
+ * 每个任务限制同时执行的次数，达到上限时跳过本次触发；超时的任务会被中断并按失败处理。
+ * 子任务在父任务成功后执行，同一组内的子任务并行执行，见 {@link SubTasks}；一次触发中每个任务最多执行一次，子任务成环时不会重复执行。
+ * @author /
+ */
+@Slf4j
+@Component
+public class JobRuntime implements DisposableBean {
+
+    private final QuartzJobRepository quartzJobRepository;
+    private final QuartzJobService quartzJobService;
+    private final QuartzLogWriter quartzLogWriter;
+    private final EmailService emailService;
+    private final ThreadPoolExecutor executor;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService timer;
+    private final int maxConcurrency;
+    private final long timeout;
+
+    private final ConcurrentMap<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DurationHistogram> durations = new ConcurrentHashMap<>();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public JobRuntime(QuartzJobRepository quartzJobRepository, QuartzJobService quartzJobService,
+                      QuartzLogWriter quartzLogWriter, EmailService emailService,
+                      @Value("${quartz.runtime.pool-size:8}") int poolSize,
+                      @Value("${quartz.runtime.queue-capacity:100}") int queueCapacity,
+                      @Value("${quartz.runtime.max-concurrency:1}") int maxConcurrency,
+                      @Value("${quartz.runtime.timeout:0}") long timeout) {
+        this.quartzJobRepository = quartzJobRepository;
+        this.quartzJobService = quartzJobService;
+        this.quartzLogWriter = quartzLogWriter;
+        this.emailService = emailService;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.timeout = Math.max(0, timeout);
+        AtomicInteger threads = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, "el-quartz-" + threads.getAndIncrement()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        // 回调会写日志、发告警并启动子任务，放到任务线程池执行，避免占用超时计时线程；线程池拒绝时由当前线程执行
+        this.callbackExecutor = command -> {
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                command.run();
+            }
+        };
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "el-quartz-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交任务，立即返回
+     * @param quartzJob 任务
+     * @return 任务及其子任务全部成功时为 true
+     */
+    public CompletableFuture<Boolean> submit(QuartzJob quartzJob) {
+        Set<Long> visited = ConcurrentHashMap.newKeySet();
+        if (quartzJob.getId() != null) {
+            visited.add(quartzJob.getId());
+        }
+        return run(quartzJob, visited);
+    }
+
+    /**
+     * 运行统计
+     * @return /
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running.values().stream().mapToInt(AtomicInteger::get).sum());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("poolSize", executor.getPoolSize());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("skipped", skipped.get());
+        stats.put("rejected", rejected.get());
+        Map<String, Object> histograms = new TreeMap<>();
+        durations.forEach((name, histogram) -> histograms.put(name, histogram.snapshot()));
+        stats.put("durations", histograms);
+        stats.put("logWriter", quartzLogWriter.stats());
+        return stats;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        timer.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("{} scheduled jobs still running at shutdown", executor.getActiveCount());
+            executor.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Boolean> run(QuartzJob quartzJob, Set<Long> visited) {
+        AtomicInteger counter = running.computeIfAbsent(quartzJob.getId() == null ? -1L : quartzJob.getId(),
+                id -> new AtomicInteger());
+        int limit = quartzJob.getMaxConcurrency() == null ? maxConcurrency : Math.max(1, quartzJob.getMaxConcurrency());
+        if (!tryAcquire(counter, limit)) {
+            skipped.incrementAndGet();
+            log.warn("Job {} skipped, {} runs still in progress", quartzJob.getJobName(), counter.get());
+            return CompletableFuture.completedFuture(false);
+        }
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        // 任务开始执行或超时取消时置位，保证并发计数只释放一次
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> future;
+        try {
+            QuartzRunnable task = new QuartzRunnable(quartzJob.getBeanName(), quartzJob.getMethodName(), quartzJob.getParams());
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    task.call();
+                    done.complete(null);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e instanceof InvocationTargetException ? e.getCause() : e);
+                } finally {
+                    counter.decrementAndGet();
+                }
+            });
+        } catch (Exception e) {
+            if (e instanceof RejectedExecutionException) {
+                rejected.incrementAndGet();
+            }
+            counter.decrementAndGet();
+            done.completeExceptionally(e);
+            future = null;
+        }
+        long jobTimeout = quartzJob.getTimeout() == null ? timeout : quartzJob.getTimeout();
+        if (future != null && jobTimeout > 0) {
+            Future<?> submitted = future;
+            ScheduledFuture<?> deadline = timer.schedule(() -> {
+                if (done.completeExceptionally(new TimeoutException("Job timed out after " + jobTimeout + " ms"))) {
+                    timedOut.incrementAndGet();
+                    if (claimed.compareAndSet(false, true)) {
+                        // 尚未开始执行，直接释放
+                        counter.decrementAndGet();
+                    }
+                    submitted.cancel(true);
+                }
+            }, jobTimeout, TimeUnit.MILLISECONDS);
+            done.whenComplete((v, e) -> deadline.cancel(false));
+        }
+        return done.handleAsync((v, e) -> complete(quartzJob, startTime, e), callbackExecutor)
+                .thenCompose(success -> success ? runSubTasks(quartzJob, visited) : CompletableFuture.completedFuture(false));
+    }
+
+    private static boolean tryAcquire(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean complete(QuartzJob quartzJob, long startTime, Throwable error) {
+        long times = System.currentTimeMillis() - startTime;
+        durations.computeIfAbsent(quartzJob.getBeanName() + "." + quartzJob.getMethodName(), name -> new DurationHistogram())
+                .record(times);
+        QuartzLog quartzLog = new QuartzLog();
+        quartzLog.setJobName(quartzJob.getJobName());
+        quartzLog.setBeanName(quartzJob.getBeanName());
+        quartzLog.setMethodName(quartzJob.getMethodName());
+        quartzLog.setParams(quartzJob.getParams());
+        quartzLog.setCronExpression(quartzJob.getCronExpression());
+        quartzLog.setTime(times);
+        quartzLog.setIsSuccess(error == null);
+        try {
+            if (error == null) {
+                succeeded.incrementAndGet();
+                log.info("任务执行成功，任务名称：{}, 执行时间：{}毫秒", quartzJob.getJobName(), times);
+                return true;
+            }
+            failed.incrementAndGet();
+            log.error("任务执行失败，任务名称：{}", quartzJob.getJobName(), error);
+            String detail = ThrowableUtil.getStackTrace(error);
+            quartzLog.setExceptionDetail(detail);
+            // 任务如果失败了则暂停
+            if (quartzJob.getPauseAfterFailure() != null && quartzJob.getPauseAfterFailure()) {
+                //更新状态
+                quartzJob.setIsPause(false);
+                quartzJobService.updateIsPause(quartzJob);
+            }
+            // 邮箱报警，写入发件箱后台发送
+            if (StringUtils.isNotBlank(quartzJob.getEmail())) {
+                emailService.enqueue(taskAlarm(quartzJob, detail));
+            }
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to handle the result of job {}", quartzJob.getJobName(), e);
+            return false;
+        } finally {
+            quartzLogWriter.submit(quartzLog);
+        }
+    }
+
+    private CompletableFuture<Boolean> runSubTasks(QuartzJob quartzJob, Set<Long> visited) {
+        CompletableFuture<Boolean> result = CompletableFuture.completedFuture(true);
+        for (List<Long> stage : SubTasks.parse(quartzJob.getSubTask())) {
+            // 前一组全部成功后才执行下一组
+            result = result.thenCompose(success -> success ? runStage(stage, visited) : CompletableFuture.completedFuture(false));
+        }
+        return result;
+    }
+
+    private CompletableFuture<Boolean> runStage(List<Long> ids, Set<Long> visited) {
+        List<CompletableFuture<Boolean>> runs = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (!visited.add(id)) {
+                // 已在本次触发中执行
+                continue;
+            }
+            QuartzJob subJob = quartzJobRepository.findById(id).orElse(null);
+            if (subJob == null) {
+                log.warn("Sub job {} does not exist", id);
+                runs.add(CompletableFuture.completedFuture(false));
+            } else {
+                runs.add(run(subJob, visited));
+            }
+        }
+        return CompletableFuture.allOf(runs.toArray(new CompletableFuture[0]))
+                .thenApply(v -> runs.stream().allMatch(CompletableFuture::join));
+    }
+
+    private EmailVo taskAlarm(QuartzJob quartzJob, String msg) {
+        EmailVo emailVo = new EmailVo();
+        emailVo.setSubject("定时任务【"+ quartzJob.getJobName() +"】执行失败，请尽快处理！");
+        Map<String, Object> data = new HashMap<>(16);
+        data.put("task", quartzJob);
+        data.put("msg", msg);
+        TemplateEngine engine = TemplateUtil.createEngine(new TemplateConfig("template", TemplateConfig.ResourceMode.CLASSPATH));
+        Template template = engine.getTemplate("taskAlarm.ftl");
+        emailVo.setContent(template.render(data));
+        List<String> emails = Arrays.asList(quartzJob.getEmail().split("[,，]"));
+        emailVo.setTos(emails);
+        return emailVo;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.quartz.utils;
+
+import me.zhengjie.modules.quartz.domain.QuartzLog;
+import me.zhengjie.utils.BatchWriter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务日志异步批量写入器。
+ * 任务线程只把日志放入 {@link BatchWriter}，后台线程按批量大小或时间间隔以 JDBC 批量插入落库；
+ * 任务日志不丢弃，队列满时由提交线程直接写入，应用关闭时会把队列中剩余的日志全部写入。
+ * @author /
+ */
+@Component
+public class QuartzLogWriter implements InitializingBean, DisposableBean {
+
+    private static final String INSERT_SQL = "INSERT INTO sys_quartz_log (job_name, bean_name, method_name, params, " +
+            "cron_expression, is_success, exception_detail, time, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] INSERT_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.BIT, Types.LONGVARCHAR, Types.BIGINT, Types.TIMESTAMP};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatchWriter<QuartzLog> writer;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    public QuartzLogWriter(JdbcTemplate jdbcTemplate,
+                           @Value("${quartz.log-writer.capacity:1024}") int capacity,
+                           @Value("${quartz.log-writer.batch-size:100}") int batchSize,
+                           @Value("${quartz.log-writer.flush-interval:1000}") long flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writer = new BatchWriter<>("quartz-log-writer", capacity, batchSize, flushInterval, this::insert);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        writer.start();
+    }
+
+    /**
+     * 提交日志，提交后调用方不能再修改日志
+     * @param quartzLog 日志
+     */
+    public void submit(QuartzLog quartzLog) {
+        if (quartzLog.getCreateTime() == null) {
+            quartzLog.setCreateTime(new Timestamp(System.currentTimeMillis()));
+        }
+        if (writer.offer(quartzLog)) {
+            queued.incrementAndGet();
+            return;
+        }
+        overflowed.incrementAndGet();
+        List<QuartzLog> batch = new ArrayList<>(1);
+        batch.add(quartzLog);
+        writer.write(batch);
+    }
+
+    /**
+     * 写入器运行统计
+     * @return /
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.get());
+        stats.put("overflowed", overflowed.get());
+        stats.put("flushed", writer.flushed());
+        stats.put("failed", writer.failed());
+        stats.put("pending", writer.pending());
+        stats.put("capacity", writer.capacity());
+        return stats;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        writer.stop();
+    }
+
+    private void insert(List<QuartzLog> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (QuartzLog quartzLog : batch) {
+            rows.add(new Object[]{quartzLog.getJobName(), quartzLog.getBeanName(), quartzLog.getMethodName(),
+                    quartzLog.getParams(), quartzLog.getCronExpression(), quartzLog.getIsSuccess(),
+                    quartzLog.getExceptionDetail(), quartzLog.getTime(), quartzLog.getCreateTime()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.quartz.utils;
+
+import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析子任务。逗号分隔的各组依次执行，前一组全部成功后才执行下一组；
+ * 组内以竖线分隔的任务互不依赖，并行执行。例如 3|4,5 表示 3 和 4 并行执行，都成功后再执行 5。
+ * @author /
+ */
+public class SubTasks {
+
+    private SubTasks() {
+    }
+
+    /**
+     * 解析子任务
+     * @param subTask 子任务
+     * @return 按执行顺序排列的各组任务ID
+     */
+    public static List<List<Long>> parse(String subTask) {
+        if (StringUtils.isBlank(subTask)) {
+            return Collections.emptyList();
+        }
+        List<List<Long>> stages = new ArrayList<>();
+        for (String group : subTask.split("[,，]")) {
+            List<Long> stage = new ArrayList<>();
+            for (String id : group.split("[|｜]")) {
+                // 如果是手动清除子任务id，会出现id为空字符串的问题
+                if (StringUtils.isBlank(id)) {
+                    continue;
+                }
+                try {
+                    stage.add(Long.parseLong(id.trim()));
+                } catch (NumberFormatException e) {
+                    throw new BadRequestException("子任务格式错误：" + id);
+                }
+            }
+            if (!stage.isEmpty()) {
+                stages.add(stage);
+            }
+        }
+        return stages;
+    }
+}
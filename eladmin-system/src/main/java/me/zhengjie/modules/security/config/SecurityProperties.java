@@ -70,6 +70,31 @@ public class SecurityProperties {
      */
     private Long renew;
 
+    /**
+     * 本地认证缓存最大条数
+     */
+    private Long authCacheSize = 10000L;
+
+    /**
+     * 本地认证缓存有效期，单位毫秒
+     */
+    private Long authCacheTtl = 60000L;
+
+    /**
+     * 无状态模式：访问令牌携带权限与会话编号并在本地校验，请求不访问 Redis，续期使用刷新令牌
+     */
+    private boolean stateless = false;
+
+    /**
+     * 无状态模式下访问令牌有效期，单位毫秒，也是角色变更最长的生效延迟
+     */
+    private Long accessTokenValidity = 900000L;
+
+    /**
+     * 无状态模式下吊销列表布隆过滤器的预期条数
+     */
+    private Long revocationCapacity = 100000L;
+
     public String getTokenStartWith() {
         return tokenStartWith + " ";
     }
@@ -16,18 +16,19 @@
 package me.zhengjie.modules.security.config;
 
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.AuthorityConfig;
 import me.zhengjie.modules.security.security.JwtAccessDeniedHandler;
 import me.zhengjie.modules.security.security.JwtAuthenticationEntryPoint;
+import me.zhengjie.modules.security.security.PermissionExpressionHandler;
+import me.zhengjie.modules.security.security.TokenAuthenticator;
 import me.zhengjie.modules.security.security.TokenConfigurer;
-import me.zhengjie.modules.security.security.TokenProvider;
-import me.zhengjie.modules.security.service.OnlineUserService;
-import me.zhengjie.modules.system.service.RoleService;
 import me.zhengjie.utils.AnonTagUtils;
 import me.zhengjie.utils.enums.RequestMethodEnum;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.core.GrantedAuthorityDefaults;
@@ -48,14 +49,12 @@ import java.util.Set;
 @EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
 public class SpringSecurityConfig {
 
-    private final TokenProvider tokenProvider;
+    private final TokenAuthenticator tokenAuthenticator;
     private final CorsFilter corsFilter;
     private final JwtAuthenticationEntryPoint authenticationErrorHandler;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private final ApplicationContext applicationContext;
     private final SecurityProperties properties;
-    private final OnlineUserService onlineUserService;
-    private final RoleService roleService;
 
     @Bean
     GrantedAuthorityDefaults grantedAuthorityDefaults() {
@@ -63,6 +62,12 @@ public class SpringSecurityConfig {
         return new GrantedAuthorityDefaults("");
     }
 
+    @Bean
+    MethodSecurityExpressionHandler methodSecurityExpressionHandler(AuthorityConfig authorityConfig) {
+        // 按权限位图判断 @PreAuthorize 中的权限
+        return new PermissionExpressionHandler(authorityConfig);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         // 密码加密方式
@@ -134,6 +139,6 @@ public class SpringSecurityConfig {
     }
 
     private TokenConfigurer securityConfigurerAdapter() {
-        return new TokenConfigurer(tokenProvider, properties, onlineUserService, roleService);
+        return new TokenConfigurer(tokenAuthenticator, properties);
     }
 }
@@ -0,0 +1,42 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.config;
+
+import com.srr.event.service.LiveScoreAccessService;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.modules.security.security.StompAuthInterceptor;
+import me.zhengjie.modules.security.security.TokenAuthenticator;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * STOMP 连接鉴权
+ * @author /
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final TokenAuthenticator tokenAuthenticator;
+    private final SecurityProperties properties;
+    private final LiveScoreAccessService liveScoreAccessService;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new StompAuthInterceptor(tokenAuthenticator, properties, liveScoreAccessService));
+    }
+}
@@ -10,10 +10,13 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.annotation.Limit;
 import me.zhengjie.annotation.Log;
 import me.zhengjie.annotation.rest.AnonymousDeleteMapping;
 import me.zhengjie.annotation.rest.AnonymousGetMapping;
 import me.zhengjie.annotation.rest.AnonymousPostMapping;
+import me.zhengjie.aspect.LimitAlgorithm;
+import me.zhengjie.aspect.LimitType;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.modules.security.config.CaptchaConfig;
 import me.zhengjie.modules.security.config.LoginProperties;
@@ -25,6 +28,7 @@ import me.zhengjie.modules.security.service.UserDetailsServiceImpl;
 import me.zhengjie.modules.security.service.dto.AuthUserDto;
 import me.zhengjie.modules.security.service.dto.EmailVerificationDto;
 import me.zhengjie.modules.security.service.dto.JwtUserDto;
+import me.zhengjie.modules.security.service.dto.RefreshTokenDto;
 import me.zhengjie.modules.security.service.dto.UserRegisterDto;
 import me.zhengjie.modules.system.domain.User;
 import me.zhengjie.modules.system.service.UserService;
@@ -77,6 +81,10 @@ public class AuthController {
     @Log("login")
     @ApiOperation("login")
     @AnonymousPostMapping(value = "/login")
+    @Limit(name = "login", prefix = "login_user", key = "#authUser.username", period = 300, count = 10,
+            algorithm = LimitAlgorithm.TOKEN_BUCKET, local = true)
+    @Limit(name = "login", prefix = "login_ip", limitType = LimitType.IP, period = 60, count = 30,
+            algorithm = LimitAlgorithm.SLIDING_LOG, local = true)
     public ResponseEntity<Object> login(@Validated @RequestBody AuthUserDto authUser, HttpServletRequest request) {
 //        String password = RsaUtils.decryptByPrivateKey(RsaProperties.privateKey, authUser.getPassword());
         String password = authUser.getPassword();
@@ -86,8 +94,19 @@ public class AuthController {
             throw new BadRequestException("Invalid username or password");
         }
 
-        String token = tokenProvider.createToken(jwtUser);
+        // The session token identifies the online session, in stateless mode it is the refresh token
+        String token;
+        String sessionToken;
         Map<String, Object> authInfo = new HashMap<>();
+        if (properties.isStateless()) {
+            String sessionId = IdUtil.simpleUUID();
+            token = tokenProvider.createAccessToken(jwtUser, sessionId);
+            sessionToken = tokenProvider.createRefreshToken(jwtUser, sessionId);
+            authInfo.put("refreshToken", sessionToken);
+        } else {
+            token = tokenProvider.createToken(jwtUser);
+            sessionToken = token;
+        }
         authInfo.put("token", properties.getTokenStartWith() + token);
         authInfo.put("user", jwtUser);
 
@@ -116,7 +135,29 @@ public class AuthController {
             onlineUserService.kickOutForUsername(authUser.getUsername());
         }
 
-        onlineUserService.save(jwtUser, token, request);
+        onlineUserService.save(jwtUser, sessionToken, request);
+        return ResponseEntity.ok(authInfo);
+    }
+
+    @ApiOperation("Refresh access token")
+    @AnonymousPostMapping(value = "/refresh")
+    public ResponseEntity<Object> refresh(@Validated @RequestBody RefreshTokenDto refreshTokenDto) {
+        if (!properties.isStateless()) {
+            throw new BadRequestException("Refresh tokens are only used in stateless mode");
+        }
+        String refreshToken = refreshTokenDto.getRefreshToken();
+        if (!tokenProvider.isRefreshToken(refreshToken)) {
+            throw new BadRequestException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        // The online session is removed on logout and kick-out, so a refresh fails after either
+        if (onlineUserService.getOne(tokenProvider.loginKey(refreshToken)) == null) {
+            throw new BadRequestException(HttpStatus.UNAUTHORIZED, "Session expired, please log in again");
+        }
+        tokenProvider.checkRenewal(refreshToken);
+        JwtUserDto jwtUser = userDetailsService.loadUserByUsername(tokenProvider.getClaims(refreshToken).getSubject());
+        String token = tokenProvider.createAccessToken(jwtUser, tokenProvider.getId(refreshToken));
+        Map<String, Object> authInfo = new HashMap<>(2);
+        authInfo.put("token", properties.getTokenStartWith() + token);
         return ResponseEntity.ok(authInfo);
     }
 
@@ -157,6 +198,8 @@ public class AuthController {
 
     @ApiOperation("register user")
     @AnonymousPostMapping(value = "/register")
+    @Limit(name = "register", prefix = "register_ip", limitType = LimitType.IP, period = 3600, count = 10,
+            algorithm = LimitAlgorithm.SLIDING_LOG, local = true)
     public ResponseEntity<Object> register(@Valid @RequestBody UserRegisterDto registerDto) {
         final ExecutionResult user = userFacade.createUserTransactional(registerDto);
         final Long newUserId = user.id();
@@ -21,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 import me.zhengjie.modules.security.service.OnlineUserService;
 import me.zhengjie.modules.security.service.dto.OnlineUserDto;
 import me.zhengjie.utils.EncryptUtils;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -53,8 +54,8 @@ public class OnlineController {
     @ApiOperation("导出数据")
     @GetMapping(value = "/download")
     @PreAuthorize("hasAuthority('Admin')")
-    public void exportOnlineUser(HttpServletResponse response, String username) throws IOException {
-        onlineUserService.download(onlineUserService.getAll(username), response);
+    public void exportOnlineUser(HttpServletResponse response, String username, String format) throws IOException {
+        onlineUserService.download(username, ExportUtil.Format.of(format), response);
     }
 
     @ApiOperation("踢出用户")
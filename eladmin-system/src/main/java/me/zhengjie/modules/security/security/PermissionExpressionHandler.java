@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.security;
+
+import me.zhengjie.config.AuthorityConfig;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 方法鉴权表达式处理器，hasAuthority、hasAnyAuthority、hasRole、hasAnyRole 改为对用户的权限位图按位判断，
+ * 不再为每次调用构建权限集合，其余表达式交给 Spring Security 的默认实现。
+ * 角色没有前缀，也没有配置角色继承，角色与权限判断方式相同。
+ * @author /
+ */
+public class PermissionExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    private final AuthorityConfig authorityConfig;
+
+    public PermissionExpressionHandler(AuthorityConfig authorityConfig) {
+        this.authorityConfig = authorityConfig;
+        setDefaultRolePrefix("");
+    }
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication, MethodInvocation invocation) {
+        SecurityExpressionRoot delegate = new SecurityExpressionRoot(authentication) {
+        };
+        delegate.setPermissionEvaluator(getPermissionEvaluator());
+        delegate.setRoleHierarchy(getRoleHierarchy());
+        delegate.setDefaultRolePrefix("");
+        return new PermissionExpressionRoot(delegate, authorityConfig, invocation.getThis());
+    }
+
+    private static class PermissionExpressionRoot implements MethodSecurityExpressionOperations {
+
+        private final SecurityExpressionRoot delegate;
+        private final AuthorityConfig authorityConfig;
+        private final Object target;
+        private Object filterObject;
+        private Object returnObject;
+
+        PermissionExpressionRoot(SecurityExpressionRoot delegate, AuthorityConfig authorityConfig, Object target) {
+            this.delegate = delegate;
+            this.authorityConfig = authorityConfig;
+            this.target = target;
+        }
+
+        @Override
+        public boolean hasAuthority(String authority) {
+            return authorityConfig.hasAny(getAuthentication(), authority);
+        }
+
+        @Override
+        public boolean hasAnyAuthority(String... authorities) {
+            return authorityConfig.hasAny(getAuthentication(), authorities);
+        }
+
+        @Override
+        public boolean hasRole(String role) {
+            return authorityConfig.hasAny(getAuthentication(), role);
+        }
+
+        @Override
+        public boolean hasAnyRole(String... roles) {
+            return authorityConfig.hasAny(getAuthentication(), roles);
+        }
+
+        @Override
+        public Authentication getAuthentication() {
+            return delegate.getAuthentication();
+        }
+
+        public Object getPrincipal() {
+            return delegate.getPrincipal();
+        }
+
+        @Override
+        public boolean permitAll() {
+            return true;
+        }
+
+        @Override
+        public boolean denyAll() {
+            return false;
+        }
+
+        @Override
+        public boolean isAnonymous() {
+            return delegate.isAnonymous();
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return delegate.isAuthenticated();
+        }
+
+        @Override
+        public boolean isRememberMe() {
+            return delegate.isRememberMe();
+        }
+
+        @Override
+        public boolean isFullyAuthenticated() {
+            return delegate.isFullyAuthenticated();
+        }
+
+        @Override
+        public boolean hasPermission(Object target, Object permission) {
+            return delegate.hasPermission(target, permission);
+        }
+
+        @Override
+        public boolean hasPermission(Object targetId, String targetType, Object permission) {
+            return delegate.hasPermission(targetId, targetType, permission);
+        }
+
+        @Override
+        public void setFilterObject(Object filterObject) {
+            this.filterObject = filterObject;
+        }
+
+        @Override
+        public Object getFilterObject() {
+            return filterObject;
+        }
+
+        @Override
+        public void setReturnObject(Object returnObject) {
+            this.returnObject = returnObject;
+        }
+
+        @Override
+        public Object getReturnObject() {
+            return returnObject;
+        }
+
+        @Override
+        public Object getThis() {
+            return target;
+        }
+    }
+}
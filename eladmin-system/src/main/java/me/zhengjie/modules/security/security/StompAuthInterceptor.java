@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.security;
+
+import com.srr.event.service.LiveScoreAccessService;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+
+/**
+ * WebSocket 握手无法携带请求头，因此在 STOMP CONNECT 帧中校验令牌，
+ * 并在 SUBSCRIBE 时校验用户能否查看对应的赛事。客户端只能订阅，推送由服务端发出，
+ * 未配置应用目的地时 SEND 帧会直接进入 /topic 广播给所有订阅者，因此除连接与订阅相关的帧外一律拒绝
+ * @author /
+ */
+@RequiredArgsConstructor
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private final TokenAuthenticator tokenAuthenticator;
+    private final SecurityProperties properties;
+    private final LiveScoreAccessService liveScoreAccessService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == null) {
+            // 心跳
+            return message;
+        }
+        switch (command) {
+            case CONNECT:
+            case STOMP:
+                String token = tokenAuthenticator.resolveToken(accessor.getFirstNativeHeader(properties.getHeader()));
+                Authentication authentication = tokenAuthenticator.authenticate(token);
+                if (authentication == null) {
+                    throw new AccessDeniedException("Invalid token");
+                }
+                // 绑定到会话，后续帧通过 getUser 获取
+                accessor.setUser(authentication);
+                break;
+            case SUBSCRIBE:
+                Principal user = accessor.getUser();
+                if (user == null || !liveScoreAccessService.canSubscribe(user.getName(), accessor.getDestination())) {
+                    throw new AccessDeniedException("Not allowed to subscribe to " + accessor.getDestination());
+                }
+                break;
+            case UNSUBSCRIBE:
+            case DISCONNECT:
+                break;
+            default:
+                throw new AccessDeniedException("Command " + command + " is not allowed");
+        }
+        return message;
+    }
+}
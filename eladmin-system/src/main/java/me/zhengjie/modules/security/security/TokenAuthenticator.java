@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.security;
+
+import cn.hutool.core.util.StrUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.modules.security.service.OnlineUserService;
+import me.zhengjie.modules.security.service.TokenAuthCache;
+import me.zhengjie.modules.security.service.TokenRevocationList;
+import me.zhengjie.modules.security.service.dto.OnlineUserDto;
+import me.zhengjie.modules.system.service.RoleService;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 根据访问令牌构建认证信息，HTTP 请求与 WebSocket 连接共用
+ * @author /
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenAuthenticator {
+
+    private final TokenProvider tokenProvider;
+    private final SecurityProperties properties;
+    private final OnlineUserService onlineUserService;
+    private final RoleService roleService;
+    private final TokenAuthCache tokenAuthCache;
+    private final TokenRevocationList revocationList;
+
+    /**
+     * 去掉令牌前缀
+     *
+     * @param bearerToken 请求头中的令牌
+     * @return 令牌，格式不正确时返回 null
+     */
+    public String resolveToken(String bearerToken) {
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith(properties.getTokenStartWith())) {
+            // 去掉令牌前缀
+            return bearerToken.replace(properties.getTokenStartWith(), "");
+        } else {
+            log.debug("Invalid Token：{}", bearerToken);
+        }
+        return null;
+    }
+
+    /**
+     * 校验令牌并构建认证信息
+     *
+     * @param token 访问令牌
+     * @return 认证信息，令牌无效或已下线时返回 null
+     */
+    public Authentication authenticate(String token) {
+        if (StrUtil.isBlank(token)) {
+            // 对于 Token 为空的不需要去查 Redis
+            return null;
+        }
+        if (properties.isStateless()) {
+            return authenticateStateless(token);
+        }
+        // 优先使用本地认证缓存，命中时无需访问 Redis 与数据库
+        String tokenId = tokenProvider.getId(token);
+        TokenAuthCache.AuthEntry authEntry = tokenAuthCache.get(tokenId);
+        if (authEntry == null) {
+            // 获取用户Token的Key
+            String loginKey = tokenProvider.loginKey(token);
+            OnlineUserDto onlineUserDto = onlineUserService.getOne(loginKey);
+            // 判断用户在线信息是否为空
+            if (onlineUserDto != null) {
+                // Token 续期判断
+                tokenProvider.checkRenewal(token);
+                var authorities = roleService.buildPermissions(onlineUserDto.getUserName());
+                authEntry = tokenAuthCache.put(tokenId, onlineUserDto, authorities);
+            }
+        }
+        // 获取认证信息
+        return authEntry == null ? null : tokenProvider.getAuthentication(token, authEntry.getAuthorities());
+    }
+
+    /**
+     * 无状态模式：只校验签名、有效期与本地吊销列表，不访问 Redis 与数据库。
+     * 校验失败时不返回认证信息，由后续流程返回 401，客户端使用刷新令牌换取新的访问令牌
+     *
+     * @param token 访问令牌
+     * @return 认证信息
+     */
+    private Authentication authenticateStateless(String token) {
+        Claims claims;
+        try {
+            claims = tokenProvider.getClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Invalid access token: {}", e.getMessage());
+            return null;
+        }
+        if (!TokenProvider.ACCESS_TOKEN.equals(claims.get(TokenProvider.TOKEN_TYPE_KEY))) {
+            return null;
+        }
+        String sessionId = String.valueOf(claims.get(TokenProvider.AUTHORITIES_UUID_KEY));
+        if (revocationList.isRevoked(sessionId, claims.getSubject(), tokenProvider.getIssuedAt(claims))) {
+            return null;
+        }
+        return tokenProvider.getAuthentication(token, claims);
+    }
+}
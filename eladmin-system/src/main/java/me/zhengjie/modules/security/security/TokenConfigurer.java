@@ -17,8 +17,6 @@ package me.zhengjie.modules.security.security;
 
 import lombok.RequiredArgsConstructor;
 import me.zhengjie.modules.security.config.SecurityProperties;
-import me.zhengjie.modules.security.service.OnlineUserService;
-import me.zhengjie.modules.system.service.RoleService;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
@@ -30,14 +28,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class TokenConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
 
-    private final TokenProvider tokenProvider;
+    private final TokenAuthenticator tokenAuthenticator;
     private final SecurityProperties properties;
-    private final OnlineUserService onlineUserService;
-    private final RoleService roleService;
 
     @Override
     public void configure(HttpSecurity http) {
-        TokenFilter customFilter = new TokenFilter(tokenProvider, properties, onlineUserService, roleService);
+        TokenFilter customFilter = new TokenFilter(tokenAuthenticator, properties);
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
     }
 }
@@ -15,16 +15,10 @@
  */
 package me.zhengjie.modules.security.security;
 
-import cn.hutool.core.util.StrUtil;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.modules.security.config.SecurityProperties;
-import me.zhengjie.modules.security.service.OnlineUserService;
-import me.zhengjie.modules.security.service.dto.OnlineUserDto;
-import me.zhengjie.modules.system.service.RoleService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
 import javax.servlet.FilterChain;
@@ -37,53 +31,22 @@ import java.io.IOException;
 /**
  * @author /
  */
-@Slf4j
 @RequiredArgsConstructor
 public class TokenFilter extends GenericFilterBean {
 
-    private final TokenProvider tokenProvider;
+    private final TokenAuthenticator tokenAuthenticator;
     private final SecurityProperties properties;
-    private final OnlineUserService onlineUserService;
-    private final RoleService roleService;
-
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
-        String token = resolveToken(httpServletRequest);
-        // 对于 Token 为空的不需要去查 Redis
-        if(StrUtil.isNotBlank(token)){
-            // 获取用户Token的Key
-            String loginKey = tokenProvider.loginKey(token);
-            OnlineUserDto onlineUserDto = onlineUserService.getOne(loginKey);
-            // 判断用户在线信息是否为空
-            if (onlineUserDto != null) {
-                // Token 续期判断
-                tokenProvider.checkRenewal(token);
-                var authorities = roleService.buildPermissions(onlineUserDto.getUserName());
-                // 获取认证信息，设置上下文
-                Authentication authentication = tokenProvider.getAuthentication(token, authorities);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+        String token = tokenAuthenticator.resolveToken(httpServletRequest.getHeader(properties.getHeader()));
+        Authentication authentication = tokenAuthenticator.authenticate(token);
+        if (authentication != null) {
+            // 设置上下文
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(servletRequest, servletResponse);
     }
-
-    /**
-     * 初步检测Token
-     *
-     * @param request /
-     * @return /
-     */
-    private String resolveToken(HttpServletRequest request) {
-        String bearerToken = request.getHeader(properties.getHeader());
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith(properties.getTokenStartWith())) {
-            // 去掉令牌前缀
-            return bearerToken.replace(properties.getTokenStartWith(), "");
-        } else {
-            log.debug("Invalid Token：{}", bearerToken);
-        }
-        return null;
-    }
 }
@@ -23,6 +23,7 @@ import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.modules.security.service.OnlineSessionRegistry;
 import me.zhengjie.modules.security.service.dto.AuthorityDto;
 import me.zhengjie.modules.security.service.dto.JwtUserDto;
 import me.zhengjie.utils.RedisUtils;
@@ -39,6 +40,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * @author /
@@ -49,20 +51,31 @@ public class TokenProvider implements InitializingBean {
 
     private JwtParser jwtParser;
     private JwtBuilder jwtBuilder;
+    private Key key;
     private final RedisUtils redisUtils;
     private final SecurityProperties properties;
+    private final OnlineSessionRegistry sessionRegistry;
     public static final String AUTHORITIES_UUID_KEY = "uid";
     public static final String AUTHORITIES_UID_KEY = "userId";
+    /**
+     * 无状态模式：令牌类型、权限、签发时间（毫秒）
+     */
+    public static final String TOKEN_TYPE_KEY = "typ";
+    public static final String AUTHORITIES_KEY = "auth";
+    public static final String ISSUED_AT_KEY = "ts";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
 
-    public TokenProvider(SecurityProperties properties, RedisUtils redisUtils) {
+    public TokenProvider(SecurityProperties properties, RedisUtils redisUtils, OnlineSessionRegistry sessionRegistry) {
         this.properties = properties;
         this.redisUtils = redisUtils;
+        this.sessionRegistry = sessionRegistry;
     }
 
     @Override
     public void afterPropertiesSet() {
         byte[] keyBytes = Decoders.BASE64.decode(properties.getBase64Secret());
-        Key key = Keys.hmacShaKeyFor(keyBytes);
+        key = Keys.hmacShaKeyFor(keyBytes);
         jwtParser = Jwts.parserBuilder()
                 .setSigningKey(key)
                 .build();
@@ -90,6 +103,89 @@ public class TokenProvider implements InitializingBean {
                 .compact();
     }
 
+    /**
+     * 无状态模式：创建访问令牌，携带会话编号与权限，在有效期内无需访问 Redis 即可完成鉴权
+     *
+     * @param user /
+     * @param sessionId 会话编号
+     * @return /
+     */
+    public String createAccessToken(JwtUserDto user, String sessionId) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>(8);
+        claims.put(AUTHORITIES_UID_KEY, user.getUser().getId());
+        claims.put(AUTHORITIES_UUID_KEY, sessionId);
+        claims.put(TOKEN_TYPE_KEY, ACCESS_TOKEN);
+        claims.put(AUTHORITIES_KEY, user.getAuthorities().stream().map(AuthorityDto::getAuthority).collect(Collectors.toList()));
+        claims.put(ISSUED_AT_KEY, now);
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getUsername())
+                .setExpiration(new Date(now + properties.getAccessTokenValidity()))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /**
+     * 无状态模式：创建刷新令牌，与在线用户信息同样由 Redis 维护有效期
+     *
+     * @param user /
+     * @param sessionId 会话编号
+     * @return /
+     */
+    public String createRefreshToken(JwtUserDto user, String sessionId) {
+        Map<String, Object> claims = new HashMap<>(6);
+        claims.put(AUTHORITIES_UID_KEY, user.getUser().getId());
+        claims.put(AUTHORITIES_UUID_KEY, sessionId);
+        claims.put(TOKEN_TYPE_KEY, REFRESH_TOKEN);
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getUsername())
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    /**
+     * 无状态模式：依据访问令牌中的权限获取鉴权信息
+     *
+     * @param token /
+     * @param claims 已校验的访问令牌内容
+     * @return /
+     */
+    @SuppressWarnings("unchecked")
+    Authentication getAuthentication(String token, Claims claims) {
+        List<AuthorityDto> authorities = ((List<String>) claims.get(AUTHORITIES_KEY, List.class)).stream()
+                .map(AuthorityDto::new)
+                .collect(Collectors.toList());
+        User principal = new User(claims.getSubject(), "******", authorities);
+        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    }
+
+    /**
+     * 无状态模式：校验刷新令牌
+     *
+     * @param token /
+     * @return 签名有效且为刷新令牌时返回 true
+     */
+    public boolean isRefreshToken(String token) {
+        try {
+            return REFRESH_TOKEN.equals(getClaims(token).get(TOKEN_TYPE_KEY));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Invalid refresh token: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 无状态模式：访问令牌的签发时间
+     *
+     * @param claims 访问令牌内容
+     * @return 毫秒
+     */
+    public long getIssuedAt(Claims claims) {
+        return ((Number) claims.get(ISSUED_AT_KEY)).longValue();
+    }
+
     /**
      * 依据Token 获取鉴权信息
      *
@@ -122,6 +218,7 @@ public class TokenProvider implements InitializingBean {
         if (differ <= properties.getDetect()) {
             long renew = time + properties.getRenew();
             redisUtils.expire(loginKey, renew, TimeUnit.MILLISECONDS);
+            sessionRegistry.renew(loginKey, renew);
         }
     }
 
@@ -140,8 +237,8 @@ public class TokenProvider implements InitializingBean {
      * @return key
      */
     public String loginKey(String token) {
-        Claims claims = getClaims(token);
-        return properties.getOnlineKey() + claims.getSubject() + ":" + getId(token);
+        Claims claims = getIdentity(token);
+        return properties.getOnlineKey() + claims.getSubject() + ":" + claims.get(AUTHORITIES_UUID_KEY);
     }
 
     /**
@@ -151,7 +248,18 @@ public class TokenProvider implements InitializingBean {
      * @return /
      */
     public String getId(String token) {
-        Claims claims = getClaims(token);
+        Claims claims = getIdentity(token);
         return claims.get(AUTHORITIES_UUID_KEY).toString();
     }
+
+    /**
+     * 获取令牌所属的用户与会话。签名已校验而只是过期的访问令牌仍可用于定位会话，例如登出
+     */
+    private Claims getIdentity(String token) {
+        try {
+            return getClaims(token);
+        } catch (ExpiredJwtException e) {
+            return e.getClaims();
+        }
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.modules.security.service.dto.OnlineUserDto;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 在线会话索引。会话本身仍以 loginKey 保存，另外维护三个索引：按登录时间排序的有序集合用于列表与分页，
+ * 按过期时间排序的有序集合用于清理已过期会话的索引项，每个用户一个集合用于按用户查询与强退。
+ * 查询与强退只读取索引和命中的会话，不再扫描整个键空间。
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OnlineSessionRegistry {
+
+    /**
+     * 每次清理的最大会话数
+     */
+    private static final int PURGE_BATCH = 500;
+
+    private final SecurityProperties properties;
+    private final RedisUtils redisUtils;
+
+    /**
+     * 登记会话
+     * @param loginKey 会话的键
+     * @param username 用户名
+     * @param loginTime 登录时间
+     * @param ttl 会话有效期，单位毫秒
+     */
+    public void register(String loginKey, String username, Date loginTime, long ttl) {
+        redisUtils.zAdd(CacheKey.ONLINE_SESSIONS, loginKey, loginTime.getTime());
+        redisUtils.zAdd(CacheKey.ONLINE_EXPIRY, loginKey, System.currentTimeMillis() + ttl);
+        redisUtils.sSet(CacheKey.ONLINE_USER + username, loginKey);
+    }
+
+    /**
+     * 会话续期后更新过期时间，已移除的会话不会重新登记
+     * @param loginKey 会话的键
+     * @param ttl 续期后的有效期，单位毫秒
+     */
+    public void renew(String loginKey, long ttl) {
+        if (redisUtils.zScore(CacheKey.ONLINE_EXPIRY, loginKey) != null) {
+            redisUtils.zAdd(CacheKey.ONLINE_EXPIRY, loginKey, System.currentTimeMillis() + ttl);
+        }
+    }
+
+    /**
+     * 移除会话的索引项
+     * @param loginKey 会话的键
+     */
+    public void unregister(String loginKey) {
+        redisUtils.zRemove(CacheKey.ONLINE_SESSIONS, loginKey);
+        redisUtils.zRemove(CacheKey.ONLINE_EXPIRY, loginKey);
+        redisUtils.setRemove(CacheKey.ONLINE_USER + username(loginKey), loginKey);
+    }
+
+    /**
+     * 移除用户的全部索引项
+     * @param username 用户名
+     * @return 用户的会话键
+     */
+    public List<String> unregisterAll(String username) {
+        List<String> loginKeys = sessionsOf(username);
+        if (!loginKeys.isEmpty()) {
+            Object[] members = loginKeys.toArray();
+            redisUtils.zRemove(CacheKey.ONLINE_SESSIONS, members);
+            redisUtils.zRemove(CacheKey.ONLINE_EXPIRY, members);
+            redisUtils.del(CacheKey.ONLINE_USER + username);
+        }
+        return loginKeys;
+    }
+
+    /**
+     * 在线会话数
+     * @return /
+     */
+    public long count() {
+        purge();
+        return redisUtils.zCard(CacheKey.ONLINE_SESSIONS);
+    }
+
+    /**
+     * 按登录时间倒序分页获取会话键
+     * @param offset 起始位置
+     * @param size 条数
+     * @return /
+     */
+    public List<String> page(long offset, long size) {
+        if (size <= 0) {
+            return new ArrayList<>();
+        }
+        return redisUtils.zRevRangeWithScores(CacheKey.ONLINE_SESSIONS, offset, offset + size - 1).stream()
+                .map(tuple -> (String) tuple.getValue())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 用户的会话键
+     * @param username 用户名
+     * @return /
+     */
+    public List<String> sessionsOf(String username) {
+        Set<Object> members = redisUtils.sGet(CacheKey.ONLINE_USER + username);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(String::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 清理已过期会话的索引项。过期索引按分数原子地取出，多个节点同时清理时每个会话只会被处理一次；
+     * 取出后会话仍存在的说明刚被续期，按剩余有效期重新登记
+     */
+    @Scheduled(fixedDelayString = "${jwt.online-purge-interval:60000}")
+    public void purge() {
+        List<Object> expired;
+        do {
+            expired = redisUtils.zPopByScore(CacheKey.ONLINE_EXPIRY, System.currentTimeMillis(), PURGE_BATCH);
+            if (expired.isEmpty()) {
+                return;
+            }
+            List<String> loginKeys = expired.stream().map(String::valueOf).collect(Collectors.toList());
+            List<Object> sessions = redisUtils.mget(loginKeys);
+            List<String> removed = new ArrayList<>();
+            for (int i = 0; i < loginKeys.size(); i++) {
+                String loginKey = loginKeys.get(i);
+                if (sessions.get(i) == null) {
+                    removed.add(loginKey);
+                } else {
+                    long ttl = redisUtils.getExpire(loginKey) * 1000;
+                    ttl = ttl > 0 ? ttl : properties.getTokenValidityInSeconds();
+                    redisUtils.zAdd(CacheKey.ONLINE_EXPIRY, loginKey, System.currentTimeMillis() + ttl);
+                }
+            }
+            if (!removed.isEmpty()) {
+                redisUtils.zRemove(CacheKey.ONLINE_SESSIONS, removed.toArray());
+                removed.stream().collect(Collectors.groupingBy(this::username))
+                        .forEach((username, keys) -> redisUtils.setRemove(CacheKey.ONLINE_USER + username, keys.toArray()));
+                log.debug("Purged {} expired online sessions", removed.size());
+            }
+        } while (expired.size() == PURGE_BATCH);
+    }
+
+    /**
+     * 启动时索引为空则按现有会话重建一次，使升级前登录的会话也能被查询与强退
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (redisUtils.zCard(CacheKey.ONLINE_SESSIONS) > 0) {
+            return;
+        }
+        List<String> loginKeys = redisUtils.scan(properties.getOnlineKey() + "*");
+        List<OnlineUserDto> sessions = redisUtils.mget(loginKeys, OnlineUserDto.class);
+        int registered = 0;
+        for (int i = 0; i < loginKeys.size(); i++) {
+            OnlineUserDto session = sessions.get(i);
+            long ttl = redisUtils.getExpire(loginKeys.get(i)) * 1000;
+            if (session != null && session.getLoginTime() != null && ttl > 0) {
+                register(loginKeys.get(i), username(loginKeys.get(i)), session.getLoginTime(), ttl);
+                registered++;
+            }
+        }
+        log.info("Registered {} existing online sessions", registered);
+    }
+
+    /**
+     * 从会话键中解析用户名，会话键格式为 onlineKey + 用户名 + ":" + Token编号
+     */
+    private String username(String loginKey) {
+        return loginKey.substring(properties.getOnlineKey().length(), loginKey.lastIndexOf(':'));
+    }
+}
@@ -30,6 +30,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * @author Zheng Jie
@@ -43,6 +44,8 @@ public class OnlineUserService {
     private final SecurityProperties properties;
     private final TokenProvider tokenProvider;
     private final RedisUtils redisUtils;
+    private final TokenAuthCache tokenAuthCache;
+    private final OnlineSessionRegistry sessionRegistry;
 
     /**
      * 保存在线用户信息
@@ -55,44 +58,48 @@ public class OnlineUserService {
         String id = tokenProvider.getId(token);
         String browser = StringUtils.getBrowser(request);
         String address = StringUtils.getCityInfo(ip);
+        Date loginTime = new Date();
         OnlineUserDto onlineUserDto = null;
         try {
-            onlineUserDto = new OnlineUserDto(id, jwtUserDto.getUsername(), jwtUserDto.getUser().getNickName(), "", browser , ip, address, EncryptUtils.desEncrypt(token), new Date());
+            onlineUserDto = new OnlineUserDto(id, jwtUserDto.getUsername(), jwtUserDto.getUser().getNickName(), "", browser , ip, address, EncryptUtils.desEncrypt(token), loginTime);
         } catch (Exception e) {
             log.error(e.getMessage(),e);
         }
         String loginKey = tokenProvider.loginKey(token);
         redisUtils.set(loginKey, onlineUserDto, properties.getTokenValidityInSeconds(), TimeUnit.MILLISECONDS);
+        sessionRegistry.register(loginKey, jwtUserDto.getUsername(), loginTime, properties.getTokenValidityInSeconds());
     }
 
     /**
-     * 查询全部数据
-     * @param username /
+     * 查询全部数据，不指定用户名时只读取当前页的会话
+     * @param username 用户名
      * @param pageable /
      * @return /
      */
     public PageResult<OnlineUserDto> getAll(String username, Pageable pageable){
-        List<OnlineUserDto> onlineUserDtos = getAll(username);
-        return PageUtil.toPage(
-                PageUtil.paging(pageable.getPageNumber(),pageable.getPageSize(), onlineUserDtos),
-                onlineUserDtos.size()
-        );
+        if (StringUtils.isNotBlank(username)) {
+            List<OnlineUserDto> onlineUserDtos = getAll(username);
+            return PageUtil.toPage(
+                    PageUtil.paging(pageable.getPageNumber(),pageable.getPageSize(), onlineUserDtos),
+                    onlineUserDtos.size()
+            );
+        }
+        long total = sessionRegistry.count();
+        List<OnlineUserDto> onlineUserDtos = redisUtils.mget(
+                sessionRegistry.page(pageable.getOffset(), pageable.getPageSize()), OnlineUserDto.class);
+        // 索引清理之前过期的会话直接跳过
+        onlineUserDtos.removeIf(Objects::isNull);
+        return PageUtil.toPage(onlineUserDtos, total);
     }
 
     /**
-     * 查询全部数据，不分页
-     * @param username /
+     * 查询用户的全部会话，按登录时间倒序
+     * @param username 用户名
      * @return /
      */
     public List<OnlineUserDto> getAll(String username){
-        String loginKey = properties.getOnlineKey() +
-                (StringUtils.isBlank(username) ? "" : "*" + username);
-        List<String> keys = redisUtils.scan(loginKey + "*");
-        Collections.reverse(keys);
-        List<OnlineUserDto> onlineUserDtos = new ArrayList<>();
-        for (String key : keys) {
-            onlineUserDtos.add(redisUtils.get(key, OnlineUserDto.class));
-        }
+        List<OnlineUserDto> onlineUserDtos = redisUtils.mget(sessionRegistry.sessionsOf(username), OnlineUserDto.class);
+        onlineUserDtos.removeIf(Objects::isNull);
         onlineUserDtos.sort((o1, o2) -> o2.getLoginTime().compareTo(o1.getLoginTime()));
         return onlineUserDtos;
     }
@@ -104,27 +111,36 @@ public class OnlineUserService {
     public void logout(String token) {
         String loginKey = tokenProvider.loginKey(token);
         redisUtils.del(loginKey);
+        sessionRegistry.unregister(loginKey);
+        tokenAuthCache.evictToken(tokenProvider.getId(token));
     }
 
     /**
-     * 导出
-     * @param all /
+     * 导出，会话按批从 Redis 读取后写入响应流，不在内存中汇总
+     * @param username 用户名过滤条件
+     * @param format 导出格式
      * @param response /
      * @throws IOException /
      */
-    public void download(List<OnlineUserDto> all, HttpServletResponse response) throws IOException {
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (OnlineUserDto user : all) {
-            Map<String,Object> map = new LinkedHashMap<>();
-            map.put("用户名", user.getUserName());
-            map.put("部门", user.getDept());
-            map.put("登录IP", user.getIp());
-            map.put("登录地点", user.getAddress());
-            map.put("浏览器", user.getBrowser());
-            map.put("登录日期", user.getLoginTime());
-            list.add(map);
+    public void download(String username, ExportUtil.Format format, HttpServletResponse response) throws IOException {
+        ExportUtil.Columns<OnlineUserDto> columns = ExportUtil.<OnlineUserDto>columns()
+                .add("用户名", OnlineUserDto::getUserName)
+                .add("部门", OnlineUserDto::getDept)
+                .add("登录IP", OnlineUserDto::getIp)
+                .add("登录地点", OnlineUserDto::getAddress)
+                .add("浏览器", OnlineUserDto::getBrowser)
+                .add("登录日期", OnlineUserDto::getLoginTime);
+        if (StringUtils.isNotBlank(username)) {
+            ExportUtil.export(response, "online", format, columns, getAll(username).stream());
+            return;
         }
-        FileUtil.downloadExcel(list, response);
+        // 按索引逐页读取，索引清理之前过期的会话直接跳过
+        ExportUtil.export(response, "online", format, columns,
+                Stream.iterate(0L, offset -> offset + ExportUtil.BATCH_SIZE)
+                        .map(offset -> sessionRegistry.page(offset, ExportUtil.BATCH_SIZE))
+                        .takeWhile(keys -> !keys.isEmpty())
+                        .flatMap(keys -> redisUtils.mget(keys, OnlineUserDto.class).stream())
+                        .filter(Objects::nonNull));
     }
 
     /**
@@ -141,7 +157,7 @@ public class OnlineUserService {
      * @param username /
      */
     public void kickOutForUsername(String username) {
-        String loginKey = properties.getOnlineKey() + username + "*";
-        redisUtils.scanDel(loginKey);
+        redisUtils.unlink(sessionRegistry.unregisterAll(username));
+        tokenAuthCache.evictUser(username);
     }
 }
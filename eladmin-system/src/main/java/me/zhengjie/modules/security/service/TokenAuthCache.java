@@ -0,0 +1,180 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.modules.security.service.dto.AuthorityDto;
+import me.zhengjie.modules.security.service.dto.OnlineUserDto;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 本地认证缓存，按 Token 编号缓存在线用户信息与权限，命中时请求无需访问 Redis 与数据库。
+ * 登出、踢人及角色变更时通过 Redis 频道通知所有节点失效；无状态模式下改为写入 {@link TokenRevocationList}。
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+public class TokenAuthCache implements MessageListener {
+
+    public static final String CHANNEL = "auth::evict";
+    private static final String TOKEN_PREFIX = "token:";
+    private static final String USER_PREFIX = "user:";
+    private static final String USERS_PREFIX = "users:";
+
+    private final RedisUtils redisUtils;
+    private final TokenRevocationList revocationList;
+    private final boolean stateless;
+    private final Cache<String, AuthEntry> cache;
+
+    public TokenAuthCache(SecurityProperties properties, RedisUtils redisUtils, TokenRevocationList revocationList,
+                          RedisMessageListenerContainer listenerContainer) {
+        this.redisUtils = redisUtils;
+        this.revocationList = revocationList;
+        this.stateless = properties.isStateless();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getAuthCacheSize())
+                .expireAfterWrite(properties.getAuthCacheTtl(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 获取缓存的认证信息
+     * @param tokenId Token编号
+     * @return 未命中返回 null
+     */
+    public AuthEntry get(String tokenId) {
+        return cache.getIfPresent(tokenId);
+    }
+
+    /**
+     * 缓存认证信息
+     * @param tokenId Token编号
+     * @param onlineUser 在线用户
+     * @param authorities 权限
+     * @return /
+     */
+    public AuthEntry put(String tokenId, OnlineUserDto onlineUser, List<AuthorityDto> authorities) {
+        AuthEntry entry = new AuthEntry(onlineUser, authorities);
+        cache.put(tokenId, entry);
+        return entry;
+    }
+
+    /**
+     * 失效指定 Token 并通知其他节点
+     * @param tokenId Token编号
+     */
+    public void evictToken(String tokenId) {
+        if (stateless) {
+            // 无状态模式下令牌本身即是认证缓存，改为吊销
+            revocationList.revokeSession(tokenId);
+            return;
+        }
+        cache.invalidate(tokenId);
+        redisUtils.publish(CHANNEL, TOKEN_PREFIX + tokenId);
+    }
+
+    /**
+     * 失效指定用户的所有 Token 并通知其他节点
+     * @param username 用户名
+     */
+    public void evictUser(String username) {
+        if (stateless) {
+            revocationList.revokeUsers(Collections.singletonList(username));
+            return;
+        }
+        evictUserLocally(username);
+        redisUtils.publish(CHANNEL, USER_PREFIX + username);
+    }
+
+    /**
+     * 失效多个用户的所有 Token，本地缓存只遍历一次，其他节点只收到一条通知
+     * @param usernames 用户名
+     */
+    public void evictUsers(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        if (stateless) {
+            revocationList.revokeUsers(usernames);
+            return;
+        }
+        evictUsersLocally(usernames);
+        redisUtils.publish(CHANNEL, USERS_PREFIX + String.join("\n", usernames));
+    }
+
+    /**
+     * 缓存命中统计
+     * @return /
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(TOKEN_PREFIX)) {
+            cache.invalidate(body.substring(TOKEN_PREFIX.length()));
+        } else if (body.startsWith(USER_PREFIX)) {
+            evictUserLocally(body.substring(USER_PREFIX.length()));
+        } else if (body.startsWith(USERS_PREFIX)) {
+            evictUsersLocally(Arrays.asList(body.substring(USERS_PREFIX.length()).split("\n")));
+        } else {
+            log.warn("Unknown auth cache message: {}", body);
+        }
+    }
+
+    private void evictUserLocally(String username) {
+        cache.asMap().values().removeIf(entry -> username.equalsIgnoreCase(entry.getOnlineUser().getUserName()));
+    }
+
+    private void evictUsersLocally(Collection<String> usernames) {
+        Set<String> names = usernames.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        cache.asMap().values().removeIf(entry -> names.contains(entry.getOnlineUser().getUserName().toLowerCase()));
+    }
+
+    /**
+     * 缓存项
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class AuthEntry {
+        private final OnlineUserDto onlineUser;
+        private final List<AuthorityDto> authorities;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 无状态模式的令牌吊销列表。登出吊销一个会话，踢人与角色变更吊销一个用户，
+ * 吊销时间之前签发的访问令牌全部失效，客户端可以用刷新令牌换取新的访问令牌（会话已删除时换取失败）。
+ * 每个节点在内存中保存吊销记录并以布隆过滤器做前置判断，绝大多数请求只需一次过滤器查询；
+ * 吊销通过 Redis 频道同步到所有节点，同时写入 Redis 供新启动的节点加载。
+ * 访问令牌有效期过后，吊销记录不再需要，定时清理并重建过滤器；
+ * 频道消息可能在断线期间丢失，清理时同时从 Redis 重新同步仍在有效期内的吊销记录
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+public class TokenRevocationList implements MessageListener {
+
+    public static final String CHANNEL = "auth::revoke";
+    private static final String SESSION_PREFIX = "s:";
+    private static final String USER_PREFIX = "u:";
+
+    private final SecurityProperties properties;
+    private final RedisUtils redisUtils;
+    /**
+     * 吊销的会话或用户 -> 吊销时间
+     */
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter<String> filter;
+
+    public TokenRevocationList(SecurityProperties properties, RedisUtils redisUtils,
+                               RedisMessageListenerContainer listenerContainer) {
+        this.properties = properties;
+        this.redisUtils = redisUtils;
+        this.filter = newFilter();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 访问令牌是否已被吊销
+     * @param sessionId 会话编号
+     * @param username 用户名
+     * @param issuedAt 签发时间，单位毫秒
+     * @return /
+     */
+    public boolean isRevoked(String sessionId, String username, long issuedAt) {
+        return isRevoked(SESSION_PREFIX + sessionId, issuedAt) || isRevoked(USER_PREFIX + username.toLowerCase(), issuedAt);
+    }
+
+    /**
+     * 吊销会话
+     * @param sessionId 会话编号
+     */
+    public void revokeSession(String sessionId) {
+        revoke(Collections.singletonList(SESSION_PREFIX + sessionId));
+    }
+
+    /**
+     * 吊销用户当前的全部访问令牌
+     * @param usernames 用户名
+     */
+    public void revokeUsers(Collection<String> usernames) {
+        if (!usernames.isEmpty()) {
+            revoke(usernames.stream().map(username -> USER_PREFIX + username.toLowerCase()).collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        long revokedAt = Long.parseLong(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            add(parts[i], revokedAt);
+        }
+    }
+
+    /**
+     * 启动时加载仍在有效期内的吊销记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        sync(System.currentTimeMillis() - properties.getAccessTokenValidity());
+        log.info("Loaded {} token revocations", revoked.size());
+    }
+
+    /**
+     * 清理已过期的吊销记录并重建布隆过滤器，再从 Redis 补齐错过的吊销
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation-sync-interval:60000}")
+    public void purge() {
+        long cutoff = System.currentTimeMillis() - properties.getAccessTokenValidity();
+        redisUtils.zPopByScore(CacheKey.AUTH_REVOKED, cutoff, Integer.MAX_VALUE);
+        synchronized (this) {
+            if (revoked.values().removeIf(revokedAt -> revokedAt < cutoff)) {
+                BloomFilter<String> rebuilt = newFilter();
+                revoked.keySet().forEach(rebuilt::put);
+                filter = rebuilt;
+            }
+        }
+        int missed = sync(cutoff);
+        if (missed > 0) {
+            log.warn("Recovered {} token revocations missed on the channel", missed);
+        }
+    }
+
+    /**
+     * 从 Redis 加载吊销时间不早于 cutoff 的记录
+     * @param cutoff 截止时间，单位毫秒
+     * @return 本地此前缺失或更旧的记录数
+     */
+    private int sync(long cutoff) {
+        int missed = 0;
+        for (ZSetOperations.TypedTuple<Object> tuple : redisUtils.zRevRangeWithScores(CacheKey.AUTH_REVOKED, 0, -1)) {
+            if (tuple.getScore() == null || tuple.getScore() < cutoff) {
+                continue;
+            }
+            String key = String.valueOf(tuple.getValue());
+            long revokedAt = tuple.getScore().longValue();
+            Long known = revoked.get(key);
+            if (known == null || known < revokedAt) {
+                add(key, revokedAt);
+                missed++;
+            }
+        }
+        return missed;
+    }
+
+    private boolean isRevoked(String key, long issuedAt) {
+        if (!filter.mightContain(key)) {
+            return false;
+        }
+        Long revokedAt = revoked.get(key);
+        return revokedAt != null && issuedAt < revokedAt;
+    }
+
+    private void revoke(List<String> keys) {
+        long now = System.currentTimeMillis();
+        Map<Object, Double> scores = new HashMap<>(keys.size());
+        for (String key : keys) {
+            add(key, now);
+            scores.put(key, (double) now);
+        }
+        redisUtils.zAddAll(CacheKey.AUTH_REVOKED, scores);
+        redisUtils.publish(CHANNEL, now + "\n" + String.join("\n", keys));
+    }
+
+    private synchronized void add(String key, long revokedAt) {
+        revoked.merge(key, revokedAt, Math::max);
+        filter.put(key);
+    }
+
+    private BloomFilter<String> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), properties.getRevocationCapacity(), 0.001);
+    }
+}
@@ -24,6 +24,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.stream.Collectors;
 
 /**
  * @author Zheng Jie
@@ -82,4 +84,17 @@ public class UserCacheManager {
             redisUtils.del(LoginProperties.cacheKey + userName);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量清理用户缓存信息，一次删除所有用户的缓存
+     * 角色变更时
+     * @param userNames 用户名
+     */
+    @Async
+    public void cleanUserCache(Collection<String> userNames) {
+        redisUtils.unlink(userNames.stream()
+                .filter(StringUtils::isNotEmpty)
+                .map(userName -> LoginProperties.cacheKey + StringUtils.lowerCase(userName))
+                .collect(Collectors.toList()));
+    }
+}
@@ -37,6 +37,13 @@ public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificat
      */
     Role findByName(String name);
 
+    /**
+     * 查询所有角色名称
+     * @return /
+     */
+    @Query("select r.name from Role r")
+    List<String> findAllNames();
+
     /**
      * 删除多个角色
      * @param ids /
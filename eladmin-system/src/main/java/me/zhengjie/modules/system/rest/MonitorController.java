@@ -18,6 +18,7 @@ package me.zhengjie.modules.system.rest;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.cache.TwoLevelCacheManager;
 import me.zhengjie.modules.system.service.MonitorService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +38,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class MonitorController {
 
     private final MonitorService serverService;
+    private final TwoLevelCacheManager cacheManager;
 
     @GetMapping
     @ApiOperation("查询服务监控")
@@ -44,4 +46,11 @@ public class MonitorController {
     public ResponseEntity<Object> queryMonitor(){
         return new ResponseEntity<>(serverService.getServers(),HttpStatus.OK);
     }
+
+    @GetMapping(value = "/caches")
+    @ApiOperation("查询缓存命中率")
+    @PreAuthorize("hasAuthority('Admin')")
+    public ResponseEntity<Object> queryCaches(){
+        return new ResponseEntity<>(cacheManager.stats(),HttpStatus.OK);
+    }
 }
@@ -29,6 +29,7 @@ import me.zhengjie.modules.system.service.VerifyService;
 import me.zhengjie.modules.system.service.dto.RoleSmallDto;
 import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.modules.system.service.dto.UserQueryCriteria;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.utils.RsaUtils;
 import me.zhengjie.utils.SecurityUtils;
@@ -65,8 +66,8 @@ public class UserController {
     @ApiOperation("导出用户数据")
     @GetMapping(value = "/download")
     @PreAuthorize("hasAuthority('Admin')")
-    public void exportUser(HttpServletResponse response, UserQueryCriteria criteria) throws IOException {
-        userService.download(userService.queryAll(criteria), response);
+    public void exportUser(HttpServletResponse response, UserQueryCriteria criteria, String format) throws IOException {
+        userService.download(criteria, ExportUtil.Format.of(format), response);
     }
 
     @ApiOperation("Query User")
@@ -20,6 +20,7 @@ import me.zhengjie.modules.system.domain.User;
 import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.modules.system.service.dto.UserQueryCriteria;
 import me.zhengjie.utils.ExecutionResult;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
@@ -167,13 +168,14 @@ public interface UserService {
     List<UserDto> queryAll(UserQueryCriteria criteria);
 
     /**
-     * 导出数据
+     * 导出数据，从数据库分批读取并直接写入响应流
      *
-     * @param queryAll 待导出的数据
+     * @param criteria 查询条件
+     * @param format 导出格式
      * @param response /
      * @throws IOException /
      */
-    void download(List<UserDto> queryAll, HttpServletResponse response) throws IOException;
+    void download(UserQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException;
 
     /**
      * 用户自助修改资料
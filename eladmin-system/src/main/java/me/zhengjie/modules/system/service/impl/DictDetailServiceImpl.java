@@ -17,6 +17,7 @@ package me.zhengjie.modules.system.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.cache.TwoLevelCache;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.modules.system.domain.Dict;
 import me.zhengjie.modules.system.domain.DictDetail;
@@ -27,12 +28,13 @@ import me.zhengjie.modules.system.repository.DictDetailRepository;
 import me.zhengjie.modules.system.service.DictDetailService;
 import me.zhengjie.modules.system.service.dto.DictDetailDto;
 import me.zhengjie.modules.system.service.mapstruct.DictDetailMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
 * @author Zheng Jie
@@ -45,7 +47,7 @@ public class DictDetailServiceImpl implements DictDetailService {
     private final DictRepository dictRepository;
     private final DictDetailRepository dictDetailRepository;
     private final DictDetailMapper dictDetailMapper;
-    private final RedisUtils redisUtils;
+    private final CacheManager cacheManager;
 
     @Override
     public PageResult<DictDetailDto> queryAll(DictDetailQueryCriteria criteria, Pageable pageable) {
@@ -74,11 +76,11 @@ public class DictDetailServiceImpl implements DictDetailService {
 
     @Override
     public List<DictDetailDto> getDictByName(String name) {
-        String key = CacheKey.DICT_NAME + name;
-        List<DictDetail> dictDetails = redisUtils.getList(key, DictDetail.class);
+        Cache cache = cacheManager.getCache(CacheKey.DICT_NAME);
+        List<DictDetail> dictDetails = TwoLevelCache.getList(cache, name, DictDetail.class);
         if(CollUtil.isEmpty(dictDetails)){
             dictDetails = dictDetailRepository.findByDictName(name);
-            redisUtils.set(key, dictDetails, 1 , TimeUnit.DAYS);
+            cache.putIfAbsent(name, dictDetails);
         }
         return dictDetailMapper.toDto(dictDetails);
     }
@@ -94,6 +96,6 @@ public class DictDetailServiceImpl implements DictDetailService {
 
     public void delCaches(DictDetail dictDetail){
         Dict dict = dictRepository.findById(dictDetail.getDict().getId()).orElseGet(Dict::new);
-        redisUtils.del(CacheKey.DICT_NAME + dict.getName());
+        cacheManager.getCache(CacheKey.DICT_NAME).evict(dict.getName());
     }
 }
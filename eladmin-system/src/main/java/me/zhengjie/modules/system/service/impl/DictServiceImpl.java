@@ -26,6 +26,7 @@ import me.zhengjie.modules.system.repository.DictRepository;
 import me.zhengjie.modules.system.service.DictService;
 import me.zhengjie.modules.system.service.dto.DictDto;
 import me.zhengjie.modules.system.service.mapstruct.DictMapper;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -44,7 +45,7 @@ public class DictServiceImpl implements DictService {
 
     private final DictRepository dictRepository;
     private final DictMapper dictMapper;
-    private final RedisUtils redisUtils;
+    private final CacheManager cacheManager;
 
     @Override
     public PageResult<DictDto> queryAll(DictQueryCriteria dict, Pageable pageable){
@@ -115,6 +116,6 @@ public class DictServiceImpl implements DictService {
     }
 
     public void delCaches(Dict dict){
-        redisUtils.del(CacheKey.DICT_NAME + dict.getName());
+        cacheManager.getCache(CacheKey.DICT_NAME).evict(dict.getName());
     }
 }
@@ -18,9 +18,12 @@ package me.zhengjie.modules.system.service.impl;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.PermissionRegistry;
+import me.zhengjie.config.cache.TwoLevelCache;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityExistException;
 import me.zhengjie.modules.security.service.UserCacheManager;
+import me.zhengjie.modules.security.service.TokenAuthCache;
 import me.zhengjie.modules.security.service.dto.AuthorityDto;
 import me.zhengjie.modules.system.domain.Role;
 import me.zhengjie.modules.system.domain.User;
@@ -33,6 +36,10 @@ import me.zhengjie.modules.system.service.dto.RoleSmallDto;
 import me.zhengjie.modules.system.service.mapstruct.RoleMapper;
 import me.zhengjie.modules.system.service.mapstruct.RoleSmallMapper;
 import me.zhengjie.utils.*;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -42,7 +49,6 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +65,9 @@ public class RoleServiceImpl implements RoleService {
     private final RedisUtils redisUtils;
     private final UserRepository userRepository;
     private final UserCacheManager userCacheManager;
+    private final TokenAuthCache tokenAuthCache;
+    private final CacheManager cacheManager;
+    private final PermissionRegistry permissionRegistry;
 
     @Override
     public List<RoleDto> queryAll() {
@@ -79,14 +88,16 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public RoleDto findById(long id) {
-        String key = CacheKey.ROLE_ID + id;
-        Role role = redisUtils.get(key, Role.class);
-        if (role == null) {
-            role = roleRepository.findById(id).orElseGet(Role::new);
+        // 缓存 DTO 而不是实体，本地缓存中的对象会被多个线程共享
+        Cache cache = cacheManager.getCache(CacheKey.ROLE_ID);
+        RoleDto roleDto = cache.get(id, RoleDto.class);
+        if (roleDto == null) {
+            Role role = roleRepository.findById(id).orElseGet(Role::new);
             ValidationUtil.isNull(role.getId(), "Role", "id", id);
-            redisUtils.set(key, role, 1, TimeUnit.DAYS);
+            roleDto = roleMapper.toDto(role);
+            cache.putIfAbsent(id, roleDto);
         }
-        return roleMapper.toDto(role);
+        return roleDto;
     }
 
     @Override
@@ -96,6 +107,8 @@ public class RoleServiceImpl implements RoleService {
             throw new EntityExistException(Role.class, "username", resources.getName());
         }
         roleRepository.save(resources);
+        // 管理员拥有所有角色的权限
+        permissionRegistry.bump();
     }
 
     @Override
@@ -130,11 +143,11 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public List<RoleSmallDto> findByUsersId(Long id) {
-        String key = CacheKey.ROLE_USER + id;
-        List<RoleSmallDto> roles = redisUtils.getList(key, RoleSmallDto.class);
+        Cache cache = cacheManager.getCache(CacheKey.ROLE_USER);
+        List<RoleSmallDto> roles = TwoLevelCache.getList(cache, id, RoleSmallDto.class);
         if (CollUtil.isEmpty(roles)) {
             roles = roleSmallMapper.toDto(new ArrayList<>(roleRepository.findByUserId(id)));
-            redisUtils.set(key, roles, 1, TimeUnit.DAYS);
+            cache.putIfAbsent(id, roles);
         }
         return roles;
     }
@@ -157,35 +170,34 @@ public class RoleServiceImpl implements RoleService {
         if (user == null) {
             return Collections.emptyList();
         }
-        final var userId = user.getId();
-        String key = CacheKey.ROLE_AUTH + userId;
-        List<AuthorityDto> authorityDtos = redisUtils.getList(key, AuthorityDto.class);
+        // 以权限版本号为键，角色变更后所有用户的缓存同时失效
+        String key = permissionRegistry.versioned(user.getId());
+        Cache cache = cacheManager.getCache(CacheKey.ROLE_AUTH);
+        List<AuthorityDto> authorityDtos = TwoLevelCache.getList(cache, key, AuthorityDto.class);
         if (CollUtil.isEmpty(authorityDtos)) {
-            final var roles = roleRepository.findByUserId(userId)
+            final var roles = roleRepository.findByUserId(user.getId())
                     .stream()
                     .map(Role::getName)
                     .filter(StringUtils::isNotBlank)
                     .toList();
-
-            if (roles.contains("Admin")) {
-                authorityDtos = roleRepository.findAll()
-                        .stream()
-                        .map(Role::getName)
-                        .map(AuthorityDto::new)
-                        .toList();
-            } else {
-                // 如果是管理员直接返回
-                authorityDtos = roles.stream()
-                        .map(AuthorityDto::new)
-                        .toList();
-            }
-
-
-            redisUtils.set(key, authorityDtos, 1, TimeUnit.HOURS);
+            // 如果是管理员，拥有所有角色的权限
+            authorityDtos = (roles.contains("Admin") ? roleRepository.findAllNames() : roles)
+                    .stream()
+                    .map(AuthorityDto::new)
+                    .toList();
+            cache.putIfAbsent(key, authorityDtos);
         }
         return authorityDtos;
     }
 
+    /**
+     * 启动时注册所有角色名称
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerPermissions() {
+        permissionRegistry.register(roleRepository.findAllNames());
+    }
+
     @Override
     public void download(List<RoleDto> roles, HttpServletResponse response) throws IOException {
         List<Map<String, Object>> list = new ArrayList<>();
@@ -210,13 +222,29 @@ public class RoleServiceImpl implements RoleService {
     private void delCaches(Long id, List<User> users) {
         users = CollectionUtil.isEmpty(users) ? userRepository.findByRoleId(id) : users;
         if (CollectionUtil.isNotEmpty(users)) {
-            users.forEach(item -> userCacheManager.cleanUserCache(item.getUsername()));
+            List<String> usernames = users.stream().map(User::getUsername).collect(Collectors.toList());
+            userCacheManager.cleanUserCache(usernames);
             Set<Long> userIds = users.stream().map(User::getId).collect(Collectors.toSet());
-            redisUtils.delByKeys(CacheKey.DATA_USER, userIds);
-            redisUtils.delByKeys(CacheKey.MENU_USER, userIds);
-            redisUtils.delByKeys(CacheKey.ROLE_AUTH, userIds);
-            redisUtils.delByKeys(CacheKey.ROLE_USER, userIds);
+            // 数据权限与菜单缓存一次批量删除
+            List<String> keys = new ArrayList<>(userIds.size() * 2);
+            userIds.forEach(userId -> {
+                keys.add(CacheKey.DATA_USER + userId);
+                keys.add(CacheKey.MENU_USER + userId);
+            });
+            redisUtils.unlink(keys);
+            evictAll(cacheManager.getCache(CacheKey.ROLE_USER), userIds);
+            tokenAuthCache.evictUsers(usernames);
+        }
+        cacheManager.getCache(CacheKey.ROLE_ID).evict(id);
+        // 角色权限缓存以版本号为键，递增版本号即可使所有节点失效
+        permissionRegistry.bump();
+    }
+
+    private void evictAll(Cache cache, Set<Long> keys) {
+        if (cache instanceof TwoLevelCache) {
+            ((TwoLevelCache) cache).evictAll(keys);
+        } else {
+            keys.forEach(cache::evict);
         }
-        redisUtils.del(CacheKey.ROLE_ID + id);
     }
 }
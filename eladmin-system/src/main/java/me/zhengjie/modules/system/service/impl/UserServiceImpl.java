@@ -16,21 +16,24 @@
 package me.zhengjie.modules.system.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.PermissionRegistry;
 import me.zhengjie.config.properties.FileProperties;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityExistException;
 import me.zhengjie.exception.EntityNotFoundException;
 import me.zhengjie.modules.security.service.OnlineUserService;
+import me.zhengjie.modules.security.service.TokenAuthCache;
 import me.zhengjie.modules.security.service.UserCacheManager;
 import me.zhengjie.modules.security.service.dto.UserRegisterDto;
 import me.zhengjie.modules.system.domain.User;
 import me.zhengjie.modules.system.repository.UserRepository;
 import me.zhengjie.modules.system.service.UserService;
-import me.zhengjie.modules.system.service.dto.RoleSmallDto;
 import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.modules.system.service.dto.UserQueryCriteria;
 import me.zhengjie.modules.system.service.mapstruct.UserMapper;
 import me.zhengjie.utils.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,13 +41,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.persistence.EntityManager;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.NotBlank;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * @author Zheng Jie
@@ -60,7 +62,11 @@ public class UserServiceImpl implements UserService {
     private final RedisUtils redisUtils;
     private final UserCacheManager userCacheManager;
     private final OnlineUserService onlineUserService;
+    private final TokenAuthCache tokenAuthCache;
     private final PasswordEncoder passwordEncoder;
+    private final CacheManager cacheManager;
+    private final EntityManager entityManager;
+    private final PermissionRegistry permissionRegistry;
 
     @Override
     public PageResult<UserDto> queryAll(UserQueryCriteria criteria, Pageable pageable) {
@@ -104,14 +110,16 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public UserDto findById(long id) {
-        String key = CacheKey.USER_ID + id;
-        User user = redisUtils.get(key, User.class);
-        if (user == null) {
-            user = userRepository.findById(id).orElseGet(User::new);
+        // 缓存 DTO 而不是实体，本地缓存中的对象会被多个线程共享，不能带有持久化上下文的状态
+        Cache cache = cacheManager.getCache(CacheKey.USER_ID);
+        UserDto userDto = cache.get(id, UserDto.class);
+        if (userDto == null) {
+            User user = userRepository.findById(id).orElseGet(User::new);
             ValidationUtil.isNull(user.getId(), "User", "id", id);
-            redisUtils.set(key, user, 1, TimeUnit.DAYS);
+            userDto = userMapper.toDto(user);
+            cache.putIfAbsent(id, userDto);
         }
-        return userMapper.toDto(user);
+        return userDto;
     }
 
     private User createUserEntity(UserRegisterDto registerDto) {
@@ -175,10 +183,10 @@ public class UserServiceImpl implements UserService {
         }
         // If the user's role changes
         if (!resources.getRoles().equals(user.getRoles())) {
-            redisUtils.del(CacheKey.DATA_USER + resources.getId());
-            redisUtils.del(CacheKey.MENU_USER + resources.getId());
-            redisUtils.del(CacheKey.ROLE_AUTH + resources.getId());
-            redisUtils.del(CacheKey.ROLE_USER + resources.getId());
+            redisUtils.del(CacheKey.DATA_USER + resources.getId(), CacheKey.MENU_USER + resources.getId());
+            cacheManager.getCache(CacheKey.ROLE_AUTH).evict(permissionRegistry.versioned(resources.getId()));
+            cacheManager.getCache(CacheKey.ROLE_USER).evict(resources.getId());
+            tokenAuthCache.evictUser(user.getUsername());
         }
         // If the user is disabled, clear the user's login information
         if (!resources.getEnabled()) {
@@ -328,20 +336,17 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public void download(List<UserDto> queryAll, HttpServletResponse response) throws IOException {
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (UserDto userDTO : queryAll) {
-            List<String> roles = userDTO.getRoles().stream().map(RoleSmallDto::getName).collect(Collectors.toList());
-            Map<String, Object> map = new LinkedHashMap<>();
-            map.put("Username", userDTO.getUsername());
-            map.put("Nickname", userDTO.getNickName());
-            map.put("Phone", userDTO.getPhone());
-            map.put("Email", userDTO.getEmail());
-            map.put("Status", userDTO.getEnabled() ? "Enabled" : "Disabled");
-            map.put("Creation date", userDTO.getCreateTime());
-            list.add(map);
-        }
-        FileUtil.downloadExcel(list, response);
+    @Transactional(readOnly = true)
+    public void download(UserQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException {
+        ExportUtil.Columns<User> columns = ExportUtil.<User>columns()
+                .add("Username", User::getUsername)
+                .add("Nickname", User::getNickName)
+                .add("Phone", User::getPhone)
+                .add("Email", User::getEmail)
+                .add("Status", user -> user.getEnabled() ? "Enabled" : "Disabled")
+                .add("Creation date", User::getCreateTime);
+        ExportUtil.export(response, "user", format, columns,
+                QueryHelp.stream(entityManager, User.class, criteria, ExportUtil.BATCH_SIZE));
     }
 
     /**
@@ -350,8 +355,9 @@ public class UserServiceImpl implements UserService {
      * @param id /
      */
     public void delCaches(Long id, String username) {
-        redisUtils.del(CacheKey.USER_ID + id);
+        cacheManager.getCache(CacheKey.USER_ID).evict(id);
         flushCache(username);
+        tokenAuthCache.evictUser(username);
     }
 
     /**
@@ -0,0 +1 @@
+ALTER TABLE tool_local_storage ADD COLUMN md5 VARCHAR(32) NULL COMMENT 'MD5, used as the ETag';
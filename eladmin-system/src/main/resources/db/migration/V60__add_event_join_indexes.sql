@@ -0,0 +1,3 @@
+-- team.event_id was declared with an inline REFERENCES clause, which MySQL ignores, so it has no index
+CREATE INDEX idx_team_event ON team (event_id);
+CREATE INDEX idx_team_player_player_team ON team_player (player_id, team_id);
@@ -0,0 +1,2 @@
+-- Keyset pagination of the event listing seeks on (event_time, id)
+CREATE INDEX idx_event_time_id ON event (event_time, id);
@@ -0,0 +1,13 @@
+-- Id segments of the entities which moved from AUTO_INCREMENT to the pooled table generator.
+-- last_val is the highest id handed out so far, Hibernate and IdBlockAllocator reserve ids above it.
+CREATE TABLE id_generator
+(
+    sequence_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    last_val      BIGINT      NOT NULL
+) ENGINE = InnoDB;
+
+INSERT INTO id_generator (sequence_name, last_val) SELECT 'event_match', COALESCE(MAX(id), 0) FROM event_match;
+INSERT INTO id_generator (sequence_name, last_val) SELECT 'match_group', COALESCE(MAX(id), 0) FROM match_group;
+INSERT INTO id_generator (sequence_name, last_val) SELECT 'team', COALESCE(MAX(id), 0) FROM team;
+INSERT INTO id_generator (sequence_name, last_val) SELECT 'team_player', COALESCE(MAX(id), 0) FROM team_player;
+INSERT INTO id_generator (sequence_name, last_val) SELECT 'rating_history', COALESCE(MAX(id), 0) FROM rating_history;
@@ -0,0 +1,18 @@
+-- Outbox of emails queued by business transactions and sent in the background by EmailOutbox.
+-- next_attempt_time is the retry time of PENDING rows and the lease expiry of SENDING rows.
+CREATE TABLE tool_email_outbox
+(
+    id                BIGINT        NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    recipients        TEXT          NOT NULL,
+    subject           VARCHAR(512)  NOT NULL,
+    content           LONGTEXT      NOT NULL,
+    status            VARCHAR(16)   NOT NULL,
+    attempts          INT           NOT NULL DEFAULT 0,
+    next_attempt_time DATETIME      NOT NULL,
+    claim_token       VARCHAR(36)   NULL,
+    last_error        VARCHAR(1000) NULL,
+    create_time       DATETIME      NOT NULL,
+    update_time       DATETIME      NOT NULL,
+    INDEX idx_email_outbox_due (status, next_attempt_time),
+    INDEX idx_email_outbox_claim (claim_token)
+) ENGINE = InnoDB;
@@ -0,0 +1,3 @@
+-- Per-job limits of the job runtime, NULL falls back to quartz.runtime.max-concurrency and quartz.runtime.timeout.
+ALTER TABLE sys_quartz_job ADD COLUMN max_concurrency INT NULL COMMENT 'Maximum concurrent runs of the job';
+ALTER TABLE sys_quartz_job ADD COLUMN timeout BIGINT NULL COMMENT 'Run timeout in milliseconds, 0 means none';
@@ -0,0 +1,14 @@
+-- A player may be registered only once per event. team_player gets the event of its team so the
+-- database can enforce it, the isRegistered check alone races with a concurrent join of the same player.
+ALTER TABLE team_player ADD COLUMN event_id BIGINT NULL COMMENT 'Event of the team, copied from team.event_id';
+
+-- Only the first registration of existing duplicates is stamped, NULLs do not collide in a unique key
+UPDATE team_player tp
+    JOIN team t ON t.id = tp.team_id
+    JOIN (SELECT MIN(tp2.id) AS id
+          FROM team_player tp2
+                   JOIN team t2 ON t2.id = tp2.team_id
+          GROUP BY t2.event_id, tp2.player_id) first_registration ON first_registration.id = tp.id
+SET tp.event_id = t.event_id;
+
+ALTER TABLE team_player ADD UNIQUE KEY uk_team_player_event_player (event_id, player_id);
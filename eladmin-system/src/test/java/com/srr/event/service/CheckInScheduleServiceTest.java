@@ -0,0 +1,101 @@
+package com.srr.event.service;
+
+import com.srr.event.repository.EventRepository;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that claimed events stay in the processing set until they are handled
+ */
+public class CheckInScheduleServiceTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final RedisUtils redisUtils = mock(RedisUtils.class);
+    private final CheckInScheduleService service = new CheckInScheduleService(eventRepository, redisUtils);
+
+    @Test
+    public void testClaimIsRemovedOnlyAfterUpdate() {
+        long now = System.currentTimeMillis();
+        claim(List.of(), List.of("1", "2"));
+        when(eventRepository.openCheckIn(anyCollection(), any())).thenReturn(2);
+
+        service.openDueCheckIns();
+
+        InOrder order = inOrder(redisUtils, eventRepository);
+        ArgumentCaptor<Double> deadline = ArgumentCaptor.forClass(Double.class);
+        order.verify(redisUtils).zMoveByScore(eq(CacheKey.EVENT_CHECK_IN_QUEUE), eq(CacheKey.EVENT_CHECK_IN_PROCESSING),
+                anyDouble(), anyLong(), deadline.capture());
+        order.verify(eventRepository).openCheckIn(eq(List.of(1L, 2L)), any());
+        order.verify(redisUtils).zRemove(CacheKey.EVENT_CHECK_IN_PROCESSING, "1", "2");
+        // The claim expires later than the poll, so no other node takes it over meanwhile
+        assertTrue(deadline.getValue() > now);
+        verify(redisUtils, never()).zAddAll(anyString(), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedUpdateIsRequeued() {
+        long now = System.currentTimeMillis();
+        claim(List.of(), List.of("1"));
+        when(eventRepository.openCheckIn(anyCollection(), any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        service.openDueCheckIns();
+
+        InOrder order = inOrder(redisUtils);
+        ArgumentCaptor<Map<Object, Double>> retry = ArgumentCaptor.forClass(Map.class);
+        order.verify(redisUtils).zAddAll(eq(CacheKey.EVENT_CHECK_IN_QUEUE), retry.capture());
+        order.verify(redisUtils).zRemove(CacheKey.EVENT_CHECK_IN_PROCESSING, "1");
+        assertEquals(List.of("1"), List.copyOf(retry.getValue().keySet()));
+        assertTrue(retry.getValue().get("1") > now);
+    }
+
+    @Test
+    public void testAbandonedClaimIsRequeuedBeforeClaiming() {
+        long now = System.currentTimeMillis();
+        // The claim of a node which died before finishing is moved back and claimed again by this poll
+        claim(List.of("1"), List.of("1"));
+        when(eventRepository.openCheckIn(anyCollection(), any())).thenReturn(1);
+
+        service.openDueCheckIns();
+
+        InOrder order = inOrder(redisUtils, eventRepository);
+        ArgumentCaptor<Double> expired = ArgumentCaptor.forClass(Double.class);
+        ArgumentCaptor<Double> score = ArgumentCaptor.forClass(Double.class);
+        order.verify(redisUtils).zMoveByScore(eq(CacheKey.EVENT_CHECK_IN_PROCESSING), eq(CacheKey.EVENT_CHECK_IN_QUEUE),
+                expired.capture(), anyLong(), score.capture());
+        order.verify(redisUtils).zMoveByScore(eq(CacheKey.EVENT_CHECK_IN_QUEUE), eq(CacheKey.EVENT_CHECK_IN_PROCESSING),
+                anyDouble(), anyLong(), anyDouble());
+        order.verify(eventRepository).openCheckIn(eq(List.of(1L)), any());
+        // Only claims whose deadline passed are taken back, and they are due right away
+        assertTrue(expired.getValue() >= now && expired.getValue() < now + 60_000);
+        assertEquals(expired.getValue(), score.getValue());
+    }
+
+    @Test
+    public void testNothingDue() {
+        claim(List.of(), List.of());
+
+        service.openDueCheckIns();
+
+        verifyNoInteractions(eventRepository);
+        verify(redisUtils, never()).zRemove(anyString(), any());
+    }
+
+    private void claim(List<Object> abandoned, List<Object> due) {
+        when(redisUtils.zMoveByScore(eq(CacheKey.EVENT_CHECK_IN_PROCESSING), eq(CacheKey.EVENT_CHECK_IN_QUEUE),
+                anyDouble(), anyLong(), anyDouble())).thenReturn(abandoned);
+        when(redisUtils.zMoveByScore(eq(CacheKey.EVENT_CHECK_IN_QUEUE), eq(CacheKey.EVENT_CHECK_IN_PROCESSING),
+                anyDouble(), anyLong(), anyDouble())).thenReturn(due);
+    }
+}
@@ -0,0 +1,174 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.WaitListStatus;
+import com.srr.event.domain.Event;
+import com.srr.event.domain.WaitList;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.WaitListRepository;
+import com.srr.player.repository.TeamPlayerRepository;
+import me.zhengjie.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Joins one event from many threads at once. The seat counter stands in for the conditional
+ * {@code reserveSeat} UPDATE, which only increments while the event has room.
+ */
+public class EventCapacityServiceTest {
+
+    private static final int CAPACITY = 10;
+    private static final int PLAYERS = 64;
+
+    private final AtomicInteger seats = new AtomicInteger();
+    private final Queue<WaitList> waitList = new ConcurrentLinkedQueue<>();
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final WaitListRepository waitListRepository = mock(WaitListRepository.class);
+    private final EventCapacityService service = new EventCapacityService(
+            eventRepository, waitListRepository, mock(TeamPlayerRepository.class));
+
+    public EventCapacityServiceTest() {
+        when(eventRepository.reserveSeat(1L)).thenAnswer(invocation -> reserveSeat());
+        when(waitListRepository.save(any(WaitList.class))).thenAnswer(invocation -> {
+            waitList.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+    }
+
+    @Test
+    public void testNeverFillsPastCapacity() throws Exception {
+        List<Object> outcomes = joinConcurrently(event(false));
+        long seated = outcomes.stream().filter(outcome -> outcome == EventCapacityService.Reservation.PARTICIPANT).count();
+        long rejected = outcomes.stream().filter(outcome -> outcome instanceof BadRequestException).count();
+        assertEquals(CAPACITY, seated);
+        assertEquals(PLAYERS - CAPACITY, rejected);
+        assertEquals(CAPACITY, seats.get());
+        assertEquals(0, waitList.size());
+    }
+
+    @Test
+    public void testOverflowGoesToWaitList() throws Exception {
+        List<Object> outcomes = joinConcurrently(event(true));
+        long seated = outcomes.stream().filter(outcome -> outcome == EventCapacityService.Reservation.PARTICIPANT).count();
+        long waiting = outcomes.stream().filter(outcome -> outcome == EventCapacityService.Reservation.WAIT_LIST).count();
+        assertEquals(CAPACITY, seated);
+        assertEquals(PLAYERS - CAPACITY, waiting);
+        assertEquals(CAPACITY, seats.get());
+        assertEquals(PLAYERS - CAPACITY, waitList.size());
+    }
+
+    @Test
+    public void testFullEventWithoutWaitList() {
+        seats.set(CAPACITY);
+        assertThrows(BadRequestException.class, () -> service.reserve(event(false), 1L));
+        assertEquals(CAPACITY, seats.get());
+    }
+
+    @Test
+    public void testWaitListedPlayerKeepsSeatsUntouched() {
+        WaitList entry = waitListEntry(5L);
+        when(waitListRepository.findByEventIdAndPlayerId(1L, 5L)).thenReturn(entry);
+
+        assertNull(service.withdraw(event(true), 5L));
+        verify(waitListRepository).delete(entry);
+        verify(eventRepository, never()).releaseSeat(anyLong());
+        verify(eventRepository, never()).reserveSeat(anyLong());
+    }
+
+    @Test
+    public void testParticipantSeatGoesToNextWaitingPlayer() {
+        seats.set(CAPACITY);
+        WaitList cancelled = waitListEntry(2L);
+        cancelled.setStatus(WaitListStatus.CANCELLED);
+        WaitList next = waitListEntry(3L);
+        when(waitListRepository.findByEventIdOrderByCreateTimeAsc(1L)).thenReturn(List.of(cancelled, next, waitListEntry(4L)));
+        when(eventRepository.releaseSeat(1L)).thenAnswer(invocation -> seats.decrementAndGet() >= 0 ? 1 : 0);
+
+        assertEquals(3L, service.withdraw(event(true), 1L));
+        assertEquals(CAPACITY, seats.get());
+        verify(waitListRepository).delete(next);
+        verify(waitListRepository, never()).delete(cancelled);
+    }
+
+    @Test
+    public void testNoPromotionWhenSeatIsTakenConcurrently() {
+        seats.set(CAPACITY);
+        when(waitListRepository.findByEventIdOrderByCreateTimeAsc(1L)).thenReturn(List.of(waitListEntry(3L)));
+
+        // The freed seat was not released here, so reserving it again fails like a concurrent join taking it
+        assertNull(service.promoteNext(event(true), 1L));
+        verify(waitListRepository, never()).delete(any(WaitList.class));
+    }
+
+    @Test
+    public void testNoPromotionWithoutWaitList() {
+        assertNull(service.withdraw(event(false), 1L));
+        verify(eventRepository).releaseSeat(1L);
+        verify(eventRepository, never()).reserveSeat(anyLong());
+    }
+
+    private List<Object> joinConcurrently(Event event) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < PLAYERS; i++) {
+                long playerId = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return service.reserve(event, playerId);
+                    } catch (BadRequestException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                outcomes.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int reserveSeat() {
+        // Same condition as the UPDATE: increment only while below capacity
+        int current;
+        do {
+            current = seats.get();
+            if (current >= CAPACITY) {
+                return 0;
+            }
+        } while (!seats.compareAndSet(current, current + 1));
+        return 1;
+    }
+
+    private static WaitList waitListEntry(Long playerId) {
+        WaitList entry = new WaitList();
+        entry.setEventId(1L);
+        entry.setPlayerId(playerId);
+        return entry;
+    }
+
+    private static Event event(boolean allowWaitList) {
+        Event event = new Event();
+        event.setId(1L);
+        event.setMaxParticipants(CAPACITY);
+        event.setAllowWaitList(allowWaitList);
+        return event;
+    }
+}
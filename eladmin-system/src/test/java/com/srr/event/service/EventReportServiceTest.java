@@ -0,0 +1,76 @@
+package com.srr.event.service;
+
+import com.srr.enumeration.EventStatus;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.dto.PlayerEventRatingDTO;
+import com.srr.player.repository.RatingHistoryRepository;
+import com.srr.player.repository.TeamPlayerRepository;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EventReportServiceTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final RedisUtils redisUtils = mock(RedisUtils.class);
+    private final Cache cache = mock(Cache.class);
+    private final EventReportService service;
+
+    public EventReportServiceTest() {
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CacheKey.EVENT_REPORT)).thenReturn(cache);
+        service = new EventReportService(eventRepository, mock(MatchRepository.class), mock(TeamPlayerRepository.class),
+                mock(RatingHistoryRepository.class), redisUtils, cacheManager, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    public void testCompletedReportIsCachedUnderEventVersion() {
+        when(redisUtils.get(CacheKey.EVENT_REPORT_VERSION + 5)).thenReturn(2);
+        when(eventRepository.findStatusById(5L)).thenReturn(Optional.of(EventStatus.COMPLETED));
+
+        service.getPlayerEventRatings(5L);
+
+        verify(cache).putIfAbsent(eq("5:2"), anyList());
+        verify(redisUtils).expire(CacheKey.EVENT_REPORT_VERSION + 5, TimeUnit.DAYS.toSeconds(2));
+    }
+
+    @Test
+    public void testReportOfRunningEventIsNotCached() {
+        when(eventRepository.findStatusById(5L)).thenReturn(Optional.of(EventStatus.IN_PROGRESS));
+
+        service.getPlayerEventRatings(5L);
+
+        verify(cache, never()).putIfAbsent(any(), any());
+    }
+
+    @Test
+    public void testCachedReportIsReturned() {
+        List<PlayerEventRatingDTO> cached = List.of(new PlayerEventRatingDTO());
+        when(cache.get("5:0")).thenReturn(new SimpleValueWrapper(cached));
+
+        assertSame(cached, service.getPlayerEventRatings(5L));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    public void testEvictBumpsEventVersions() {
+        service.evict(List.of(5L, 6L));
+
+        verify(redisUtils).increment(CacheKey.EVENT_REPORT_VERSION + 5);
+        verify(redisUtils).increment(CacheKey.EVENT_REPORT_VERSION + 6);
+        verifyNoInteractions(cache);
+    }
+}
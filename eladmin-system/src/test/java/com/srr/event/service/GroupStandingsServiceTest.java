@@ -0,0 +1,77 @@
+package com.srr.event.service;
+
+import com.srr.event.domain.Match;
+import com.srr.event.domain.MatchGroup;
+import com.srr.event.domain.MatchStatus;
+import com.srr.event.repository.MatchRepository;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class GroupStandingsServiceTest {
+
+    private final MatchRepository matchRepository = mock(MatchRepository.class);
+    private final RedisUtils redisUtils = mock(RedisUtils.class);
+    private final GroupStandingsService service = new GroupStandingsService(matchRepository, redisUtils);
+
+    @Test
+    public void testRebuildIsGuardedByVersionReadBeforeQuery() {
+        when(redisUtils.get(CacheKey.GROUP_STANDINGS_VERSION + 7)).thenReturn(3);
+        when(redisUtils.hmset(anyString(), anyMap(), anyLong())).thenReturn(true);
+        when(matchRepository.findAllByMatchGroupIdOrderByMatchOrderAsc(7L)).thenReturn(List.of(match(70L, 7L)));
+
+        service.rebuild(7L);
+
+        InOrder order = inOrder(redisUtils, matchRepository);
+        order.verify(redisUtils).get(CacheKey.GROUP_STANDINGS_VERSION + 7);
+        order.verify(matchRepository).findAllByMatchGroupIdOrderByMatchOrderAsc(7L);
+        order.verify(redisUtils).renameIfVersion(startsWith(CacheKey.GROUP_STANDINGS + "7:tmp:"),
+                eq(CacheKey.GROUP_STANDINGS + 7), eq(CacheKey.GROUP_STANDINGS_VERSION + 7), eq(3L));
+        verify(redisUtils, never()).rename(anyString(), anyString());
+    }
+
+    @Test
+    public void testApplyBumpsVersionBeforeWriting() {
+        service.apply(List.of(GroupStandingsService.StandingRow.of(match(70L, 7L)),
+                GroupStandingsService.StandingRow.of(match(71L, 7L))));
+
+        InOrder order = inOrder(redisUtils);
+        order.verify(redisUtils).increment(CacheKey.GROUP_STANDINGS_VERSION + 7);
+        order.verify(redisUtils, times(2)).hsetIfExists(eq(CacheKey.GROUP_STANDINGS + 7), anyString(), any(), anyLong());
+        verify(redisUtils, times(1)).increment(anyString());
+    }
+
+    @Test
+    public void testEvictWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.evict(List.of(7L, 8L));
+            verifyNoInteractions(redisUtils);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(redisUtils).increment(CacheKey.GROUP_STANDINGS_VERSION + 7);
+        verify(redisUtils).increment(CacheKey.GROUP_STANDINGS_VERSION + 8);
+        verify(redisUtils).del(CacheKey.GROUP_STANDINGS + 7, CacheKey.GROUP_STANDINGS + 8);
+    }
+
+    private static Match match(Long id, Long groupId) {
+        MatchGroup group = new MatchGroup();
+        group.setId(groupId);
+        Match match = new Match();
+        match.setId(id);
+        match.setMatchGroup(group);
+        match.setStatus(MatchStatus.COMPLETED);
+        return match;
+    }
+}
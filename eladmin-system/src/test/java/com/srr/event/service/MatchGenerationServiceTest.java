@@ -0,0 +1,133 @@
+package com.srr.event.service;
+
+import com.srr.event.domain.MatchGroup;
+import com.srr.event.repository.MatchGroupRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.domain.Team;
+import me.zhengjie.utils.IdBlockAllocator;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the rows of the JDBC batch that inserts generated matches with ids taken from one allocated block
+ */
+public class MatchGenerationServiceTest {
+
+    private static final long FIRST_ID = 100;
+
+    private final MatchRepository matchRepository = mock(MatchRepository.class);
+    private final MatchGroupRepository matchGroupRepository = mock(MatchGroupRepository.class);
+    private final GroupStandingsService groupStandingsService = mock(GroupStandingsService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final IdBlockAllocator idBlockAllocator = mock(IdBlockAllocator.class);
+    private final MatchGenerationService service = new MatchGenerationService(matchRepository, matchGroupRepository,
+            groupStandingsService, jdbcTemplate, idBlockAllocator);
+
+    public MatchGenerationServiceTest() {
+        when(idBlockAllocator.allocate(eq("event_match"), anyInt())).thenReturn(FIRST_ID);
+    }
+
+    @Test
+    public void testGroupMatchesInsertedWithOneIdBlock() {
+        assertEquals(6, service.generateMatchesForGroup(group(7L, 11L, 12L, 13L, 14L)));
+
+        InOrder order = inOrder(matchRepository, jdbcTemplate, groupStandingsService);
+        order.verify(matchRepository).deleteByMatchGroupId(7L);
+        order.verify(matchRepository).flush();
+        order.verify(jdbcTemplate).batchUpdate(anyString(), anyList(), any(int[].class));
+        order.verify(groupStandingsService).evict(argThat(ids -> List.copyOf(ids).equals(List.of(7L))));
+        verify(idBlockAllocator).allocate("event_match", 6);
+        assertRows(Map.of(7L, List.of(11L, 12L, 13L, 14L)));
+    }
+
+    @Test
+    public void testOddTeamCount() {
+        assertEquals(10, service.generateMatchesForGroup(group(7L, 11L, 12L, 13L, 14L, 15L)));
+
+        verify(idBlockAllocator).allocate("event_match", 10);
+        assertRows(Map.of(7L, List.of(11L, 12L, 13L, 14L, 15L)));
+    }
+
+    @Test
+    public void testTooFewTeams() {
+        assertEquals(0, service.generateMatchesForGroup(group(7L, 11L)));
+
+        verifyNoInteractions(idBlockAllocator, jdbcTemplate, matchRepository);
+    }
+
+    @Test
+    public void testEventMatchesShareOneBlock() {
+        Map<Long, List<Long>> teams = new LinkedHashMap<>();
+        List<MatchGroup> groups = new ArrayList<>();
+        for (long groupId = 1; groupId <= 10; groupId++) {
+            List<Long> teamIds = new ArrayList<>();
+            for (long team = 0; team < 4; team++) {
+                teamIds.add(groupId * 100 + team);
+            }
+            teams.put(groupId, teamIds);
+            MatchGroup group = group(groupId, teamIds.toArray(new Long[0]));
+            group.setFinalized(true);
+            groups.add(group);
+        }
+        when(matchGroupRepository.findAllByEventId(1L)).thenReturn(groups);
+
+        service.generateMatchesForEvent(1L);
+
+        InOrder order = inOrder(matchRepository, jdbcTemplate, groupStandingsService);
+        order.verify(matchRepository).deleteByMatchGroupEventId(1L);
+        order.verify(matchRepository).findByMatchGroupEventId(1L);
+        order.verify(matchRepository).flush();
+        order.verify(jdbcTemplate).batchUpdate(anyString(), anyList(), any(int[].class));
+        order.verify(groupStandingsService).evict(argThat(ids -> List.copyOf(ids).equals(List.copyOf(teams.keySet()))));
+        verify(idBlockAllocator).allocate("event_match", 60);
+        assertRows(teams);
+    }
+
+    /**
+     * Ids are consecutive from the start of the block, groups keep their order and every pair of teams
+     * of a group plays exactly once with match orders counting up from one
+     */
+    @SuppressWarnings("unchecked")
+    private void assertRows(Map<Long, List<Long>> teamsByGroup) {
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), any(int[].class));
+        List<Object[]> inserted = batch.getValue();
+        long id = FIRST_ID;
+        int row = 0;
+        for (Map.Entry<Long, List<Long>> entry : teamsByGroup.entrySet()) {
+            List<Long> teamIds = entry.getValue();
+            Set<Set<Long>> pairs = new HashSet<>();
+            int matches = teamIds.size() * (teamIds.size() - 1) / 2;
+            for (int matchOrder = 1; matchOrder <= matches; matchOrder++) {
+                Object[] values = inserted.get(row++);
+                assertEquals(id++, values[0]);
+                assertEquals(entry.getKey(), values[1]);
+                assertTrue(teamIds.contains((Long) values[2]) && teamIds.contains((Long) values[3]));
+                assertTrue(pairs.add(Set.of((Long) values[2], (Long) values[3])));
+                assertEquals(matchOrder, values[4]);
+                assertEquals("SCHEDULED", values[5]);
+            }
+        }
+        assertEquals(row, inserted.size());
+    }
+
+    private static MatchGroup group(Long id, Long... teamIds) {
+        MatchGroup group = new MatchGroup();
+        group.setId(id);
+        for (Long teamId : teamIds) {
+            Team team = new Team();
+            team.setId(teamId);
+            group.getTeams().add(team);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,107 @@
+package com.srr.event.service;
+
+import com.srr.club.domain.Club;
+import com.srr.club.dto.CourtDto;
+import com.srr.club.service.CourtService;
+import com.srr.event.domain.Event;
+import com.srr.event.domain.Match;
+import com.srr.event.domain.MatchGroup;
+import com.srr.event.dto.MatchScheduleDto;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.domain.Team;
+import me.zhengjie.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MatchScheduleServiceTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final MatchRepository matchRepository = mock(MatchRepository.class);
+    private final CourtService courtService = mock(CourtService.class);
+    private final MatchScheduleService service = new MatchScheduleService(eventRepository, matchRepository, courtService);
+    private final Event event = new Event();
+
+    public MatchScheduleServiceTest() {
+        event.setId(1L);
+        Club club = new Club();
+        club.setId(2L);
+        event.setClub(club);
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(matchRepository.findByMatchGroupEventId(1L)).thenReturn(matches(4, null));
+    }
+
+    @Test
+    public void testCourtsAboveClubCourtsAreRejected() {
+        clubCourts(6);
+        assertEquals(4, service.schedule(1L, 20, 1, 6).getCourtCount());
+        assertThrows(BadRequestException.class, () -> service.schedule(1L, 20, 1, 7));
+        assertThrows(BadRequestException.class, () -> service.schedule(1L, 20, 1, 0));
+        assertThrows(BadRequestException.class, () -> service.schedule(1L, 20, 1, 2_000_000_000));
+    }
+
+    @Test
+    public void testCourtsAboveMatchCountAreRejectedWithoutClubCourts() {
+        clubCourts(0);
+        assertEquals(4, service.schedule(1L, 20, 1, 4).getCourtCount());
+        assertThrows(BadRequestException.class, () -> service.schedule(1L, 20, 1, 5));
+    }
+
+    @Test
+    public void testClubCourtsAreClampedToMatchCount() {
+        clubCourts(1_000_000);
+        MatchScheduleDto schedule = service.schedule(1L, 20, 1, null);
+        assertEquals(4, schedule.getCourtCount());
+        assertEquals(4, schedule.getMatches().size());
+    }
+
+    @Test
+    public void testPinnedCourtIsKept() {
+        clubCourts(10);
+        when(matchRepository.findByMatchGroupEventId(1L)).thenReturn(matches(2, "8"));
+        MatchScheduleDto schedule = service.schedule(1L, 20, 1, null);
+        assertEquals(8, schedule.getCourtCount());
+        schedule.getMatches().forEach(match -> assertEquals(8, match.getCourt()));
+    }
+
+    private void clubCourts(int amount) {
+        CourtDto court = new CourtDto();
+        court.setAmount(amount);
+        when(courtService.queryAll(any())).thenReturn(amount == 0 ? List.of() : List.of(court));
+    }
+
+    /**
+     * Matches between distinct pairs of teams, so none of them has to wait for another
+     */
+    private static List<Match> matches(int count, String courtNumbers) {
+        MatchGroup group = new MatchGroup();
+        group.setId(3L);
+        group.setCourtNumbers(courtNumbers);
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Match match = new Match();
+            match.setId(100L + i);
+            match.setMatchOrder(i + 1);
+            match.setMatchGroup(group);
+            match.setTeamA(team(10L + 2 * i));
+            match.setTeamB(team(11L + 2 * i));
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    private static Team team(Long id) {
+        Team team = new Team();
+        team.setId(id);
+        return team;
+    }
+}
@@ -0,0 +1,97 @@
+package com.srr.player.service;
+
+import com.srr.enumeration.Format;
+import com.srr.player.repository.PlayerRepository;
+import com.srr.player.repository.PlayerSportRatingRepository;
+import com.srr.player.repository.RatingHistoryRepository;
+import com.srr.sport.repository.SportRepository;
+import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LeaderboardServiceTest {
+
+    private static final String RATING = CacheKey.LEADERBOARD + "1:DOUBLE";
+    private static final String GAMES = CacheKey.LEADERBOARD_STATS + "1:DOUBLE:games";
+    private static final String STALE = CacheKey.LEADERBOARD + "2:SINGLE";
+
+    private final RedisUtils redisUtils = mock(RedisUtils.class);
+    private final RLock lock = mock(RLock.class);
+    private final PlayerSportRatingRepository playerSportRatingRepository = mock(PlayerSportRatingRepository.class);
+    private final RatingHistoryRepository ratingHistoryRepository = mock(RatingHistoryRepository.class);
+    private final LeaderboardService service;
+
+    public LeaderboardServiceTest() {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        service = new LeaderboardService(redisUtils, redissonClient, mock(PlayerRepository.class),
+                playerSportRatingRepository, ratingHistoryRepository, mock(SportRepository.class));
+    }
+
+    @Test
+    public void testRebuildIsRejectedWhileRunning() {
+        when(lock.tryLock()).thenReturn(false);
+
+        assertThrows(BadRequestException.class, service::rebuild);
+        service.scheduledRebuild();
+        verifyNoInteractions(playerSportRatingRepository, redisUtils);
+        verify(lock, never()).unlock();
+    }
+
+    @Test
+    public void testRebuildOnlyReplacesBoardsWithUnchangedVersion() {
+        when(lock.tryLock()).thenReturn(true);
+        when(redisUtils.sGet(CacheKey.LEADERBOARD_KEYS)).thenReturn(new LinkedHashSet<>(List.of(RATING, GAMES, STALE)));
+        when(redisUtils.mget(anyList())).thenReturn(Arrays.asList(4, null, 2));
+        when(playerSportRatingRepository.findAllScores()).thenReturn(List.<Object[]>of(new Object[]{7L, 1L, Format.DOUBLE, 3.5}));
+        when(ratingHistoryRepository.summarizeResultsByPlayer()).thenReturn(List.<Object[]>of(new Object[]{7L, 1L, "DOUBLE", 3, 2}));
+        when(redisUtils.zAddAll(anyString(), anyMap())).thenReturn(1L);
+        when(redisUtils.hmset(anyString(), anyMap())).thenReturn(true);
+        when(redisUtils.renameIfVersion(anyString(), anyString(), anyString(), anyLong())).thenReturn(true);
+        // The rating board was updated while the rebuild ran
+        when(redisUtils.renameIfVersion(anyString(), eq(RATING), anyString(), anyLong())).thenReturn(false);
+        when(redisUtils.delIfVersion(anyString(), anyString(), anyLong())).thenReturn(true);
+
+        assertEquals(1, service.rebuild());
+
+        InOrder order = inOrder(redisUtils, playerSportRatingRepository);
+        order.verify(redisUtils).mget(List.of(CacheKey.LEADERBOARD_VERSION + RATING,
+                CacheKey.LEADERBOARD_VERSION + GAMES, CacheKey.LEADERBOARD_VERSION + STALE));
+        order.verify(playerSportRatingRepository).findAllScores();
+        verify(redisUtils).renameIfVersion(startsWith(CacheKey.LEADERBOARD_TMP), eq(RATING),
+                eq(CacheKey.LEADERBOARD_VERSION + RATING), eq(4L));
+        verify(redisUtils).renameIfVersion(startsWith(CacheKey.LEADERBOARD_TMP), eq(GAMES),
+                eq(CacheKey.LEADERBOARD_VERSION + GAMES), eq(0L));
+        // The discarded temporary board is removed
+        verify(redisUtils).del(startsWith(CacheKey.LEADERBOARD_TMP));
+        verify(redisUtils).delIfVersion(STALE, CacheKey.LEADERBOARD_VERSION + STALE, 2L);
+        verify(redisUtils).setRemove(CacheKey.LEADERBOARD_KEYS, STALE);
+        verify(redisUtils, never()).delIfVersion(eq(RATING), anyString(), anyLong());
+        verify(redisUtils, never()).scan(anyString());
+        verify(lock).unlock();
+    }
+
+    @Test
+    public void testSettlementBumpsVersionsBeforeWriting() {
+        service.applySettlement(1L, Format.DOUBLE, Map.of(7L, 3.6), Map.of(7L, 1), Map.of());
+
+        InOrder order = inOrder(redisUtils);
+        order.verify(redisUtils).sSet(eq(CacheKey.LEADERBOARD_KEYS), any(Object[].class));
+        order.verify(redisUtils).increment(CacheKey.LEADERBOARD_VERSION + RATING);
+        order.verify(redisUtils).zAddAll(eq(RATING), anyMap());
+        order.verify(redisUtils).hincrAll(anyMap());
+        verify(redisUtils).increment(CacheKey.LEADERBOARD_VERSION + GAMES);
+        verify(redisUtils).increment(CacheKey.LEADERBOARD_VERSION + CacheKey.LEADERBOARD_STATS + "1:DOUBLE:wins");
+    }
+}
@@ -0,0 +1,129 @@
+package com.srr.player.service;
+
+import com.srr.event.dto.EventMapper;
+import com.srr.event.mapper.MatchMapper;
+import com.srr.event.repository.EventRepository;
+import com.srr.event.repository.MatchRepository;
+import com.srr.player.domain.Player;
+import com.srr.player.dto.PlayerDetailsDto;
+import com.srr.player.dto.PlayerDetailsRequest;
+import com.srr.player.dto.PlayerDto;
+import com.srr.player.mapper.PlayerMapper;
+import com.srr.player.mapper.RatingHistoryMapper;
+import com.srr.player.repository.PlayerRepository;
+import com.srr.player.repository.RatingHistoryRepository;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PlayerDashboardServiceTest {
+
+    private final PlayerRepository playerRepository = mock(PlayerRepository.class);
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final PlayerMapper playerMapper = mock(PlayerMapper.class);
+    private final RedisUtils redisUtils = mock(RedisUtils.class);
+    private final Cache cache = mock(Cache.class);
+    private final PlayerDashboardService service;
+    private final PlayerDto player = new PlayerDto();
+    /**
+     * Released when a slow lookup is interrupted
+     */
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    public PlayerDashboardServiceTest() {
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CacheKey.PLAYER_DASHBOARD)).thenReturn(cache);
+        Player entity = new Player();
+        when(playerRepository.findById(7L)).thenReturn(Optional.of(entity));
+        when(playerMapper.toDto(entity)).thenReturn(player);
+        service = new PlayerDashboardService(playerRepository, mock(RatingHistoryRepository.class), eventRepository,
+                mock(MatchRepository.class), playerMapper, mock(EventMapper.class), mock(MatchMapper.class),
+                mock(RatingHistoryMapper.class), redisUtils, cacheManager, mock(PlatformTransactionManager.class),
+                4, 16, 100);
+    }
+
+    @AfterEach
+    public void destroy() {
+        service.destroy();
+    }
+
+    @Test
+    public void testCompleteDashboardIsCachedUnderPlayerVersion() {
+        when(redisUtils.get(CacheKey.PLAYER_DASHBOARD_VERSION + 7)).thenReturn(3);
+
+        PlayerDetailsDto dashboard = service.getDashboard(7L, new PlayerDetailsRequest());
+
+        assertFalse(dashboard.isPartial());
+        assertSame(player, dashboard.getPlayer());
+        verify(cache).putIfAbsent("7:3:", dashboard);
+        verify(redisUtils).expire(CacheKey.PLAYER_DASHBOARD_VERSION + 7, TimeUnit.HOURS.toSeconds(1));
+    }
+
+    @Test
+    public void testCachedDashboardIsReturned() {
+        PlayerDetailsDto cached = new PlayerDetailsDto();
+        when(cache.get("7:0:", PlayerDetailsDto.class)).thenReturn(cached);
+
+        assertSame(cached, service.getDashboard(7L, new PlayerDetailsRequest()));
+        verifyNoInteractions(playerRepository);
+    }
+
+    @Test
+    public void testSlowLookupIsCancelledAndDashboardIsPartial() throws InterruptedException {
+        when(eventRepository.countPlayerCompletedEvents(7L)).thenAnswer(invocation -> block());
+
+        PlayerDetailsDto dashboard = service.getDashboard(7L, new PlayerDetailsRequest());
+
+        assertTrue(dashboard.isPartial());
+        assertSame(player, dashboard.getPlayer());
+        assertEquals(0, dashboard.getTotalEvent());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(cache, never()).putIfAbsent(any(), any());
+    }
+
+    @Test
+    public void testPlayerTimeoutGivesPartialDashboard() throws InterruptedException {
+        when(playerRepository.findById(7L)).thenAnswer(invocation -> block());
+
+        PlayerDetailsDto dashboard = service.getDashboard(7L, new PlayerDetailsRequest());
+
+        assertTrue(dashboard.isPartial());
+        assertNull(dashboard.getPlayer());
+        assertEquals(List.of(), dashboard.getUpcomingEvents());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(cache, never()).putIfAbsent(any(), any());
+    }
+
+    @Test
+    public void testEvictBumpsPlayerVersions() {
+        service.evict(Set.of(7L, 8L));
+
+        verify(redisUtils).increment(CacheKey.PLAYER_DASHBOARD_VERSION + 7);
+        verify(redisUtils).increment(CacheKey.PLAYER_DASHBOARD_VERSION + 8);
+        verify(redisUtils, times(2)).expire(anyString(), eq(TimeUnit.HOURS.toSeconds(1)));
+        verifyNoInteractions(cache);
+    }
+
+    private Object block() {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return null;
+    }
+}
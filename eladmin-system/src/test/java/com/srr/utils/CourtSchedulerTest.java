@@ -0,0 +1,80 @@
+package com.srr.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CourtSchedulerTest {
+
+    @Test
+    public void testTimetableRespectsCourtsAndRest() {
+        List<CourtScheduler.Job> jobs = event(8, 8, Set.of());
+        CourtScheduler.Timetable timetable = CourtScheduler.schedule(jobs, 6, 1, 50);
+
+        assertEquals(jobs.size(), timetable.assignments().size());
+        assertValid(jobs, timetable, 6, 1);
+        assertTrue(timetable.slotCount() <= timetable.greedySlots());
+    }
+
+    @Test
+    public void testGroupCourtsAreHonoured() {
+        List<CourtScheduler.Job> jobs = event(2, 4, Set.of(2));
+        CourtScheduler.Timetable timetable = CourtScheduler.schedule(jobs, 4, 0, 10);
+        timetable.assignments().forEach(assignment -> assertEquals(2, assignment.court()));
+        assertValid(jobs, timetable, 4, 0);
+    }
+
+    /**
+     * 8 groups of 8 teams, 224 matches, and 16 groups of 8 teams, 448 matches
+     */
+    @Test
+    public void testLargeEventsAreValid() {
+        for (int groups : new int[]{8, 16}) {
+            List<CourtScheduler.Job> jobs = event(groups, 8, Set.of());
+            for (int courts : new int[]{4, 8, 12}) {
+                CourtScheduler.Timetable timetable = CourtScheduler.schedule(jobs, courts, 1, 50);
+                assertValid(jobs, timetable, courts, 1);
+                assertEquals(jobs.size(), timetable.assignments().size());
+                assertTrue(timetable.slotCount() >= (jobs.size() + courts - 1) / courts);
+                assertTrue(timetable.slotCount() <= timetable.greedySlots());
+            }
+        }
+    }
+
+    private static List<CourtScheduler.Job> event(int groups, int teamsPerGroup, Set<Integer> courts) {
+        List<CourtScheduler.Job> jobs = new ArrayList<>();
+        long matchId = 1;
+        for (int g = 0; g < groups; g++) {
+            int order = 1;
+            for (int[] pair : RoundRobinSchedule.pairings(teamsPerGroup)) {
+                long teamA = (long) g * teamsPerGroup + pair[0];
+                long teamB = (long) g * teamsPerGroup + pair[1];
+                jobs.add(new CourtScheduler.Job(matchId++, order++, teamA, teamB, courts));
+            }
+        }
+        return jobs;
+    }
+
+    private static void assertValid(List<CourtScheduler.Job> jobs, CourtScheduler.Timetable timetable, int courts, int rest) {
+        Map<Long, CourtScheduler.Job> byId = new HashMap<>();
+        jobs.forEach(job -> byId.put(job.matchId(), job));
+        Set<String> usedCourts = new HashSet<>();
+        Map<Long, List<Integer>> teamSlots = new HashMap<>();
+        for (CourtScheduler.Assignment assignment : timetable.assignments()) {
+            assertTrue(assignment.court() >= 1 && assignment.court() <= courts);
+            assertTrue(usedCourts.add(assignment.slot() + ":" + assignment.court()));
+            CourtScheduler.Job job = byId.get(assignment.matchId());
+            teamSlots.computeIfAbsent(job.teamA(), k -> new ArrayList<>()).add(assignment.slot());
+            teamSlots.computeIfAbsent(job.teamB(), k -> new ArrayList<>()).add(assignment.slot());
+        }
+        for (List<Integer> slots : teamSlots.values()) {
+            Collections.sort(slots);
+            for (int i = 1; i < slots.size(); i++) {
+                assertTrue(slots.get(i) - slots.get(i - 1) > rest);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.srr.utils;
+
+import com.srr.player.dto.PlayerEventRatingDTO;
+import com.srr.utils.EventRatingReport.MatchResult;
+import com.srr.utils.EventRatingReport.RatingChange;
+import com.srr.utils.EventRatingReport.RosterEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventRatingReportTest {
+
+    @Test
+    public void testDoublesWinsLossesAndRatings() {
+        List<RosterEntry> roster = List.of(
+                new RosterEntry(1L, 10L, "Ann"), new RosterEntry(1L, 11L, "Bob"),
+                new RosterEntry(2L, 20L, "Cat"), new RosterEntry(2L, 21L, "Dan"),
+                new RosterEntry(3L, 30L, "Eve"), new RosterEntry(3L, 31L, "Fay"));
+        List<MatchResult> matches = List.of(
+                new MatchResult(1L, 2L, true, false),
+                new MatchResult(1L, 3L, false, true),
+                new MatchResult(2L, 3L, false, false));
+        List<RatingChange> changes = List.of(
+                new RatingChange(10L, 1510.0, 10.0), new RatingChange(20L, 1390.0, -10.0),
+                new RatingChange(10L, 1498.0, -12.0), new RatingChange(30L, 1212.0, 12.0));
+
+        List<PlayerEventRatingDTO> report = EventRatingReport.build(roster, matches, changes);
+
+        assertEquals(6, report.size());
+        PlayerEventRatingDTO ann = report.get(0);
+        assertEquals("Ann", ann.getName());
+        assertEquals(1, ann.getWins());
+        assertEquals(1, ann.getLosses());
+        assertEquals(1500L, ann.getPreviousRating());
+        assertEquals(-2L, ann.getRatingChanges());
+        assertEquals(1498L, ann.getNewRating());
+
+        PlayerEventRatingDTO cat = report.get(2);
+        assertEquals(0, cat.getWins());
+        assertEquals(1, cat.getLosses());
+        assertEquals(1400L, cat.getPreviousRating());
+        assertEquals(1390L, cat.getNewRating());
+
+        PlayerEventRatingDTO fay = report.get(5);
+        assertEquals(1, fay.getWins());
+        assertEquals(0, fay.getLosses());
+        assertEquals(0L, fay.getPreviousRating());
+        assertEquals(0L, fay.getRatingChanges());
+    }
+
+    @Test
+    public void testEmptyEvent() {
+        assertTrue(EventRatingReport.build(List.of(), List.of(new MatchResult(1L, 2L, true, false)), List.of()).isEmpty());
+    }
+}
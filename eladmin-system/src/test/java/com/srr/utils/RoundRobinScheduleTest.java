@@ -0,0 +1,38 @@
+package com.srr.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoundRobinScheduleTest {
+
+    @Test
+    public void testEveryPairPlaysOnceAndOncePerRound() {
+        for (int teams = 2; teams <= 12; teams++) {
+            List<List<int[]>> rounds = RoundRobinSchedule.rounds(teams);
+            assertEquals(teams % 2 == 0 ? teams - 1 : teams, rounds.size());
+
+            Set<String> pairs = new HashSet<>();
+            for (List<int[]> round : rounds) {
+                Set<Integer> playing = new HashSet<>();
+                for (int[] pair : round) {
+                    assertTrue(playing.add(pair[0]));
+                    assertTrue(playing.add(pair[1]));
+                    assertTrue(pairs.add(Math.min(pair[0], pair[1]) + "-" + Math.max(pair[0], pair[1])));
+                }
+            }
+            assertEquals(teams * (teams - 1) / 2, pairs.size());
+        }
+    }
+
+    @Test
+    public void testTooFewTeams() {
+        assertTrue(RoundRobinSchedule.rounds(1).isEmpty());
+        assertTrue(RoundRobinSchedule.pairings(0).isEmpty());
+    }
+}
@@ -0,0 +1,39 @@
+package me.zhengjie.modules.quartz.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DurationHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, DurationHistogram.bucketOf(0));
+        assertEquals(0, DurationHistogram.bucketOf(1));
+        assertEquals(2, DurationHistogram.bucketOf(3));
+        assertEquals(DurationHistogram.BOUNDS.length, DurationHistogram.bucketOf(4_000_000));
+    }
+
+    @Test
+    public void testPercentiles() {
+        DurationHistogram histogram = new DurationHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        for (int i = 0; i < 98; i++) {
+            histogram.record(40);
+        }
+        histogram.record(700);
+        histogram.record(4_000_000);
+
+        assertEquals(50, histogram.percentile(0.5));
+        assertEquals(50, histogram.percentile(0.95));
+        assertEquals(1_000, histogram.percentile(0.99));
+        assertEquals(4_000_000, histogram.percentile(1.0));
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(100L, snapshot.get("count"));
+        assertEquals(4_000_000L, snapshot.get("max"));
+        assertEquals(Map.of("le50", 98L, "le1000", 1L, "inf", 1L), snapshot.get("buckets"));
+    }
+}
@@ -0,0 +1,191 @@
+package me.zhengjie.modules.quartz.utils;
+
+import me.zhengjie.modules.quartz.domain.QuartzJob;
+import me.zhengjie.modules.quartz.domain.QuartzLog;
+import me.zhengjie.modules.quartz.repository.QuartzJobRepository;
+import me.zhengjie.modules.quartz.service.QuartzJobService;
+import me.zhengjie.service.EmailService;
+import me.zhengjie.utils.SpringBeanHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class JobRuntimeTest {
+
+    private final Jobs jobs = new Jobs();
+    private final QuartzJobRepository quartzJobRepository = mock(QuartzJobRepository.class);
+    private final QuartzJobService quartzJobService = mock(QuartzJobService.class);
+    private final QuartzLogWriter quartzLogWriter = mock(QuartzLogWriter.class);
+    private final JobRuntime runtime = new JobRuntime(quartzJobRepository, quartzJobService, quartzLogWriter,
+            mock(EmailService.class), 4, 16, 1, 0);
+
+    public JobRuntimeTest() {
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getBean("testJobs")).thenReturn(jobs);
+        new SpringBeanHolder().setApplicationContext(context);
+    }
+
+    @AfterEach
+    public void destroy() throws InterruptedException {
+        jobs.release.countDown();
+        runtime.destroy();
+    }
+
+    @Test
+    public void testRunAboveConcurrencyCapIsSkipped() throws Exception {
+        QuartzJob job = job(1L, "block", null);
+        CompletableFuture<Boolean> first = runtime.submit(job);
+        assertTrue(jobs.started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> second = runtime.submit(job);
+        assertTrue(second.isDone());
+        assertFalse(second.get());
+        assertEquals(1L, runtime.stats().get("skipped"));
+
+        jobs.release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeoutReleasesPermit() throws Exception {
+        QuartzJob job = job(1L, "block", null);
+        job.setTimeout(50L);
+
+        assertFalse(runtime.submit(job).get(5, TimeUnit.SECONDS));
+        assertEquals(1L, runtime.stats().get("timedOut"));
+        ArgumentCaptor<QuartzLog> quartzLog = ArgumentCaptor.forClass(QuartzLog.class);
+        verify(quartzLogWriter).submit(quartzLog.capture());
+        assertFalse(quartzLog.getValue().getIsSuccess());
+        assertTrue(quartzLog.getValue().getExceptionDetail().contains("TimeoutException"));
+
+        // The interrupted run gives its permit back, so the next trigger is not skipped
+        awaitIdle();
+        assertTrue(runtime.submit(job(1L, "count", "1")).get(5, TimeUnit.SECONDS));
+        assertEquals(0L, runtime.stats().get("skipped"));
+    }
+
+    @Test
+    public void testTimeoutCallbackRunsOnJobPool() throws Exception {
+        QuartzJob job = job(1L, "block", null);
+        job.setTimeout(50L);
+        job.setPauseAfterFailure(true);
+        AtomicReference<String> callbackThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            callbackThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(quartzJobService).updateIsPause(any());
+
+        assertFalse(runtime.submit(job).get(5, TimeUnit.SECONDS));
+        assertTrue(callbackThread.get().startsWith("el-quartz-"));
+        assertNotEquals("el-quartz-timer", callbackThread.get());
+    }
+
+    @Test
+    public void testParallelGroupRunsSharedSubTaskOnce() throws Exception {
+        // 1 -> (2 | 3) -> 4, where 2 and 3 both also list 4
+        QuartzJob root = job(1L, "count", "1");
+        root.setSubTask("2|3,4");
+        QuartzJob left = job(2L, "meet", "2");
+        left.setSubTask("4");
+        QuartzJob right = job(3L, "meet", "3");
+        right.setSubTask("4");
+        stub(left, right, job(4L, "count", "4"));
+
+        // 2 and 3 only pass the barrier when they run at the same time
+        assertTrue(runtime.submit(root).get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("1", 1, "2", 1, "3", 1, "4", 1), jobs.counts());
+    }
+
+    @Test
+    public void testCycleRunsEachJobOnce() throws Exception {
+        QuartzJob first = job(1L, "count", "1");
+        first.setSubTask("2");
+        QuartzJob second = job(2L, "count", "2");
+        second.setSubTask("1|2");
+        stub(first, second);
+
+        assertTrue(runtime.submit(first).get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("1", 1, "2", 1), jobs.counts());
+        verify(quartzJobRepository, never()).findById(1L);
+    }
+
+    @Test
+    public void testFailedSubTaskStopsNextGroup() throws Exception {
+        QuartzJob root = job(1L, "count", "1");
+        root.setSubTask("2|3,4");
+        stub(job(2L, "fail", null), job(3L, "count", "3"), job(4L, "count", "4"));
+
+        assertFalse(runtime.submit(root).get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("1", 1, "3", 1), jobs.counts());
+        verify(quartzJobRepository, never()).findById(4L);
+    }
+
+    private void stub(QuartzJob... subJobs) {
+        for (QuartzJob subJob : subJobs) {
+            when(quartzJobRepository.findById(subJob.getId())).thenReturn(Optional.of(subJob));
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((int) runtime.stats().get("running") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static QuartzJob job(Long id, String methodName, String params) {
+        QuartzJob job = new QuartzJob();
+        job.setId(id);
+        job.setJobName("job-" + id);
+        job.setBeanName("testJobs");
+        job.setMethodName(methodName);
+        job.setParams(params);
+        return job;
+    }
+
+    /**
+     * Target bean of the test jobs
+     */
+    public static class Jobs {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CyclicBarrier barrier = new CyclicBarrier(2);
+        private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        public void block() throws InterruptedException {
+            started.countDown();
+            release.await();
+        }
+
+        public void count(String name) {
+            counts.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        public void meet(String name) throws Exception {
+            barrier.await(5, TimeUnit.SECONDS);
+            count(name);
+        }
+
+        public void fail() {
+            throw new IllegalStateException("job failed");
+        }
+
+        Map<String, Integer> counts() {
+            Map<String, Integer> result = new ConcurrentHashMap<>();
+            counts.forEach((name, count) -> result.put(name, count.get()));
+            return result;
+        }
+    }
+}
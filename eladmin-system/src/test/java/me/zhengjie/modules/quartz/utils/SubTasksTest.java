@@ -0,0 +1,36 @@
+package me.zhengjie.modules.quartz.utils;
+
+import me.zhengjie.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SubTasksTest {
+
+    @Test
+    public void testSequentialTasksKeepTheirOrder() {
+        assertEquals(List.of(List.of(3L), List.of(4L), List.of(5L)), SubTasks.parse("3,4，5"));
+    }
+
+    @Test
+    public void testParallelGroups() {
+        assertEquals(List.of(List.of(3L, 4L), List.of(5L)), SubTasks.parse("3|4, 5"));
+        assertEquals(List.of(List.of(6L, 7L)), SubTasks.parse("6｜7"));
+    }
+
+    @Test
+    public void testBlankIds() {
+        assertTrue(SubTasks.parse(null).isEmpty());
+        assertTrue(SubTasks.parse(" ").isEmpty());
+        assertEquals(List.of(List.of(3L)), SubTasks.parse(",3,|,"));
+    }
+
+    @Test
+    public void testInvalidId() {
+        assertThrows(BadRequestException.class, () -> SubTasks.parse("3,abc"));
+    }
+}
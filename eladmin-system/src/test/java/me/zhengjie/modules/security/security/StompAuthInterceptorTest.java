@@ -0,0 +1,90 @@
+package me.zhengjie.modules.security.security;
+
+import com.srr.event.service.LiveScoreAccessService;
+import me.zhengjie.modules.security.config.SecurityProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StompAuthInterceptorTest {
+
+    private final TokenAuthenticator tokenAuthenticator = mock(TokenAuthenticator.class);
+    private final LiveScoreAccessService liveScoreAccessService = mock(LiveScoreAccessService.class);
+    private final StompAuthInterceptor interceptor;
+
+    private final Authentication user = new UsernamePasswordAuthenticationToken("player", null, List.of());
+
+    public StompAuthInterceptorTest() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setHeader("Authorization");
+        interceptor = new StompAuthInterceptor(tokenAuthenticator, properties, liveScoreAccessService);
+    }
+
+    @Test
+    public void testConnectBindsUser() {
+        when(tokenAuthenticator.resolveToken("Bearer token")).thenReturn("token");
+        when(tokenAuthenticator.authenticate("token")).thenReturn(user);
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer token");
+
+        interceptor.preSend(message(accessor), null);
+        assertSame(user, accessor.getUser());
+    }
+
+    @Test
+    public void testConnectWithoutValidTokenIsRejected() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(StompHeaderAccessor.create(StompCommand.CONNECT)), null));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(message(StompHeaderAccessor.create(StompCommand.STOMP)), null));
+    }
+
+    @Test
+    public void testSubscribeIsChecked() {
+        when(liveScoreAccessService.canSubscribe("player", "/topic/events/1/scores")).thenReturn(true);
+
+        Message<byte[]> allowed = message(frame(StompCommand.SUBSCRIBE, "/topic/events/1/scores"));
+        assertSame(allowed, interceptor.preSend(allowed, null));
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(message(frame(StompCommand.SUBSCRIBE, "/topic/events/2/scores")), null));
+    }
+
+    @Test
+    public void testSendToTopicIsRejected() {
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(message(frame(StompCommand.SEND, "/topic/events/1/scores")), null));
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(message(frame(StompCommand.SEND, "/topic/groups/1/scores")), null));
+        verify(liveScoreAccessService, never()).canSubscribe(any(), any());
+    }
+
+    @Test
+    public void testUnsubscribeAndDisconnectPass() {
+        Message<byte[]> unsubscribe = message(frame(StompCommand.UNSUBSCRIBE, null));
+        assertSame(unsubscribe, interceptor.preSend(unsubscribe, null));
+        Message<byte[]> disconnect = message(frame(StompCommand.DISCONNECT, null));
+        assertSame(disconnect, interceptor.preSend(disconnect, null));
+    }
+
+    private StompHeaderAccessor frame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setUser(user);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
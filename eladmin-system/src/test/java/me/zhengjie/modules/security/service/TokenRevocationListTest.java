@@ -0,0 +1,72 @@
+package me.zhengjie.modules.security.service;
+
+import me.zhengjie.modules.security.config.SecurityProperties;
+import me.zhengjie.utils.RedisUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenRevocationListTest {
+
+    private final List<String> published = new ArrayList<>();
+    private final TokenRevocationList node1 = node();
+    private final TokenRevocationList node2 = node();
+
+    @Test
+    public void testRevokedSessionRejectsOlderTokens() {
+        long before = System.currentTimeMillis() - 1;
+        node1.revokeSession("sid-1");
+        assertTrue(node1.isRevoked("sid-1", "ann", before));
+        assertFalse(node1.isRevoked("sid-2", "ann", before));
+        assertFalse(node1.isRevoked("sid-1", "ann", System.currentTimeMillis() + 1));
+    }
+
+    @Test
+    public void testRevokedUserIsCaseInsensitive() {
+        long before = System.currentTimeMillis() - 1;
+        node1.revokeUsers(List.of("Ann"));
+        assertTrue(node1.isRevoked("sid-1", "ann", before));
+        assertTrue(node1.isRevoked("sid-2", "ANN", before));
+        assertFalse(node1.isRevoked("sid-1", "bob", before));
+    }
+
+    @Test
+    public void testRevocationIsReplicated() {
+        long before = System.currentTimeMillis() - 1;
+        node1.revokeUsers(List.of("ann", "bob"));
+        assertEquals(1, published.size());
+        assertFalse(node2.isRevoked("sid-1", "bob", before));
+        for (String body : published) {
+            node2.onMessage(new DefaultMessage(TokenRevocationList.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    body.getBytes(StandardCharsets.UTF_8)), null);
+        }
+        assertTrue(node2.isRevoked("sid-1", "bob", before));
+    }
+
+    private TokenRevocationList node() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setRevocationCapacity(1000L);
+        RedisUtils redisUtils = new RedisUtils(new RedisTemplate<>()) {
+            @Override
+            public void publish(String channel, String message) {
+                published.add(message);
+            }
+
+            @Override
+            public long zAddAll(String key, Map<Object, Double> scores) {
+                return scores.size();
+            }
+        };
+        return new TokenRevocationList(properties, redisUtils, new RedisMessageListenerContainer());
+    }
+}
@@ -58,6 +58,9 @@ public class LocalStorage extends BaseEntity implements Serializable {
     @ApiModelProperty(value = "Size")
     private String size;
 
+    @ApiModelProperty(value = "MD5", hidden = true)
+    private String md5;
+
     public LocalStorage(String realName,String name, String suffix, String path, String type, String size) {
         this.realName = realName;
         this.name = name;
@@ -18,6 +18,9 @@ package me.zhengjie.repository;
 import me.zhengjie.domain.LocalStorage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
 * @author Zheng Jie
@@ -31,4 +34,14 @@ public interface LocalStorageRepository extends JpaRepository<LocalStorage, Long
      * @return LocalStorage
      */
     LocalStorage findByRealName(String realName);
-}
\ No newline at end of file
+
+    /**
+     * Store the MD5 of a file uploaded before MD5s were recorded
+     * @param id storage ID
+     * @param md5 file MD5
+     */
+    @Modifying
+    @Transactional(rollbackFor = Exception.class)
+    @Query("update LocalStorage set md5 = ?2 where id = ?1")
+    void updateMd5(Long id, String md5);
+}
@@ -25,6 +25,7 @@ import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.service.LocalStorageService;
 import me.zhengjie.service.dto.LocalStorageDto;
 import me.zhengjie.service.dto.LocalStorageQueryCriteria;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.FileUtil;
 import me.zhengjie.utils.PageResult;
 import org.springframework.data.domain.Pageable;
@@ -35,6 +36,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
@@ -62,8 +64,8 @@ public class LocalStorageController {
     @ApiOperation("Export data")
     @GetMapping(value = "/download")
     @PreAuthorize("hasAnyAuthority('Admin')")
-    public void exportFile(HttpServletResponse response, LocalStorageQueryCriteria criteria) throws IOException {
-        localStorageService.download(localStorageService.queryAll(criteria), response);
+    public void exportFile(HttpServletResponse response, LocalStorageQueryCriteria criteria, String format) throws IOException {
+        localStorageService.download(criteria, ExportUtil.Format.of(format), response);
     }
 
     @PostMapping
@@ -115,7 +117,7 @@ public class LocalStorageController {
 
     @ApiOperation("View File / Image")
     @AnonymousGetMapping("/view/{realName:.+}")
-    public void viewFile(@PathVariable String realName, HttpServletResponse response) throws IOException {
-        localStorageService.streamFile(realName, response);
+    public void viewFile(@PathVariable String realName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        localStorageService.streamFile(realName, request, response);
     }
 }
\ No newline at end of file
@@ -45,4 +45,12 @@ public interface EmailService {
      * @param emailConfig email configuration
      */
     void send(EmailVo emailVo, EmailConfig emailConfig);
+
+    /**
+     * Queue an email in the outbox as part of the current transaction. It is sent in the background
+     * after the transaction commits, and many recipients are split across several messages.
+     * @param emailVo email content
+     * @return number of messages queued
+     */
+    int enqueue(EmailVo emailVo);
 }
@@ -18,9 +18,11 @@ package me.zhengjie.service;
 import me.zhengjie.domain.LocalStorage;
 import me.zhengjie.service.dto.LocalStorageDto;
 import me.zhengjie.service.dto.LocalStorageQueryCriteria;
+import me.zhengjie.utils.ExportUtil;
 import me.zhengjie.utils.PageResult;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
@@ -74,18 +76,20 @@ public interface LocalStorageService {
     void deleteAll(Long[] ids);
 
     /**
-     * Export data
-     * @param localStorageDtos data to be exported
+     * Export data, streaming it from the database straight into the response
+     * @param criteria query criteria
+     * @param format export format
      * @param response /
      * @throws IOException /
      */
-    void download(List<LocalStorageDto> localStorageDtos, HttpServletResponse response) throws IOException;
+    void download(LocalStorageQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException;
 
     /**
-     * Stream file to response
+     * Stream file to response, honouring conditional and Range requests
      * @param realName the real name of the file
+     * @param request HttpServletRequest
      * @param response HttpServletResponse
      * @throws IOException if an I/O error occurs
      */
-    void streamFile(String realName, HttpServletResponse response) throws IOException;
+    void streamFile(String realName, HttpServletRequest request, HttpServletResponse response) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,409 @@
+/*
+ *  Copyright 2019-2025 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.service.impl;
+
+import cn.hutool.extra.mail.MailAccount;
+import cn.hutool.extra.mail.MailUtil;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.domain.EmailConfig;
+import me.zhengjie.domain.vo.EmailVo;
+import me.zhengjie.repository.EmailRepository;
+import me.zhengjie.utils.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.mail.*;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件发件箱。
+ * 业务代码在自己的事务中把邮件写入 tool_email_outbox，事务提交后由后台定时任务发送，请求线程不再等待 SMTP。
+ * 收件人较多时按 {@code recipientsPerMessage} 拆成多封邮件；发送时每批邮件复用同一个 SMTP 连接，
+ * 并按 SMTP 服务器限制发送速率，超出速率的邮件退回发件箱留给下一轮；失败的邮件按指数退避重试，超过最大次数后标记为失败。
+ * 各节点以一条 UPDATE 认领待发送的邮件，认领带有租约，节点在发送中途退出时邮件会在租约到期后被重新发送。
+ * 发送在独立的线程中进行，每轮只处理一批，SMTP 连接、读取与写入都有超时，不会占用 Spring 共享的定时任务线程。
+ * @author Zheng Jie
+ */
+@Slf4j
+@Component
+public class EmailOutbox implements InitializingBean, DisposableBean {
+
+    private static final String INSERT_SQL = "INSERT INTO tool_email_outbox (recipients, subject, content, status, " +
+            "attempts, next_attempt_time, create_time, update_time) VALUES (?, ?, ?, 'PENDING', 0, ?, ?, ?)";
+    private static final int[] INSERT_TYPES = {Types.LONGVARCHAR, Types.VARCHAR, Types.LONGVARCHAR,
+            Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP};
+    private static final String CLAIM_SQL = "UPDATE tool_email_outbox SET status = 'SENDING', claim_token = ?, " +
+            "next_attempt_time = ?, update_time = ? WHERE status IN ('PENDING', 'SENDING') AND next_attempt_time <= ? " +
+            "ORDER BY next_attempt_time, id LIMIT ?";
+    private static final String CLAIMED_SQL = "SELECT id, recipients, subject, content, attempts " +
+            "FROM tool_email_outbox WHERE claim_token = ?";
+    private static final String RESULT_SQL = "UPDATE tool_email_outbox SET status = ?, attempts = ?, " +
+            "next_attempt_time = ?, last_error = ?, claim_token = NULL, update_time = ? WHERE id = ? AND claim_token = ?";
+    private static final int[] RESULT_TYPES = {Types.VARCHAR, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR,
+            Types.TIMESTAMP, Types.BIGINT, Types.VARCHAR};
+    private static final String RELEASE_SQL = "UPDATE tool_email_outbox SET status = 'PENDING', next_attempt_time = ?, " +
+            "claim_token = NULL, update_time = ? WHERE id = ? AND claim_token = ?";
+    private static final int[] RELEASE_TYPES = {Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.VARCHAR};
+    private static final String PURGE_SQL = "DELETE FROM tool_email_outbox WHERE status = 'SENT' AND update_time < ? LIMIT 1000";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailRepository emailRepository;
+    private final int recipientsPerMessage;
+    private final int batchSize;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final double rateLimit;
+    private final long pollInterval;
+    private final int connectTimeout;
+    private final int timeout;
+    private final int retentionDays;
+
+    /**
+     * 各 SMTP 服务器的发送令牌桶
+     */
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile Smtp smtp;
+    private ScheduledExecutorService dispatcher;
+
+    public EmailOutbox(JdbcTemplate jdbcTemplate, EmailRepository emailRepository,
+                       @Value("${email.outbox.recipients-per-message:50}") int recipientsPerMessage,
+                       @Value("${email.outbox.batch-size:20}") int batchSize,
+                       @Value("${email.outbox.lease:300}") long lease,
+                       @Value("${email.outbox.max-attempts:6}") int maxAttempts,
+                       @Value("${email.outbox.backoff:30}") long backoff,
+                       @Value("${email.outbox.max-backoff:3600}") long maxBackoff,
+                       @Value("${email.outbox.rate-limit:5}") double rateLimit,
+                       @Value("${email.outbox.poll-interval:1000}") long pollInterval,
+                       @Value("${email.outbox.connect-timeout:10000}") int connectTimeout,
+                       @Value("${email.outbox.timeout:30000}") int timeout,
+                       @Value("${email.outbox.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailRepository = emailRepository;
+        this.recipientsPerMessage = Math.max(1, recipientsPerMessage);
+        this.batchSize = Math.max(1, batchSize);
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(1, lease));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = TimeUnit.SECONDS.toMillis(Math.max(1, backoff));
+        this.maxBackoffMillis = Math.max(backoffMillis, TimeUnit.SECONDS.toMillis(maxBackoff));
+        this.rateLimit = Math.max(0, rateLimit);
+        this.pollInterval = Math.max(1, pollInterval);
+        this.connectTimeout = Math.max(1, connectTimeout);
+        this.timeout = Math.max(1, timeout);
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "email-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(() -> {
+            try {
+                dispatch();
+            } catch (Exception e) {
+                // 异常不能抛出，否则后续轮次不再执行
+                log.error("Failed to dispatch outbox emails: {}", e.getMessage(), e);
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 写入发件箱，与调用方处于同一事务，调用方回滚时邮件不会发送
+     * @param emailVo 邮件内容
+     * @return 写入的邮件数
+     */
+    public int enqueue(EmailVo emailVo) {
+        List<String> tos = emailVo.getTos().stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .toList();
+        if (tos.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < tos.size(); i += recipientsPerMessage) {
+            String recipients = String.join(",", tos.subList(i, Math.min(i + recipientsPerMessage, tos.size())));
+            rows.add(new Object[]{recipients, emailVo.getSubject(), emailVo.getContent(), now, now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+        return rows.size();
+    }
+
+    /**
+     * 发送到期的邮件，每轮只认领一批，其余的留给下一轮
+     */
+    void dispatch() {
+        List<Outgoing> batch = claim();
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * 清理已发送的历史邮件
+     */
+    @Scheduled(cron = "${email.outbox.purge-cron:0 20 4 * * ?}")
+    public void purge() {
+        Timestamp before = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, before);
+        } while (deleted > 0);
+    }
+
+    private List<Outgoing> claim() {
+        String token = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        int claimed = jdbcTemplate.update(CLAIM_SQL, token, new Timestamp(now + leaseMillis), new Timestamp(now),
+                new Timestamp(now), batchSize);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query(CLAIMED_SQL, (rs, i) -> new Outgoing(rs.getLong("id"), token,
+                rs.getString("recipients"), rs.getString("subject"), rs.getString("content"), rs.getInt("attempts")), token);
+    }
+
+    private void send(List<Outgoing> batch) {
+        List<Object[]> results = new ArrayList<>(batch.size());
+        Optional<EmailConfig> config = emailRepository.findById(1L);
+        if (config.isEmpty()) {
+            batch.forEach(outgoing -> results.add(failure(outgoing, "Email settings has not been configured yet.", false)));
+            saveResults(results);
+            return;
+        }
+        Smtp current;
+        try {
+            current = smtp(config.get());
+        } catch (RuntimeException e) {
+            batch.forEach(outgoing -> results.add(failure(outgoing, e.getMessage(), false)));
+            saveResults(results);
+            return;
+        }
+
+        Transport transport = null;
+        List<Outgoing> deferred = new ArrayList<>();
+        try {
+            for (Outgoing outgoing : batch) {
+                if (!deferred.isEmpty() || !tryAcquire(current.account().getHost())) {
+                    // 超出发送速率，退回发件箱由下一轮发送
+                    deferred.add(outgoing);
+                    continue;
+                }
+                try {
+                    MimeMessage message = message(current, outgoing);
+                    if (transport == null || !transport.isConnected()) {
+                        close(transport);
+                        transport = current.session().getTransport("smtp");
+                        MailAccount account = current.account();
+                        transport.connect(account.getHost(), account.getPort(), account.getUser(), account.getPass());
+                    }
+                    transport.sendMessage(message, message.getAllRecipients());
+                    results.add(sent(outgoing));
+                } catch (AddressException e) {
+                    results.add(failure(outgoing, e.getMessage(), true));
+                } catch (SendFailedException e) {
+                    if (isEmpty(e.getValidSentAddresses())) {
+                        // 全部收件人地址无效时重试也不会成功
+                        boolean permanent = isEmpty(e.getValidUnsentAddresses()) && !isEmpty(e.getInvalidAddresses());
+                        results.add(failure(outgoing, e.getMessage(), permanent));
+                    } else {
+                        // 已有收件人收到邮件，重试会重复发送，只记录无效的地址
+                        log.warn("Email {} was not delivered to {}", outgoing.id(), Arrays.toString(e.getInvalidAddresses()));
+                        results.add(sent(outgoing));
+                    }
+                } catch (MessagingException | RuntimeException e) {
+                    // 连接可能已不可用，下一封邮件重新建立连接
+                    close(transport);
+                    transport = null;
+                    results.add(failure(outgoing, e.getMessage(), false));
+                }
+            }
+        } finally {
+            close(transport);
+            saveResults(results);
+            release(deferred);
+        }
+    }
+
+    private void release(List<Outgoing> deferred) {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(deferred.size());
+        deferred.forEach(outgoing -> rows.add(new Object[]{now, now, outgoing.id(), outgoing.token()}));
+        try {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, rows, RELEASE_TYPES);
+        } catch (Exception e) {
+            // 未退回的邮件在租约到期后会被重新认领
+            log.error("Failed to release {} outbox emails: {}", rows.size(), e.getMessage(), e);
+        }
+    }
+
+    private void saveResults(List<Object[]> results) {
+        try {
+            jdbcTemplate.batchUpdate(RESULT_SQL, results, RESULT_TYPES);
+        } catch (Exception e) {
+            // 未保存结果的邮件在租约到期后会被重新认领
+            log.error("Failed to save the results of {} outbox emails: {}", results.size(), e.getMessage(), e);
+        }
+    }
+
+    private Object[] sent(Outgoing outgoing) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return new Object[]{"SENT", outgoing.attempts() + 1, now, null, now, outgoing.id(), outgoing.token()};
+    }
+
+    private Object[] failure(Outgoing outgoing, String error, boolean permanent) {
+        int attempts = outgoing.attempts() + 1;
+        long now = System.currentTimeMillis();
+        String message = StringUtils.isBlank(error) ? "Unknown error" : error;
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (permanent || attempts >= maxAttempts) {
+            log.error("Giving up email {} to {} after {} attempts: {}", outgoing.id(), outgoing.recipients(), attempts, message);
+            return new Object[]{"FAILED", attempts, new Timestamp(now), message, new Timestamp(now), outgoing.id(), outgoing.token()};
+        }
+        // 指数退避，加入 ±20% 的随机抖动，避免大量邮件在同一时刻重试
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        delay += (long) (delay * ThreadLocalRandom.current().nextDouble(-0.2, 0.2));
+        log.warn("Email {} failed on attempt {}, retrying in {} s: {}", outgoing.id(), attempts,
+                TimeUnit.MILLISECONDS.toSeconds(delay), message);
+        return new Object[]{"PENDING", attempts, new Timestamp(now + delay), message, new Timestamp(now), outgoing.id(), outgoing.token()};
+    }
+
+    /**
+     * 按 SMTP 服务器控制发送速率，令牌桶容量为一轮间隔内允许发送的邮件数，取不到令牌时不等待
+     */
+    private boolean tryAcquire(String host) {
+        if (rateLimit == 0) {
+            return true;
+        }
+        double capacity = Math.max(1, rateLimit * pollInterval / 1000);
+        return buckets.computeIfAbsent(host, key -> new Bucket(capacity)).tryAcquire(rateLimit, capacity);
+    }
+
+    private MimeMessage message(Smtp current, Outgoing outgoing) throws MessagingException {
+        MimeMessage message = new MimeMessage(current.session());
+        message.setFrom(current.from());
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(outgoing.recipients()));
+        message.setSubject(outgoing.subject(), "UTF-8");
+        message.setContent(outgoing.content(), "text/html;charset=UTF-8");
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    /**
+     * 邮件配置未变化时复用同一个 SMTP 会话
+     */
+    private Smtp smtp(EmailConfig config) {
+        String key = String.join("\n", config.getHost(), config.getPort(), config.getUser(), config.getFromUser(),
+                config.getPass());
+        Smtp current = smtp;
+        if (current != null && current.key().equals(key)) {
+            return current;
+        }
+        MailAccount account = EmailServiceImpl.mailAccount(config);
+        // SMTP 服务器无响应时不能无限期占用发送线程
+        account.setConnectionTimeout(connectTimeout);
+        account.setTimeout(timeout);
+        account.setWriteTimeout(timeout);
+        InternetAddress from;
+        try {
+            from = new InternetAddress(config.getFromUser(), config.getUser(), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        current = new Smtp(key, account, MailUtil.getSession(account, false), from);
+        smtp = current;
+        return current;
+    }
+
+    private static boolean isEmpty(Address[] addresses) {
+        return addresses == null || addresses.length == 0;
+    }
+
+    private static void close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 令牌桶，只由发送线程访问
+     */
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Bucket(double capacity) {
+            this.tokens = capacity;
+        }
+
+        boolean tryAcquire(double rate, double capacity) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    private record Smtp(String key, MailAccount account, Session session, InternetAddress from) {
+    }
+
+    private record Outgoing(long id, String token, String recipients, String subject, String content, int attempts) {
+    }
+}
@@ -42,6 +42,7 @@ import java.util.Optional;
 public class EmailServiceImpl implements EmailService {
 
     private final EmailRepository emailRepository;
+    private final EmailOutbox emailOutbox;
 
     @Override
     @CachePut(key = "'config'")
@@ -67,6 +68,34 @@ public class EmailServiceImpl implements EmailService {
         if (emailConfig.getId() == null) {
             throw new BadRequestException("Email settings has not been configured yet.");
         }
+        MailAccount account = mailAccount(emailConfig);
+        String content = emailVo.getContent();
+        // 发送
+        try {
+            int size = emailVo.getTos().size();
+            Mail.create(account)
+                    .setTos(emailVo.getTos().toArray(new String[size]))
+                    .setTitle(emailVo.getSubject())
+                    .setContent(content)
+                    .setHtml(true)
+                    .setUseGlobalSession(false)
+                    .send();
+        } catch (Exception e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    @Override
+    public int enqueue(EmailVo emailVo) {
+        return emailOutbox.enqueue(emailVo);
+    }
+
+    /**
+     * 根据邮件配置构建发件账号
+     * @param emailConfig 邮件配置
+     * @return /
+     */
+    static MailAccount mailAccount(EmailConfig emailConfig) {
         MailAccount account = new MailAccount();
         String user = emailConfig.getFromUser().split("@")[0];
         account.setUser(user);
@@ -82,19 +111,6 @@ public class EmailServiceImpl implements EmailService {
         account.setSslEnable(true);
         account.setStarttlsEnable(true);
         account.setSslProtocols("TLSv1 TLSv1.1 TLSv1.2");
-        String content = emailVo.getContent();
-        // 发送
-        try {
-            int size = emailVo.getTos().size();
-            Mail.create(account)
-                    .setTos(emailVo.getTos().toArray(new String[size]))
-                    .setTitle(emailVo.getSubject())
-                    .setContent(content)
-                    .setHtml(true)
-                    .setUseGlobalSession(false)
-                    .send();
-        } catch (Exception e) {
-            throw new BadRequestException(e.getMessage());
-        }
+        return account;
     }
 }
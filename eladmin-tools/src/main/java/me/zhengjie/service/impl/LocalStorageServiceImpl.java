@@ -30,17 +30,15 @@ import me.zhengjie.service.LocalStorageService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.MediaTypeFactory;
 
 /**
@@ -55,6 +53,7 @@ public class LocalStorageServiceImpl implements LocalStorageService {
     private final LocalStorageRepository localStorageRepository;
     private final LocalStorageMapper localStorageMapper;
     private final FileProperties properties;
+    private final EntityManager entityManager;
 
     @Override
     public PageResult<LocalStorageDto> queryAll(LocalStorageQueryCriteria criteria, Pageable pageable){
@@ -94,6 +93,7 @@ public class LocalStorageServiceImpl implements LocalStorageService {
                     type,
                     FileUtil.getSize(multipartFile.getSize())
             );
+            localStorage.setMd5(FileUtil.getMd5(file));
             return localStorageRepository.save(localStorage);
         }catch (Exception e){
             FileUtil.del(file);
@@ -121,24 +121,21 @@ public class LocalStorageServiceImpl implements LocalStorageService {
     }
 
     @Override
-    public void download(List<LocalStorageDto> queryAll, HttpServletResponse response) throws IOException {
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (LocalStorageDto localStorageDTO : queryAll) {
-            Map<String,Object> map = new LinkedHashMap<>();
-            map.put("File name", localStorageDTO.getRealName());
-            map.put("Remark name", localStorageDTO.getName());
-            map.put("File type", localStorageDTO.getType());
-            map.put("File size", localStorageDTO.getSize());
-            map.put("Creator", localStorageDTO.getCreateBy());
-            map.put("Creation date", localStorageDTO.getCreateTime());
-            list.add(map);
-        }
-        FileUtil.downloadExcel(list, response);
+    @Transactional(readOnly = true)
+    public void download(LocalStorageQueryCriteria criteria, ExportUtil.Format format, HttpServletResponse response) throws IOException {
+        ExportUtil.Columns<LocalStorage> columns = ExportUtil.<LocalStorage>columns()
+                .add("File name", LocalStorage::getRealName)
+                .add("Remark name", LocalStorage::getName)
+                .add("File type", LocalStorage::getType)
+                .add("File size", LocalStorage::getSize)
+                .add("Creator", LocalStorage::getCreateBy)
+                .add("Creation date", LocalStorage::getCreateTime);
+        ExportUtil.export(response, "storage", format, columns,
+                QueryHelp.stream(entityManager, LocalStorage.class, criteria, ExportUtil.BATCH_SIZE));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public void streamFile(String realName, HttpServletResponse response) throws IOException {
+    public void streamFile(String realName, HttpServletRequest request, HttpServletResponse response) throws IOException {
         LocalStorage localStorage = localStorageRepository.findByRealName(realName);
         if (localStorage == null) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found: " + realName);
@@ -153,24 +150,25 @@ public class LocalStorageServiceImpl implements LocalStorageService {
             return;
         }
 
-        org.springframework.http.MediaType mediaType = MediaTypeFactory
-                .getMediaType(localStorage.getRealName())
-                .orElse(org.springframework.http.MediaType.APPLICATION_OCTET_STREAM);
-        String contentType = mediaType.toString();
-
-        response.setContentType(contentType);
-        response.setHeader("Content-Disposition", "inline; filename=\"" + localStorage.getRealName() + "\"");
-        response.setContentLengthLong(file.length());
-
-        try (FileInputStream fis = new FileInputStream(file); OutputStream os = response.getOutputStream()) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                os.write(buffer, 0, bytesRead);
+        // Files uploaded before MD5s were recorded get theirs on first view
+        String md5 = localStorage.getMd5();
+        if (StringUtils.isBlank(md5)) {
+            md5 = FileUtil.getMd5(file);
+            if (md5 != null) {
+                localStorageRepository.updateMd5(localStorage.getId(), md5);
             }
-            os.flush();
+        }
+
+        String contentType = MediaTypeFactory
+                .getMediaType(localStorage.getRealName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+
+        try {
+            FileStreamUtil.stream(request, response, file, FileStreamUtil.etag(file, md5), contentType, localStorage.getRealName());
         } catch (IOException e) {
-            // Check if response is already committed before sending error
+            // Clients routinely abort image and video downloads, only report errors before anything was sent
+            log.debug("Error streaming file {}: {}", realName, e.getMessage());
             if (!response.isCommitted()) {
                 response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error streaming file");
             }